@@ -17,7 +17,9 @@
 package com.thoughtworks.go.agent;
 
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerWebSocketClientBuilder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.URLService;
+import com.thoughtworks.go.websocket.MessageEncoding;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
@@ -33,11 +35,13 @@ public class WebSocketClientHandler {
     private WebSocketClient webSocketClient;
     private GoAgentServerWebSocketClientBuilder builder;
     private URLService urlService;
+    private SystemEnvironment systemEnvironment;
 
     @Autowired
-    public WebSocketClientHandler(GoAgentServerWebSocketClientBuilder builder, URLService urlService) {
+    public WebSocketClientHandler(GoAgentServerWebSocketClientBuilder builder, URLService urlService, SystemEnvironment systemEnvironment) {
         this.builder = builder;
         this.urlService = urlService;
+        this.systemEnvironment = systemEnvironment;
     }
 
     public Session connect(AgentWebSocketClientController controller)
@@ -53,6 +57,9 @@ public class WebSocketClientHandler {
         LOG.info("Connecting to websocket endpoint: {}", urlService.getAgentRemoteWebSocketUrl());
         ClientUpgradeRequest request = new ClientUpgradeRequest();
         request.addExtensions("fragment;maxLength=" + getMessageBufferSize());
+        if (systemEnvironment.isWebsocketBinaryMessagesEnabled()) {
+            request.setHeader(MessageEncoding.ENCODING_HEADER, MessageEncoding.BINARY_ENCODING);
+        }
         return webSocketClient.connect(controller, new URI(urlService.getAgentRemoteWebSocketUrl()), request).get();
     }
 
@@ -41,6 +41,7 @@ public class WebSocketSessionHandler {
     private String sessionName = "[No Session]";
     private final Map<String, MessageCallback> callbacks = new ConcurrentHashMap<>();
     private SystemEnvironment systemEnvironment;
+    private volatile boolean binaryMessages;
 
     @Autowired
     public WebSocketSessionHandler(SystemEnvironment systemEnvironment) {
@@ -68,7 +69,7 @@ public class WebSocketSessionHandler {
         for (int retries = 1; retries <= systemEnvironment.getWebsocketSendRetryCount(); retries++) {
             try {
                 LOG.debug("{} attempt {} to send message: {}", sessionName(), retries, message);
-                session.getRemote().sendBytesByFuture(ByteBuffer.wrap(MessageEncoding.encodeMessage(message)));
+                session.getRemote().sendBytesByFuture(ByteBuffer.wrap(encode(message)));
                 break;
             } catch (Throwable e) {
                 try {
@@ -83,6 +84,10 @@ public class WebSocketSessionHandler {
         }
     }
 
+    private byte[] encode(Message message) {
+        return binaryMessages ? MessageEncoding.encodeBinaryMessage(message, systemEnvironment.getWebsocketMessageDeflateThreshold()) : MessageEncoding.encodeMessage(message);
+    }
+
     boolean sendAndWaitForAcknowledgement(Message message) {
         final CountDownLatch wait = new CountDownLatch(1);
         sendWithCallback(message, wait::countDown);
@@ -106,6 +111,8 @@ public class WebSocketSessionHandler {
     void setSession(Session session) {
         this.session = session;
         this.sessionName = "[" + session.getRemoteAddress() + "]";
+        this.binaryMessages = session.getUpgradeResponse() != null
+                && MessageEncoding.BINARY_ENCODING.equals(session.getUpgradeResponse().getHeader(MessageEncoding.ENCODING_HEADER));
     }
 
     String getSessionName() {
@@ -59,7 +59,7 @@ public class WebSocketClientHandlerTest {
         urlService = mock(URLService.class);
         when(urlService.getAgentRemoteWebSocketUrl()).thenReturn("wss://localhost/websocket");
 
-        webSocketClientHandler = new WebSocketClientHandler(builder, urlService);
+        webSocketClientHandler = new WebSocketClientHandler(builder, urlService, new SystemEnvironment());
         session = mock(Future.class);
     }
 
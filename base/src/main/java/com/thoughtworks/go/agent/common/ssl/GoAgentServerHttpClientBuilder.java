@@ -18,13 +18,17 @@ package com.thoughtworks.go.agent.common.ssl;
 
 import com.thoughtworks.go.util.SslVerificationMode;
 import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContextBuilder;
 
 import javax.net.ssl.HostnameVerifier;
@@ -32,6 +36,7 @@ import java.io.File;
 import java.security.KeyStore;
 
 public class GoAgentServerHttpClientBuilder extends GoAgentServerClientBuilder<CloseableHttpClient> {
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
 
     public GoAgentServerHttpClientBuilder(File rootCertFile, SslVerificationMode sslVerificationMode) {
         super(new SystemEnvironment(), rootCertFile, AGENT_CERTIFICATE_FILE, sslVerificationMode);
@@ -44,12 +49,12 @@ public class GoAgentServerHttpClientBuilder extends GoAgentServerClientBuilder<C
     public CloseableHttpClient build() throws Exception {
         HttpClientBuilder builder = HttpClients.custom();
         builder.useSystemProperties();
+        SocketConfig socketConfig = SocketConfig.custom()
+                .setTcpNoDelay(true)
+                .setSoKeepAlive(true)
+                .build();
         builder
-                .setDefaultSocketConfig(SocketConfig.custom()
-                        .setTcpNoDelay(true)
-                        .setSoKeepAlive(true)
-                        .build()
-                )
+                .setDefaultSocketConfig(socketConfig)
                 .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE);
 
         HostnameVerifier hostnameVerifier = sslVerificationMode.verifier();
@@ -67,7 +72,25 @@ public class GoAgentServerHttpClientBuilder extends GoAgentServerClientBuilder<C
 
         SSLConnectionSocketFactory sslConnectionSocketFactory = new SSLConnectionSocketFactory(sslContextBuilder.build(), hostnameVerifier);
         builder.setSSLSocketFactory(sslConnectionSocketFactory);
+
+        int fetchConcurrency = systemEnvironment.getArtifactFetchConcurrency();
+        if (fetchConcurrency > 1) {
+            builder.setConnectionManager(connectionManager(sslConnectionSocketFactory, socketConfig, fetchConcurrency));
+        }
         return builder.build();
     }
 
+    // concurrent artifact fetches should not queue behind the console, ping and upload connections
+    private PoolingHttpClientConnectionManager connectionManager(SSLConnectionSocketFactory sslConnectionSocketFactory, SocketConfig socketConfig, int fetchConcurrency) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslConnectionSocketFactory)
+                .build());
+        int maxConnectionsPerRoute = Math.max(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, fetchConcurrency + 3);
+        connectionManager.setDefaultSocketConfig(socketConfig);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(2 * maxConnectionsPerRoute);
+        return connectionManager;
+    }
+
 }
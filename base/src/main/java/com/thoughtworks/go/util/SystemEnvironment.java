@@ -110,7 +110,27 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final String TFS_SOCKET_TIMEOUT_PROPERTY = "tfs.socket.block.timeout";
 
     public static GoSystemProperty<Integer> RESOLVE_FANIN_MAX_BACK_TRACK_LIMIT = new CachedProperty<>(new GoIntSystemProperty("resolve.fanin.max.backtrack.limit", 100));
+    public static GoSystemProperty<Integer> RESOLVE_FANIN_THREADS = new CachedProperty<>(new GoIntSystemProperty("resolve.fanin.threads", 4));
     public static GoSystemProperty<Integer> MATERIAL_UPDATE_INACTIVE_TIMEOUT = new CachedProperty<>(new GoIntSystemProperty("material.update.inactive.timeout", 15));
+    public static GoSystemProperty<Boolean> GO_SERVER_GIT_MIRRORS_ENABLED = new GoBooleanSystemProperty("go.server.git.mirrors.enabled", false);
+    public static GoSystemProperty<Integer> GO_SERVER_GIT_MIRROR_REFRESH_INTERVAL_IN_SECONDS = new GoIntSystemProperty("go.server.git.mirror.refresh.interval.seconds", 60);
+    public static GoSystemProperty<Integer> POST_COMMIT_COALESCE_WINDOW_IN_SECONDS = new CachedProperty<>(new GoIntSystemProperty("postcommit.coalesce.window.seconds", 60));
+    public static GoSystemProperty<Integer> MATERIAL_UPDATE_MAX_BACKOFF_MULTIPLIER = new CachedProperty<>(new GoIntSystemProperty("material.update.max.backoff.multiplier", 4));
+    public static GoSystemProperty<Integer> MATERIAL_MAX_MODIFIED_FILES_PER_REVISION = new CachedProperty<>(new GoIntSystemProperty("material.max.modified.files.per.revision", 10000));
+    public static GoSystemProperty<Integer> MODIFICATION_SEARCH_INDEX_BACKFILL_BATCH_SIZE = new CachedProperty<>(new GoIntSystemProperty("modification.search.index.backfill.batch.size", 5000));
+    public static GoSystemProperty<Integer> SCM_SUBPROCESS_MAX_CONCURRENT = new CachedProperty<>(new GoIntSystemProperty("scm.subprocess.max.concurrent", 32));
+    public static GoSystemProperty<Integer> SCM_SUBPROCESS_MAX_CONCURRENT_PER_HOST = new CachedProperty<>(new GoIntSystemProperty("scm.subprocess.max.concurrent.per.host", 8));
+    public static GoSystemProperty<Integer> SCM_SUBPROCESS_QUEUE_TIMEOUT_IN_SECONDS = new CachedProperty<>(new GoIntSystemProperty("scm.subprocess.queue.timeout.seconds", 600));
+    public static GoSystemProperty<Boolean> ARTIFACT_DEDUPLICATION_ENABLED = new CachedProperty<>(new GoBooleanSystemProperty("go.server.artifacts.deduplication.enabled", false));
+    public static GoSystemProperty<Long> ARTIFACT_DEDUPLICATION_MIN_FILE_SIZE_IN_BYTES = new CachedProperty<>(new GoLongSystemProperty("go.server.artifacts.deduplication.min.file.size.bytes", 64 * 1024L));
+    public static GoSystemProperty<Integer> ARTIFACT_DEDUPLICATION_STALE_STAGING_IN_HOURS = new CachedProperty<>(new GoIntSystemProperty("go.server.artifacts.deduplication.stale.staging.hours", 6));
+    public static GoSystemProperty<Integer> ARTIFACT_CACHE_CREATOR_THREADS = new CachedProperty<>(new GoIntSystemProperty("go.server.artifacts.cache.creator.threads", 4));
+    public static GoSystemProperty<Boolean> ARTIFACT_CACHE_STREAMING_ENABLED = new CachedProperty<>(new GoBooleanSystemProperty("go.server.artifacts.cache.streaming.enabled", false));
+    public static GoSystemProperty<Long> ARTIFACT_CACHE_MAX_SIZE_IN_MB = new CachedProperty<>(new GoLongSystemProperty("go.server.artifacts.cache.max.size.mb", 0L));
+    public static GoSystemProperty<Integer> CONSOLE_LOG_WRITER_THREADS = new CachedProperty<>(new GoIntSystemProperty("go.server.console.log.writer.threads", 2));
+    public static GoSystemProperty<Integer> CONSOLE_LOG_IDLE_TIMEOUT_IN_SECONDS = new CachedProperty<>(new GoIntSystemProperty("go.server.console.log.idle.timeout.seconds", 60));
+    public static GoSystemProperty<Long> CONSOLE_LOG_FSYNC_INTERVAL_IN_MILLIS = new CachedProperty<>(new GoLongSystemProperty("go.server.console.log.fsync.interval.ms", 5000L));
+    public static GoSystemProperty<Integer> CONSOLE_LOG_WRITE_TIMEOUT_IN_SECONDS = new CachedProperty<>(new GoIntSystemProperty("go.server.console.log.write.timeout.seconds", 60));
 
     public static GoSystemProperty<Integer> H2_DB_TRACE_LEVEL = new GoIntSystemProperty("h2.trace.level", 1);
     public static GoSystemProperty<Integer> H2_DB_TRACE_FILE_SIZE_MB = new GoIntSystemProperty("h2.trace.file.size.mb", 16);
@@ -156,6 +176,11 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static GoSystemProperty<String> GO_DATABASE_PASSWORD = new GoStringSystemProperty("db.password", "");
     public static GoIntSystemProperty GO_DATABASE_MAX_ACTIVE = new GoIntSystemProperty("db.maxActive", 32);
     public static GoIntSystemProperty GO_DATABASE_MAX_IDLE = new GoIntSystemProperty("db.maxIdle", 32);
+    public static GoIntSystemProperty GO_DATABASE_MAX_WAIT_MILLIS = new GoIntSystemProperty("db.maxWaitMillis", -1);
+    public static GoSystemProperty<Boolean> GO_DATABASE_POOL_PREPARED_STATEMENTS = new GoBooleanSystemProperty("db.poolPreparedStatements", true);
+    public static GoIntSystemProperty GO_DATABASE_MAX_OPEN_PREPARED_STATEMENTS = new GoIntSystemProperty("db.maxOpenPreparedStatements", 256);
+    public static GoIntSystemProperty GO_DATABASE_ABANDONED_CONNECTION_TIMEOUT_SECONDS = new GoIntSystemProperty("db.abandonedConnectionTimeoutSeconds", 0);
+    public static GoIntSystemProperty GO_DATABASE_SLOW_QUERY_THRESHOLD_MILLIS = new GoIntSystemProperty("db.slowQueryThresholdMillis", 1000);
     public static final String H2_DATABASE = "com.thoughtworks.go.server.database.H2Database";
     public static GoStringSystemProperty GO_DATABASE_PROVIDER = new GoStringSystemProperty("go.database.provider", H2_DATABASE);
     public static GoSystemProperty<String> JETTY_XML_FILE_NAME = new GoStringSystemProperty("jetty.xml.file.name", JETTY_XML);
@@ -194,10 +219,22 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static GoSystemProperty<Boolean> WEBSOCKET_ENABLED = new GoBooleanSystemProperty("go.agent.websocket.enabled", false);
     public static GoSystemProperty<Boolean> CONSOLE_LOGS_THROUGH_WEBSOCKET_ENABLED = new GoBooleanSystemProperty("go.agent.console.logs.websocket.enabled", false);
+    public static GoSystemProperty<Boolean> STREAMING_ARTIFACT_UPLOAD_ENABLED = new GoBooleanSystemProperty("go.agent.artifact.upload.streaming.enabled", false);
+    public static GoSystemProperty<Integer> ARTIFACT_FETCH_CONCURRENCY = new GoIntSystemProperty("go.agent.artifact.fetch.concurrency", 1);
+    public static GoSystemProperty<Long> ARTIFACT_FETCH_BANDWIDTH_LIMIT_IN_KB_PER_SECOND = new GoLongSystemProperty("go.agent.artifact.fetch.bandwidth.limit.kbps", 0L);
+    public static GoSystemProperty<Long> AGENT_ARTIFACT_CACHE_MAX_SIZE_IN_MB = new GoLongSystemProperty("go.agent.artifact.cache.max.size.mb", 0L);
+    public static GoSystemProperty<String> AGENT_ARTIFACT_CACHE_DIR = new GoStringSystemProperty("go.agent.artifact.cache.dir", "artifact-cache");
+    public static GoSystemProperty<Boolean> AGENT_ARTIFACT_CACHE_HARD_LINKS_ENABLED = new GoBooleanSystemProperty("go.agent.artifact.cache.hardlinks.enabled", false);
+    public static GoSystemProperty<Integer> CONSOLE_FLUSH_SIZE_IN_KB = new GoIntSystemProperty("go.agent.console.flush.size.kb", 64);
+    public static GoSystemProperty<Integer> CONSOLE_BUFFER_SIZE_IN_KB = new GoIntSystemProperty("go.agent.console.buffer.size.kb", 8 * 1024);
+    public static GoSystemProperty<Boolean> CONSOLE_COMPRESSION_ENABLED = new GoBooleanSystemProperty("go.agent.console.compression.enabled", false);
 
     public static GoSystemProperty<Boolean> AUTO_REGISTER_LOCAL_AGENT_ENABLED = new GoBooleanSystemProperty("go.auto.register.local.agent.enabled", true);
     public static GoSystemProperty<Long> GO_WEBSOCKET_ACK_MESSAGE_TIMEOUT = new GoLongSystemProperty("go.websocket.ack.message.timeout", 300 * 1000L);
     public static GoSystemProperty<Integer> GO_WEBSOCKET_SEND_RETRY_COUNT = new GoIntSystemProperty("go.websocket.send.retry.count", 5);
+    public static GoSystemProperty<Boolean> GO_WEBSOCKET_BINARY_MESSAGES_ENABLED = new GoBooleanSystemProperty("go.websocket.binary.messages.enabled", false);
+    public static GoSystemProperty<Integer> GO_WEBSOCKET_MESSAGE_DEFLATE_THRESHOLD = new GoIntSystemProperty("go.websocket.message.deflate.threshold.bytes", 1024);
+    public static GoSystemProperty<Integer> GO_WEBSOCKET_MAX_BINARY_MESSAGE_SIZE = new GoIntSystemProperty("go.websocket.max.binary.message.size.bytes", 64 * 1024 * 1024);
 
     public static GoSystemProperty<Long> GO_WEBSOCKET_MAX_IDLE_TIME = new GoLongSystemProperty("go.websocket.max.idle.time", 60 * 1000L);
     public static GoSystemProperty<Boolean> GO_SERVER_SHALLOW_CLONE = new GoBooleanSystemProperty("go.server.shallowClone", false);
@@ -792,6 +829,42 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return CONSOLE_LOGS_THROUGH_WEBSOCKET_ENABLED.getValue();
     }
 
+    public boolean isStreamingArtifactUploadEnabled() {
+        return STREAMING_ARTIFACT_UPLOAD_ENABLED.getValue();
+    }
+
+    public int getArtifactFetchConcurrency() {
+        return Math.max(1, ARTIFACT_FETCH_CONCURRENCY.getValue());
+    }
+
+    public long getArtifactFetchBandwidthLimitInBytesPerSecond() {
+        return Math.max(0, ARTIFACT_FETCH_BANDWIDTH_LIMIT_IN_KB_PER_SECOND.getValue()) * 1024;
+    }
+
+    public long getAgentArtifactCacheMaxSizeInBytes() {
+        return Math.max(0, AGENT_ARTIFACT_CACHE_MAX_SIZE_IN_MB.getValue()) * 1024 * 1024;
+    }
+
+    public File getAgentArtifactCacheDir() {
+        return new File(AGENT_ARTIFACT_CACHE_DIR.getValue());
+    }
+
+    public boolean isAgentArtifactCacheHardLinksEnabled() {
+        return AGENT_ARTIFACT_CACHE_HARD_LINKS_ENABLED.getValue();
+    }
+
+    public int getConsoleFlushSizeInChars() {
+        return Math.max(1, CONSOLE_FLUSH_SIZE_IN_KB.getValue()) * 1024;
+    }
+
+    public int getConsoleBufferSizeInChars() {
+        return Math.max(1, CONSOLE_BUFFER_SIZE_IN_KB.getValue()) * 1024;
+    }
+
+    public boolean isConsoleCompressionEnabled() {
+        return CONSOLE_COMPRESSION_ENABLED.getValue();
+    }
+
     public boolean isAutoRegisterLocalAgentEnabled() {
         return AUTO_REGISTER_LOCAL_AGENT_ENABLED.getValue();
     }
@@ -808,6 +881,14 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return GO_WEBSOCKET_SEND_RETRY_COUNT.getValue();
     }
 
+    public boolean isWebsocketBinaryMessagesEnabled() {
+        return GO_WEBSOCKET_BINARY_MESSAGES_ENABLED.getValue();
+    }
+
+    public int getWebsocketMessageDeflateThreshold() {
+        return GO_WEBSOCKET_MESSAGE_DEFLATE_THRESHOLD.getValue();
+    }
+
     public Long getConfigGitGCExpireTime() {
         Long hour = GO_CONFIG_REPO_GC_EXPIRE.getValue();
         return hour * 60 * 60 * 1000;
@@ -16,10 +16,14 @@
 
 package com.thoughtworks.go.util;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 
 import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -60,41 +64,55 @@ public class ZipUtil {
         zipContents(file, output, level, false);
     }
 
+    /**
+     * Zips to the given stream and hands the md5 of every file to the handler as it is written,
+     * so that callers do not need a second pass over the source to checksum it.
+     */
+    public void zip(File file, OutputStream output, int level, ChecksumHandler checksumHandler) throws IOException {
+        new ZipBuilder(this, level, output, false).withChecksumHandler(checksumHandler).add("", file).done();
+    }
+
     private void zipContents(File file, OutputStream output, int level, boolean excludeRootDir) throws IOException {
         new ZipBuilder(this, level, output, excludeRootDir).add("", file).done();
     }
 
-    private void addFolderToZip(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    private void addFolderToZip(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir, ChecksumHandler checksumHandler) throws IOException {
         ZipPath newPath = path.with(source);
         if (source.isFile()) {
-            addToZip(newPath, source, zip, false);
+            addToZip(newPath, source, zip, false, checksumHandler);
         } else {
-            addDirectory(path, source, zip, excludeRootDir);
+            addDirectory(path, source, zip, excludeRootDir, checksumHandler);
         }
     }
 
-    private void addDirectory(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    private void addDirectory(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir, ChecksumHandler checksumHandler) throws IOException {
         if (excludeRootDir) {
-            addDirContents(path, source, zip);
+            addDirContents(path, source, zip, checksumHandler);
             return;
         }
         ZipPath newPath = path.with(source);
         zip.putNextEntry(newPath.asZipEntryDirectory());
-        addDirContents(newPath, source, zip);
+        addDirContents(newPath, source, zip, checksumHandler);
     }
 
-    private void addDirContents(ZipPath path, File source, ZipOutputStream zip) throws IOException {
+    private void addDirContents(ZipPath path, File source, ZipOutputStream zip, ChecksumHandler checksumHandler) throws IOException {
         for (File file : source.listFiles()) {
-            addToZip(path, file, zip, false);
+            addToZip(path, file, zip, false, checksumHandler);
         }
     }
 
     void addToZip(ZipPath path, File srcFile, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+        addToZip(path, srcFile, zip, excludeRootDir, null);
+    }
+
+    void addToZip(ZipPath path, File srcFile, ZipOutputStream zip, boolean excludeRootDir, ChecksumHandler checksumHandler) throws IOException {
         if (srcFile.isDirectory()) {
-            addFolderToZip(path, srcFile, zip, excludeRootDir);
+            addFolderToZip(path, srcFile, zip, excludeRootDir, checksumHandler);
         } else {
             byte[] buff = new byte[4096];
-            try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(srcFile))) {
+            MessageDigest digest = checksumHandler == null ? null : DigestUtils.getMd5Digest();
+            InputStream source = new BufferedInputStream(new FileInputStream(srcFile));
+            try (InputStream inputStream = digest == null ? source : new DigestInputStream(source, digest)) {
                 ZipEntry zipEntry = path.with(srcFile).asZipEntry();
                 zipEntry.setTime(srcFile.lastModified());
                 zip.putNextEntry(zipEntry);
@@ -102,6 +120,9 @@ public class ZipUtil {
                 while ((len = inputStream.read(buff)) > 0) {
                     zip.write(buff, 0, len);
                 }
+                if (digest != null) {
+                    checksumHandler.handleChecksum(zipEntry.getName(), Hex.encodeHexString(digest.digest()));
+                }
             }
         }
     }
@@ -189,4 +210,8 @@ public class ZipUtil {
         void handleEntry(ZipEntry entry, InputStream stream) throws IOException;
     }
 
+    public interface ChecksumHandler {
+        void handleChecksum(String entryName, String md5) throws IOException;
+    }
+
 }
@@ -19,6 +19,7 @@ package com.thoughtworks.go.util;
 import com.googlecode.junit.ext.JunitExtRunner;
 import com.googlecode.junit.ext.RunIf;
 import com.googlecode.junit.ext.checkers.OSChecker;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
@@ -28,10 +29,14 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -101,6 +106,21 @@ public class ZipUtilTest {
         assertThat(fileContent(actual2), is(fileContent(file2)));
     }
 
+    @Test
+    public void shouldHandOutChecksumOfEveryFileWhileZippingToAStream() throws IOException {
+        Map<String, String> checksums = new HashMap<>();
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+
+        zipUtil.zip(srcDir, zipped, Deflater.BEST_SPEED, checksums::put);
+
+        assertThat(checksums.size(), is(2));
+        assertThat(checksums.get("_test1/_file1"), is(DigestUtils.md5Hex("_file1")));
+        assertThat(checksums.get("_test1/_child1/_file2"), is(DigestUtils.md5Hex("_file2")));
+
+        zipUtil.unzip(new ZipInputStream(new ByteArrayInputStream(zipped.toByteArray())), destDir);
+        assertThat(fileContent(new File(destDir, "_test1/_child1/_file2")), is("_file2"));
+    }
+
     @Test
     public void shouldZipFileContentsAndUnzipIt() throws IOException {
         zipFile = zipUtil.zip(srcDir, temporaryFolder.newFile(), Deflater.NO_COMPRESSION);
@@ -431,4 +431,19 @@ public class CommandLine {
     public ConsoleResult runOrBomb(String processTag, String... input) {
         return runOrBomb(true, processTag, input);
     }
+
+    /**
+     * Hands standard output to the consumer line by line as it is, for output that is parsed rather than displayed.
+     * Secrets are masked only in the error reported when the command fails.
+     */
+    public void streamOrBomb(StreamConsumer outputConsumer, String processTag, String... input) {
+        LOG.debug("Running {}", this);
+        addInput(input);
+        InMemoryConsumer errors = new InMemoryConsumer();
+        ProcessWrapper process = execute(new ProcessOutputStreamConsumer<>(outputConsumer, errors), new EnvironmentVariableContext(), processTag);
+        int returnValue = process.waitForExit();
+        if (returnValue != 0) {
+            throw new CommandLineException(this, new ConsoleResult(returnValue, new ArrayList<>(), errors.asList(), arguments, secrets));
+        }
+    }
 }
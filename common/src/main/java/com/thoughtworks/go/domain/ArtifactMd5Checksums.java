@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.Properties;
+import java.util.Set;
 
 public class ArtifactMd5Checksums implements Serializable {
 
@@ -87,4 +88,8 @@ public class ArtifactMd5Checksums implements Serializable {
     public String md5For(String artifactPath) {
         return checksumProperties.getProperty(artifactPath);
     }
+
+    public Set<String> artifactPaths() {
+        return checksumProperties.stringPropertyNames();
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.domain;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * @understands which files a fetch wrote on the agent, so that they can be kept and put back without downloading them again
+ */
+public interface CacheableFetchHandler extends FetchHandler {
+    /**
+     * Directory that the paths of fetched files are relative to.
+     */
+    File destinationOnAgent();
+
+    /**
+     * MD5 of every file written by the last successful fetch, by its path relative to {@link #destinationOnAgent()}.
+     */
+    Map<String, String> fetchedFileChecksums();
+
+    /**
+     * Name of a fetched file in the checksums published with the artifact.
+     */
+    String checksumKeyOf(String relativePath);
+
+    /**
+     * Whether the file published under the given checksum name is part of what this handler fetches.
+     */
+    boolean fetches(String checksumKey);
+
+    /**
+     * A handler fetching the same artifact into the given directory instead of {@link #destinationOnAgent()}.
+     */
+    CacheableFetchHandler redirectedTo(File destinationOnAgent);
+}
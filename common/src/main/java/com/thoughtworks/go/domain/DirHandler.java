@@ -27,19 +27,24 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.ZipEntry;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.zip.ZipInputStream;
 
 import static com.thoughtworks.go.util.CachedDigestUtils.md5Hex;
 import static com.thoughtworks.go.util.MapBuilder.map;
 import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.apache.commons.lang3.StringUtils.removeStart;
 
-public class DirHandler implements FetchHandler {
+public class DirHandler implements CacheableFetchHandler {
     private final String srcFile;
     private final File destOnAgent;
     private static final Logger LOG = LoggerFactory.getLogger(DirHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient Map<String, String> fetchedChecksums = new LinkedHashMap<>();
 
     public DirHandler(String srcFile, File destOnAgent) {
         this.srcFile = srcFile;
@@ -56,16 +61,45 @@ public class DirHandler implements FetchHandler {
         LOG.info("[Agent Fetch Artifact] Downloading from '{}' to '{}'. Will read from Socket stream to compute MD5 and write to file", srcFile, destOnAgent.getAbsolutePath());
 
         long before = System.currentTimeMillis();
+        Map<String, String> checksums = new LinkedHashMap<>();
         new ZipUtil((entry, stream1) -> {
             LOG.info("[Agent Fetch Artifact] Downloading a directory from '{}' to '{}'. Handling the entry: '{}'", srcFile, destOnAgent.getAbsolutePath(), entry.getName());
-            new ChecksumValidator(artifactMd5Checksums).validate(getSrcFilePath(entry), md5Hex(stream1), checksumValidationPublisher);
+            String md5 = md5Hex(stream1);
+            checksums.put(removeStart(entry.getName(), "/"), md5);
+            new ChecksumValidator(artifactMd5Checksums).validate(getSrcFilePath(entry.getName()), md5, checksumValidationPublisher);
         }).unzip(zipInputStream, destOnAgent);
+        fetchedChecksums = checksums;
         LOG.info("[Agent Fetch Artifact] Downloading a directory from '{}' to '{}'. Took: {}ms", srcFile, destOnAgent.getAbsolutePath(), System.currentTimeMillis() - before);
     }
 
-    private String getSrcFilePath(ZipEntry entry) {
+    private String getSrcFilePath(String entryName) {
         String parent = new File(srcFile).getParent();
-        return FilenameUtils.separatorsToUnix(new File(parent, entry.getName()).getPath());
+        return FilenameUtils.separatorsToUnix(new File(parent, entryName).getPath());
+    }
+
+    @Override
+    public File destinationOnAgent() {
+        return destOnAgent;
+    }
+
+    @Override
+    public CacheableFetchHandler redirectedTo(File destinationOnAgent) {
+        return new DirHandler(srcFile, destinationOnAgent);
+    }
+
+    @Override
+    public Map<String, String> fetchedFileChecksums() {
+        return fetchedChecksums == null ? Collections.emptyMap() : fetchedChecksums;
+    }
+
+    @Override
+    public String checksumKeyOf(String relativePath) {
+        return getSrcFilePath(relativePath);
+    }
+
+    @Override
+    public boolean fetches(String checksumKey) {
+        return checksumKey.startsWith(removeEnd(FilenameUtils.separatorsToUnix(srcFile), "/") + "/");
     }
 
     public boolean handleResult(int httpCode, GoPublisher goPublisher) {
@@ -54,6 +54,9 @@ public class DownloadAction {
                 message = String.format("Caught an exception '%s'", e.getMessage());
             }
             if (retryCount > 3) {
+                if (handler instanceof ResumableFetchHandler) {
+                    ((ResumableFetchHandler) handler).discardPartialFetch();
+                }
                 message = String.format("Giving up fetching resource '%s'. Tried 4 times and failed.", url);
                 LOG.error(message);
                 throw new RuntimeException(message);
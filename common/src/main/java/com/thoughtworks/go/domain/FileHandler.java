@@ -27,19 +27,25 @@ import org.slf4j.LoggerFactory;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
 import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
 
 import static com.thoughtworks.go.util.CachedDigestUtils.md5Hex;
 import static com.thoughtworks.go.util.MapBuilder.map;
 import static java.lang.String.format;
 
-public class FileHandler implements FetchHandler {
+public class FileHandler implements ResumableFetchHandler, CacheableFetchHandler {
 
     private final File artifact;
     private final String srcFile;
     private static final Logger LOG = LoggerFactory.getLogger(FileHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient String resumeValidator;
+    private transient String fetchedChecksum;
 
     public FileHandler(File artifact, String srcFile) {
         this.artifact = artifact;
@@ -60,20 +66,39 @@ public class FileHandler implements FetchHandler {
     }
 
     public void handle(InputStream stream) throws IOException {
+        download(stream, false);
+    }
+
+    @Override
+    public void handleRemaining(InputStream stream) throws IOException {
+        download(stream, true);
+    }
+
+    private void download(InputStream stream, boolean resume) throws IOException {
+        fetchedChecksum = null;
+        File partial = partialFile();
         FileOutputStream fileOutputStream = null;
         try {
-            fileOutputStream = FileUtils.openOutputStream(artifact);
-            LOG.info("[Artifact File Download] [{}] Download of artifact {} started", new Date(), artifact.getName());
+            fileOutputStream = FileUtils.openOutputStream(partial, resume);
+            if (resume) {
+                LOG.info("[Artifact File Download] [{}] Download of artifact {} resumed at byte {}", new Date(), artifact.getName(), partial.length());
+            } else {
+                LOG.info("[Artifact File Download] [{}] Download of artifact {} started", new Date(), artifact.getName());
+            }
             IOUtils.copyLarge(stream, fileOutputStream);
             LOG.info("[Artifact File Download] [{}] Download of artifact {} ended", new Date(), artifact.getName());
         } finally {
             IOUtils.closeQuietly(fileOutputStream);
         }
+        Files.move(partial.toPath(), artifact.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        resumeValidator = null;
+
         FileInputStream inputStream = null;
         try {
             inputStream = new FileInputStream(artifact);
             LOG.info("[Artifact File Download] [{}] Checksum computation of artifact {} started", new Date(), artifact.getName());
             String artifactMD5 = md5Hex(inputStream);
+            fetchedChecksum = artifactMD5;
             new ChecksumValidator(artifactMd5Checksums).validate(srcFile, artifactMD5, checksumValidationPublisher);
             LOG.info("[Artifact File Download] [{}] Checksum computation of artifact {} ended", new Date(), artifact.getName());
         } finally {
@@ -81,6 +106,57 @@ public class FileHandler implements FetchHandler {
         }
     }
 
+    @Override
+    public long resumeFrom() {
+        File partial = partialFile();
+        return partial.isFile() ? partial.length() : 0;
+    }
+
+    @Override
+    public String resumeValidator() {
+        return resumeValidator;
+    }
+
+    @Override
+    public void useValidator(String validator) {
+        this.resumeValidator = validator;
+    }
+
+    @Override
+    public void discardPartialFetch() {
+        resumeValidator = null;
+        FileUtils.deleteQuietly(partialFile());
+    }
+
+    @Override
+    public File destinationOnAgent() {
+        return artifact.getAbsoluteFile().getParentFile();
+    }
+
+    @Override
+    public CacheableFetchHandler redirectedTo(File destinationOnAgent) {
+        return new FileHandler(new File(destinationOnAgent, artifact.getName()), srcFile);
+    }
+
+    @Override
+    public Map<String, String> fetchedFileChecksums() {
+        return fetchedChecksum == null ? Collections.emptyMap() : Collections.singletonMap(artifact.getName(), fetchedChecksum);
+    }
+
+    @Override
+    public String checksumKeyOf(String relativePath) {
+        return srcFile;
+    }
+
+    @Override
+    public boolean fetches(String checksumKey) {
+        return srcFile.equals(checksumKey);
+    }
+
+    private File partialFile() {
+        return new File(artifact.getParentFile(), artifact.getName() + ".part");
+    }
+
     public boolean handleResult(int httpCode, GoPublisher goPublisher) {
         checksumValidationPublisher.publish(httpCode, artifact, goPublisher);
 
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @understands carrying on a fetch from where an interrupted earlier attempt stopped
+ */
+public interface ResumableFetchHandler extends FetchHandler {
+    /**
+     * Number of bytes already fetched by an earlier attempt, or 0 when there is nothing to resume.
+     */
+    long resumeFrom();
+
+    /**
+     * Entity tag or last modified date of the content that the already fetched bytes came from.
+     */
+    String resumeValidator();
+
+    void useValidator(String validator);
+
+    /**
+     * Handles the rest of the content, starting at {@link #resumeFrom()}.
+     */
+    void handleRemaining(InputStream stream) throws IOException;
+
+    void discardPartialFetch();
+}
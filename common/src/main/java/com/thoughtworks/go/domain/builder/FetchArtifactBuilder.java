@@ -20,13 +20,20 @@ import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.plugin.access.artifact.ArtifactExtension;
 import com.thoughtworks.go.plugin.access.pluggabletask.TaskExtension;
 import com.thoughtworks.go.plugin.infra.PluginRequestProcessorRegistry;
+import com.thoughtworks.go.publishers.AgentArtifactCache;
 import com.thoughtworks.go.util.ArtifactLogUtil;
 import com.thoughtworks.go.util.URLService;
 import com.thoughtworks.go.util.command.CruiseControlException;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
 
 public class FetchArtifactBuilder extends Builder {
+    private static final Logger LOG = LoggerFactory.getLogger(FetchArtifactBuilder.class);
     private final JobIdentifier jobIdentifier;
     private String srcdir;
     private final String dest;
@@ -53,6 +60,28 @@ public class FetchArtifactBuilder extends Builder {
         downloadArtifact(downloadAction, urlService.baseRemoteURL());
     }
 
+    /**
+     * Fetches the artifact from the agent artifact cache when it holds a copy matching the published checksums,
+     * and keeps what was downloaded otherwise.
+     */
+    public void fetch(DownloadAction downloadAction, URLService urlService, AgentArtifactCache artifactCache, GoPublisher publisher) throws Exception {
+        String cacheKey = artifactCache.isEnabled() && handler instanceof CacheableFetchHandler ? AgentArtifactCache.keyOf(jobIdentifier, getSrc(), (CacheableFetchHandler) handler) : null;
+        if (cacheKey == null) {
+            fetch(downloadAction, urlService);
+            return;
+        }
+
+        downloadChecksumFile(downloadAction, urlService.baseRemoteURL());
+        ArtifactMd5Checksums checksums = checksumFileHandler.getArtifactMd5Checksums();
+        if (artifactCache.materialize(cacheKey, (CacheableFetchHandler) handler, checksums)) {
+            publisher.taggedConsumeLineWithPrefix(GoPublisher.OUT, String.format("Saved artifact to [%s] from the agent artifact cache after verifying the integrity of its contents.", getDest()));
+        } else {
+            downloadArtifact(downloadAction, urlService.baseRemoteURL());
+            artifactCache.store(cacheKey, (CacheableFetchHandler) handler);
+        }
+        LOG.info("[Agent Artifact Cache] {}", artifactCache.statistics());
+    }
+
     private void downloadArtifact(DownloadAction downloadAction, String baseRemoteUrl) throws Exception {
         handler.useArtifactMd5Checksums(checksumFileHandler.getArtifactMd5Checksums());
         pullArtifact(downloadAction, handler.url(baseRemoteUrl, artifactLocator()), handler);
@@ -79,6 +108,19 @@ public class FetchArtifactBuilder extends Builder {
         return jobIdentifier.buildLocatorForDisplay();
     }
 
+    /**
+     * The same fetch, writing the artifact into the given directory and its checksums next to it.
+     */
+    public FetchArtifactBuilder redirectedTo(File directory) {
+        CacheableFetchHandler redirected = ((CacheableFetchHandler) handler).redirectedTo(new File(directory, "artifact"));
+        ChecksumFileHandler checksums = new ChecksumFileHandler(new File(directory, checksumFileHandler.getChecksumFile().getName()));
+        return new FetchArtifactBuilder(conditions, getCancelBuilder(), getDescription(), jobIdentifier, srcdir, dest, redirected, checksums);
+    }
+
+    public ChecksumFileHandler getChecksumFileHandler() {
+        return checksumFileHandler;
+    }
+
     public FetchHandler getHandler() {
         return handler;
     }
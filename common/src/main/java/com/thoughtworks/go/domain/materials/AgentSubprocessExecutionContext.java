@@ -50,4 +50,19 @@ public class AgentSubprocessExecutionContext implements SubprocessExecutionConte
     public boolean isServer() {
         return false;
     }
+
+    @Override
+    public int maxModifiedFilesPerRevision() {
+        throw new UnsupportedOperationException("This is an unexpected call. Perform this action only on the server.");
+    }
+
+    @Override
+    public boolean isGitMirrorsEnabled() {
+        throw new UnsupportedOperationException("This is an unexpected call. Perform this action only on the server.");
+    }
+
+    @Override
+    public int gitMirrorRefreshIntervalInSeconds() {
+        throw new UnsupportedOperationException("This is an unexpected call. Perform this action only on the server.");
+    }
 }
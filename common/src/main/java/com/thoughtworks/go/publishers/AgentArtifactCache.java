@@ -0,0 +1,267 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.publishers;
+
+import com.thoughtworks.go.domain.ArtifactMd5Checksums;
+import com.thoughtworks.go.domain.CacheableFetchHandler;
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @understands keeping artifacts fetched by earlier jobs on this agent, so that later jobs need not download them again
+ * <p>
+ * Entries are keyed by the upstream job run and the fetched path, and are only handed out when every file matches
+ * the checksums published with the artifact and no published file is missing from them. Files are copied in and out by
+ * default; with hard links enabled they are shared instead, and an entry whose files were changed through a link is
+ * ignored rather than handed out.
+ */
+public class AgentArtifactCache {
+    private static final Logger LOG = LoggerFactory.getLogger(AgentArtifactCache.class);
+    private static final String MANIFEST = "manifest.properties";
+    private static final String FILES = "files";
+
+    private final File cacheDir;
+    private final long maxSizeInBytes;
+    private final boolean hardLinks;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AgentArtifactCache(SystemEnvironment systemEnvironment) {
+        this(systemEnvironment.getAgentArtifactCacheDir(), systemEnvironment.getAgentArtifactCacheMaxSizeInBytes(), systemEnvironment.isAgentArtifactCacheHardLinksEnabled());
+    }
+
+    AgentArtifactCache(File cacheDir, long maxSizeInBytes, boolean hardLinks) {
+        this.cacheDir = cacheDir;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.hardLinks = hardLinks;
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * Identifies the artifact at the given path of a job run, or returns null when the job run is not pinned down to
+     * specific counters and so may refer to different artifacts over time.
+     */
+    public static String keyOf(JobIdentifier jobIdentifier, String path, CacheableFetchHandler handler) {
+        if (jobIdentifier.getPipelineCounter() == null || !StringUtils.isNumeric(jobIdentifier.getStageCounter())) {
+            return null;
+        }
+        return StringUtils.join(new Object[]{jobIdentifier.getPipelineName(), jobIdentifier.getPipelineCounter(), jobIdentifier.getStageName(),
+                jobIdentifier.getStageCounter(), jobIdentifier.getBuildName(), path, handler.getClass().getSimpleName()}, '/');
+    }
+
+    /**
+     * Puts the cached files of the artifact in place of a download, if they are cached and still match the published checksums.
+     */
+    public boolean materialize(String key, CacheableFetchHandler handler, ArtifactMd5Checksums checksums) {
+        lock.readLock().lock();
+        try {
+            File entry = entryDir(key);
+            Properties manifest = readManifest(entry);
+            if (manifest == null || !matches(manifest, entry, handler, checksums)) {
+                misses.incrementAndGet();
+                return false;
+            }
+            for (String relativePath : manifest.stringPropertyNames()) {
+                Path target = new File(handler.destinationOnAgent(), relativePath).toPath();
+                Files.createDirectories(target.getParent());
+                place(cachedFile(entry, relativePath).toPath(), target);
+            }
+            entry.setLastModified(System.currentTimeMillis());
+            hits.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            LOG.warn("[Agent Artifact Cache] Could not use cached artifact {}, downloading it instead", key, e);
+            misses.incrementAndGet();
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the files written by a successful fetch, making room by evicting the least recently used artifacts.
+     */
+    public void store(String key, CacheableFetchHandler handler) {
+        if (handler.fetchedFileChecksums().isEmpty()) {
+            return;
+        }
+        File staging = new File(cacheDir, ".staging-" + UUID.randomUUID());
+        try {
+            Properties manifest = new Properties();
+            for (String relativePath : handler.fetchedFileChecksums().keySet()) {
+                File source = new File(handler.destinationOnAgent(), relativePath);
+                File cached = cachedFile(staging, relativePath);
+                Files.createDirectories(cached.getParentFile().toPath());
+                place(source.toPath(), cached.toPath());
+                manifest.setProperty(relativePath, describe(handler.fetchedFileChecksums().get(relativePath), cached));
+            }
+            try (OutputStream out = new FileOutputStream(new File(staging, MANIFEST))) {
+                manifest.store(out, key);
+            }
+            replaceEntry(key, staging);
+        } catch (IOException e) {
+            LOG.warn("[Agent Artifact Cache] Could not cache artifact {}", key, e);
+        } finally {
+            FileUtils.deleteQuietly(staging);
+        }
+        evictLeastRecentlyUsed();
+    }
+
+    private void replaceEntry(String key, File staging) throws IOException {
+        lock.writeLock().lock();
+        try {
+            File entry = entryDir(key);
+            FileUtils.deleteDirectory(entry);
+            Files.move(staging.toPath(), entry.toPath());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public String statistics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return String.format("%d of %d fetches served from the agent artifact cache (%d%%), %d artifacts evicted",
+                hitCount, total, total == 0 ? 0 : hitCount * 100 / total, evictions.get());
+    }
+
+    void evictLeastRecentlyUsed() {
+        lock.writeLock().lock();
+        try {
+            File[] entries = cacheDir.listFiles(file -> file.isDirectory() && !file.getName().startsWith("."));
+            if (entries == null) {
+                return;
+            }
+            List<File> leastRecentlyUsedFirst = new ArrayList<>(Arrays.asList(entries));
+            leastRecentlyUsedFirst.sort(Comparator.comparingLong(File::lastModified));
+            long totalSize = leastRecentlyUsedFirst.stream().mapToLong(FileUtils::sizeOfDirectory).sum();
+            for (File entry : leastRecentlyUsedFirst) {
+                if (totalSize <= maxSizeInBytes) {
+                    break;
+                }
+                long size = FileUtils.sizeOfDirectory(entry);
+                FileUtils.deleteQuietly(entry);
+                totalSize -= size;
+                evictions.incrementAndGet();
+                LOG.debug("[Agent Artifact Cache] Evicted {} ({} bytes)", entry.getName(), size);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean matches(Properties manifest, File entry, CacheableFetchHandler handler, ArtifactMd5Checksums checksums) throws IOException {
+        if (checksums == null) {
+            return false;
+        }
+        Set<String> cachedPaths = manifest.stringPropertyNames().stream().map(handler::checksumKeyOf).collect(Collectors.toSet());
+        for (String artifactPath : checksums.artifactPaths()) {
+            if (handler.fetches(artifactPath) && !cachedPaths.contains(artifactPath)) {
+                LOG.debug("[Agent Artifact Cache] Published file {} is not cached, ignoring the cached artifact", artifactPath);
+                return false;
+            }
+        }
+        for (String relativePath : manifest.stringPropertyNames()) {
+            String[] description = manifest.getProperty(relativePath).split(",");
+            File cached = cachedFile(entry, relativePath);
+            String published = checksums.md5For(handler.checksumKeyOf(relativePath));
+            if (published == null || !published.equals(description[0])) {
+                return false;
+            }
+            if (cached.length() != Long.parseLong(description[1]) || !published.equals(md5Of(cached))) {
+                LOG.warn("[Agent Artifact Cache] Cached file {} was changed since it was cached, ignoring it", cached);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String md5Of(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return DigestUtils.md5Hex(in);
+        }
+    }
+
+    private void place(Path source, Path target) throws IOException {
+        if (hardLinks) {
+            try {
+                Files.deleteIfExists(target);
+                Files.createLink(target, source);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOG.debug("[Agent Artifact Cache] Could not link {} to {}, copying it instead", target, source, e);
+            }
+        }
+        Files.copy(source, target, REPLACE_EXISTING);
+    }
+
+    private static String describe(String md5, File cached) {
+        return md5 + "," + cached.length();
+    }
+
+    private static Properties readManifest(File entry) throws IOException {
+        File manifestFile = new File(entry, MANIFEST);
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        Properties manifest = new Properties();
+        try (InputStream in = new FileInputStream(manifestFile)) {
+            manifest.load(in);
+        }
+        return manifest;
+    }
+
+    private File entryDir(String key) {
+        return new File(cacheDir, DigestUtils.sha256Hex(key));
+    }
+
+    private static File cachedFile(File entry, String relativePath) {
+        return new File(new File(entry, FILES), relativePath);
+    }
+}
@@ -26,6 +26,7 @@ import com.thoughtworks.go.remote.work.ConsoleOutputTransmitter;
 import com.thoughtworks.go.remote.work.RemoteConsoleAppender;
 import com.thoughtworks.go.util.*;
 import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -56,13 +57,30 @@ public class GoArtifactsManipulator {
     private final HttpService httpService;
     private final URLService urlService;
     private final ZipUtil zipUtil;
+    private final AgentArtifactCache artifactCache;
+    private final SystemEnvironment systemEnvironment;
     private static final Logger LOGGER = LoggerFactory.getLogger(GoArtifactsManipulator.class);
 
-    @Autowired
     public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil) {
+        this(httpService, urlService, zipUtil, new SystemEnvironment());
+    }
+
+    private GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
+        this(httpService, urlService, zipUtil, new AgentArtifactCache(systemEnvironment), systemEnvironment);
+    }
+
+    public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil, AgentArtifactCache artifactCache) {
+        this(httpService, urlService, zipUtil, artifactCache, new SystemEnvironment());
+    }
+
+    @Autowired
+    public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil, AgentArtifactCache artifactCache,
+                                  SystemEnvironment systemEnvironment) {
         this.httpService = httpService;
         this.urlService = urlService;
         this.zipUtil = zipUtil;
+        this.artifactCache = artifactCache;
+        this.systemEnvironment = systemEnvironment;
     }
 
     public void publish(DefaultGoPublisher goPublisher, String destPath, File source, JobIdentifier jobIdentifier) {
@@ -79,10 +97,6 @@ public class GoArtifactsManipulator {
             try {
                 publishingAttempts++;
 
-                tmpDir = FileUtil.createTempFolder();
-                File dataToUpload = new File(tmpDir, source.getName() + ".zip");
-                zipUtil.zip(source, dataToUpload, Deflater.BEST_SPEED);
-
                 long size = 0;
                 if (source.isDirectory()) {
                     size = FileUtils.sizeOfDirectory(source);
@@ -90,12 +104,21 @@ public class GoArtifactsManipulator {
                     size = source.length();
                 }
 
-                goPublisher.taggedConsumeLineWithPrefix(PUBLISH, "Uploading artifacts from " + source.getAbsolutePath() + " to " + getDestPath(destPath));
-
                 String normalizedDestPath = FilenameUtils.separatorsToUnix(destPath);
                 String url = urlService.getUploadUrlOfAgent(jobIdentifier, normalizedDestPath, publishingAttempts);
 
-                int statusCode = httpService.upload(url, size, dataToUpload, artifactChecksums(source, normalizedDestPath));
+                int statusCode;
+                if (systemEnvironment.isStreamingArtifactUploadEnabled()) {
+                    goPublisher.taggedConsumeLineWithPrefix(PUBLISH, "Uploading artifacts from " + source.getAbsolutePath() + " to " + getDestPath(destPath));
+                    statusCode = httpService.upload(url, size, new StreamingZipBody(zipUtil, source, Deflater.BEST_SPEED, entryName -> getEffectiveFileName(normalizedDestPath, entryName)));
+                } else {
+                    tmpDir = FileUtil.createTempFolder();
+                    File dataToUpload = new File(tmpDir, source.getName() + ".zip");
+                    zipUtil.zip(source, dataToUpload, Deflater.BEST_SPEED);
+
+                    goPublisher.taggedConsumeLineWithPrefix(PUBLISH, "Uploading artifacts from " + source.getAbsolutePath() + " to " + getDestPath(destPath));
+                    statusCode = httpService.upload(url, size, dataToUpload, artifactChecksums(source, normalizedDestPath));
+                }
 
                 if (statusCode == HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE) {
                     String message = String.format("Artifact upload for file %s (Size: %s) was denied by the server. This usually happens when server runs out of disk space.",
@@ -164,12 +187,12 @@ public class GoArtifactsManipulator {
     }
 
 
-    public void fetch(DefaultGoPublisher goPublisher, FetchArtifactBuilder fetchArtifactBuilder) {
+    public void fetch(GoPublisher goPublisher, FetchArtifactBuilder fetchArtifactBuilder) {
         try {
             String fetchMsg = String.format("Fetching artifact [%s] from [%s]", fetchArtifactBuilder.getSrc(),
                     fetchArtifactBuilder.jobLocatorForDisplay());
             goPublisher.taggedConsumeLineWithPrefix(DefaultGoPublisher.OUT, fetchMsg);
-            fetchArtifactBuilder.fetch(new DownloadAction(httpService, goPublisher, new SystemTimeClock()), urlService);
+            fetchArtifactBuilder.fetch(new DownloadAction(httpService, goPublisher, new SystemTimeClock()), urlService, artifactCache, goPublisher);
         } catch (Exception e) {
             String fetchMsg = String.format("Failed to save artifact [%s] to [%s]",
                     fetchArtifactBuilder.getSrc(), fetchArtifactBuilder.getDest());
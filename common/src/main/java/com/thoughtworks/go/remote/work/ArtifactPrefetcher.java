@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.remote.work;
+
+import com.thoughtworks.go.config.RunIfConfig;
+import com.thoughtworks.go.domain.CacheableFetchHandler;
+import com.thoughtworks.go.domain.Property;
+import com.thoughtworks.go.domain.builder.Builder;
+import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
+import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * @understands fetching the artifacts of consecutive fetch tasks ahead of time, several at a time
+ * <p>
+ * The console output of every fetch is held back and replayed when its task comes up, so the console reads
+ * as if the tasks had run one after the other. Fetches into overlapping destinations are left to run in turn.
+ * <p>
+ * Every fetch writes into a staging directory next to its destination, and is only moved into the destination
+ * when its task comes up, so that tasks which end up not running leave nothing behind.
+ */
+class ArtifactPrefetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactPrefetcher.class);
+    private static final long DISCARD_TIMEOUT_IN_SECONDS = 30;
+
+    private final ExecutorService fetchers;
+    private final Map<FetchArtifactBuilder, Prefetch> prefetches = new IdentityHashMap<>();
+
+    ArtifactPrefetcher(int concurrency) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fetchers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "artifact-fetch-thread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    boolean isPrefetching(Builder builder) {
+        return prefetches.containsKey(builder);
+    }
+
+    /**
+     * Starts fetching the run of fetch tasks beginning at the given position, if there is more than one of them.
+     */
+    void prefetch(List<Builder> builders, int from, DefaultGoPublisher publisher) {
+        List<FetchArtifactBuilder> group = new ArrayList<>();
+        List<String> destinations = new ArrayList<>();
+        for (Builder builder : builders.subList(from, builders.size())) {
+            if (!(builder instanceof FetchArtifactBuilder) || !builder.allowRun(RunIfConfig.PASSED)
+                    || !(((FetchArtifactBuilder) builder).getHandler() instanceof CacheableFetchHandler)) {
+                break;
+            }
+            String destination = destinationOf((FetchArtifactBuilder) builder);
+            if (destination == null || destinations.stream().anyMatch(other -> overlap(destination, other))) {
+                break;
+            }
+            destinations.add(destination);
+            group.add((FetchArtifactBuilder) builder);
+        }
+        if (group.size() < 2 || fetchers.isShutdown()) {
+            return;
+        }
+
+        LOG.info("[Agent Fetch Artifact] Fetching {} artifacts concurrently", group.size());
+        for (FetchArtifactBuilder fetch : group) {
+            File destination = ((CacheableFetchHandler) fetch.getHandler()).destinationOnAgent();
+            File staging = new File(destination.getAbsoluteFile().getParentFile(), "." + destination.getName() + ".prefetch-" + UUID.randomUUID());
+            FetchArtifactBuilder staged = fetch.redirectedTo(staging);
+            RecordingPublisher output = new RecordingPublisher(((CacheableFetchHandler) staged.getHandler()).destinationOnAgent(), destination);
+            prefetches.put(fetch, new Prefetch(fetch, staged, staging, output, fetchers.submit(() -> publisher.fetch(staged, output))));
+        }
+    }
+
+    void awaitFetch(FetchArtifactBuilder fetch, GoPublisher publisher) throws Exception {
+        Prefetch prefetch = prefetches.remove(fetch);
+        try {
+            prefetch.future.get();
+            prefetch.moveIntoPlace();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            FileUtils.deleteQuietly(prefetch.staging);
+            prefetch.output.replayTo(publisher);
+        }
+    }
+
+    /**
+     * Stops the fetches whose tasks have not come up yet and throws away what they fetched; those tasks fetch
+     * for themselves should they still run.
+     */
+    void discardOutstanding() {
+        fetchers.shutdownNow();
+        try {
+            if (!fetchers.awaitTermination(DISCARD_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("[Agent Fetch Artifact] Fetches still running after {} seconds, discarding what they fetched so far", DISCARD_TIMEOUT_IN_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Prefetch prefetch : prefetches.values()) {
+            FileUtils.deleteQuietly(prefetch.staging);
+        }
+        prefetches.clear();
+    }
+
+    void close() {
+        discardOutstanding();
+    }
+
+    private static String destinationOf(FetchArtifactBuilder fetch) {
+        String destination = FilenameUtils.normalizeNoEndSeparator(StringUtils.defaultString(fetch.getDest()), true);
+        if (destination == null) {
+            return null;
+        }
+        destination = StringUtils.strip(destination, "/");
+        return destination.isEmpty() || destination.equals(".") ? "" : destination + "/";
+    }
+
+    private static boolean overlap(String destination, String other) {
+        return destination.startsWith(other) || other.startsWith(destination);
+    }
+
+    private static class Prefetch {
+        private final FetchArtifactBuilder fetch;
+        private final FetchArtifactBuilder staged;
+        private final File staging;
+        private final RecordingPublisher output;
+        private final Future<?> future;
+
+        private Prefetch(FetchArtifactBuilder fetch, FetchArtifactBuilder staged, File staging, RecordingPublisher output, Future<?> future) {
+            this.fetch = fetch;
+            this.staged = staged;
+            this.staging = staging;
+            this.output = output;
+            this.future = future;
+        }
+
+        private void moveIntoPlace() throws IOException {
+            Path source = ((CacheableFetchHandler) staged.getHandler()).destinationOnAgent().toPath();
+            Path target = ((CacheableFetchHandler) fetch.getHandler()).destinationOnAgent().toPath();
+            if (Files.isDirectory(source)) {
+                try (Stream<Path> paths = Files.walk(source)) {
+                    for (Path path : (Iterable<Path>) paths::iterator) {
+                        if (Files.isRegularFile(path)) {
+                            move(path, target.resolve(source.relativize(path).toString()));
+                        }
+                    }
+                }
+            }
+            Path checksums = staged.getChecksumFileHandler().getChecksumFile().toPath();
+            if (Files.isRegularFile(checksums)) {
+                move(checksums, fetch.getChecksumFileHandler().getChecksumFile().toPath());
+            }
+        }
+
+        private static void move(Path source, Path target) throws IOException {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Holds back the console output of a fetch, naming its destination rather than the staging directory it went to.
+     */
+    private static class RecordingPublisher implements GoPublisher {
+        private final List<Consumer<GoPublisher>> calls = new ArrayList<>();
+        private final String stagedPath;
+        private final String destinationPath;
+
+        private RecordingPublisher(File staged, File destination) {
+            this.stagedPath = staged.getPath();
+            this.destinationPath = destination.getPath();
+        }
+
+        private synchronized void record(Consumer<GoPublisher> call) {
+            calls.add(call);
+        }
+
+        private String toDestination(String message) {
+            return message == null ? null : message.replace(stagedPath, destinationPath);
+        }
+
+        synchronized void replayTo(GoPublisher publisher) {
+            calls.forEach(call -> call.accept(publisher));
+            calls.clear();
+        }
+
+        @Override
+        public void upload(File fileToUpload, String destPath) {
+            record(publisher -> publisher.upload(fileToUpload, destPath));
+        }
+
+        @Override
+        public void setProperty(Property property) {
+            record(publisher -> publisher.setProperty(property));
+        }
+
+        @Override
+        public void consumeLineWithPrefix(String message) {
+            record(publisher -> publisher.consumeLineWithPrefix(toDestination(message)));
+        }
+
+        @Override
+        public void taggedConsumeLineWithPrefix(String tag, String message) {
+            record(publisher -> publisher.taggedConsumeLineWithPrefix(tag, toDestination(message)));
+        }
+
+        @Override
+        public void reportErrorMessage(String message, Exception e) {
+            record(publisher -> publisher.reportErrorMessage(toDestination(message), e));
+        }
+
+        @Override
+        public void taggedConsumeLine(String tag, String line) {
+            record(publisher -> publisher.taggedConsumeLine(tag, toDestination(line)));
+        }
+
+        @Override
+        public void consumeLine(String line) {
+            record(publisher -> publisher.consumeLine(toDestination(line)));
+        }
+    }
+}
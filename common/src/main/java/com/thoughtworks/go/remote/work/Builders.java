@@ -19,10 +19,12 @@ package com.thoughtworks.go.remote.work;
 import com.thoughtworks.go.config.RunIfConfig;
 import com.thoughtworks.go.domain.JobResult;
 import com.thoughtworks.go.domain.builder.Builder;
+import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
 import com.thoughtworks.go.domain.builder.NullBuilder;
 import com.thoughtworks.go.plugin.access.artifact.ArtifactExtension;
 import com.thoughtworks.go.plugin.access.pluggabletask.TaskExtension;
 import com.thoughtworks.go.plugin.infra.PluginRequestProcessorRegistry;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import com.thoughtworks.go.work.DefaultGoPublisher;
 
@@ -39,22 +41,42 @@ public class Builders {
     private TaskExtension taskExtension;
     private final ArtifactExtension artifactExtension;
     private final PluginRequestProcessorRegistry pluginRequestProcessorRegistry;
+    private final SystemEnvironment systemEnvironment;
     private Builder currentBuilder = new NullBuilder();
     private transient boolean cancelStarted;
     private transient boolean cancelFinished;
 
     public Builders(List<Builder> builders, DefaultGoPublisher goPublisher, TaskExtension taskExtension, ArtifactExtension artifactExtension, PluginRequestProcessorRegistry pluginRequestProcessorRegistry) {
+        this(builders, goPublisher, taskExtension, artifactExtension, pluginRequestProcessorRegistry, new SystemEnvironment());
+    }
+
+    public Builders(List<Builder> builders, DefaultGoPublisher goPublisher, TaskExtension taskExtension, ArtifactExtension artifactExtension, PluginRequestProcessorRegistry pluginRequestProcessorRegistry,
+                    SystemEnvironment systemEnvironment) {
         this.builders = builders;
         this.goPublisher = goPublisher;
         this.taskExtension = taskExtension;
         this.artifactExtension = artifactExtension;
         this.pluginRequestProcessorRegistry = pluginRequestProcessorRegistry;
+        this.systemEnvironment = systemEnvironment;
     }
 
     public JobResult build(EnvironmentVariableContext environmentVariableContext, String consoleLogCharset) {
+        int fetchConcurrency = systemEnvironment.getArtifactFetchConcurrency();
+        ArtifactPrefetcher prefetcher = fetchConcurrency > 1 ? new ArtifactPrefetcher(fetchConcurrency) : null;
+        try {
+            return build(environmentVariableContext, consoleLogCharset, prefetcher);
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+        }
+    }
+
+    private JobResult build(EnvironmentVariableContext environmentVariableContext, String consoleLogCharset, ArtifactPrefetcher prefetcher) {
         JobResult result = JobResult.Passed;
 
-        for (Builder builder : builders) {
+        for (int i = 0; i < builders.size(); i++) {
+            Builder builder = builders.get(i);
             if (cancelStarted) {
                 return JobResult.Cancelled;
             }
@@ -71,7 +93,14 @@ public class Builders {
                     String executeMessage = format("Task: %s", builder.getDescription());
                     goPublisher.taggedConsumeLineWithPrefix(DefaultGoPublisher.TASK_START, executeMessage);
 
-                    builder.build(goPublisher, environmentVariableContext, taskExtension, artifactExtension, pluginRequestProcessorRegistry, consoleLogCharset);
+                    if (prefetcher != null && builder instanceof FetchArtifactBuilder && result.isPassed() && !prefetcher.isPrefetching(builder)) {
+                        prefetcher.prefetch(builders, i, goPublisher);
+                    }
+                    if (prefetcher != null && prefetcher.isPrefetching(builder)) {
+                        prefetcher.awaitFetch((FetchArtifactBuilder) builder, goPublisher);
+                    } else {
+                        builder.build(goPublisher, environmentVariableContext, taskExtension, artifactExtension, pluginRequestProcessorRegistry, consoleLogCharset);
+                    }
                 } catch (Exception e) {
                     result = taskStatus = JobResult.Failed;
                 }
@@ -83,6 +112,10 @@ public class Builders {
                     result = taskStatus = JobResult.Cancelled;
                 }
 
+                if (prefetcher != null && !taskStatus.isPassed()) {
+                    prefetcher.discardOutstanding();
+                }
+
                 String tag;
 
                 if (taskStatus.isPassed()) {
@@ -18,36 +18,75 @@ package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.TaggedStreamConsumer;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.lang.String.format;
-
+/**
+ * @understands buffering console output of a build and sending it to the server
+ * <p>
+ * Lines are queued without locking and sent every publish interval, or as soon as the given flush size is buffered.
+ * When the buffer is full, producers wait for the server to catch up. If it does not catch up in time, lines are
+ * dropped until it does, and the number of dropped lines is reported in the console output.
+ */
 public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleOutputTransmitter.class);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final long BACKPRESSURE_TIMEOUT_IN_MILLIS = 10 * 1000L;
 
-    private final CircularFifoQueue buffer = new CircularFifoQueue(10 * 1024); // maximum 10k lines
+    private final Queue<String> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bufferedChars = new AtomicLong();
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final Object spaceAvailable = new Object();
     private final ConsoleAppender consoleAppender;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss.SSS");
     private final ScheduledThreadPoolExecutor executor;
+    private final long flushSizeInChars;
+    private final long bufferSizeInChars;
+    private final long backpressureTimeoutInMillis;
+    private volatile boolean dropping;
+    private volatile CachedTime cachedTime = new CachedTime(Long.MIN_VALUE, "");
+    private String unsent;
+    private long unsentChars;
 
     public ConsoleOutputTransmitter(ConsoleAppender consoleAppender) {
-        this(consoleAppender, new SystemEnvironment().getConsolePublishInterval(), new ScheduledThreadPoolExecutor(1));
+        this(consoleAppender, new SystemEnvironment());
+    }
+
+    private ConsoleOutputTransmitter(ConsoleAppender consoleAppender, SystemEnvironment systemEnvironment) {
+        this(consoleAppender, systemEnvironment.getConsolePublishInterval(), new ScheduledThreadPoolExecutor(1), systemEnvironment);
     }
 
     protected ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Integer consolePublishInterval,
                                        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor) {
+        this(consoleAppender, consolePublishInterval, scheduledThreadPoolExecutor, new SystemEnvironment());
+    }
+
+    private ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Integer consolePublishInterval,
+                                     ScheduledThreadPoolExecutor scheduledThreadPoolExecutor, SystemEnvironment systemEnvironment) {
+        this(consoleAppender, consolePublishInterval, scheduledThreadPoolExecutor, systemEnvironment.getConsoleFlushSizeInChars(),
+                systemEnvironment.getConsoleBufferSizeInChars(), BACKPRESSURE_TIMEOUT_IN_MILLIS);
+    }
+
+    ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Integer consolePublishInterval, ScheduledThreadPoolExecutor scheduledThreadPoolExecutor,
+                             long flushSizeInChars, long bufferSizeInChars, long backpressureTimeoutInMillis) {
         this.consoleAppender = consoleAppender;
         this.executor = scheduledThreadPoolExecutor;
+        this.flushSizeInChars = flushSizeInChars;
+        this.bufferSizeInChars = bufferSizeInChars;
+        this.backpressureTimeoutInMillis = backpressureTimeoutInMillis;
         executor.scheduleAtFixedRate(this, 0L, consolePublishInterval, TimeUnit.SECONDS);
 
     }
@@ -58,12 +97,57 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
 
     @Override
     public void taggedConsumeLine(String tag, String line) {
-        synchronized (buffer) {
-            if (null == tag) tag = "  ";
-            String date = dateFormat.format(new Date());
-            String prepend = format("%s|%s", tag, date);
-            String multilineJoin = "\n" + prepend + " ";
-            buffer.add(format("%s %s", prepend, line).replaceAll("\n", multilineJoin));
+        String formatted = format(tag, line, System.currentTimeMillis());
+        if (!reserve(formatted.length())) {
+            return;
+        }
+        buffer.add(formatted);
+        if (bufferedChars.get() >= flushSizeInChars) {
+            requestFlush();
+        }
+    }
+
+    private boolean reserve(int chars) {
+        long deadline = 0;
+        while (bufferedChars.get() > 0 && bufferedChars.get() + chars > bufferSizeInChars) {
+            if (dropping) {
+                droppedLines.incrementAndGet();
+                return false;
+            }
+            requestFlush();
+            long now = System.currentTimeMillis();
+            if (deadline == 0) {
+                deadline = now + backpressureTimeoutInMillis;
+            }
+            if (now >= deadline) {
+                LOGGER.warn("Console output is not being sent to the server fast enough, dropping it until the server catches up");
+                dropping = true;
+                droppedLines.incrementAndGet();
+                return false;
+            }
+            try {
+                synchronized (spaceAvailable) {
+                    spaceAvailable.wait(Math.min(deadline - now, 100L));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        bufferedChars.addAndGet(chars);
+        return true;
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    flushRequested.set(false);
+                    run();
+                });
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
         }
     }
 
@@ -76,30 +160,44 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
     }
 
     public void flushToServer() {
-        if (buffer.isEmpty()) {
+        if (buffer.isEmpty() && unsent == null && droppedLines.get() == 0) {
             return;
         }
 
-        List sent = new ArrayList();
-        try {
-            synchronized (buffer) {
-                while (!buffer.isEmpty()) {
-                    sent.add(buffer.remove());
-                }
+        synchronized (flushLock) {
+            StringBuilder content = new StringBuilder((int) Math.min(bufferedChars.get() + 1024, Integer.MAX_VALUE - 8));
+            if (unsent != null) {
+                content.append(unsent);
             }
-            StringBuilder result = new StringBuilder();
-            for (Object string : sent) {
-                result.append(string);
-                result.append("\n");
+            long drainedChars = 0;
+            String line;
+            while ((line = buffer.poll()) != null) {
+                content.append(line).append('\n');
+                drainedChars += line.length();
             }
-            consoleAppender.append(result.toString());
-        } catch (IOException e) {
-            LOGGER.warn("Could not send console output to server", e);
-            synchronized (buffer) {
-                sent.addAll(buffer);
-                buffer.clear();
-                buffer.addAll(sent);
+            long dropped = droppedLines.getAndSet(0);
+            if (dropped > 0) {
+                content.append(format(NOTICE, "[go] Dropped " + dropped + " lines of console output that could not be sent to the server in time", System.currentTimeMillis())).append('\n');
             }
+            if (content.length() == 0) {
+                return;
+            }
+
+            try {
+                consoleAppender.append(content.toString());
+            } catch (IOException e) {
+                LOGGER.warn("Could not send console output to server", e);
+                unsent = content.toString();
+                unsentChars += drainedChars;
+                return;
+            }
+            bufferedChars.addAndGet(-(unsentChars + drainedChars));
+            unsent = null;
+            unsentChars = 0;
+            dropping = false;
+        }
+        synchronized (spaceAvailable) {
+            spaceAvailable.notifyAll();
         }
     }
 
@@ -107,4 +205,40 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
         flushToServer();
         executor.shutdown();
     }
+
+    private String format(String tag, String rawLine, long now) {
+        String line = String.valueOf(rawLine);
+        String time = time(now);
+        String prefix = (tag == null ? "  " : tag) + "|" + time;
+        StringBuilder formatted = new StringBuilder(prefix.length() + 1 + line.length());
+        formatted.append(prefix).append(' ');
+        int start = 0;
+        int newline;
+        while ((newline = line.indexOf('\n', start)) != -1) {
+            formatted.append(line, start, newline).append('\n').append(prefix).append(' ');
+            start = newline + 1;
+        }
+        return formatted.append(line, start, line.length()).toString();
+    }
+
+    private String time(long now) {
+        long second = Math.floorDiv(now, 1000L);
+        CachedTime cached = cachedTime;
+        if (cached.second != second) {
+            cached = new CachedTime(second, TIME_FORMAT.format(Instant.ofEpochSecond(second).atZone(ZoneId.systemDefault())));
+            cachedTime = cached;
+        }
+        int millis = (int) Math.floorMod(now, 1000L);
+        return cached.formatted + (millis < 10 ? ".00" : millis < 100 ? ".0" : ".") + millis;
+    }
+
+    private static final class CachedTime {
+        private final long second;
+        private final String formatted;
+
+        private CachedTime(long second, String formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
 }
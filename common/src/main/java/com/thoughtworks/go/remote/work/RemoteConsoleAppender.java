@@ -17,13 +17,18 @@
 package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.HttpService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.StringEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 
 public class RemoteConsoleAppender implements ConsoleAppender {
 
@@ -32,18 +37,24 @@ public class RemoteConsoleAppender implements ConsoleAppender {
     private String consoleUri;
     private HttpService httpService;
     private final String charset;
+    private final boolean compress;
 
     public RemoteConsoleAppender(String consoleUri, HttpService httpService, String charset) {
+        this(consoleUri, httpService, charset, new SystemEnvironment().isConsoleCompressionEnabled());
+    }
+
+    RemoteConsoleAppender(String consoleUri, HttpService httpService, String charset, boolean compress) {
         this.consoleUri = consoleUri;
         this.httpService = httpService;
         this.charset = charset;
+        this.compress = compress;
     }
 
     public void append(String content) throws IOException {
         HttpPut putMethod = new HttpPut(consoleUri);
         try {
             LOGGER.debug("Appending console to URL -> {}", consoleUri);
-            StringEntity entity = new StringEntity(content, charset);
+            AbstractHttpEntity entity = compress ? gzipped(content) : new StringEntity(content, charset);
             putMethod.setEntity(entity);
             HttpService.setSizeHeader(putMethod, entity.getContentLength());
             CloseableHttpResponse response = httpService.execute(putMethod);
@@ -52,4 +63,15 @@ public class RemoteConsoleAppender implements ConsoleAppender {
             putMethod.releaseConnection();
         }
     }
+
+    private ByteArrayEntity gzipped(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(charset));
+        }
+        ByteArrayEntity entity = new ByteArrayEntity(bytes.toByteArray());
+        entity.setContentType("text/plain; charset=" + charset);
+        entity.setContentEncoding("gzip");
+        return entity;
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @understands sharing a fixed number of bytes per second between all streams read through it
+ */
+public class BandwidthLimiter {
+    private static final long MAX_BURST_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSecond;
+    private long nextFreeAtInNanos = System.nanoTime();
+
+    public BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public InputStream limit(InputStream stream) {
+        if (stream == null || bytesPerSecond <= 0) {
+            return stream;
+        }
+        return new FilterInputStream(stream) {
+            @Override
+            public int read() throws IOException {
+                int read = super.read();
+                if (read != -1) {
+                    consumed(1);
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    consumed(read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long count) throws IOException {
+                long skipped = super.skip(count);
+                if (skipped > 0) {
+                    consumed(skipped);
+                }
+                return skipped;
+            }
+        };
+    }
+
+    void consumed(long bytes) throws InterruptedIOException {
+        long waitInNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            nextFreeAtInNanos = Math.max(nextFreeAtInNanos, now - MAX_BURST_IN_NANOS) + bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+            waitInNanos = nextFreeAtInNanos - now;
+        }
+        if (waitInNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitInNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for download bandwidth");
+        }
+    }
+}
@@ -19,7 +19,9 @@ package com.thoughtworks.go.util;
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClient;
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClientBuilder;
 import com.thoughtworks.go.domain.FetchHandler;
+import com.thoughtworks.go.domain.ResumableFetchHandler;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -43,6 +45,7 @@ import java.util.Properties;
 @Component
 public class HttpService {
     private HttpClientFactory httpClientFactory;
+    private final BandwidthLimiter downloadBandwidth = new BandwidthLimiter(new SystemEnvironment().getArtifactFetchBandwidthLimitInBytesPerSecond());
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpService.class);
 
@@ -81,6 +84,23 @@ public class HttpService {
         }
     }
 
+    public int upload(String url, long size, StreamingZipBody artifact) throws IOException {
+        LOGGER.info("Streaming artifact [{}] to url [{}]", artifact.getFilename(), url);
+
+        HttpPost filePost = httpClientFactory.createPost(url);
+        setSizeHeader(filePost, size);
+        filePost.setHeader("Confirm", "true");
+        filePost.setEntity(httpClientFactory.createStreamingMultipartRequestEntity(artifact));
+        try (CloseableHttpResponse response = execute(filePost)) {
+            return response.getStatusLine().getStatusCode();
+        } catch (IOException e) {
+            LOGGER.error("Error while streaming artifact [{}]", artifact.getFilename(), e);
+            throw e;
+        } finally {
+            filePost.releaseConnection();
+        }
+    }
+
     private HttpPost createHttpPostForUpload(String url, long size, File artifactFile, Properties artifactChecksums) throws IOException {
         HttpPost filePost = httpClientFactory.createPost(url);
         setSizeHeader(filePost, size);
@@ -92,18 +112,38 @@ public class HttpService {
     public int download(String url, FetchHandler handler) throws IOException {
         HttpGet toGet = null;
         InputStream is = null;
+        ResumableFetchHandler resumable = handler instanceof ResumableFetchHandler ? (ResumableFetchHandler) handler : null;
         try {
             toGet = httpClientFactory.createGet(url);
+            long resumeFrom = resumeFrom(resumable);
+            if (resumeFrom > 0) {
+                LOGGER.info("Resuming download from url [{}] at byte {}", url, resumeFrom);
+                toGet.setHeader("Range", "bytes=" + resumeFrom + "-");
+                toGet.setHeader("If-Range", resumable.resumeValidator());
+            }
             PerfTimer timer = PerfTimer.start(String.format("Downloading from url [%s]", url));
             try (CloseableHttpResponse response = execute(toGet)) {
                 timer.stop();
                 int statusCode = response.getStatusLine().getStatusCode();
 
-                if (statusCode == HttpServletResponse.SC_OK) {
+                if (statusCode == HttpServletResponse.SC_OK || statusCode == HttpServletResponse.SC_PARTIAL_CONTENT) {
                     if (response.getEntity() != null) {
-                        is = response.getEntity().getContent();
+                        is = downloadBandwidth.limit(response.getEntity().getContent());
                     }
+                    if (resumable != null) {
+                        resumable.useValidator(validatorOf(response));
+                    }
+                }
+                if (statusCode == HttpServletResponse.SC_OK) {
                     handler.handle(is);
+                } else if (statusCode == HttpServletResponse.SC_PARTIAL_CONTENT && resumeFrom > 0) {
+                    Header contentRange = response.getFirstHeader("Content-Range");
+                    if (contentRange == null || !contentRange.getValue().startsWith("bytes " + resumeFrom + "-")) {
+                        resumable.discardPartialFetch();
+                        throw new IOException(String.format("Server resumed download from url [%s] at an unexpected position: %s", url, contentRange));
+                    }
+                    resumable.handleRemaining(is);
+                    return HttpServletResponse.SC_OK;
                 }
                 return statusCode;
             }
@@ -118,6 +158,22 @@ public class HttpService {
         }
     }
 
+    private long resumeFrom(ResumableFetchHandler resumable) {
+        if (resumable == null || resumable.resumeValidator() == null) {
+            return 0;
+        }
+        return resumable.resumeFrom();
+    }
+
+    private String validatorOf(CloseableHttpResponse response) {
+        Header entityTag = response.getFirstHeader("ETag");
+        if (entityTag != null && !entityTag.getValue().startsWith("W/")) {
+            return entityTag.getValue();
+        }
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        return lastModified == null ? null : lastModified.getValue();
+    }
+
     public void postProperty(String url, String value) throws IOException {
         LOGGER.info("Posting property to the URL {}Property Value ={}", url, value);
         HttpPost post = httpClientFactory.createPost(url);
@@ -175,5 +231,12 @@ public class HttpService {
             }
             return entityBuilder.build();
         }
+
+        public HttpEntity createStreamingMultipartRequestEntity(StreamingZipBody artifact) {
+            MultipartEntityBuilder entityBuilder = MultipartEntityBuilder.create();
+            entityBuilder.addPart(GoConstants.ZIP_MULTIPART_FILENAME, artifact);
+            entityBuilder.addPart(GoConstants.CHECKSUM_MULTIPART_FILENAME, artifact.checksumBody());
+            return entityBuilder.build();
+        }
     }
 }
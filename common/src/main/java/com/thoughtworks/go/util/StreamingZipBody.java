@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * @understands zipping an artifact straight into an upload request, collecting checksums of its files on the way
+ * <p>
+ * The zip is produced on a separate thread and handed over through a pipe, so compression of the next
+ * files carries on while the previous ones are being sent. The size is unknown upfront, so the request
+ * is sent with chunked transfer encoding.
+ */
+public class StreamingZipBody extends AbstractContentBody {
+    private static final int PIPE_BUFFER_SIZE = 1024 * 1024;
+
+    private final ZipUtil zipUtil;
+    private final File source;
+    private final int level;
+    private final Function<String, String> checksumKeyOfEntry;
+    private final Properties checksums = new Properties();
+
+    public StreamingZipBody(ZipUtil zipUtil, File source, int level, Function<String, String> checksumKeyOfEntry) {
+        super(ContentType.DEFAULT_BINARY);
+        this.zipUtil = zipUtil;
+        this.source = source;
+        this.level = level;
+        this.checksumKeyOfEntry = checksumKeyOfEntry;
+    }
+
+    @Override
+    public String getFilename() {
+        return source.getName() + ".zip";
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        checksums.clear();
+        PipedInputStream zipped = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream pipe = new PipedOutputStream(zipped);
+        FutureTask<Void> zipping = new FutureTask<>(() -> {
+            try (OutputStream output = pipe) {
+                zipUtil.zip(source, output, level, (entryName, md5) -> checksums.setProperty(checksumKeyOfEntry.apply(entryName), md5));
+            }
+            return null;
+        });
+        Thread zipper = new Thread(zipping, "artifact-zip-" + source.getName());
+        zipper.setDaemon(true);
+        zipper.start();
+
+        try {
+            IOUtils.copyLarge(zipped, out);
+        } finally {
+            IOUtils.closeQuietly(zipped);
+        }
+
+        try {
+            zipping.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while zipping " + source.getAbsolutePath());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to zip " + source.getAbsolutePath(), e.getCause());
+        }
+    }
+
+    /**
+     * Checksums of the files zipped so far; complete once {@link #writeTo(OutputStream)} has returned.
+     */
+    public Properties checksums() {
+        return checksums;
+    }
+
+    /**
+     * A body for the checksum file, meant to follow this one in the same request so that it is only
+     * written after all files have been zipped.
+     */
+    public ContentBody checksumBody() {
+        return new AbstractContentBody(ContentType.DEFAULT_BINARY) {
+            @Override
+            public String getFilename() {
+                return "checksum_file";
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                checksums.store(out, "");
+            }
+
+            @Override
+            public String getTransferEncoding() {
+                return MIME.ENC_BINARY;
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+        };
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.websocket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * @understands the compact binary form of websocket messages
+ * <p>
+ * Version 1 is a marker byte, the version, a flags byte, the action name, the acknowledgement id (16 bytes when it is
+ * a UUID) and the length-prefixed UTF-8 data, which is deflated when it is at least the given threshold in size.
+ * The marker can never start a gzip stream, so both forms can be told apart on the receiving end.
+ * <p>
+ * Lengths read from a message are checked against the bytes left in it and the maximum message size before anything
+ * is allocated for them.
+ */
+class BinaryMessageCodec {
+    static final int MARKER = 0xB7;
+    static final int VERSION = 1;
+
+    private static final int HAS_DATA = 1;
+    private static final int DEFLATED = 1 << 1;
+    private static final int UUID_ACKNOWLEDGEMENT = 1 << 2;
+
+    static byte[] encode(Message message, int deflateThreshold) throws IOException {
+        String acknowledgementId = message.getAcknowledgementId();
+        UUID uuid = asUUID(acknowledgementId);
+        byte[] data = message.getData() == null ? null : message.getData().getBytes(UTF_8);
+        byte[] deflated = data != null && deflateThreshold > 0 && data.length >= deflateThreshold ? deflate(data) : null;
+        if (deflated != null && deflated.length >= data.length) {
+            deflated = null;
+        }
+
+        int flags = (data != null ? HAS_DATA : 0) | (deflated != null ? DEFLATED : 0) | (uuid != null ? UUID_ACKNOWLEDGEMENT : 0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + (data == null ? 0 : data.length));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MARKER);
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeUTF(message.getAction().name());
+            if (uuid != null) {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            } else {
+                out.writeUTF(acknowledgementId == null ? "" : acknowledgementId);
+            }
+            if (deflated != null) {
+                out.writeInt(data.length);
+                out.writeInt(deflated.length);
+                out.write(deflated);
+            } else if (data != null) {
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static Message decode(InputStream input, int maxMessageSize) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(readFrame(input, maxMessageSize)));
+        if (in.readUnsignedByte() != MARKER) {
+            throw new IOException("Not a binary websocket message");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary websocket message version " + version);
+        }
+        int flags = in.readUnsignedByte();
+        Action action = Action.valueOf(in.readUTF());
+        String acknowledgementId = (flags & UUID_ACKNOWLEDGEMENT) != 0 ? new UUID(in.readLong(), in.readLong()).toString() : in.readUTF();
+
+        String data = null;
+        if ((flags & HAS_DATA) != 0) {
+            if ((flags & DEFLATED) != 0) {
+                byte[] bytes = new byte[readLength(in, "data", maxMessageSize)];
+                byte[] deflated = new byte[readLength(in, "deflated data", in.available())];
+                in.readFully(deflated);
+                inflate(deflated, bytes);
+                data = new String(bytes, UTF_8);
+            } else {
+                byte[] bytes = new byte[readLength(in, "data", in.available())];
+                in.readFully(bytes);
+                data = new String(bytes, UTF_8);
+            }
+        }
+        return new Message(action, data, acknowledgementId);
+    }
+
+    private static byte[] readFrame(InputStream input, int maxMessageSize) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (frame.size() + read > maxMessageSize) {
+                throw new ProtocolException("Binary websocket message is larger than the maximum of " + maxMessageSize + " bytes");
+            }
+            frame.write(buffer, 0, read);
+        }
+        return frame.toByteArray();
+    }
+
+    private static int readLength(DataInputStream in, String field, int limit) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > limit) {
+            throw new ProtocolException(String.format("Binary websocket message declares %d bytes of %s, but at most %d are allowed", length, field, limit));
+        }
+        return length;
+    }
+
+    private static UUID asUUID(String acknowledgementId) {
+        if (acknowledgementId == null || acknowledgementId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(acknowledgementId);
+            return uuid.toString().equals(acknowledgementId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void inflate(byte[] deflated, byte[] data) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+            int offset = 0;
+            while (offset < data.length) {
+                int inflated = inflater.inflate(data, offset, data.length - offset);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated binary websocket message");
+                }
+                offset += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt binary websocket message", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -34,9 +34,13 @@ public class Message {
     }
 
     public Message(Action action, String data) {
+        this(action, data, UUID.randomUUID().toString());
+    }
+
+    Message(Action action, String data, String acknowledgementId) {
         this.action = action;
         this.data = data;
-        this.acknowledgementId = UUID.randomUUID().toString();
+        this.acknowledgementId = acknowledgementId;
     }
 
     public Action getAction() {
@@ -22,6 +22,7 @@ import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.service.AgentBuildingInfo;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.server.service.ElasticAgentRuntimeInfo;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -36,6 +37,9 @@ import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 public class MessageEncoding {
 
+    public static final String ENCODING_HEADER = "X-GoCD-Websocket-Message-Encoding";
+    public static final String BINARY_ENCODING = "binary-v" + BinaryMessageCodec.VERSION;
+
     private static Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().registerTypeAdapter(AgentRuntimeInfo.class, new AgentRuntimeInfoTypeAdapter()).create();
 
     public static String encodeWork(Work work) {
@@ -77,9 +81,28 @@ public class MessageEncoding {
         }
     }
 
+    /**
+     * Encodes in the compact binary form, which only peers that agreed on {@link #BINARY_ENCODING} can read.
+     */
+    public static byte[] encodeBinaryMessage(Message msg, int deflateThreshold) {
+        try {
+            return BinaryMessageCodec.encode(msg, deflateThreshold);
+        } catch (IOException e) {
+            throw bomb(e);
+        }
+    }
+
     public static Message decodeMessage(InputStream input) {
         try {
-            try (GZIPInputStream zipStream = new GZIPInputStream(input)) {
+            PushbackInputStream pushback = new PushbackInputStream(input, 1);
+            int first = pushback.read();
+            if (first != -1) {
+                pushback.unread(first);
+            }
+            if (first == BinaryMessageCodec.MARKER) {
+                return BinaryMessageCodec.decode(pushback, SystemEnvironment.GO_WEBSOCKET_MAX_BINARY_MESSAGE_SIZE.getValue());
+            }
+            try (GZIPInputStream zipStream = new GZIPInputStream(pushback)) {
                 String jsonStr = new String(IOUtils.toByteArray(zipStream), StandardCharsets.UTF_8);
                 return gson.fromJson(jsonStr, Message.class);
             }
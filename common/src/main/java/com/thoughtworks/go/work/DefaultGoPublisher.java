@@ -77,7 +77,11 @@ public class DefaultGoPublisher implements GoPublisher {
     }
 
     public void fetch(FetchArtifactBuilder fetchArtifact) {
-        manipulator.fetch(this, fetchArtifact);
+        fetch(fetchArtifact, this);
+    }
+
+    public void fetch(FetchArtifactBuilder fetchArtifact, GoPublisher output) {
+        manipulator.fetch(output, fetchArtifact);
     }
 
     @Override
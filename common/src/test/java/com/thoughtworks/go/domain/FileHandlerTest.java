@@ -18,6 +18,7 @@ package com.thoughtworks.go.domain;
 
 import com.thoughtworks.go.util.CachedDigestUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BrokenInputStream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,9 +26,11 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.SequenceInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertThat;
@@ -52,6 +55,7 @@ public class FileHandlerTest {
     @After
     public void tearDown() {
         FileUtils.deleteQuietly(artifact);
+        fileHandler.discardPartialFetch();
     }
 
     @Test
@@ -130,4 +134,42 @@ public class FileHandlerTest {
         }
     }
 
+    @Test
+    public void shouldResumeAnInterruptedDownloadFromWhereItStopped() throws IOException {
+        when(checksums.md5For("src/file/path")).thenReturn(CachedDigestUtils.md5Hex(new ByteArrayInputStream("Hello world".getBytes())));
+        fileHandler.useArtifactMd5Checksums(checksums);
+        fileHandler.useValidator("\"etag\"");
+        try {
+            fileHandler.handle(new SequenceInputStream(new ByteArrayInputStream("Hello".getBytes()), new BrokenInputStream()));
+            fail("Should have failed reading the broken stream");
+        } catch (IOException expected) {
+        }
+
+        assertThat(fileHandler.resumeFrom(), is(5L));
+        assertThat(fileHandler.resumeValidator(), is("\"etag\""));
+
+        fileHandler.handleRemaining(new ByteArrayInputStream(" world".getBytes()));
+        fileHandler.handleResult(200, goPublisher);
+
+        assertThat(FileUtils.readFileToString(artifact, UTF_8), is("Hello world"));
+        assertThat(goPublisher.getMessage(), containsString("Saved artifact to [foo] after verifying the integrity of its contents."));
+        assertThat(fileHandler.resumeFrom(), is(0L));
+        assertThat(fileHandler.resumeValidator(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldStartOverAfterThePartialDownloadIsDiscarded() throws IOException {
+        fileHandler.useValidator("\"etag\"");
+        try {
+            fileHandler.handle(new SequenceInputStream(new ByteArrayInputStream("Hello".getBytes()), new BrokenInputStream()));
+            fail("Should have failed reading the broken stream");
+        } catch (IOException expected) {
+        }
+
+        fileHandler.discardPartialFetch();
+
+        assertThat(fileHandler.resumeFrom(), is(0L));
+        assertThat(fileHandler.resumeValidator(), is(nullValue()));
+    }
+
 }
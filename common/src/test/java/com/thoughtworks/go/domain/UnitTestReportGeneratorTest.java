@@ -31,6 +31,8 @@ import java.io.*;
 
 import static com.thoughtworks.go.domain.UnitTestReportGenerator.*;
 import static com.thoughtworks.go.util.TestUtils.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -119,7 +121,7 @@ public class UnitTestReportGeneratorTest {
 
         generator.generate(testFolder.listFiles(), "testoutput");
 
-        verify(publisher).consumeLine("Ignoring file Invalid.xml - it is not a recognised test file.");
+        verify(publisher).consumeLine("The file Invalid.xml could not be parsed. It seems to be invalid.");
         verify(publisher).setProperty(new Property(TOTAL_TEST_COUNT, "0"));
         verify(publisher).setProperty(new Property(FAILED_TEST_COUNT, "0"));
         verify(publisher).setProperty(new Property(IGNORED_TEST_COUNT, "0"));
@@ -170,6 +172,18 @@ public class UnitTestReportGeneratorTest {
         verify(publisher).setProperty(new Property(TEST_TIME, "1.286"));
     }
 
+    @Test
+    public void shouldListFailedTestsInTheUploadedReport() throws IOException {
+        copyAndClose(source("UnitTestReportGeneratorTest.xml"), target("UnitTestReportGeneratorTest.xml"));
+
+        generator.generate(testFolder.listFiles(), "testoutput");
+
+        String report = FileUtils.readFileToString(new File(testFolder, TEST_RESULTS_FILE), UTF_8);
+        assertThat(report, containsString("<span class=\"tests_failed_count\">3</span>"));
+        assertThat(report, containsString("Unit Test Failure and Error Details (3)"));
+        assertThat(report, containsString("<td class=\"section-data\">shouldGenerateReportForJUnitWithMultipleFiles</td>"));
+    }
+
     @Test
     public void shouldGenerateReportForNUnitGivenMutipleInputFiles() throws IOException, ArtifactPublishingException {
         copyAndClose(source("TestReport-Integration.xml"), target("test-result1.xml"));
@@ -30,6 +30,7 @@ import com.thoughtworks.go.util.DateUtils;
 import com.thoughtworks.go.util.command.CommandLine;
 import com.thoughtworks.go.util.command.CommandLineException;
 import com.thoughtworks.go.util.command.InMemoryStreamConsumer;
+import com.thoughtworks.go.util.command.SecretString;
 import com.thoughtworks.go.util.command.UrlArgument;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -256,7 +257,7 @@ public class GitCommandTest {
 
     @Test
     public void shouldRetrieveLatestModification() throws Exception {
-        Modification mod = git.latestModification().get(0);
+        Modification mod = git.latestModification(Integer.MAX_VALUE).get(0);
         assertThat(mod.getUserName(), is("Chris Turner <cturner@thoughtworks.com>"));
         assertThat(mod.getComment(), is("Added 'run-till-file-exists' ant target"));
         assertThat(mod.getModifiedTime(), is(parseRFC822("Fri, 12 Feb 2010 16:12:04 -0800")));
@@ -270,13 +271,13 @@ public class GitCommandTest {
 
     @Test
     public void retrieveLatestModificationShouldNotResultInWorkingCopyCheckOut() throws Exception{
-        git.latestModification();
+        git.latestModification(Integer.MAX_VALUE);
         assertWorkingCopyNotCheckedOut();
     }
 
     @Test
     public void getModificationsSinceShouldNotResultInWorkingCopyCheckOut() throws Exception{
-        git.modificationsSince(GitTestRepo.REVISION_2);
+        git.modificationsSince(GitTestRepo.REVISION_2, Integer.MAX_VALUE);
         assertWorkingCopyNotCheckedOut();
     }
 
@@ -289,7 +290,7 @@ public class GitCommandTest {
 
         Modification modification = remoteRepo.addFileAndAmend("foo", "amendedCommit").get(0);
 
-        assertThat(command.modificationsSince(new StringRevision(modification.getRevision())).isEmpty(), is(true));
+        assertThat(command.modificationsSince(new StringRevision(modification.getRevision()), Integer.MAX_VALUE).isEmpty(), is(true));
 
     }
 
@@ -302,10 +303,25 @@ public class GitCommandTest {
 
         Modification modification = remoteRepo.addFileAndAmend("foo", "amendedCommit").get(0);
 
-        assertThat(command.modificationsSince(REVISION_4).get(0), is(modification));
+        assertThat(command.modificationsSince(REVISION_4, Integer.MAX_VALUE).get(0), is(modification));
 
     }
 
+    @Test
+    public void shouldParseModificationsFromUnmaskedLogOutput() throws IOException {
+        GitTestRepo remoteRepo = new GitTestRepo(temporaryFolder);
+        executeOnGitRepo("git", "remote", "rm", "origin");
+        executeOnGitRepo("git", "remote", "add", "origin", remoteRepo.projectRepositoryUrl());
+        SecretString maskLog = line -> line.replace("log", "******");
+        GitCommand command = new GitCommand(remoteRepo.createMaterial().getFingerprint(), gitLocalRepoDir, "master", false, new HashMap<>(), Collections.singletonList(maskLog));
+
+        remoteRepo.checkInOneFile("changelog.txt", "Update the changelog");
+
+        Modification modification = command.latestModification(Integer.MAX_VALUE).get(0);
+        assertThat(modification.getComment(), is("Update the changelog"));
+        assertThat(modification.getModifiedFiles().get(0).getFileName(), is("changelog.txt"));
+    }
+
     @Test(expected = CommandLineException.class)
     public void shouldBombIfCheckedForModificationsSinceWithASHAThatNoLongerExists() throws IOException {
         GitTestRepo remoteRepo = new GitTestRepo(temporaryFolder);
@@ -316,7 +332,7 @@ public class GitCommandTest {
         Modification modification = remoteRepo.checkInOneFile("foo", "Adding a commit").get(0);
         remoteRepo.addFileAndAmend("bar", "amendedCommit");
 
-        command.modificationsSince(new StringRevision(modification.getRevision()));
+        command.modificationsSince(new StringRevision(modification.getRevision()), Integer.MAX_VALUE);
     }
 
     @Test(expected = CommandLineException.class)
@@ -328,7 +344,7 @@ public class GitCommandTest {
 
         Modification modification = remoteRepo.checkInOneFile("foo", "Adding a commit").get(0);
 
-        command.modificationsSince(new StringRevision(modification.getRevision()));
+        command.modificationsSince(new StringRevision(modification.getRevision()), Integer.MAX_VALUE);
     }
 
     @Test
@@ -340,7 +356,7 @@ public class GitCommandTest {
         executeOnGitRepo("git", "remote", "add", "origin", remoteRepo.projectRepositoryUrl());
         GitCommand command = new GitCommand(remoteRepo.createMaterial().getFingerprint(), gitLocalRepoDir, "non-existent-branch", false, new HashMap<>(), null);
 
-        command.latestModification();
+        command.latestModification(Integer.MAX_VALUE);
     }
 
     @Test
@@ -357,7 +373,7 @@ public class GitCommandTest {
     public void shouldRetrieveFilenameForInitialRevision() throws IOException {
         GitTestRepo testRepo = new GitTestRepo(GitTestRepo.GIT_SUBMODULE_REF_BUNDLE, temporaryFolder);
         GitCommand gitCommand = new GitCommand(null, testRepo.gitRepository(), GitMaterialConfig.DEFAULT_BRANCH, false, new HashMap<>(), null);
-        Modification modification = gitCommand.latestModification().get(0);
+        Modification modification = gitCommand.latestModification(Integer.MAX_VALUE).get(0);
         assertThat(modification.getModifiedFiles().size(), is(1));
         assertThat(modification.getModifiedFiles().get(0).getFileName(), is("remote.txt"));
     }
@@ -367,7 +383,7 @@ public class GitCommandTest {
         GitCommand branchedGit = new GitCommand(null, createTempWorkingDirectory(), BRANCH, false, new HashMap<>(), null);
         branchedGit.clone(inMemoryConsumer(), branchedRepo.projectRepositoryUrl());
 
-        Modification mod = branchedGit.latestModification().get(0);
+        Modification mod = branchedGit.latestModification(Integer.MAX_VALUE).get(0);
 
         assertThat(mod.getUserName(), is("Chris Turner <cturner@thoughtworks.com>"));
         assertThat(mod.getComment(), is("Started foo branch"));
@@ -475,10 +491,10 @@ public class GitCommandTest {
 
 
     @Test public void shouldIncludeNewChangesInModificationCheck() throws Exception {
-        String originalNode = git.latestModification().get(0).getRevision();
+        String originalNode = git.latestModification(Integer.MAX_VALUE).get(0).getRevision();
         File testingFile = checkInNewRemoteFile();
 
-        Modification modification = git.latestModification().get(0);
+        Modification modification = git.latestModification(Integer.MAX_VALUE).get(0);
         assertThat(modification.getRevision(), is(not(originalNode)));
         assertThat(modification.getComment(), is("New checkin of " + testingFile.getName()));
         assertThat(modification.getModifiedFiles().size(), is(1));
@@ -486,10 +502,10 @@ public class GitCommandTest {
     }
 
     @Test public void shouldIncludeChangesFromTheFutureInModificationCheck() throws Exception {
-        String originalNode = git.latestModification().get(0).getRevision();
+        String originalNode = git.latestModification(Integer.MAX_VALUE).get(0).getRevision();
         File testingFile = checkInNewRemoteFileInFuture(THREE_DAYS_FROM_NOW);
 
-        Modification modification = git.latestModification().get(0);
+        Modification modification = git.latestModification(Integer.MAX_VALUE).get(0);
         assertThat(modification.getRevision(), is(not(originalNode)));
         assertThat(modification.getComment(), is("New checkin of " + testingFile.getName()));
         assertThat(modification.getModifiedTime(), is(THREE_DAYS_FROM_NOW));
@@ -498,7 +514,7 @@ public class GitCommandTest {
     @Test public void shouldThrowExceptionIfRepoCanNotConnectWhenModificationCheck() throws Exception {
         FileUtils.deleteQuietly(repoLocation);
         try {
-            git.latestModification();
+            git.latestModification(Integer.MAX_VALUE);
             fail("Should throw exception when repo cannot connected");
         } catch (Exception e) {
             assertThat(e.getMessage(), anyOf(containsString("The remote end hung up unexpectedly"), containsString("Could not read from remote repository")));
@@ -16,11 +16,15 @@
 
 package com.thoughtworks.go.domain.materials.git;
 
+import com.thoughtworks.go.domain.materials.ModifiedAction;
+import com.thoughtworks.go.domain.materials.ModifiedFile;
 import com.thoughtworks.go.util.DateUtils;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import org.junit.Test;
 
+import java.util.List;
+
 public class GitModificationParserTest {
 
     GitModificationParser parser = new GitModificationParser();
@@ -103,4 +107,37 @@ public class GitModificationParserTest {
                 parser.getModifications().get(1).getComment(),
                 is("My Comment 2"));
     }
+
+    @Test
+    public void shouldAddModifiedFilesFromNameStatusOutput() {
+        simulateOneComment();
+        parser.processLine("");
+        parser.processLine("    My Comment");
+        parser.processLine("");
+        parser.processLine("A\tbuild/rakefile.rb");
+        parser.processLine("D\trakefile.rb");
+        parser.processLine("M\tREADME");
+
+        List<ModifiedFile> files = parser.getModifications().get(0).getModifiedFiles();
+        assertThat(parser.getModifications().get(0).getComment(), is("My Comment"));
+        assertThat(files.size(), is(3));
+        assertThat(files.get(0).getFileName(), is("build/rakefile.rb"));
+        assertThat(files.get(0).getAction(), is(ModifiedAction.added));
+        assertThat(files.get(1).getAction(), is(ModifiedAction.deleted));
+        assertThat(files.get(2).getAction(), is(ModifiedAction.modified));
+    }
+
+    @Test
+    public void shouldCapModifiedFilesPerCommit() {
+        parser = new GitModificationParser(1);
+        simulateOneComment();
+        parser.processLine("M\tfirst");
+        parser.processLine("M\tsecond");
+        simulateOneComment();
+        parser.processLine("M\tthird");
+
+        assertThat(parser.getModifications().get(0).getModifiedFiles().size(), is(1));
+        assertThat(parser.getModifications().get(0).getModifiedFiles().get(0).getFileName(), is("first"));
+        assertThat(parser.getModifications().get(1).getModifiedFiles().size(), is(1));
+    }
 }
@@ -156,6 +156,17 @@ public class SvnCommandTest {
     }
 
 
+    @Test
+    public void shouldParseTheSvnLogWithoutMaskingThePasswordWhereItAppearsInTheLog() throws Exception {
+        testRepo.checkInOneFile("changelog.txt", "Update the changelog");
+        SvnCommand command = new SvnCommand(null, svnRepositoryUrl, "user", "log", false);
+
+        Modification modification = command.latestModification().get(0);
+
+        assertThat(modification.getComment(), is("Update the changelog"));
+        assertThat(modification.getModifiedFiles().get(0).getFileName(), endsWith("changelog.txt"));
+    }
+
     @Test
     public void shouldFilterModifiedFilesByRepositoryURL() {
         subversion = new SvnCommand(null, testRepo.end2endRepositoryUrl() + "/unit-reports", "user", "pass", false);
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.publishers;
+
+import com.thoughtworks.go.domain.ArtifactMd5Checksums;
+import com.thoughtworks.go.domain.DirHandler;
+import com.thoughtworks.go.domain.FileHandler;
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.util.CachedDigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class AgentArtifactCacheTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheDir;
+    private File workingDir;
+    private ArtifactMd5Checksums checksums;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = temporaryFolder.newFolder("cache");
+        workingDir = temporaryFolder.newFolder("pipelines");
+        Properties properties = new Properties();
+        properties.setProperty("dist/app.jar", CachedDigestUtils.md5Hex("built app"));
+        checksums = new ArtifactMd5Checksums(properties);
+    }
+
+    @Test
+    public void shouldPutACachedArtifactInPlaceForAnotherJob() throws IOException {
+        AgentArtifactCache cache = new AgentArtifactCache(cacheDir, 1024 * 1024, false);
+        cache.store("up/1/stage/1/job/dist/app.jar", fetch("first", "built app"));
+
+        FileHandler sibling = new FileHandler(new File(workingDir, "second/app.jar"), "dist/app.jar");
+        assertThat(cache.materialize("up/1/stage/1/job/dist/app.jar", sibling, checksums), is(true));
+
+        assertThat(FileUtils.readFileToString(new File(workingDir, "second/app.jar"), UTF_8), is("built app"));
+        assertThat(cache.statistics(), containsString("1 of 1 fetches served from the agent artifact cache (100%)"));
+    }
+
+    @Test
+    public void shouldNotUseACachedArtifactThatDoesNotMatchThePublishedChecksum() throws IOException {
+        AgentArtifactCache cache = new AgentArtifactCache(cacheDir, 1024 * 1024, false);
+        cache.store("up/1/stage/1/job/dist/app.jar", fetch("first", "something else"));
+
+        FileHandler sibling = new FileHandler(new File(workingDir, "second/app.jar"), "dist/app.jar");
+
+        assertThat(cache.materialize("up/1/stage/1/job/dist/app.jar", sibling, checksums), is(false));
+        assertThat(new File(workingDir, "second/app.jar").exists(), is(false));
+    }
+
+    @Test
+    public void shouldNotHandOutAHardLinkedArtifactThatAJobChanged() throws IOException {
+        AgentArtifactCache cache = new AgentArtifactCache(cacheDir, 1024 * 1024, true);
+        cache.store("up/1/stage/1/job/dist/app.jar", fetch("first", "built app"));
+        File second = new File(workingDir, "second/app.jar");
+        assertThat(cache.materialize("up/1/stage/1/job/dist/app.jar", new FileHandler(second, "dist/app.jar"), checksums), is(true));
+
+        FileUtils.writeStringToFile(second, " patched", UTF_8, true);
+
+        assertThat(cache.materialize("up/1/stage/1/job/dist/app.jar", new FileHandler(new File(workingDir, "third/app.jar"), "dist/app.jar"), checksums), is(false));
+    }
+
+    @Test
+    public void shouldNotUseACachedArtifactThatWasChangedWithoutChangingItsSizeOrModificationTime() throws IOException {
+        AgentArtifactCache cache = new AgentArtifactCache(cacheDir, 1024 * 1024, false);
+        cache.store("up/1/stage/1/job/dist/app.jar", fetch("first", "built app"));
+        File cached = new File(cacheDir, cacheDir.list()[0] + "/files/app.jar");
+        long lastModified = cached.lastModified();
+        FileUtils.writeStringToFile(cached, "built bug", UTF_8);
+        cached.setLastModified(lastModified);
+
+        assertThat(cache.materialize("up/1/stage/1/job/dist/app.jar", new FileHandler(new File(workingDir, "second/app.jar"), "dist/app.jar"), checksums), is(false));
+    }
+
+    @Test
+    public void shouldNotUseACachedDirectoryThatIsMissingAPublishedFile() throws IOException {
+        Properties published = properties("dist/app.jar", "built app");
+        published.setProperty("dist/lib/util.jar", CachedDigestUtils.md5Hex("built util"));
+        AgentArtifactCache cache = new AgentArtifactCache(cacheDir, 1024 * 1024, false);
+        DirHandler first = new DirHandler("dist", new File(workingDir, "first"));
+        first.handle(zipOf("dist/app.jar", "built app"));
+        cache.store("up/1/stage/1/job/dist", first);
+
+        DirHandler second = new DirHandler("dist", new File(workingDir, "second"));
+
+        assertThat(cache.materialize("up/1/stage/1/job/dist", second, new ArtifactMd5Checksums(published)), is(false));
+        assertThat(cache.materialize("up/1/stage/1/job/dist", second, new ArtifactMd5Checksums(properties("dist/app.jar", "built app"))), is(true));
+    }
+
+    @Test
+    public void shouldEvictTheLeastRecentlyUsedArtifactsWhenFull() throws IOException {
+        new AgentArtifactCache(cacheDir, 1024 * 1024, false).store("up/1/stage/1/job/dist/app.jar", fetch("first", "built app"));
+        new File(cacheDir, cacheDir.list()[0]).setLastModified(System.currentTimeMillis() - 60000);
+        AgentArtifactCache cache = new AgentArtifactCache(cacheDir, FileUtils.sizeOfDirectory(cacheDir) * 3 / 2, false);
+
+        cache.store("up/2/stage/1/job/dist/app.jar", fetch("second", "built app"));
+
+        assertThat(cache.materialize("up/1/stage/1/job/dist/app.jar", new FileHandler(new File(workingDir, "third/app.jar"), "dist/app.jar"), checksums), is(false));
+        assertThat(cache.materialize("up/2/stage/1/job/dist/app.jar", new FileHandler(new File(workingDir, "third/app.jar"), "dist/app.jar"), checksums), is(true));
+    }
+
+    @Test
+    public void shouldNotCacheArtifactsOfJobRunsThatAreNotPinnedDown() {
+        FileHandler handler = new FileHandler(new File(workingDir, "app.jar"), "dist/app.jar");
+
+        assertThat(AgentArtifactCache.keyOf(new JobIdentifier("up", 1, "1", "stage", JobIdentifier.LATEST, "job"), "dist/app.jar", handler), is(nullValue()));
+        assertThat(AgentArtifactCache.keyOf(new JobIdentifier("up", 1, "1", "stage", "2", "job"), "dist/app.jar", handler), is("up/1/stage/2/job/dist/app.jar/FileHandler"));
+    }
+
+    private FileHandler fetch(String dest, String content) throws IOException {
+        FileHandler handler = new FileHandler(new File(workingDir, dest + "/app.jar"), "dist/app.jar");
+        handler.handle(new ByteArrayInputStream(content.getBytes(UTF_8)));
+        return handler;
+    }
+
+    private static Properties properties(String artifactPath, String content) {
+        Properties properties = new Properties();
+        properties.setProperty(artifactPath, CachedDigestUtils.md5Hex(content));
+        return properties;
+    }
+
+    private static ByteArrayInputStream zipOf(String entryName, String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write(content.getBytes(UTF_8));
+            zip.closeEntry();
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
@@ -18,7 +18,9 @@ package com.thoughtworks.go.publishers;
 
 import com.thoughtworks.go.domain.AgentRuntimeStatus;
 import com.thoughtworks.go.domain.ArtifactMd5Checksums;
+import com.thoughtworks.go.domain.DownloadAction;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.BuildRepositoryRemoteStub;
 import com.thoughtworks.go.remote.work.GoArtifactsManipulatorStub;
@@ -26,20 +28,28 @@ import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.util.CachedDigestUtils;
 import com.thoughtworks.go.util.HttpService;
 import com.thoughtworks.go.util.ReflectionUtil;
+import com.thoughtworks.go.util.StreamingZipBody;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.URLService;
+import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.work.DefaultGoPublisher;
 import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.apache.commons.io.FileUtils;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.zip.ZipInputStream;
 
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -71,6 +81,11 @@ public class GoArtifactsManipulatorTest {
         goPublisher = new DefaultGoPublisher(goArtifactsManipulatorStub, jobIdentifier, new BuildRepositoryRemoteStub(), agentRuntimeInfo, "utf-8");
     }
 
+    @After
+    public void tearDown() {
+        new SystemEnvironment().reset(SystemEnvironment.STREAMING_ARTIFACT_UPLOAD_ENABLED);
+    }
+
     @Test
     public void shouldBombWithErrorWhenStatusCodeReturnedIsRequestEntityTooLarge() throws IOException, InterruptedException {
         when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), any(Properties.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
@@ -142,6 +157,43 @@ public class GoArtifactsManipulatorTest {
         goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder, jobIdentifier);
     }
 
+    @Test
+    public void shouldStreamZipOfADirectoryAlongWithChecksumsComputedWhileZipping() throws IOException {
+        new SystemEnvironment().set(SystemEnvironment.STREAMING_ARTIFACT_UPLOAD_ENABLED, true);
+        String data = "Some text whose checksum can be asserted";
+        String secondData = "some more";
+        FileUtils.writeStringToFile(tempFile, data, UTF_8);
+        FileUtils.writeStringToFile(new File(artifactFolder, "bond/james_bond/another_file"), secondData, UTF_8);
+
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        Properties[] uploadedChecksums = new Properties[1];
+        when(httpService.upload(any(String.class), eq(FileUtils.sizeOfDirectory(artifactFolder)), any(StreamingZipBody.class))).thenAnswer(invocation -> {
+            StreamingZipBody body = invocation.getArgument(2);
+            body.writeTo(zipped);
+            uploadedChecksums[0] = body.checksums();
+            return HttpServletResponse.SC_OK;
+        });
+
+        goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder, jobIdentifier);
+
+        verify(httpService, never()).upload(any(String.class), anyLong(), any(File.class), any(Properties.class));
+        assertThat(uploadedChecksums[0], is(expectedProperties(data, secondData)));
+        File unzipped = temporaryFolder.newFolder("unzipped");
+        new ZipUtil().unzip(new ZipInputStream(new ByteArrayInputStream(zipped.toByteArray())), unzipped);
+        assertThat(FileUtils.readFileToString(new File(unzipped, "artifact_folder/bond/james_bond/another_file"), UTF_8), is(secondData));
+    }
+
+    @Test
+    public void shouldFetchThroughTheInjectedArtifactCache() throws Exception {
+        AgentArtifactCache artifactCache = mock(AgentArtifactCache.class);
+        FetchArtifactBuilder fetchArtifactBuilder = mock(FetchArtifactBuilder.class);
+        GoArtifactsManipulator manipulator = new GoArtifactsManipulator(httpService, new URLService(), new ZipUtil(), artifactCache);
+
+        manipulator.fetch(goPublisher, fetchArtifactBuilder);
+
+        verify(fetchArtifactBuilder).fetch(any(DownloadAction.class), any(URLService.class), same(artifactCache), same(goPublisher));
+    }
+
     private Properties expectedProperties(String data, String secondData) {
         Properties properties = new Properties();
         properties.setProperty("dest/artifact_folder/file.txt", CachedDigestUtils.md5Hex(data));
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.remote.work;
+
+import com.thoughtworks.go.domain.*;
+import com.thoughtworks.go.domain.builder.Builder;
+import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
+import com.thoughtworks.go.domain.builder.NullBuilder;
+import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ArtifactPrefetcherTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ArtifactPrefetcher prefetcher;
+    private DefaultGoPublisher publisher;
+    private File workingDir;
+
+    @Before
+    public void setUp() throws Exception {
+        prefetcher = new ArtifactPrefetcher(2);
+        publisher = mock(DefaultGoPublisher.class);
+        workingDir = temporaryFolder.newFolder("working");
+    }
+
+    @After
+    public void tearDown() {
+        prefetcher.close();
+    }
+
+    @Test
+    public void shouldFetchConsecutiveArtifactsConcurrentlyAndReplayTheirOutputInTaskOrder() throws Exception {
+        FetchArtifactBuilder first = fetch("lib");
+        FetchArtifactBuilder second = fetch("docs");
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            FetchArtifactBuilder fetch = invocation.getArgument(0);
+            GoPublisher output = invocation.getArgument(1);
+            bothStarted.countDown();
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new RuntimeException("fetches did not run concurrently");
+            }
+            output.consumeLine("fetched " + fetch.getDest());
+            return null;
+        }).when(publisher).fetch(any(FetchArtifactBuilder.class), any(GoPublisher.class));
+
+        List<Builder> builders = Arrays.asList(first, second);
+        prefetcher.prefetch(builders, 0, publisher);
+        assertThat(prefetcher.isPrefetching(first), is(true));
+        assertThat(prefetcher.isPrefetching(second), is(true));
+
+        GoPublisher console = mock(GoPublisher.class);
+        prefetcher.awaitFetch(first, console);
+        prefetcher.awaitFetch(second, console);
+
+        InOrder inOrder = inOrder(console);
+        inOrder.verify(console).consumeLine("fetched lib");
+        inOrder.verify(console).consumeLine("fetched docs");
+        assertThat(prefetcher.isPrefetching(first), is(false));
+    }
+
+    @Test
+    public void shouldReplayOutputOfAFailedFetchBeforeReportingTheFailure() throws Exception {
+        FetchArtifactBuilder first = fetch("lib");
+        FetchArtifactBuilder second = fetch("docs");
+        doAnswer(invocation -> {
+            GoPublisher output = invocation.getArgument(1);
+            output.taggedConsumeLineWithPrefix(GoPublisher.ERR, "Failed to save artifact");
+            throw new RuntimeException("boom");
+        }).when(publisher).fetch(argThat(fetch -> fetch.getDest().equals("lib")), any(GoPublisher.class));
+
+        prefetcher.prefetch(Arrays.asList(first, second), 0, publisher);
+
+        GoPublisher console = mock(GoPublisher.class);
+        try {
+            prefetcher.awaitFetch(first, console);
+            fail("should have reported the failed fetch");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), is("boom"));
+        }
+        verify(console).taggedConsumeLineWithPrefix(GoPublisher.ERR, "Failed to save artifact");
+    }
+
+    @Test
+    public void shouldOnlyMoveAPrefetchedArtifactIntoItsDestinationWhenItsTaskComesUp() throws Exception {
+        FetchArtifactBuilder first = fetch("lib");
+        FetchArtifactBuilder second = fetch("docs");
+        CountDownLatch bothFetched = fetchesWriting("fetched", 2);
+
+        prefetcher.prefetch(Arrays.asList(first, second), 0, publisher);
+        assertTrue(bothFetched.await(5, TimeUnit.SECONDS));
+        assertThat(new File(workingDir, "lib").exists(), is(false));
+        assertThat(new File(workingDir, "docs").exists(), is(false));
+
+        prefetcher.awaitFetch(first, mock(GoPublisher.class));
+
+        assertThat(FileUtils.readFileToString(new File(workingDir, "lib/artifact.txt"), UTF_8), is("fetched"));
+        assertThat(checksumFileOf(first).exists(), is(true));
+        assertThat(new File(workingDir, "docs").exists(), is(false));
+        assertThat(checksumFileOf(second).exists(), is(false));
+    }
+
+    @Test
+    public void shouldDiscardOutstandingPrefetchesSoThatTheyLeaveNothingBehind() throws Exception {
+        FetchArtifactBuilder first = fetch("lib");
+        FetchArtifactBuilder second = fetch("docs");
+        CountDownLatch bothFetched = fetchesWriting("fetched", 2);
+        prefetcher.prefetch(Arrays.asList(first, second), 0, publisher);
+        assertTrue(bothFetched.await(5, TimeUnit.SECONDS));
+
+        prefetcher.discardOutstanding();
+
+        assertThat(prefetcher.isPrefetching(first), is(false));
+        assertThat(prefetcher.isPrefetching(second), is(false));
+        assertThat(workingDir.list(), is(emptyArray()));
+
+        prefetcher.prefetch(Arrays.asList(first, second), 0, publisher);
+        assertThat(prefetcher.isPrefetching(first), is(false));
+    }
+
+    @Test
+    public void shouldNameTheDestinationRatherThanTheStagingDirectoryInReplayedOutput() throws Exception {
+        FetchArtifactBuilder first = fetch("lib");
+        FetchArtifactBuilder second = fetch("docs");
+        Property property = new Property("name", "value");
+        doAnswer(invocation -> {
+            FetchArtifactBuilder fetch = invocation.getArgument(0);
+            GoPublisher output = invocation.getArgument(1);
+            output.taggedConsumeLineWithPrefix(GoPublisher.OUT, String.format("Saved artifact to [%s] after verifying the integrity of its contents.", destinationOf(fetch)));
+            output.setProperty(property);
+            return null;
+        }).when(publisher).fetch(any(FetchArtifactBuilder.class), any(GoPublisher.class));
+        prefetcher.prefetch(Arrays.asList(first, second), 0, publisher);
+
+        GoPublisher console = mock(GoPublisher.class);
+        prefetcher.awaitFetch(first, console);
+
+        verify(console).taggedConsumeLineWithPrefix(GoPublisher.OUT, String.format("Saved artifact to [%s] after verifying the integrity of its contents.", destinationOf(first)));
+        verify(console).setProperty(property);
+    }
+
+    @Test
+    public void shouldNotPrefetchArtifactsIntoOverlappingDestinations() throws Exception {
+        FetchArtifactBuilder first = fetch("lib");
+        FetchArtifactBuilder second = fetch("./lib/nested");
+        FetchArtifactBuilder third = fetch("docs");
+
+        prefetcher.prefetch(Arrays.asList(first, second, third), 0, publisher);
+        assertThat(prefetcher.isPrefetching(first), is(false));
+
+        prefetcher.prefetch(Arrays.asList(first, second, third), 1, publisher);
+        assertThat(prefetcher.isPrefetching(second), is(true));
+        assertThat(prefetcher.isPrefetching(third), is(true));
+    }
+
+    @Test
+    public void shouldNotPrefetchArtifactsIntoTheWorkingDirectoryAlongsideOthers() throws Exception {
+        FetchArtifactBuilder first = fetch("");
+        FetchArtifactBuilder second = fetch("docs");
+
+        prefetcher.prefetch(Arrays.asList(first, second), 0, publisher);
+
+        assertThat(prefetcher.isPrefetching(first), is(false));
+        assertThat(prefetcher.isPrefetching(second), is(false));
+    }
+
+    private CountDownLatch fetchesWriting(String content, int count) {
+        CountDownLatch fetched = new CountDownLatch(count);
+        doAnswer(invocation -> {
+            FetchArtifactBuilder fetch = invocation.getArgument(0);
+            FileUtils.writeStringToFile(new File(destinationOf(fetch), "artifact.txt"), content, UTF_8);
+            FileUtils.writeStringToFile(checksumFileOf(fetch), "artifact.txt=" + content, UTF_8);
+            fetched.countDown();
+            return null;
+        }).when(publisher).fetch(any(FetchArtifactBuilder.class), any(GoPublisher.class));
+        return fetched;
+    }
+
+    private static File destinationOf(FetchArtifactBuilder fetch) {
+        return ((CacheableFetchHandler) fetch.getHandler()).destinationOnAgent();
+    }
+
+    private static File checksumFileOf(FetchArtifactBuilder fetch) {
+        return fetch.getChecksumFileHandler().getChecksumFile();
+    }
+
+    private FetchArtifactBuilder fetch(String dest) {
+        ChecksumFileHandler checksums = new ChecksumFileHandler(new File(temporaryFolder.getRoot(), "checksums/" + dest.replace('/', '_') + ".md5"));
+        return new FetchArtifactBuilder(new RunIfConfigs(), new NullBuilder(), "", mock(JobIdentifier.class), "src", dest, new DirHandler("src", new File(workingDir, dest)), checksums);
+    }
+}
@@ -16,23 +16,38 @@
 
 package com.thoughtworks.go.remote.work;
 
-import com.thoughtworks.go.domain.RunIfConfigs;
-import com.thoughtworks.go.domain.StubGoPublisher;
+import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.builder.Builder;
 import com.thoughtworks.go.domain.builder.CommandBuilder;
+import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
+import com.thoughtworks.go.domain.builder.NullBuilder;
 import com.thoughtworks.go.domain.builder.StubBuilder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
+import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 
 import static com.thoughtworks.go.config.RunIfConfig.ANY;
 import static com.thoughtworks.go.config.RunIfConfig.FAILED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
 
 public class BuildersTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Test
     public void shouldNotBuildIfTheJobIsCanceled() throws Exception {
@@ -74,4 +89,33 @@ public class BuildersTest {
         builders.build(environmentVariableContext, "utf-8");
         builders.cancel(environmentVariableContext, "utf-8");
     }
+
+    @Test
+    public void shouldLeaveNothingBehindFromArtifactsPrefetchedForTasksThatDoNotRunAfterAFailure() throws Exception {
+        File workingDir = temporaryFolder.newFolder("working");
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.getArtifactFetchConcurrency()).thenReturn(2);
+        DefaultGoPublisher goPublisher = mock(DefaultGoPublisher.class);
+        doAnswer(invocation -> {
+            FetchArtifactBuilder fetch = invocation.getArgument(0);
+            File destination = ((CacheableFetchHandler) fetch.getHandler()).destinationOnAgent();
+            FileUtils.writeStringToFile(new File(destination, "artifact.txt"), "fetched", UTF_8);
+            if (fetch.getDest().equals("lib")) {
+                throw new RuntimeException("boom");
+            }
+            return null;
+        }).when(goPublisher).fetch(any(FetchArtifactBuilder.class), any(GoPublisher.class));
+        Builders builders = new Builders(Arrays.asList(fetch(workingDir, "lib"), fetch(workingDir, "docs")), goPublisher, null, null, null, systemEnvironment);
+
+        JobResult result = builders.build(new EnvironmentVariableContext(), "utf-8");
+
+        assertThat(result, is(JobResult.Failed));
+        assertThat(workingDir.list(), is(emptyArray()));
+        verify(goPublisher, never()).fetch(argThat(fetch -> fetch.getDest().equals("docs")));
+    }
+
+    private FetchArtifactBuilder fetch(File workingDir, String dest) {
+        ChecksumFileHandler checksums = new ChecksumFileHandler(new File(temporaryFolder.getRoot(), dest + ".md5"));
+        return new FetchArtifactBuilder(new RunIfConfigs(), new NullBuilder(), "", mock(JobIdentifier.class), "src", dest, new DirHandler("src", new File(workingDir, dest)), checksums);
+    }
 }
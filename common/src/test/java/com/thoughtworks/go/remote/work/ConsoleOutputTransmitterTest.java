@@ -23,9 +23,12 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.io.IOException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -64,6 +67,66 @@ public class ConsoleOutputTransmitterTest {
         assertThat(requestArgumentCaptor.getValue(), containsString("second line\n"));
     }
 
+    @Test
+    public void shouldPrefixEveryLineOfMultilineOutputWithTagAndTime() throws Exception {
+        transmitter.taggedConsumeLine(ConsoleOutputTransmitter.OUT, "first line\nsecond line");
+
+        transmitter.flushToServer();
+
+        String[] lines = requestArgumentCaptor.getValue().split("\n");
+        assertThat(lines[0], matchesPattern("&1\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} first line"));
+        assertThat(lines[1], matchesPattern("&1\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} second line"));
+    }
+
+    @Test
+    public void shouldPrintNullForANullLine() throws Exception {
+        transmitter.consumeLine(null);
+
+        transmitter.flushToServer();
+
+        assertThat(requestArgumentCaptor.getValue(), matchesPattern("  \\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} null\n"));
+    }
+
+    @Test
+    public void shouldSendOutputThatCouldNotBeSentWithTheNextFlush() throws Exception {
+        doThrow(new IOException("server unavailable")).doNothing().when(consoleAppender).append(requestArgumentCaptor.capture());
+        transmitter.consumeLine("first line");
+        transmitter.flushToServer();
+
+        transmitter.consumeLine("second line");
+        transmitter.flushToServer();
+
+        verify(consoleAppender, times(2)).append(any(String.class));
+        assertThat(requestArgumentCaptor.getValue(), containsString("first line\n"));
+        assertThat(requestArgumentCaptor.getValue(), containsString("second line\n"));
+    }
+
+    @Test
+    public void shouldFlushAsSoonAsEnoughOutputIsBuffered() {
+        ScheduledThreadPoolExecutor executor = mock(ScheduledThreadPoolExecutor.class);
+        ConsoleOutputTransmitter transmitter = new ConsoleOutputTransmitter(consoleAppender, 60, executor, 30, 1024, 0);
+
+        transmitter.consumeLine("short");
+        verify(executor, never()).execute(any(Runnable.class));
+
+        transmitter.consumeLine("a line long enough to fill the flush size");
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldReportDroppedOutputWhenTheServerDoesNotKeepUp() throws Exception {
+        ConsoleOutputTransmitter transmitter = new ConsoleOutputTransmitter(consoleAppender, 60, mock(ScheduledThreadPoolExecutor.class), 1024, 40, 0);
+
+        transmitter.consumeLine("kept line");
+        transmitter.consumeLine("dropped line");
+        transmitter.consumeLine("another dropped line");
+        transmitter.flushToServer();
+
+        assertThat(requestArgumentCaptor.getValue(), containsString("kept line\n"));
+        assertThat(requestArgumentCaptor.getValue(), containsString("[go] Dropped 2 lines of console output"));
+        assertThat(requestArgumentCaptor.getValue(), not(containsString("dropped line\n")));
+    }
+
     @Test
     public void shouldNotFlushToServerWhenBufferIsEmpty() throws Exception {
         transmitter.flushToServer();
@@ -17,12 +17,12 @@
 package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
-import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
 
 public class    FailedToDownloadPublisherStub extends GoArtifactsManipulatorStub {
 
     @Override
-    public void fetch(DefaultGoPublisher goPublisher, FetchArtifactBuilder artifact) {
+    public void fetch(GoPublisher goPublisher, FetchArtifactBuilder artifact) {
         throw new RuntimeException("Failed to fetch");
     }
 }
@@ -33,6 +33,7 @@ import com.thoughtworks.go.util.HttpService;
 import com.thoughtworks.go.util.URLService;
 import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
 
 public class GoArtifactsManipulatorStub extends GoArtifactsManipulator {
     private final List<Property> properties;
@@ -84,7 +85,7 @@ public class GoArtifactsManipulatorStub extends GoArtifactsManipulator {
     }
 
     @Override
-    public void fetch(DefaultGoPublisher goPublisher, FetchArtifactBuilder artifact) {
+    public void fetch(GoPublisher goPublisher, FetchArtifactBuilder artifact) {
         savedTo.add(artifact.getHandler());
     }
 
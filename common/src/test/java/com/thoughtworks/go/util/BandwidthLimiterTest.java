@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class BandwidthLimiterTest {
+
+    @Test
+    public void shouldNotWrapStreamsWhenThereIsNoLimit() {
+        InputStream stream = new ByteArrayInputStream(new byte[10]);
+
+        assertThat(new BandwidthLimiter(0).limit(stream), is(sameInstance(stream)));
+    }
+
+    @Test
+    public void shouldShareTheLimitBetweenAllStreams() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter(100 * 1024);
+        long started = System.nanoTime();
+
+        assertThat(IOUtils.toByteArray(limiter.limit(new ByteArrayInputStream(new byte[50 * 1024]))).length, is(50 * 1024));
+        assertThat(IOUtils.toByteArray(limiter.limit(new ByteArrayInputStream(new byte[50 * 1024]))).length, is(50 * 1024));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), greaterThanOrEqualTo(900L));
+    }
+}
@@ -19,6 +19,7 @@ package com.thoughtworks.go.util;
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClient;
 import com.thoughtworks.go.domain.FetchHandler;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpVersion;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -39,6 +40,7 @@ import java.util.Arrays;
 
 import static com.thoughtworks.go.util.HttpService.GO_ARTIFACT_PAYLOAD_SIZE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
@@ -86,6 +88,29 @@ public class HttpServiceTest {
         verify(httpClient).execute(mockPostMethod);
     }
 
+    @Test
+    public void shouldStreamArtifactsWithoutKnowingTheirSizeUpfront() throws IOException {
+        File artifact = temporaryFolder.newFile("artifact.txt");
+        StreamingZipBody body = new StreamingZipBody(new ZipUtil(), artifact, 1, entryName -> entryName);
+
+        HttpPost mockPostMethod = mock(HttpPost.class);
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(httpClient.execute(mockPostMethod)).thenReturn(response);
+        when(httpClientFactory.createPost("url")).thenReturn(mockPostMethod);
+
+        service.upload("url", 100L, body);
+
+        verify(mockPostMethod).setHeader(GO_ARTIFACT_PAYLOAD_SIZE, "100");
+        verify(mockPostMethod).setHeader("Confirm", "true");
+        verify(httpClientFactory).createStreamingMultipartRequestEntity(body);
+        verify(httpClient).execute(mockPostMethod);
+
+        HttpEntity entity = new HttpService.HttpClientFactory(null).createStreamingMultipartRequestEntity(body);
+        assertEquals(-1, entity.getContentLength());
+        assertTrue(entity.isChunked());
+    }
+
     @Test
     public void shouldDownloadArtifact() throws IOException {
         String url = "http://blah";
@@ -25,6 +25,8 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.text.ParseException;
 import java.util.HashMap;
 import java.util.List;
@@ -76,7 +78,7 @@ public class SvnLogXmlParserTest {
             xml = IOUtils.toString(stream, UTF_8);
         }
         SvnLogXmlParser parser = new SvnLogXmlParser();
-        List<Modification> revisions = parser.parse(xml, "", new SAXBuilder());
+        List<Modification> revisions = parser.parse(xml, "");
 
         assertThat(revisions.size(), is(43));
 
@@ -93,7 +95,7 @@ public class SvnLogXmlParserTest {
     @Test
     public void shouldParse() throws ParseException {
         SvnLogXmlParser parser = new SvnLogXmlParser();
-        List<Modification> materialRevisions = parser.parse(XML, "", new SAXBuilder());
+        List<Modification> materialRevisions = parser.parse(XML, "");
         assertThat(materialRevisions.size(), is(1));
         Modification mod = materialRevisions.get(0);
         assertThat(mod.getRevision(), is("3"));
@@ -121,7 +123,7 @@ public class SvnLogXmlParserTest {
                 + "   action=\"A\">/trunk/revision3.txt</path>\n"
                 + "</paths>\n"
                 + "</logentry>\n"
-                + "</log>", "", new SAXBuilder());
+                + "</log>", "");
         assertThat(materialRevisions.size(), is(1));
         Modification mod = materialRevisions.get(0);
         assertThat(mod.getRevision(), is("3"));
@@ -145,7 +147,7 @@ public class SvnLogXmlParserTest {
                 + "   action=\"A\">/trunk/revision3.txt</path>\n"
                 + "</paths>\n"
                 + "</logentry>\n"
-                + "</log>", "", new SAXBuilder());
+                + "</log>", "");
         assertThat(materialRevisions.size(), is(1));
         Modification mod = materialRevisions.get(0);
         assertThat(mod.getRevision(), is("3"));
@@ -198,17 +200,29 @@ public class SvnLogXmlParserTest {
                 + "</log>";
 
         SvnLogXmlParser parser = new SvnLogXmlParser();
-        List<Modification> mods = parser.parse(firstChangeLog, ".", new SAXBuilder());
+        List<Modification> mods = parser.parse(firstChangeLog, ".");
         assertThat(mods.get(0).getUserName(), is("yxchu"));
 
-        List<Modification> mods2 = parser.parse(secondChangeLog, ".", new SAXBuilder());
+        List<Modification> mods2 = parser.parse(secondChangeLog, ".");
         assertThat(mods2.size(), is(2));
     }
 
+    @Test
+    public void shouldStreamLogEntriesFromReader() throws Exception {
+        SvnLogXmlParser parser = new SvnLogXmlParser();
+        List<Modification> mods;
+        try (InputStream stream = getClass().getResourceAsStream("jemstep_svn_log.xml")) {
+            mods = parser.parse(new InputStreamReader(stream, UTF_8), "");
+        }
+
+        assertThat(mods.size(), is(43));
+        assertThat(parser.parse(new StringReader(MULTIPLE_FILES), "/branch").get(0).getModifiedFiles().size(), is(1));
+    }
+
     @Test
     public void shouldFilterModifiedFilesByPath() {
         SvnLogXmlParser parser = new SvnLogXmlParser();
-        List<Modification> materialRevisions = parser.parse(MULTIPLE_FILES, "/branch", new SAXBuilder());
+        List<Modification> materialRevisions = parser.parse(MULTIPLE_FILES, "/branch");
 
         Modification mod = materialRevisions.get(0);
         List<ModifiedFile> files = mod.getModifiedFiles();
@@ -221,7 +235,7 @@ public class SvnLogXmlParserTest {
     @Test
     public void shouldGetAllModifiedFilesUnderRootPath() {
         SvnLogXmlParser parser = new SvnLogXmlParser();
-        List<Modification> materialRevisions = parser.parse(MULTIPLE_FILES, "", new SAXBuilder());
+        List<Modification> materialRevisions = parser.parse(MULTIPLE_FILES, "");
 
         Modification mod = materialRevisions.get(0);
         List<ModifiedFile> files = mod.getModifiedFiles();
@@ -240,7 +254,7 @@ public class SvnLogXmlParserTest {
     public void shouldReportSvnOutputWhenErrorsHappen() {
         SvnLogXmlParser parser = new SvnLogXmlParser();
         try {
-            parser.parse("invalid xml", "", new SAXBuilder());
+            parser.parse("invalid xml", "");
             fail("should have failed when invalid xml is parsed");
         } catch (Exception e) {
             assertThat(e.getMessage(), containsString("invalid xml"));
@@ -30,12 +30,18 @@ import com.thoughtworks.go.remote.work.BuildAssignment;
 import com.thoughtworks.go.remote.work.BuildWork;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.net.ProtocolException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
@@ -69,6 +75,71 @@ public class MessageTest {
         assertThat(MessageEncoding.decodeData(decoded.getData(), String.class), is("cookie"));
     }
 
+    @Test
+    public void encodeAndDecodeBinaryMessageWithoutData() {
+        Message message = new Message(Action.cancelBuild);
+
+        byte[] msg = MessageEncoding.encodeBinaryMessage(message, 1024);
+
+        assertEquals(message, MessageEncoding.decodeMessage(new ByteArrayInputStream(msg)));
+    }
+
+    @Test
+    public void encodeAndDecodeDeflatedBinaryMessage() {
+        StringBuilder console = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            console.append("[go] Task: ./gradlew test line ").append(i).append("\n");
+        }
+        Message message = new Message(Action.consoleOut, MessageEncoding.encodeData(console.toString()));
+
+        byte[] deflated = MessageEncoding.encodeBinaryMessage(message, 1024);
+        byte[] plain = MessageEncoding.encodeBinaryMessage(message, 0);
+
+        assertTrue(deflated.length < plain.length);
+        assertEquals(message, MessageEncoding.decodeMessage(new ByteArrayInputStream(deflated)));
+        assertEquals(message, MessageEncoding.decodeMessage(new ByteArrayInputStream(plain)));
+    }
+
+    @Test
+    public void shouldRejectABinaryMessageDeclaringMoreDataThanItCarries() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(BinaryMessageCodec.MARKER);
+            out.writeByte(BinaryMessageCodec.VERSION);
+            out.writeByte(1);
+            out.writeUTF(Action.ping.name());
+            out.writeUTF("");
+            out.writeInt(Integer.MAX_VALUE);
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        try {
+            BinaryMessageCodec.decode(new ByteArrayInputStream(bytes.toByteArray()), 1024);
+            fail("should have rejected the message");
+        } catch (ProtocolException e) {
+            assertThat(e.getMessage(), is("Binary websocket message declares 2147483647 bytes of data, but at most 3 are allowed"));
+        }
+    }
+
+    @Test
+    public void shouldRejectABinaryMessageLargerThanTheMaximumSize() throws IOException {
+        byte[] message = MessageEncoding.encodeBinaryMessage(new Message(Action.consoleOut, StringUtils.repeat("x", 2048)), 0);
+
+        try {
+            BinaryMessageCodec.decode(new ByteArrayInputStream(message), 1024);
+            fail("should have rejected the message");
+        } catch (ProtocolException e) {
+            assertThat(e.getMessage(), is("Binary websocket message is larger than the maximum of 1024 bytes"));
+        }
+    }
+
+    @Test
+    public void binaryMessagesShouldBeSmallerThanJsonOnes() {
+        Message message = new Message(Action.acknowledge, MessageEncoding.encodeData(UUID.randomUUID().toString()));
+
+        assertTrue(MessageEncoding.encodeBinaryMessage(message, 1024).length < MessageEncoding.encodeMessage(message).length);
+    }
+
     @Test
     public void encodeAndDecodeAssignWorkWithDifferentBuilders() throws Exception {
         File workingDir = new File(CruiseConfig.WORKING_BASE_DIR + "pipelineName");
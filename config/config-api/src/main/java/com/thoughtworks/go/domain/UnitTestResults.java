@@ -0,0 +1,505 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.domain;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @understands the tests, failures and timings of NUnit and JUnit result files, read one element at a time
+ * <p>
+ * Only the cases that failed or were not run are kept and timings are summed as they are read, so memory does not
+ * grow with the number of passing tests.
+ * Results of several files are combined with {@link #add(UnitTestResults)} in file order, which gives the same
+ * report as reading the files as one document.
+ */
+public class UnitTestResults {
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    private boolean testReport;
+
+    private long nunitCaseCount;
+    private long nunitFailureCount;
+    private long nunitNotRunCount;
+    private double nunitTime;
+
+    private long junitCaseCount;
+    private long junitFailureCount;
+    private long junitErrorCount;
+    private double junitTime;
+
+    private final List<String> erroredTests = new ArrayList<>();
+    private final List<String> failedTests = new ArrayList<>();
+    private final List<String> notRunTests = new ArrayList<>();
+
+    private final List<TestCase> junitErrorDetails = new ArrayList<>();
+    private final List<TestCase> junitFailureDetails = new ArrayList<>();
+    private final List<TestCase> nunitFailureDetails = new ArrayList<>();
+    private final List<TestCase> nunitWarningDetails = new ArrayList<>();
+
+    public static UnitTestResults parse(File file) throws IOException, XMLStreamException {
+        UnitTestResults results = new UnitTestResults();
+        if (file.length() == 0) {
+            return results;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                new Parser(results, reader).parse();
+            } finally {
+                reader.close();
+            }
+        }
+        return results;
+    }
+
+    public boolean isTestReport() {
+        return testReport;
+    }
+
+    public void add(UnitTestResults other) {
+        testReport |= other.testReport;
+        nunitCaseCount += other.nunitCaseCount;
+        nunitFailureCount += other.nunitFailureCount;
+        nunitNotRunCount += other.nunitNotRunCount;
+        nunitTime += other.nunitTime;
+        junitCaseCount += other.junitCaseCount;
+        junitFailureCount += other.junitFailureCount;
+        junitErrorCount += other.junitErrorCount;
+        junitTime += other.junitTime;
+        erroredTests.addAll(other.erroredTests);
+        failedTests.addAll(other.failedTests);
+        notRunTests.addAll(other.notRunTests);
+        junitErrorDetails.addAll(other.junitErrorDetails);
+        junitFailureDetails.addAll(other.junitFailureDetails);
+        nunitFailureDetails.addAll(other.nunitFailureDetails);
+        nunitWarningDetails.addAll(other.nunitWarningDetails);
+    }
+
+    public long runCount() {
+        return nunitCaseCount + junitCaseCount - notRunCount();
+    }
+
+    public long failureCount() {
+        return nunitFailureCount + junitFailureCount + junitErrorCount;
+    }
+
+    public long notRunCount() {
+        return nunitNotRunCount;
+    }
+
+    /**
+     * Total time in seconds, formatted the way the report has always shown it, e.g. ".456" or "NaN".
+     */
+    public String duration() {
+        double total = nunitTime + junitTime;
+        if (Double.isNaN(total)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(total)) {
+            return total > 0 ? "Infinity" : "-Infinity";
+        }
+        return new DecimalFormat("##.000", DecimalFormatSymbols.getInstance(Locale.US)).format(total);
+    }
+
+    public void writeHtml(PrintWriter out) {
+        long runCount = runCount();
+        long failureCount = failureCount();
+        long notRunCount = notRunCount();
+
+        out.println("<table class=\"section-table\" cellpadding=\"2\" cellspacing=\"0\" border=\"0\" width=\"98%\">");
+        out.println("<div class=\"tests\">");
+        out.println("<p>Tests run:");
+        out.println("<span class=\"tests_total_count\">" + runCount + "</span>");
+        out.println(", Failures:");
+        out.println("<span class=\"tests_failed_count\">" + failureCount + "</span>");
+        out.println(", Not run:");
+        out.println("<span class=\"tests_ignored_count\">" + notRunCount + "</span>");
+        out.println(", Time:");
+        out.println("<span class=\"tests_total_duration\">" + duration() + "</span>");
+        out.println("seconds.");
+        out.println("</p>");
+        out.println("</div>");
+
+        if (runCount == 0) {
+            row(out, "<td colspan=\"2\" class=\"section-data\">No Tests Run</td>");
+            row(out, "<td colspan=\"2\" class=\"section-error\">This project doesn't have any tests</td>");
+        } else if (failureCount == 0) {
+            row(out, "<td colspan=\"2\" class=\"section-data\">All Tests Passed</td>");
+        }
+
+        summaryRows(out, "Error", erroredTests, 0);
+        summaryRows(out, "Failure", failedTests, junitErrorCount);
+        summaryRows(out, "Warning", notRunTests, failureCount);
+        row(out, "<td colspan=\"2\"></td>");
+
+        if (failureCount > 0) {
+            row(out, "<td class=\"sectionheader\" colspan=\"2\">Unit Test Failure and Error Details (" + failureCount + ")</td>");
+            for (TestCase testCase : junitErrorDetails) {
+                testCase.writeJUnitDetail(out);
+            }
+            for (TestCase testCase : junitFailureDetails) {
+                testCase.writeJUnitDetail(out);
+            }
+            for (TestCase testCase : nunitFailureDetails) {
+                testCase.writeNUnitDetail(out);
+            }
+            row(out, "<td colspan=\"2\"></td>");
+        }
+
+        if (notRunCount > 0) {
+            row(out, "<td class=\"sectionheader\" colspan=\"2\">Warning Details (" + notRunCount + ")</td>");
+            for (TestCase testCase : nunitWarningDetails) {
+                testCase.writeNUnitDetail(out);
+            }
+            row(out, "<td colspan=\"2\"></td>");
+        }
+        out.println("</table>");
+    }
+
+    private static void summaryRows(PrintWriter out, String type, List<String> testNames, long offset) {
+        long position = offset;
+        for (String testName : testNames) {
+            position++;
+            out.println(position % 2 == 0 ? "<tr class=\"section-oddrow\">" : "<tr>");
+            out.println("<td class=\"section-data\">" + type + "</td>");
+            out.println("<td class=\"section-data\">" + escape(testName) + "</td>");
+            out.println("</tr>");
+        }
+    }
+
+    private static void row(PrintWriter out, String cells) {
+        out.println("<tr>" + cells + "</tr>");
+    }
+
+    private static String escape(String text) {
+        return text == null ? "" : StringEscapeUtils.escapeHtml4(text);
+    }
+
+    private static double number(String value) {
+        String trimmed = value.trim();
+        if (!trimmed.matches("-?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)")) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(trimmed);
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static class TestCase {
+        private final String name;
+        private boolean hasError;
+        private boolean hasFailure;
+        private boolean hasReason;
+        private boolean hasDescendantError;
+        private boolean hasDescendantFailure;
+        private boolean hasDescendantReason;
+        private String errorMessage;
+        private String errorText;
+        private String failureMessage;
+        private String failureText;
+        private String stackTrace;
+        private String reasonMessage;
+
+        private TestCase(String name) {
+            this.name = name;
+        }
+
+        private void writeJUnitDetail(PrintWriter out) {
+            row(out, "<td class=\"section-data\">Test:</td><td class=\"section-data\">" + escape(name) + "</td>");
+            if (hasError) {
+                writeProblem(out, "Error", errorMessage, errorText);
+            }
+            if (hasFailure) {
+                writeProblem(out, "Failure", failureMessage, failureText);
+            }
+            row(out, "<td colspan=\"2\"></td>");
+        }
+
+        private void writeNUnitDetail(PrintWriter out) {
+            if (hasFailure) {
+                row(out, "<td class=\"section-data\">Test:</td><td class=\"section-data\">" + escape(name) + "</td>");
+                writeProblem(out, "Failure", failureMessage, stackTrace);
+            }
+            if (hasReason) {
+                row(out, "<td class=\"section-data\">Test:</td><td class=\"section-data\">" + escape(name) + "</td>");
+                row(out, "<td class=\"section-data\">Type:</td><td class=\"section-data\">Warning</td>");
+                row(out, "<td class=\"section-data\">Message:</td><td class=\"section-data\">" + escape(reasonMessage) + "</td>");
+            }
+            row(out, "<td colspan=\"2\"></td>");
+        }
+
+        private static void writeProblem(PrintWriter out, String type, String message, String text) {
+            row(out, "<td class=\"section-data\">Type:</td><td class=\"section-data\">" + type + "</td>");
+            row(out, "<td class=\"section-data\">Message:</td><td class=\"section-data\">" + escape(message) + "</td>");
+            row(out, "<td></td><td class=\"section-error\"><pre>" + escape(text) + "</pre></td>");
+        }
+    }
+
+    private static class Element {
+        private final String name;
+        private boolean firstSuiteSeen;
+        private TestCase junitCase;
+        private TestCase nunitCase;
+        private boolean nunitCaseCounted;
+        private TestCase failureOf;
+        private TestCase reasonOf;
+        private StringBuilder text;
+        private TextTarget textTarget;
+
+        private Element(String name) {
+            this.name = name;
+        }
+
+        private boolean is(String elementName) {
+            return name.equals(elementName);
+        }
+    }
+
+    private interface TextTarget {
+        void accept(String text);
+    }
+
+    private static class Parser {
+        private final UnitTestResults results;
+        private final XMLStreamReader reader;
+        private final Deque<Element> elements = new ArrayDeque<>();
+        private int openTestResults;
+        private int capturingElements;
+
+        private Parser(UnitTestResults results, XMLStreamReader reader) {
+            this.results = results;
+            this.reader = reader;
+        }
+
+        private void parse() throws XMLStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        start();
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        end();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (capturingElements > 0) {
+                            for (Element element : elements) {
+                                if (element.text != null) {
+                                    element.text.append(reader.getText());
+                                }
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void start() {
+            Element parent = elements.peek();
+            Element grandParent = ancestor(1);
+            Element element = new Element(reader.getLocalName());
+
+            if (element.is("test-results")) {
+                results.testReport = true;
+                openTestResults++;
+            } else if (element.is("testsuite")) {
+                results.testReport = true;
+            } else if (element.is("test-suite") && parent != null && parent.is("test-results") && !parent.firstSuiteSeen) {
+                parent.firstSuiteSeen = true;
+                results.nunitTime += time();
+            } else if (element.is("testcase") && parent != null && parent.is("testsuite")) {
+                element.junitCase = new TestCase(attribute("name"));
+                results.junitCaseCount++;
+                results.junitTime += time();
+            } else if (element.is("test-case") && parent != null && parent.is("results") && grandParent != null && grandParent.is("test-suite")) {
+                element.nunitCase = new TestCase(attribute("name"));
+                element.nunitCaseCounted = openTestResults > 0;
+                if (element.nunitCaseCounted) {
+                    results.nunitCaseCount++;
+                }
+            }
+
+            if (parent != null && parent.junitCase != null) {
+                startJUnitCaseChild(element, parent.junitCase);
+            }
+            if (parent != null && parent.nunitCase != null) {
+                startNUnitCaseChild(element, parent);
+            }
+            markTestCasesContaining(element);
+            captureNUnitMessages(element);
+
+            elements.push(element);
+        }
+
+        private void startJUnitCaseChild(Element element, TestCase testCase) {
+            if (element.is("error")) {
+                results.junitErrorCount++;
+                results.erroredTests.add(testCase.name);
+                if (testCase.errorMessage == null) {
+                    testCase.errorMessage = attribute("message");
+                }
+                if (!testCase.hasError) {
+                    capture(element, text -> testCase.errorText = text);
+                }
+                testCase.hasError = true;
+            } else if (element.is("failure")) {
+                results.junitFailureCount++;
+                results.failedTests.add(testCase.name);
+                if (testCase.failureMessage == null) {
+                    testCase.failureMessage = attribute("message");
+                }
+                if (!testCase.hasFailure) {
+                    capture(element, text -> testCase.failureText = text);
+                }
+                testCase.hasFailure = true;
+            }
+        }
+
+        private void startNUnitCaseChild(Element element, Element parent) {
+            TestCase testCase = parent.nunitCase;
+            if (element.is("failure")) {
+                testCase.hasFailure = true;
+                element.failureOf = testCase;
+                if (parent.nunitCaseCounted) {
+                    results.nunitFailureCount++;
+                    results.failedTests.add(testCase.name);
+                }
+            } else if (element.is("reason")) {
+                testCase.hasReason = true;
+                element.reasonOf = testCase;
+                if (parent.nunitCaseCounted) {
+                    results.nunitNotRunCount++;
+                    results.notRunTests.add(testCase.name);
+                }
+            }
+        }
+
+        private void markTestCasesContaining(Element element) {
+            for (Element ancestor : elements) {
+                if (ancestor.junitCase != null) {
+                    ancestor.junitCase.hasDescendantError |= element.is("error");
+                    ancestor.junitCase.hasDescendantFailure |= element.is("failure");
+                }
+                if (ancestor.nunitCase != null) {
+                    ancestor.nunitCase.hasDescendantFailure |= element.is("failure");
+                    ancestor.nunitCase.hasDescendantReason |= element.is("reason");
+                }
+            }
+        }
+
+        private void captureNUnitMessages(Element element) {
+            if (!element.is("message") && !element.is("stack-trace")) {
+                return;
+            }
+            for (Element ancestor : elements) {
+                if (ancestor.failureOf != null) {
+                    TestCase testCase = ancestor.failureOf;
+                    if (element.is("message") && testCase.failureMessage == null) {
+                        capture(element, text -> testCase.failureMessage = text);
+                    } else if (element.is("stack-trace") && testCase.stackTrace == null) {
+                        capture(element, text -> testCase.stackTrace = text);
+                    }
+                    return;
+                }
+                if (ancestor.reasonOf != null) {
+                    TestCase testCase = ancestor.reasonOf;
+                    if (element.is("message") && testCase.reasonMessage == null) {
+                        capture(element, text -> testCase.reasonMessage = text);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void end() {
+            Element element = elements.pop();
+            if (element.text != null) {
+                capturingElements--;
+                element.textTarget.accept(element.text.toString());
+            }
+            if (element.is("test-results")) {
+                openTestResults--;
+            }
+            if (element.junitCase != null) {
+                if (element.junitCase.hasDescendantError) {
+                    results.junitErrorDetails.add(element.junitCase);
+                }
+                if (element.junitCase.hasDescendantFailure) {
+                    results.junitFailureDetails.add(element.junitCase);
+                }
+            }
+            if (element.nunitCase != null) {
+                if (element.nunitCase.hasDescendantFailure) {
+                    results.nunitFailureDetails.add(element.nunitCase);
+                }
+                if (element.nunitCase.hasDescendantReason) {
+                    results.nunitWarningDetails.add(element.nunitCase);
+                }
+            }
+        }
+
+        private void capture(Element element, TextTarget target) {
+            element.text = new StringBuilder();
+            element.textTarget = target;
+            capturingElements++;
+        }
+
+        private double time() {
+            String time = attribute("time");
+            return time == null ? 0 : number(time);
+        }
+
+        private String attribute(String name) {
+            return reader.getAttributeValue(null, name);
+        }
+
+        private Element ancestor(int generation) {
+            Iterator<Element> iterator = elements.iterator();
+            for (int i = 0; i < generation && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+}
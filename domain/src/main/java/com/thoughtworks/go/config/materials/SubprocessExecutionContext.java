@@ -26,4 +26,7 @@ public interface SubprocessExecutionContext {
     Map<String, String> getDefaultEnvironmentVariables();
     Boolean isGitShallowClone();
     boolean isServer();
+    int maxModifiedFilesPerRevision();
+    boolean isGitMirrorsEnabled();
+    int gitMirrorRefreshIntervalInSeconds();
 }
@@ -30,6 +30,7 @@ import com.thoughtworks.go.util.command.ConsoleOutputStreamConsumer;
 import com.thoughtworks.go.util.command.InMemoryStreamConsumer;
 import com.thoughtworks.go.util.command.SecretString;
 import com.thoughtworks.go.util.command.UrlArgument;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
@@ -69,6 +70,9 @@ public class GitMaterial extends ScmMaterial {
     private static final Pattern GIT_VERSION_PATTERN = Pattern.compile(".*\\s+(\\d(\\.\\d)+).*");
     private static final String ERR_GIT_NOT_FOUND = "Failed to find 'git' on your PATH. Please ensure 'git' is executable by the Go Server and on the Go Agents where this material will be used.";
     public static final String ERR_GIT_OLD_VERSION = "Please install Git-core 1.6 or above. ";
+    private static final String MIRRORS_FOLDER = "mirrors";
+    // git's own default for gc.autoPackLimit, which does not apply since mirrors are created with gc.auto=0
+    private static final int MIRROR_PACK_LIMIT = 50;
 
     public GitMaterial(String url) {
         super(TYPE);
@@ -114,7 +118,7 @@ public class GitMaterial extends ScmMaterial {
     }
 
     public List<Modification> latestModification(File baseDir, final SubprocessExecutionContext execCtx) {
-        return getGit(baseDir, DEFAULT_SHALLOW_CLONE_DEPTH, execCtx).latestModification();
+        return getGit(baseDir, DEFAULT_SHALLOW_CLONE_DEPTH, execCtx).latestModification(execCtx.maxModifiedFilesPerRevision());
     }
 
     public List<Modification> modificationsSince(File baseDir, Revision revision, final SubprocessExecutionContext execCtx) {
@@ -123,7 +127,7 @@ public class GitMaterial extends ScmMaterial {
             fullyUnshallow(gitCommand, inMemoryConsumer());
         }
         if (gitCommand.containsRevisionInBranch(revision)) {
-            return gitCommand.modificationsSince(revision);
+            return gitCommand.modificationsSince(revision, execCtx.maxModifiedFilesPerRevision());
         } else {
             return latestModification(baseDir, execCtx);
         }
@@ -220,6 +224,9 @@ public class GitMaterial extends ScmMaterial {
         }
 
         GitCommand gitCommand = new GitCommand(getFingerprint(), workingFolder, getBranch(), false, executionContext.getDefaultEnvironmentVariables(), secrets());
+        if (executionContext.isServer() && isGitRepository(workingFolder) && gitCommand.usesAlternates()) {
+            refreshOrLeaveMirror(gitCommand, outputStreamConsumer, workingFolder, executionContext);
+        }
         if (!isGitRepository(workingFolder) || isRepositoryChanged(gitCommand, workingFolder)) {
             LOG.debug("Invalid git working copy or repository changed. Delete folder: {}", workingFolder);
             deleteDirectoryNoisily(workingFolder);
@@ -240,7 +247,7 @@ public class GitMaterial extends ScmMaterial {
             int cloneDepth = shallowClone ? preferredCloneDepth : Integer.MAX_VALUE;
             int returnValue;
             if (executionContext.isServer()) {
-                returnValue = gitCommand.cloneWithNoCheckout(outputStreamConsumer, url.forCommandline());
+                returnValue = cloneOnServer(gitCommand, outputStreamConsumer, workingFolder, executionContext);
             } else {
                 returnValue = gitCommand.clone(outputStreamConsumer, url.forCommandline(), cloneDepth);
             }
@@ -249,6 +256,85 @@ public class GitMaterial extends ScmMaterial {
         return gitCommand;
     }
 
+    private int cloneOnServer(GitCommand gitCommand, ConsoleOutputStreamConsumer outputStreamConsumer, File workingFolder, SubprocessExecutionContext executionContext) {
+        if (!executionContext.isGitMirrorsEnabled()) {
+            return gitCommand.cloneWithNoCheckout(outputStreamConsumer, url.forCommandline());
+        }
+        File mirrorFolder = mirrorFolderFor(workingFolder);
+        if (!refreshMirror(outputStreamConsumer, mirrorFolder, executionContext, true)) {
+            return gitCommand.cloneWithNoCheckout(outputStreamConsumer, url.forCommandline());
+        }
+        return gitCommand.cloneWithNoCheckout(outputStreamConsumer, url.forCommandline(), mirrorFolder);
+    }
+
+    /**
+     * A working copy whose mirror cannot be refreshed, or which is left over from when mirrors were turned on, copies
+     * the objects it borrows into itself and stops depending on the mirror. Should even that fail, it is cloned again
+     * without the mirror.
+     */
+    private void refreshOrLeaveMirror(GitCommand gitCommand, ConsoleOutputStreamConsumer outputStreamConsumer, File workingFolder, SubprocessExecutionContext executionContext) {
+        if (executionContext.isGitMirrorsEnabled() && refreshMirror(outputStreamConsumer, mirrorFolderFor(workingFolder), executionContext, false)) {
+            return;
+        }
+        if (gitCommand.dissociate(outputStreamConsumer) != 0) {
+            LOG.warn("Unable to copy the objects borrowed from the git mirror into {}, cloning it again", workingFolder);
+            deleteDirectoryNoisily(workingFolder);
+        }
+    }
+
+    /**
+     * Server-side working copies of the same repository share one bare mirror, keyed by url. Branch materials borrow
+     * objects from it, so the repository is downloaded once and each material's own fetch transfers only what the
+     * mirror does not have yet. The mirror is fetched at most once per refresh interval.
+     */
+    private boolean refreshMirror(ConsoleOutputStreamConsumer outputStreamConsumer, File mirrorFolder, SubprocessExecutionContext executionContext, boolean force) {
+        synchronized (mirrorFolder.getAbsolutePath().intern()) {
+            try {
+                GitCommand mirror = new GitCommand(getFingerprint(), mirrorFolder, getBranch(), false, executionContext.getDefaultEnvironmentVariables(), secrets());
+                if (!new File(mirrorFolder, "HEAD").exists()) {
+                    deleteDirectoryNoisily(mirrorFolder);
+                    createParentFolderIfNotExist(mirrorFolder);
+                    return mirror.cloneMirror(outputStreamConsumer, url.forCommandline()) == 0;
+                }
+                if (force || isMirrorStale(mirrorFolder, executionContext)) {
+                    int returnValue = mirror.fetchMirror(outputStreamConsumer);
+                    FileUtils.touch(new File(mirrorFolder, "FETCH_HEAD"));
+                    if (returnValue == 0 && packCount(mirrorFolder) > MIRROR_PACK_LIMIT && mirror.repackMirror(outputStreamConsumer) != 0) {
+                        LOG.warn("Unable to repack git mirror {} for {}", mirrorFolder, url.forDisplay());
+                    }
+                    return returnValue == 0;
+                }
+                return true;
+            } catch (Exception e) {
+                LOG.warn("Unable to refresh git mirror {} for {}", mirrorFolder, url.forDisplay(), e);
+                return false;
+            }
+        }
+    }
+
+    private boolean isMirrorStale(File mirrorFolder, SubprocessExecutionContext executionContext) {
+        long refreshIntervalInMillis = executionContext.gitMirrorRefreshIntervalInSeconds() * 1000L;
+        File fetchHead = new File(mirrorFolder, "FETCH_HEAD");
+        return !fetchHead.exists() || System.currentTimeMillis() - fetchHead.lastModified() >= refreshIntervalInMillis;
+    }
+
+    private int packCount(File mirrorFolder) {
+        String[] packs = new File(mirrorFolder, "objects/pack").list((dir, name) -> name.endsWith(".pack"));
+        return packs == null ? 0 : packs.length;
+    }
+
+    private File mirrorFolderFor(File workingFolder) {
+        return new File(mirrorsFolder(workingFolder.getAbsoluteFile().getParentFile().getParentFile()), mirrorFolderName(url.forCommandline()));
+    }
+
+    public static File mirrorsFolder(File materialsRoot) {
+        return new File(materialsRoot, MIRRORS_FOLDER);
+    }
+
+    public static String mirrorFolderName(String url) {
+        return DigestUtils.sha256Hex(url);
+    }
+
     private List<SecretString> secrets() {
         SecretString secretSubstitution = line -> line.replace(url.forCommandline(), url.forDisplay());
 
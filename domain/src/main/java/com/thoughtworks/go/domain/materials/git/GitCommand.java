@@ -30,7 +30,6 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static com.thoughtworks.go.domain.materials.ModifiedAction.parseGitAction;
 import static com.thoughtworks.go.util.DateUtils.formatRFC822;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.command.ProcessOutputStreamConsumer.inMemoryConsumer;
@@ -38,7 +37,6 @@ import static com.thoughtworks.go.util.command.ProcessOutputStreamConsumer.inMem
 public class GitCommand extends SCMCommand {
     private static final Pattern GIT_SUBMODULE_STATUS_PATTERN = Pattern.compile("^.[0-9a-fA-F]{40} (.+?)( \\(.+\\))?$");
     private static final Pattern GIT_SUBMODULE_URL_PATTERN = Pattern.compile("^submodule\\.(.+)\\.url (.+)$");
-    private static final Pattern GIT_DIFF_TREE_PATTERN = Pattern.compile("^(.)\\s+(.+)$");
 
     private final File workingDir;
     private final List<SecretString> secrets;
@@ -64,6 +62,61 @@ public class GitCommand extends SCMCommand {
         return run(gitClone, outputStreamConsumer);
     }
 
+    // Clones without checkout, borrowing objects from a local mirror of the same repository through git alternates
+    public int cloneWithNoCheckout(ConsoleOutputStreamConsumer outputStreamConsumer, String url, File referenceRepository) {
+        CommandLine gitClone = cloneCommand()
+                .withArg("--no-checkout")
+                .withArg("--reference")
+                .withArg(referenceRepository.getAbsolutePath());
+
+        gitClone.withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
+
+        return run(gitClone, outputStreamConsumer);
+    }
+
+    public int cloneMirror(ConsoleOutputStreamConsumer outputStreamConsumer, String url) {
+        CommandLine gitClone = git(environment).withArgs("clone", "--mirror").withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
+
+        int returnValue = run(gitClone, outputStreamConsumer);
+        if (returnValue == 0) {
+            // Other repositories borrow objects from a mirror, so it must never prune objects they may still reference
+            runOrBomb(git(environment).withArgs("config", "gc.auto", "0").withWorkingDir(workingDir));
+            runOrBomb(git(environment).withArgs("config", "gc.pruneExpire", "never").withWorkingDir(workingDir));
+        }
+        return returnValue;
+    }
+
+    public int fetchMirror(ConsoleOutputStreamConsumer outputStreamConsumer) {
+        outputStreamConsumer.stdOutput("[GIT] Fetching changes into mirror");
+        CommandLine gitFetch = git(environment).withArgs("remote", "update", "--prune").withWorkingDir(workingDir);
+        return run(gitFetch, outputStreamConsumer);
+    }
+
+    // Packs everything into a single pack without dropping unreachable objects, which repositories borrowing from the mirror may still need
+    public int repackMirror(ConsoleOutputStreamConsumer outputStreamConsumer) {
+        CommandLine gitRepack = git(environment).withArgs("repack", "-a", "-d", "-q", "--keep-unreachable").withWorkingDir(workingDir);
+        return run(gitRepack, outputStreamConsumer);
+    }
+
+    // Copies the objects borrowed from the mirror into this repository and stops borrowing, as clone --dissociate does
+    public int dissociate(ConsoleOutputStreamConsumer outputStreamConsumer) {
+        outputStreamConsumer.stdOutput("[GIT] Copying objects borrowed from mirror into working copy");
+        CommandLine gitRepack = git(environment).withArgs("repack", "-a", "-d", "-q").withWorkingDir(workingDir);
+        int returnValue = run(gitRepack, outputStreamConsumer);
+        if (returnValue == 0 && !alternatesFile().delete()) {
+            return 1;
+        }
+        return returnValue;
+    }
+
+    public boolean usesAlternates() {
+        return alternatesFile().exists();
+    }
+
+    public File alternatesFile() {
+        return new File(workingDir, ".git/objects/info/alternates");
+    }
+
     public int clone(ConsoleOutputStreamConsumer outputStreamConsumer, String url) {
         return clone(outputStreamConsumer, url, Integer.MAX_VALUE);
     }
@@ -92,16 +145,15 @@ public class GitCommand extends SCMCommand {
         return "%cn <%ce>%n%H%n%ai%n%n%s%n%b%n" + separator;
     }
 
-    public List<Modification> latestModification() {
-        return gitLog("-1", "--date=iso", "--pretty=medium", remoteBranch());
-
+    public List<Modification> latestModification(int maxModifiedFilesPerRevision) {
+        return gitLog(maxModifiedFilesPerRevision, "-1", remoteBranch());
     }
 
-    public List<Modification> modificationsSince(Revision revision) {
-        return gitLog("--date=iso", "--pretty=medium", String.format("%s..%s", revision.getRevision(), remoteBranch()));
+    public List<Modification> modificationsSince(Revision revision, int maxModifiedFilesPerRevision) {
+        return gitLog(maxModifiedFilesPerRevision, String.format("%s..%s", revision.getRevision(), remoteBranch()));
     }
 
-    private List<Modification> gitLog(String... args) {
+    private List<Modification> gitLog(int maxModifiedFilesPerRevision, String... args) {
         // Git log will only show changes before the currently checked out revision
         InMemoryStreamConsumer outputStreamConsumer = inMemoryConsumer();
 
@@ -113,39 +165,16 @@ public class GitCommand extends SCMCommand {
             throw new RuntimeException(String.format("Working directory: %s\n%s", workingDir, outputStreamConsumer.getStdError()), e);
         }
 
-        CommandLine gitCmd = git(environment).withArg("log").withArgs(args).withWorkingDir(workingDir);
-        ConsoleResult result = runOrBomb(gitCmd);
-
-        GitModificationParser parser = new GitModificationParser();
-        List<Modification> mods = parser.parse(result.output());
-        for (Modification mod : mods) {
-            addModifiedFiles(mod);
-        }
-        return mods;
-    }
-
-    private void addModifiedFiles(Modification mod) {
-        ConsoleResult consoleResult = diffTree(mod.getRevision());
-        List<String> result = consoleResult.output();
-
-        for (String resultLine : result) {
-            // First line is the node
-            if (resultLine.equals(mod.getRevision())) {
-                continue;
-            }
-
-            Matcher m = matchResultLine(resultLine);
-            if (!m.find()) {
-                bomb("Unable to parse git-diff-tree output line: " + consoleResult.replaceSecretInfo(resultLine) + "\n"
-                        + "From output:\n"
-                        + consoleResult.outputForDisplayAsString());
-            }
-            mod.createModifiedFile(m.group(2), null, parseGitAction(m.group(1).charAt(0)));
-        }
-    }
+        // Commits and their changed files come from a single log process, parsed line by line as git emits them.
+        // The output is parsed unmasked, so that commit messages and file names are stored as they were committed.
+        CommandLine gitCmd = git(environment)
+                .withArgs("log", "--date=iso", "--pretty=medium", "--name-status", "--no-renames")
+                .withArgs(args)
+                .withWorkingDir(workingDir);
 
-    private Matcher matchResultLine(String resultLine) {
-        return GIT_DIFF_TREE_PATTERN.matcher(resultLine);
+        GitModificationParser parser = new GitModificationParser(maxModifiedFilesPerRevision);
+        streamOrBomb(gitCmd, parser::processLine);
+        return parser.getModifications();
     }
 
 
@@ -352,11 +381,6 @@ public class GitCommand extends SCMCommand {
         return submoduleFolders(result.output());
     }
 
-    public ConsoleResult diffTree(String node) {
-        CommandLine gitCmd = git(environment).withArgs("diff-tree", "--name-status", "--root", "-r", node).withWorkingDir(workingDir);
-        return runOrBomb(gitCmd);
-    }
-
     public void submoduleAdd(String repoUrl, String submoduleNameToPutInGitSubmodules, String folder) {
         String[] addSubmoduleWithSameNameArgs = new String[]{"submodule", "add", repoUrl, folder};
         String[] changeSubmoduleNameInGitModules = new String[]{"config", "--file", ".gitmodules", "--rename-section", "submodule." + folder, "submodule." + submoduleNameToPutInGitSubmodules};
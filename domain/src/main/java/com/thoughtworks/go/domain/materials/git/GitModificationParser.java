@@ -25,8 +25,12 @@ import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.thoughtworks.go.domain.materials.ModifiedAction.parseGitAction;
+
 public class GitModificationParser {
     private LinkedList<Modification> modifications = new LinkedList<>();
+    private final int maxModifiedFilesPerCommit;
+    private int modifiedFilesInLastCommit;
     private static final String SPACES = "\\s+";
     private static final String COMMENT_INDENT = "\\s{4}";
     private static final String COMMENT_TEXT = "(.*)";
@@ -37,6 +41,15 @@ public class GitModificationParser {
     private static final Pattern AUTHOR_PATTERN = Pattern.compile("^Author:"+ SPACES + AUTHOR + "$");
     private static final Pattern DATE_PATTERN = Pattern.compile("^Date:" + SPACES + DATE + "$");
     private static final Pattern COMMENT_PATTERN = Pattern.compile("^" + COMMENT_INDENT + COMMENT_TEXT + "$");
+    private static final Pattern NAME_STATUS_PATTERN = Pattern.compile("^([ACDMRTUXB])\\d*\t(.+)$");
+
+    public GitModificationParser() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public GitModificationParser(int maxModifiedFilesPerCommit) {
+        this.maxModifiedFilesPerCommit = maxModifiedFilesPerCommit;
+    }
 
     public List<Modification> parse(List<String> output) {
         for (String line : output) {
@@ -53,6 +66,7 @@ public class GitModificationParser {
         Matcher matcher = COMMIT_PATTERN.matcher(line);
         if (matcher.matches()) {
             modifications.add(new Modification("", "", null, null, matcher.group(1)));
+            modifiedFilesInLastCommit = 0;
         }
         Matcher authorMatcher = AUTHOR_PATTERN.matcher(line);
         if (authorMatcher.matches()) {
@@ -69,5 +83,9 @@ public class GitModificationParser {
             if (!comment.isEmpty()) comment += "\n";
             last.setComment(comment + commentMatcher.group(1));
        }
+        Matcher nameStatusMatcher = NAME_STATUS_PATTERN.matcher(line);
+        if (nameStatusMatcher.matches() && modifiedFilesInLastCommit++ < maxModifiedFilesPerCommit) {
+            modifications.getLast().createModifiedFile(nameStatusMatcher.group(2), null, parseGitAction(nameStatusMatcher.group(1).charAt(0)));
+        }
     }
 }
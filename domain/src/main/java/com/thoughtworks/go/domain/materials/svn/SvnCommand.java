@@ -23,6 +23,7 @@ import com.thoughtworks.go.domain.materials.SCMCommand;
 import com.thoughtworks.go.domain.materials.ValidationBean;
 import com.thoughtworks.go.util.SvnLogXmlParser;
 import com.thoughtworks.go.util.command.*;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.jdom2.Document;
@@ -32,9 +33,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.ParseException;
 import java.util.HashMap;
 import java.util.List;
@@ -117,36 +122,44 @@ public class SvnCommand extends SCMCommand implements Subversion {
     }
 
     public List<Modification> latestModification() {
-        CommandLine command = buildSvnLogCommandForLatestOne();
-        ConsoleResult result = executeCommand(command);
-        String output = result.outputAsString();
-        try {
-            return parseSvnLog(output);
-        } catch (Exception e) {
-            throw bomb(result.smudgedException(e));
-        }
+        return svnLog(buildSvnLogCommandForLatestOne());
     }
 
     public List<Modification> modificationsSince(SubversionRevision subversionRevision) {
         CommandLine command = svn(true)
                 .withArgs("log", "--non-interactive", "--xml", "-v", "-r", "HEAD:" + subversionRevision.getRevision())
                 .withArg(repositoryUrl);
-        ConsoleResult result = executeCommand(command);
-        String output = result.outputAsString();
+        return Modifications.filterOutRevision(svnLog(command), subversionRevision);
+    }
+
+    // The log is spooled to disk as svn prints it and parsed entry by entry, so large histories are never held in memory as text or DOM
+    private List<Modification> svnLog(CommandLine command) {
+        SvnInfo svnInfo = remoteInfo(getBuilder());
+        File logFile = null;
         try {
-            List<Modification> modifications = parseSvnLog(output);
-            modifications = Modifications.filterOutRevision(modifications, subversionRevision);
-            return modifications;
+            logFile = File.createTempFile("svn-log", ".xml");
+            spoolOutput(command, logFile);
+            try (Reader reader = Files.newBufferedReader(logFile.toPath(), StandardCharsets.UTF_8)) {
+                return svnLogXmlParser.parse(reader, svnInfo.getPath());
+            }
+        } catch (CommandLineException e) {
+            throw e;
         } catch (Exception e) {
-            LOG.error("Error parsing svn log output", result.smudgedException(e));
-            throw bomb(e);
+            LOG.error("Error parsing svn log output of {}", command.toStringForDisplay(), e);
+            throw bomb("Unable to parse svn log output of " + command.toStringForDisplay(), e);
+        } finally {
+            FileUtils.deleteQuietly(logFile);
         }
     }
 
-    private List<Modification> parseSvnLog(String output) {
-        SAXBuilder builder = getBuilder();
-        SvnInfo svnInfo = remoteInfo(builder);
-        return svnLogXmlParser.parse(output, svnInfo.getPath(), builder);
+    // The log is spooled unmasked, so that authors, comments and paths are parsed and stored as they were committed
+    private void spoolOutput(CommandLine command, File logFile) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8))) {
+            streamOrBomb(command, writer::println);
+            if (writer.checkError()) {
+                throw new IOException("Failed to write svn log output to " + logFile);
+            }
+        }
     }
 
     private SAXBuilder getBuilder() {
@@ -23,6 +23,10 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.input.SAXBuilder;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -30,62 +34,87 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 
 public class SvnLogXmlParser {
 
     private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
 
-    public List<Modification> parse(String svnLogOutput, String path, SAXBuilder builder) {
+    public List<Modification> parse(String svnLogOutput, String path) {
         try {
-            Document document = builder.build(new StringReader(svnLogOutput));
-            return parseDOMTree(document, path);
+            return parse(new StringReader(svnLogOutput), path);
         } catch (Exception e) {
             throw bomb("Unable to parse svn log output: " + svnLogOutput, e);
         }
     }
 
-    private List<Modification> parseDOMTree(Document document, String path) throws ParseException {
+    /**
+     * Parses 'svn log --xml -v' output one log entry at a time, without building a document for the whole log.
+     */
+    public List<Modification> parse(Reader svnLogOutput, String path) throws XMLStreamException, ParseException {
         List<Modification> modifications = new ArrayList<>();
-
-        Element rootElement = document.getRootElement();
-        List logEntries = rootElement.getChildren("logentry");
-        for (Iterator iterator = logEntries.iterator(); iterator.hasNext();) {
-            Element logEntry = (Element) iterator.next();
-
-            Modification modification = parseLogEntry(logEntry, path);
-            if (modification != null) {
-                modifications.add(modification);
+        XMLStreamReader reader = xmlInputFactory().createXMLStreamReader(svnLogOutput);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == START_ELEMENT && "logentry".equals(reader.getLocalName())) {
+                    Modification modification = parseLogEntry(reader, path);
+                    if (modification != null) {
+                        modifications.add(modification);
+                    }
+                }
             }
+        } finally {
+            reader.close();
         }
-
         return modifications;
     }
 
-    private Modification parseLogEntry(Element logEntry, String path) throws ParseException {
-        Element logEntryPaths = logEntry.getChild("paths");
-        if (logEntryPaths == null) {
-            /* Path-based access control forbids us from learning
-             * details of this log entry, so skip it. */
-            return null;
-        }
+    private Modification parseLogEntry(XMLStreamReader reader, String path) throws XMLStreamException, ParseException {
+        Modification modification = new Modification(null, null, null, null, reader.getAttributeValue(null, "revision"));
+        boolean hasPaths = false;
 
-        Date modifiedTime = convertDate(logEntry.getChildText("date"));
-        String author = logEntry.getChildText("author");
-        String comment = logEntry.getChildText("msg");
-        String revision = logEntry.getAttributeValue("revision");
-
-        Modification modification = new Modification(author, comment, null, modifiedTime, revision);
-
-        List paths = logEntryPaths.getChildren("path");
-        for (Iterator iterator = paths.iterator(); iterator.hasNext();) {
-            Element node = (Element) iterator.next();
-            if (underPath(path, node.getText())) {
-                ModifiedAction action = convertAction(node.getAttributeValue("action"));
-                modification.createModifiedFile(node.getText(), null, action);
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == END_ELEMENT && "logentry".equals(reader.getLocalName())) {
+                break;
+            }
+            if (event != START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "author":
+                    modification.setUserName(reader.getElementText());
+                    break;
+                case "date":
+                    modification.setModifiedTime(convertDate(reader.getElementText()));
+                    break;
+                case "msg":
+                    modification.setComment(reader.getElementText());
+                    break;
+                case "paths":
+                    hasPaths = true;
+                    break;
+                case "path":
+                    ModifiedAction action = convertAction(reader.getAttributeValue(null, "action"));
+                    String fileName = reader.getElementText();
+                    if (underPath(path, fileName)) {
+                        modification.createModifiedFile(fileName, null, action);
+                    }
+                    break;
             }
         }
 
-        return modification;
+        /* Path-based access control forbids us from learning
+         * details of a log entry without paths, so skip it. */
+        return hasPaths ? modification : null;
+    }
+
+    private static XMLInputFactory xmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
     }
 
     private boolean underPath(String path, String text) {
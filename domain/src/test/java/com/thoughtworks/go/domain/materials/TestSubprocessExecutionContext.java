@@ -58,4 +58,19 @@ public class TestSubprocessExecutionContext implements SubprocessExecutionContex
     public boolean isServer() {
         return isServer;
     }
+
+    @Override
+    public int maxModifiedFilesPerRevision() {
+        return SystemEnvironment.MATERIAL_MAX_MODIFIED_FILES_PER_REVISION.getValue();
+    }
+
+    @Override
+    public boolean isGitMirrorsEnabled() {
+        return SystemEnvironment.GO_SERVER_GIT_MIRRORS_ENABLED.getValue();
+    }
+
+    @Override
+    public int gitMirrorRefreshIntervalInSeconds() {
+        return SystemEnvironment.GO_SERVER_GIT_MIRROR_REFRESH_INTERVAL_IN_SECONDS.getValue();
+    }
 }
@@ -89,7 +89,7 @@ public class GitTestRepo extends TestRepo {
     }
 
     @Override public List<Modification> latestModification() {
-        return git(gitRepo).latestModification();
+        return git(gitRepo).latestModification(Integer.MAX_VALUE);
     }
 
     @Override public Material material() {
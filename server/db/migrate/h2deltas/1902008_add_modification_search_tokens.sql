@@ -0,0 +1,34 @@
+--
+-- Copyright 2019 ThoughtWorks, Inc.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--    http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+CREATE TABLE modificationTokens (
+  materialId BIGINT NOT NULL,
+  token VARCHAR(255) NOT NULL,
+  modificationId BIGINT NOT NULL,
+  CONSTRAINT fk_modificationtokens_modifications FOREIGN KEY (modificationId) REFERENCES modifications(id) ON DELETE CASCADE
+);
+CREATE INDEX idx_modificationtokens_material_token ON modificationTokens(materialId, token, modificationId);
+
+-- modifications below backfilledDownTo have not been tokenized yet; newer ones are indexed as they are saved
+CREATE TABLE modificationSearchIndex (
+  backfilledDownTo BIGINT NOT NULL
+);
+INSERT INTO modificationSearchIndex (backfilledDownTo) SELECT COALESCE(MAX(id), 0) + 1 FROM modifications;
+
+--//@UNDO
+
+DROP TABLE modificationSearchIndex;
+DROP TABLE modificationTokens;
@@ -18,27 +18,69 @@ package com.thoughtworks.go.server.cache;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.UUID;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @understands serving prepared artifacts and preparing artifact offline
  */
 public abstract class ArtifactCache<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactCache.class);
+    private static final long USE_RECORDING_INTERVAL_IN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     protected final ArtifactsDirHolder artifactsDirHolder;
+    protected final SystemEnvironment systemEnvironment;
     protected ConcurrentSkipListSet<T> pendingCacheFiles = new ConcurrentSkipListSet<>();
     protected ConcurrentMap<T, Exception> pendingExceptions = new ConcurrentHashMap<>();
     public static final String CACHE_ARTIFACTS_FOLDER = "cache/artifacts/";
 
-    public ArtifactCache(ArtifactsDirHolder artifactsDirHolder) {
+    private final int cacheCreatorThreads;
+    private final ExecutorService cacheCreators;
+    private final Object evictionLock = new Object();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger creating = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalCreationTimeInMillis = new AtomicLong();
+    private final AtomicLong maxCreationTimeInMillis = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+
+    public ArtifactCache(ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment) {
         this.artifactsDirHolder = artifactsDirHolder;
+        this.systemEnvironment = systemEnvironment;
+        this.cacheCreatorThreads = Math.max(1, systemEnvironment.get(SystemEnvironment.ARTIFACT_CACHE_CREATOR_THREADS));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.cacheCreators = Executors.newFixedThreadPool(cacheCreatorThreads, runnable -> {
+            Thread thread = new Thread(runnable, "cache-creator-thread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public boolean cacheCreated(T artifactLocation) throws Exception {
+        requests.incrementAndGet();
         if (currentlyCreatingCache(artifactLocation)) { return false; }
         if (exceptionCreatingCache(artifactLocation)) {
             Exception e = pendingExceptions.get(artifactLocation);
@@ -48,12 +90,44 @@ public abstract class ArtifactCache<T> {
                 return false;
             }
         }
-        if (cacheAlreadyCreated(artifactLocation)) { return true; }
+        if (cacheAlreadyCreated(artifactLocation)) {
+            hits.incrementAndGet();
+            recordUse(cachedFile(artifactLocation));
+            return true;
+        }
 
-        startCacheCreationThread(artifactLocation);
+        scheduleCacheCreation(artifactLocation);
         return false;
     }
 
+    /**
+     * Whether {@link #claimCacheCreation(Object)} would currently hand creation of the cache over, without claiming it.
+     */
+    public boolean canClaimCacheCreation(T artifactLocation) {
+        return !cacheAlreadyCreated(artifactLocation) && !exceptionCreatingCache(artifactLocation) && !currentlyCreatingCache(artifactLocation);
+    }
+
+    /**
+     * Hands creation of the cache over to the caller, when nobody has created it or is creating it yet.
+     * A caller that gets true must call {@link #createCache(Object, CacheCreation)} straight away, since
+     * nobody else will create the cache until it does.
+     */
+    public boolean claimCacheCreation(T artifactLocation) {
+        if (cacheAlreadyCreated(artifactLocation) || exceptionCreatingCache(artifactLocation) || !pendingCacheFiles.add(artifactLocation)) {
+            return false;
+        }
+        if (cacheAlreadyCreated(artifactLocation)) {
+            pendingCacheFiles.remove(artifactLocation);
+            return false;
+        }
+        requests.incrementAndGet();
+        return true;
+    }
+
+    public boolean isStreamingToFirstRequesterEnabled() {
+        return systemEnvironment.get(SystemEnvironment.ARTIFACT_CACHE_STREAMING_ENABLED);
+    }
+
     private boolean exceptionCreatingCache(T artifactLocation) {
         return pendingExceptions.containsKey(artifactLocation);
     }
@@ -66,25 +140,115 @@ public abstract class ArtifactCache<T> {
         return pendingCacheFiles.contains(artifactLocation);
     }
 
-    protected void startCacheCreationThread(final T artifactLocation) {
+    protected void scheduleCacheCreation(final T artifactLocation) {
         boolean inserted = pendingCacheFiles.add(artifactLocation);
         if (inserted) {
-            Thread cacheCreatorThread = new Thread("cache-creator-thread-" + UUID.randomUUID().toString()) {
-                public void run() {
-                    try {
-                        createCachedFile(artifactLocation);
-                    } catch (Exception e) {
-                        pendingExceptions.putIfAbsent(artifactLocation, e);
-                    } finally {
-                        pendingCacheFiles.remove(artifactLocation);
-                    }
+            queued.incrementAndGet();
+            cacheCreators.execute(() -> {
+                queued.decrementAndGet();
+                try {
+                    createCache(artifactLocation, () -> createCachedFile(artifactLocation));
+                } catch (Exception e) {
+                    pendingExceptions.putIfAbsent(artifactLocation, e);
                 }
-            };
-            cacheCreatorThread.start();
+            });
+        }
+    }
+
+    protected void createCache(T artifactLocation, CacheCreation creation) throws Exception {
+        long startedAt = System.nanoTime();
+        creating.incrementAndGet();
+        try {
+            creation.create();
+            created.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            long timeTaken = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            totalCreationTimeInMillis.addAndGet(timeTaken);
+            maxCreationTimeInMillis.accumulateAndGet(timeTaken, Math::max);
+            creating.decrementAndGet();
+            pendingCacheFiles.remove(artifactLocation);
+        }
+        try {
+            evictLeastRecentlyUsed();
+        } catch (Exception e) {
+            LOGGER.warn("[Artifact Cache] Failed to evict least recently used cache files", e);
+        }
+    }
+
+    private void recordUse(File cachedFile) {
+        long now = System.currentTimeMillis();
+        if (maxCacheSizeInBytes() > 0 && now - cachedFile.lastModified() > USE_RECORDING_INTERVAL_IN_MILLIS) {
+            cachedFile.setLastModified(now);
         }
     }
 
+    void evictLeastRecentlyUsed() {
+        long maxSize = maxCacheSizeInBytes();
+        File cacheRoot = new File(artifactsDirHolder.getArtifactsDir(), CACHE_ARTIFACTS_FOLDER);
+        if (maxSize <= 0 || !cacheRoot.isDirectory()) {
+            return;
+        }
+        synchronized (evictionLock) {
+            Map<File, Long> lastUsed = FileUtils.listFiles(cacheRoot, null, true).stream().collect(Collectors.toMap(file -> file, File::lastModified));
+            long totalSize = lastUsed.keySet().stream().mapToLong(File::length).sum();
+            if (totalSize <= maxSize) {
+                return;
+            }
+
+            Set<File> beingCreated = new HashSet<>();
+            for (T pending : pendingCacheFiles) {
+                beingCreated.add(cachedFile(pending));
+            }
+            List<File> leastRecentlyUsedFirst = lastUsed.keySet().stream().sorted(Comparator.comparing(lastUsed::get)).collect(Collectors.toList());
+            for (File file : leastRecentlyUsedFirst) {
+                if (totalSize <= maxSize) {
+                    break;
+                }
+                if (beingCreated.contains(file) || file.getName().endsWith(".tmp")) {
+                    continue;
+                }
+                long size = file.length();
+                if (file.delete()) {
+                    totalSize -= size;
+                    evicted.incrementAndGet();
+                    evictedBytes.addAndGet(size);
+                    LOGGER.debug("[Artifact Cache] Evicted {} ({} bytes)", file, size);
+                }
+            }
+        }
+    }
+
+    private long maxCacheSizeInBytes() {
+        return systemEnvironment.get(SystemEnvironment.ARTIFACT_CACHE_MAX_SIZE_IN_MB) * 1024 * 1024;
+    }
+
+    public Map<String, Object> statistics() {
+        long completed = created.get() + failed.get();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("CacheCreatorThreads", cacheCreatorThreads);
+        json.put("StreamingToFirstRequester", isStreamingToFirstRequesterEnabled());
+        json.put("MaxSizeInMB", systemEnvironment.get(SystemEnvironment.ARTIFACT_CACHE_MAX_SIZE_IN_MB));
+        json.put("Requests", requests.get());
+        json.put("Hits", hits.get());
+        json.put("Queued", queued.get());
+        json.put("Creating", creating.get());
+        json.put("Created", created.get());
+        json.put("Failed", failed.get());
+        json.put("AverageCreationTimeInMillis", completed == 0 ? 0 : totalCreationTimeInMillis.get() / completed);
+        json.put("MaxCreationTimeInMillis", maxCreationTimeInMillis.get());
+        json.put("Evicted", evicted.get());
+        json.put("EvictedBytes", evictedBytes.get());
+        return json;
+    }
+
     public abstract File cachedFile(T artifactLocation);
 
     abstract void createCachedFile(T artifactLocation) throws IOException;
+
+    protected interface CacheCreation {
+        void create() throws IOException;
+    }
 }
@@ -17,14 +17,19 @@
 package com.thoughtworks.go.server.cache;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.zip.Deflater;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -32,21 +37,35 @@ import static com.thoughtworks.go.util.StringUtil.removeTrailingSlash;
 
 @Component
 public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipArtifactCache.class);
     private final ZipUtil zipUtil;
 
     @Autowired
-    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil) {
-        super(artifactsDirHolder);
+    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
+        super(artifactsDirHolder, systemEnvironment);
         this.zipUtil = zipUtil;
     }
 
     @Override void createCachedFile(ArtifactFolder artifactFolder) throws IOException {
+        writeCachedFile(artifactFolder, null);
+    }
+
+    /**
+     * Creates the cached zip while sending the same bytes to the requester who claimed its creation.
+     * The cache is still completed if the requester goes away half way.
+     */
+    public void streamAndCreateCachedFile(ArtifactFolder artifactFolder, OutputStream requester) throws Exception {
+        createCache(artifactFolder, () -> writeCachedFile(artifactFolder, requester));
+    }
+
+    private void writeCachedFile(ArtifactFolder artifactFolder, OutputStream requester) throws IOException {
         File originalFolder = artifactFolder.getRootFolder();
         File cachedZip = cachedFile(artifactFolder);
         File cachedTempZip = zipToTempFile(cachedZip);
         cachedTempZip.getParentFile().mkdirs();
         try {
-            zipUtil.zip(originalFolder, cachedTempZip, Deflater.DEFAULT_COMPRESSION);
+            OutputStream cacheFile = new FileOutputStream(cachedTempZip);
+            zipUtil.zip(originalFolder, requester == null ? cacheFile : new RequesterTeeOutputStream(cacheFile, requester, cachedZip), Deflater.DEFAULT_COMPRESSION);
         } catch (IOException e) {
             cachedTempZip.delete();
             throw e;
@@ -64,4 +83,44 @@ public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
         String relativize = FilenameUtils.separatorsToUnix(artifactFolder.getRootFolder().getPath()).replaceFirst(FilenameUtils.separatorsToUnix(root.getPath()), CACHE_ARTIFACTS_FOLDER);
         return new File(root, removeTrailingSlash(relativize) + ".zip");
     }
+
+    private static class RequesterTeeOutputStream extends OutputStream {
+        private final OutputStream cacheFile;
+        private final File cachedZip;
+        private OutputStream requester;
+
+        RequesterTeeOutputStream(OutputStream cacheFile, OutputStream requester, File cachedZip) {
+            this.cacheFile = cacheFile;
+            this.requester = requester;
+            this.cachedZip = cachedZip;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            cacheFile.write(b, off, len);
+            if (requester != null) {
+                try {
+                    requester.write(b, off, len);
+                } catch (IOException e) {
+                    LOGGER.info("[Artifact Cache] Requester went away while streaming {}, carrying on with creating the cache", cachedZip, e);
+                    requester = null;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            cacheFile.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            cacheFile.close();
+        }
+    }
 }
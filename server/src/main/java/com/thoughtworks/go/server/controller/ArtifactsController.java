@@ -54,6 +54,7 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static com.thoughtworks.go.server.web.ZipArtifactFolderViewFactory.zipViewFactory;
 import static com.thoughtworks.go.util.ArtifactLogUtil.isConsoleOutput;
@@ -240,7 +241,8 @@ public class ArtifactsController {
         }
 
         if (isConsoleOutput(filePath)) {
-            return putConsoleOutput(jobIdentifier, request.getInputStream());
+            InputStream consoleOutput = "gzip".equalsIgnoreCase(request.getHeader("Content-Encoding")) ? new GZIPInputStream(request.getInputStream()) : request.getInputStream();
+            return putConsoleOutput(jobIdentifier, consoleOutput);
         } else {
             return putArtifact(jobIdentifier, filePath, request.getInputStream());
         }
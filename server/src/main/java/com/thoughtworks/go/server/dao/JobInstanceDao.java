@@ -35,6 +35,10 @@ public interface JobInstanceDao {
 
 	JobInstances findJobHistoryPage(String pipelineName, String stageName, String jobConfigName, int count, int offset);
 
+    JobInstances findJobHistoryPageBefore(String pipelineName, String stageName, String jobConfigName, int count, long beforeJobId);
+
+    JobInstances findJobHistoryPageAfter(String pipelineName, String stageName, String jobConfigName, int count, long afterJobId);
+
     JobInstance save(long stageId, JobInstance jobInstance);
 
     JobInstance updateAssignedInfo(JobInstance jobInstance);
@@ -50,6 +50,7 @@ import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -493,6 +494,39 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         });
     }
 
+    public JobInstances findJobHistoryPageBefore(String pipelineName,
+                                                 String stageName,
+                                                 String jobConfigName,
+                                                 int count,
+                                                 long beforeJobId) {
+        Map params = new HashMap();
+        params.put("pipelineName", pipelineName);
+        params.put("stageName", stageName);
+        params.put("jobConfigName", jobConfigName);
+        params.put("count", count);
+        params.put("before", beforeJobId);
+
+        List<JobInstance> results = (List<JobInstance>) getSqlMapClientTemplate().queryForList("findJobHistoryPageBefore", params);
+        return new JobInstances(results);
+    }
+
+    public JobInstances findJobHistoryPageAfter(String pipelineName,
+                                                String stageName,
+                                                String jobConfigName,
+                                                int count,
+                                                long afterJobId) {
+        Map params = new HashMap();
+        params.put("pipelineName", pipelineName);
+        params.put("stageName", stageName);
+        params.put("jobConfigName", jobConfigName);
+        params.put("count", count);
+        params.put("after", afterJobId);
+
+        List<JobInstance> results = (List<JobInstance>) getSqlMapClientTemplate().queryForList("findJobHistoryPageAfter", params);
+        Collections.reverse(results);
+        return new JobInstances(results);
+    }
+
     String cacheKeyForFindJobHistoryPage(String pipelineName,
                                          String stageName,
                                          String jobConfigName,
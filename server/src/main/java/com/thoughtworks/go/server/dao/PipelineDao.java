@@ -37,6 +37,10 @@ public interface PipelineDao {
 
     PipelineInstanceModels loadHistory(String pipelineName, int resultsPerPage, int start);
 
+    PipelineInstanceModels loadHistoryBefore(String pipelineName, long beforePipelineId, int resultsPerPage);
+
+    PipelineInstanceModels loadHistoryAfter(String pipelineName, long afterPipelineId, int resultsPerPage);
+
     int count(String pipelineName);
 
     Pipeline pipelineByIdWithMods(long pipelineId);
@@ -519,9 +519,8 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
                 continue;
             }
             models.add(model);
-            loadPipelineHistoryBuildCause(model);
-
         }
+        materialRepository.populateMaterialRevisionsOnBuildCauses(models);
         return PipelineInstanceModels.createPipelineInstanceModels(models);
     }
 
@@ -668,6 +667,36 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return loadHistory(pipelineName, ids);
     }
 
+    /**
+     * Keyset variant of {@link #loadHistory(String, int, int)}: loads the page of instances older than the given
+     * pipeline id. It costs the same no matter how deep into the history the page is.
+     */
+    public PipelineInstanceModels loadHistoryBefore(String pipelineName, long beforePipelineId, int limit) {
+        Map<String, Object> toGet = arguments("pipelineName", pipelineName)
+                .and("before", beforePipelineId)
+                .and("limit", limit).asMap();
+        List<Long> ids = getSqlMapClientTemplate().queryForList("getPipelineRangeBefore", toGet);
+        if (ids.size() == 1) {
+            return PipelineInstanceModels.createPipelineInstanceModels(loadHistoryByIdWithBuildCause(ids.get(0)));
+        }
+        return loadHistory(pipelineName, ids);
+    }
+
+    /**
+     * Loads the page of instances newer than the given pipeline id, i.e. the page that comes before one fetched with
+     * {@link #loadHistoryBefore(String, long, int)}. Instances are still returned newest first.
+     */
+    public PipelineInstanceModels loadHistoryAfter(String pipelineName, long afterPipelineId, int limit) {
+        Map<String, Object> toGet = arguments("pipelineName", pipelineName)
+                .and("after", afterPipelineId)
+                .and("limit", limit).asMap();
+        List<Long> ids = getSqlMapClientTemplate().queryForList("getPipelineRangeAfter", toGet);
+        if (ids.size() == 1) {
+            return PipelineInstanceModels.createPipelineInstanceModels(loadHistoryByIdWithBuildCause(ids.get(0)));
+        }
+        return loadHistory(pipelineName, ids);
+    }
+
     public int getPageNumberForCounter(String pipelineName, int pipelineCounter, int limit) {
         Integer maxCounter = getCounterForPipeline(pipelineName);
         Pagination pagination = Pagination.pageStartingAt((maxCounter - pipelineCounter), maxCounter, limit);
@@ -734,9 +763,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
                 .and("to", Collections.max(ids)).asMap();
         PipelineInstanceModels history = PipelineInstanceModels.createPipelineInstanceModels(
                 (List<PipelineInstanceModel>) getSqlMapClientTemplate().queryForList("getPipelineHistoryByName", args));
-        for (PipelineInstanceModel pipelineInstanceModel : history) {
-            loadPipelineHistoryBuildCause(pipelineInstanceModel);
-        }
+        materialRepository.populateMaterialRevisionsOnBuildCauses(history);
         return history;
     }
 
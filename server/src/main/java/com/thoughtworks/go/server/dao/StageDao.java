@@ -87,6 +87,10 @@ public interface StageDao extends JobDurationStrategy {
 
 	StageInstanceModels findDetailedStageHistoryByOffset(String pipelineName, String stageName, Pagination pagination);
 
+    StageInstanceModels findDetailedStageHistoryBefore(String pipelineName, String stageName, long beforeStageId, int pageSize);
+
+    StageInstanceModels findDetailedStageHistoryAfter(String pipelineName, String stageName, long afterStageId, int pageSize);
+
     Long findStageIdByPipelineAndStageNameAndCounter(long pipeline, String name, String counter);
 
     List<StageIdentifier> findFailedStagesBetween(String pipelineName, String stageName, double fromNaturalOrder, double toNaturalOrder);
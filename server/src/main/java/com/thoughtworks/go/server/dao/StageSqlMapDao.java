@@ -430,6 +430,34 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         }
     }
 
+    public StageInstanceModels findDetailedStageHistoryBefore(String pipelineName,
+                                                              String stageName,
+                                                              long beforeStageId,
+                                                              int pageSize) {
+        Map<String, Object> args = arguments("pipelineName", pipelineName).
+                and("stageName", stageName).
+                and("before", beforeStageId).
+                and("limit", pageSize).asMap();
+        List<StageInstanceModel> detailedStageHistory = (List<StageInstanceModel>) getSqlMapClientTemplate().queryForList("getDetailedStageHistoryBefore", args);
+        StageInstanceModels stageInstanceModels = new StageInstanceModels();
+        stageInstanceModels.addAll(detailedStageHistory);
+        return stageInstanceModels;
+    }
+
+    public StageInstanceModels findDetailedStageHistoryAfter(String pipelineName,
+                                                             String stageName,
+                                                             long afterStageId,
+                                                             int pageSize) {
+        Map<String, Object> args = arguments("pipelineName", pipelineName).
+                and("stageName", stageName).
+                and("after", afterStageId).
+                and("limit", pageSize).asMap();
+        List<StageInstanceModel> detailedStageHistory = (List<StageInstanceModel>) getSqlMapClientTemplate().queryForList("getDetailedStageHistoryAfter", args);
+        StageInstanceModels stageInstanceModels = new StageInstanceModels();
+        stageInstanceModels.addAll(detailedStageHistory);
+        return stageInstanceModels;
+    }
+
     public StageHistoryPage findStageHistoryPage(final Stage stage, final int pageSize) {
         final StageIdentifier id = stage.getIdentifier();
         return findStageHistoryPage(id.getPipelineName(), id.getStageName(), () -> {
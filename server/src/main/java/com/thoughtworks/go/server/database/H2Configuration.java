@@ -57,4 +57,20 @@ public class H2Configuration  {
         return systemEnvironment.get(SystemEnvironment.GO_DATABASE_MAX_IDLE);
     }
 
+    public int getMaxWaitMillis() {
+        return systemEnvironment.get(SystemEnvironment.GO_DATABASE_MAX_WAIT_MILLIS);
+    }
+
+    public boolean isPoolPreparedStatements() {
+        return systemEnvironment.get(SystemEnvironment.GO_DATABASE_POOL_PREPARED_STATEMENTS);
+    }
+
+    public int getMaxOpenPreparedStatements() {
+        return systemEnvironment.get(SystemEnvironment.GO_DATABASE_MAX_OPEN_PREPARED_STATEMENTS);
+    }
+
+    public int getAbandonedConnectionTimeoutSeconds() {
+        return systemEnvironment.get(SystemEnvironment.GO_DATABASE_ABANDONED_CONNECTION_TIMEOUT_SECONDS);
+    }
+
 }
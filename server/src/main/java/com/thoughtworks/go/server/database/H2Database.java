@@ -43,6 +43,7 @@ import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 public class H2Database implements Database {
     private static final Logger LOG = LoggerFactory.getLogger(H2Database.class);
     static final String DIALECT_H2 = "org.hibernate.dialect.H2Dialect";
+    public static final String BACKUP_FILE_NAME = "db.zip";
 
     private final H2Configuration configuration;
     private final SystemEnvironment systemEnvironment;
@@ -102,7 +103,7 @@ public class H2Database implements Database {
 
     private BasicDataSource createDataSource(Boolean mvccEnabled) {
         if (this.dataSource == null) {
-            BasicDataSource source = new BasicDataSource();
+            BasicDataSource source = new InstrumentedDataSource();
             if (systemEnvironment.inDbDebugMode()) {
                 String url = String.format("jdbc:h2:tcp://%s:%s/%s", configuration.getHost(),
                         configuration.getPort(), configuration.getName());
@@ -128,6 +129,18 @@ public class H2Database implements Database {
         source.setPassword(databasePassword);
         source.setMaxTotal(configuration.getMaxActive());
         source.setMaxIdle(configuration.getMaxIdle());
+        source.setMaxWaitMillis(configuration.getMaxWaitMillis());
+        source.setPoolPreparedStatements(configuration.isPoolPreparedStatements());
+        source.setMaxOpenPreparedStatements(configuration.getMaxOpenPreparedStatements());
+
+        int abandonedConnectionTimeout = configuration.getAbandonedConnectionTimeoutSeconds();
+        if (abandonedConnectionTimeout > 0) {
+            LOG.info("[db] Connections held for more than {} seconds will be logged and reclaimed", abandonedConnectionTimeout);
+            source.setRemoveAbandonedTimeout(abandonedConnectionTimeout);
+            source.setRemoveAbandonedOnMaintenance(true);
+            source.setTimeBetweenEvictionRunsMillis(30 * 1000);
+            source.setLogAbandoned(true);
+        }
     }
 
     public BasicDataSource createDataSource() {
@@ -184,7 +197,7 @@ public class H2Database implements Database {
     public void backup(File file) {
         try (Connection connection = createDataSource().getConnection()) {
             Statement statement = connection.createStatement();
-            File dbBackupFile = new File(file, "db.zip");
+            File dbBackupFile = new File(file, BACKUP_FILE_NAME);
             statement.execute(String.format("BACKUP TO '%s'", dbBackupFile));
         } catch (SQLException e) {
             bomb(e);
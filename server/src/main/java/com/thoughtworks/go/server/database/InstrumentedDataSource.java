@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.database;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @understands how long callers wait for a connection from the pool
+ */
+public class InstrumentedDataSource extends BasicDataSource {
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalBorrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            recordBorrowWait(System.nanoTime() - start);
+        }
+    }
+
+    private void recordBorrowWait(long waitNanos) {
+        borrowCount.increment();
+        totalBorrowWaitNanos.add(waitNanos);
+        maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    public Map<String, Object> poolStatistics() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        long borrows = borrowCount.sum();
+        json.put("Active connections", getNumActive());
+        json.put("Idle connections", getNumIdle());
+        json.put("Max total connections", getMaxTotal());
+        json.put("Max wait (ms)", getMaxWaitMillis());
+        json.put("Prepared statement pooling", isPoolPreparedStatements());
+        json.put("Max open prepared statements", getMaxOpenPreparedStatements());
+        json.put("Connections borrowed", borrows);
+        json.put("Mean borrow wait (ms)", borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalBorrowWaitNanos.sum() / borrows));
+        json.put("Max borrow wait (ms)", TimeUnit.NANOSECONDS.toMillis(maxBorrowWaitNanos.get()));
+        return json;
+    }
+}
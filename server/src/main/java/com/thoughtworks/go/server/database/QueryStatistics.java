@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.database;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @understands latency of the ibatis statements run against the database
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class QueryStatistics implements Interceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryStatistics.class);
+    static final long[] BUCKET_UPPER_BOUNDS_MILLIS = {1, 10, 100, 1000, 10000};
+    static final int MAX_SLOW_QUERIES = 50;
+
+    private final long slowQueryThresholdMillis;
+    private final Map<String, StatementTimings> timings = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ConcurrentLinkedDeque<>();
+
+    @Autowired
+    public QueryStatistics(SystemEnvironment systemEnvironment) {
+        this(systemEnvironment.get(SystemEnvironment.GO_DATABASE_SLOW_QUERY_THRESHOLD_MILLIS));
+    }
+
+    QueryStatistics(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            record(statement.getId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    void record(String statementId, long durationMillis) {
+        timings.computeIfAbsent(statementId, id -> new StatementTimings()).record(durationMillis);
+        if (durationMillis >= slowQueryThresholdMillis) {
+            LOGGER.debug("Slow query [{}] took {} ms", statementId, durationMillis);
+            slowQueries.addFirst(new SlowQuery(statementId, durationMillis, new Date()));
+            while (slowQueries.size() > MAX_SLOW_QUERIES) {
+                slowQueries.pollLast();
+            }
+        }
+    }
+
+    public Map<String, Object> asJson() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        TreeMap<String, Object> statements = new TreeMap<>();
+        timings.forEach((statementId, statementTimings) -> statements.put(statementId, statementTimings.asJson()));
+        json.put("Statements", statements);
+
+        List<Map<String, Object>> slow = new ArrayList<>();
+        for (SlowQuery slowQuery : slowQueries) {
+            slow.add(slowQuery.asJson());
+        }
+        json.put("Slow query threshold (ms)", slowQueryThresholdMillis);
+        json.put("Slow queries", slow);
+        return json;
+    }
+
+    private static class StatementTimings {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS_MILLIS.length + 1];
+
+        StatementTimings() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long durationMillis) {
+            count.increment();
+            totalMillis.add(durationMillis);
+            maxMillis.accumulateAndGet(durationMillis, Math::max);
+            buckets[bucketFor(durationMillis)].increment();
+        }
+
+        private int bucketFor(long durationMillis) {
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+                if (durationMillis < BUCKET_UPPER_BOUNDS_MILLIS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_UPPER_BOUNDS_MILLIS.length;
+        }
+
+        Map<String, Object> asJson() {
+            LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+            long executions = count.sum();
+            json.put("Count", executions);
+            json.put("Total (ms)", totalMillis.sum());
+            json.put("Mean (ms)", executions == 0 ? 0 : totalMillis.sum() / executions);
+            json.put("Max (ms)", maxMillis.get());
+
+            LinkedHashMap<String, Object> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+                histogram.put("< " + BUCKET_UPPER_BOUNDS_MILLIS[i] + " ms", buckets[i].sum());
+            }
+            histogram.put(">= " + BUCKET_UPPER_BOUNDS_MILLIS[BUCKET_UPPER_BOUNDS_MILLIS.length - 1] + " ms", buckets[BUCKET_UPPER_BOUNDS_MILLIS.length].sum());
+            json.put("Histogram", histogram);
+            return json;
+        }
+    }
+
+    private static class SlowQuery {
+        private final String statementId;
+        private final long durationMillis;
+        private final Date recordedAt;
+
+        SlowQuery(String statementId, long durationMillis, Date recordedAt) {
+            this.statementId = statementId;
+            this.durationMillis = durationMillis;
+            this.recordedAt = recordedAt;
+        }
+
+        Map<String, Object> asJson() {
+            LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+            json.put("Statement", statementId);
+            json.put("Duration (ms)", durationMillis);
+            json.put("Recorded at", recordedAt);
+            return json;
+        }
+    }
+}
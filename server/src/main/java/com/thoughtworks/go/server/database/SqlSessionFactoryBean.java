@@ -43,13 +43,15 @@ public class SqlSessionFactoryBean implements FactoryBean<SqlSessionFactory>, In
     private DatabaseStrategy databaseStrategy;
     private final DataSource dataSource;
     private final Resource configLocation;
+    private final QueryStatistics queryStatistics;
     private SqlSessionFactory sqlSessionFactory;
 
     @Autowired
-    public SqlSessionFactoryBean(DatabaseStrategy databaseStrategy, DataSource dataSource, @Value("WEB-INF/sql-map-config.xml") Resource configLocation) {
+    public SqlSessionFactoryBean(DatabaseStrategy databaseStrategy, DataSource dataSource, @Value("WEB-INF/sql-map-config.xml") Resource configLocation, QueryStatistics queryStatistics) {
         this.databaseStrategy = databaseStrategy;
         this.dataSource = dataSource instanceof TransactionAwareDataSourceProxy ? dataSource : new TransactionAwareDataSourceProxy(dataSource);
         this.configLocation = configLocation;
+        this.queryStatistics = queryStatistics;
     }
 
     @Override
@@ -95,6 +97,7 @@ public class SqlSessionFactoryBean implements FactoryBean<SqlSessionFactory>, In
         }
 
         baseConfiguration.setEnvironment(new Environment(getClass().getSimpleName(), new SpringManagedTransactionFactory(), this.dataSource));
+        baseConfiguration.addInterceptor(queryStatistics);
 
         return factoryBuilder.build(baseConfiguration);
     }
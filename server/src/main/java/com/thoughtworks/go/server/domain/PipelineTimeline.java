@@ -30,25 +30,36 @@ import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * @understands a sorted collection of PipelineMaterialModification
+ * <p>
+ * Updates are serialized by a single update lock, which readers never take. Readers only lock the pipeline they
+ * are interested in, so a timeline refresh blocks lookups on a pipeline only while new runs of that very pipeline
+ * are being inserted.
+ * <p>
+ * Runs read during an update are staged against a private copy of the timeline and published, together with the
+ * new maximum id, only once the update's transaction has committed. Readers never see runs that may yet be rolled back.
  */
 public class PipelineTimeline {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimeline.class);
 
-    private final Map<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> naturalOrderPmm;
-    private final Map<CaseInsensitiveString, ArrayList<PipelineTimelineEntry>> scheduleOrderPmm;
+    private final ConcurrentMap<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> naturalOrderPmm;
+    private final ConcurrentMap<CaseInsensitiveString, ArrayList<PipelineTimelineEntry>> scheduleOrderPmm;
+    private final ConcurrentMap<CaseInsensitiveString, ReadWriteLock> pipelineLocks;
     private volatile long maximumId;
     private final PipelineRepository pipelineRepository;
     private TransactionTemplate transactionTemplate;
     private TransactionSynchronizationManager transactionSynchronizationManager;
     private TimelineUpdateListener[] listeners;
-    private final ReadWriteLock naturalOrderLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock scheduleOrderLock = new ReentrantReadWriteLock();
+    private final ReentrantLock updateLock = new ReentrantLock();
     private final Cloner cloner = new Cloner();
+    private Map<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> stagedNaturalOrder;
 
     @Autowired
     public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager,
@@ -57,8 +68,9 @@ public class PipelineTimeline {
         this.transactionTemplate = transactionTemplate;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.listeners = listeners;
-        naturalOrderPmm = new HashMap<>();
-        scheduleOrderPmm = new HashMap<>();
+        naturalOrderPmm = new ConcurrentHashMap<>();
+        scheduleOrderPmm = new ConcurrentHashMap<>();
+        pipelineLocks = new ConcurrentHashMap<>();
         maximumId = -1;
     }
 
@@ -67,15 +79,17 @@ public class PipelineTimeline {
      */
     @Deprecated
     public Collection<PipelineTimelineEntry> getEntriesFor(String pipelineName) {
-        naturalOrderLock.readLock().lock();
+        CaseInsensitiveString name = new CaseInsensitiveString(pipelineName);
+        ReadWriteLock lock = lockFor(name);
+        lock.readLock().lock();
         try {
-            TreeSet<PipelineTimelineEntry> tree = naturalOrderPmm.get(new CaseInsensitiveString(pipelineName));
+            TreeSet<PipelineTimelineEntry> tree = naturalOrderPmm.get(name);
             if (tree == null) {
                 tree = new TreeSet<>();
             }
             return Collections.unmodifiableCollection(cloner.deepClone(tree));
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -84,69 +98,104 @@ public class PipelineTimeline {
     }
 
     public void add(PipelineTimelineEntry pipelineTimelineEntry) {
-        CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
-        initializedNaturalOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        initializedScheduleOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        pipelineTimelineEntry.setInsertedBefore(naturalOrderAfter(pipelineTimelineEntry));
-        pipelineTimelineEntry.setInsertedAfter(naturalOrderBefore(pipelineTimelineEntry));
+        updateLock.lock();
+        try {
+            CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
+            ReadWriteLock lock = lockFor(pipelineName);
+            lock.writeLock().lock();
+            try {
+                insertInNaturalOrder(initializedNaturalOrderCollection(pipelineName), pipelineTimelineEntry);
+                initializedScheduleOrderCollection(pipelineName).add(pipelineTimelineEntry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            updateMaximumId(pipelineTimelineEntry.getId());
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Positions a run read during an update without making it visible. It is published once the update completes
+     * successfully. Outside an update the run is added straight away.
+     */
+    public void stage(PipelineTimelineEntry pipelineTimelineEntry) {
+        updateLock.lock();
+        try {
+            if (stagedNaturalOrder == null) {
+                add(pipelineTimelineEntry);
+                return;
+            }
+            CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
+            insertInNaturalOrder(stagedNaturalOrder.computeIfAbsent(pipelineName, this::copyOfNaturalOrder), pipelineTimelineEntry);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void insertInNaturalOrder(TreeSet<PipelineTimelineEntry> naturalOrder, PipelineTimelineEntry pipelineTimelineEntry) {
+        naturalOrder.add(pipelineTimelineEntry);
+        pipelineTimelineEntry.setInsertedBefore(naturalOrder.higher(pipelineTimelineEntry));
+        pipelineTimelineEntry.setInsertedAfter(naturalOrder.lower(pipelineTimelineEntry));
         pipelineTimelineEntry.updateNaturalOrder();
-        updateMaximumId(pipelineTimelineEntry.getId());
+    }
+
+    private TreeSet<PipelineTimelineEntry> copyOfNaturalOrder(CaseInsensitiveString pipelineName) {
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
+        try {
+            TreeSet<PipelineTimelineEntry> tree = naturalOrderPmm.get(pipelineName);
+            return tree == null ? new TreeSet<>() : new TreeSet<>(tree);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void publish(List<PipelineTimelineEntry> newEntries) {
+        long newMaximumId = maximumId;
+        for (PipelineTimelineEntry entry : newEntries) {
+            CaseInsensitiveString pipelineName = new CaseInsensitiveString(entry.getPipelineName());
+            ReadWriteLock lock = lockFor(pipelineName);
+            lock.writeLock().lock();
+            try {
+                initializedNaturalOrderCollection(pipelineName).add(entry);
+                initializedScheduleOrderCollection(pipelineName).add(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            newMaximumId = Math.max(entry.getId(), newMaximumId);
+        }
+        updateMaximumId(newMaximumId);
     }
 
     public void update() {
-        acquireAllWriteLocks();
+        updateLock.lock();
         try {
-            final long maximumIdBeforeUpdate = maximumId;
+            stagedNaturalOrder = new HashMap<>();
             transactionTemplate.execute((TransactionCallback) transactionStatus -> {
                 final List<PipelineTimelineEntry> newlyAddedEntries = new ArrayList<>();
                 transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
                     @Override
                     public void afterCompletion(int status) {
-                        if (STATUS_ROLLED_BACK == status) {
-                            rollbackTempEntries();
-                        } else if (STATUS_COMMITTED == status) {
+                        if (STATUS_COMMITTED == status) {
+                            publish(newlyAddedEntries);
                             notifyListeners(newlyAddedEntries);
                         }
                     }
-
-                    private void rollbackTempEntries() {
-                        for (PipelineTimelineEntry entry : newlyAddedEntries) {
-                            rollbackNewEntryFor(entry);
-                        }
-                        maximumId = maximumIdBeforeUpdate;
-                    }
-
-                    private void rollbackNewEntryFor(PipelineTimelineEntry entry) {
-                        CaseInsensitiveString pipelineName = new CaseInsensitiveString(entry.getPipelineName());
-                        initializedNaturalOrderCollection(pipelineName).remove(entry);
-                        initializedScheduleOrderCollection(pipelineName).remove(entry);
-                    }
-
-
                 });
                 pipelineRepository.updatePipelineTimeline(PipelineTimeline.this, newlyAddedEntries);
                 return null;
             });
         } finally {
-            releaseAllWriteLocks();
+            stagedNaturalOrder = null;
+            updateLock.unlock();
         }
     }
 
-
-    // --------------------------------------------------------
-    // These methods should acquire and release lock in corresponding order.
-    private void acquireAllWriteLocks() {
-        naturalOrderLock.writeLock().lock();
-        scheduleOrderLock.writeLock().lock();
+    private ReadWriteLock lockFor(CaseInsensitiveString pipelineName) {
+        return pipelineLocks.computeIfAbsent(pipelineName, name -> new ReentrantReadWriteLock());
     }
 
-    //Release in the reverse of the acquired order.
-    private void releaseAllWriteLocks() {
-        scheduleOrderLock.writeLock().unlock();
-        naturalOrderLock.writeLock().unlock();
-    }
-    // --------------------------------------------------------
-
     private void notifyListeners(List<PipelineTimelineEntry> newEntries) {
         Map<CaseInsensitiveString, PipelineTimelineEntry> pipelineToOldestEntry = new HashMap<>();
         for (PipelineTimelineEntry challenger : newEntries) {
@@ -172,11 +221,15 @@ public class PipelineTimeline {
      * This is called on system init and is called by Spring. Hence, this is not done in a transaction. At any other time, the method update should be used
      */
     public void updateTimelineOnInit() {
-        acquireAllWriteLocks();
+        updateLock.lock();
         try {
-            pipelineRepository.updatePipelineTimeline(this, new ArrayList<>());
+            stagedNaturalOrder = new HashMap<>();
+            List<PipelineTimelineEntry> newEntries = new ArrayList<>();
+            pipelineRepository.updatePipelineTimeline(this, newEntries);
+            publish(newEntries);
         } finally {
-            releaseAllWriteLocks();
+            stagedNaturalOrder = null;
+            updateLock.unlock();
         }
     }
 
@@ -186,7 +239,8 @@ public class PipelineTimeline {
      * @return PMM which was before the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing before this pipeline during insertion
      */
     public PipelineTimelineEntry runBefore(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
             TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
             if (treeForPipeline == null) {
@@ -199,7 +253,7 @@ public class PipelineTimeline {
             }
             throw new RuntimeException("Cannot find pipeline with id: " + id);
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -209,7 +263,8 @@ public class PipelineTimeline {
      * @return PMM which was after the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing after this pipeline during insertion
      */
     public PipelineTimelineEntry runAfter(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
             TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
             if (treeForPipeline == null) {
@@ -222,7 +277,7 @@ public class PipelineTimeline {
             }
             throw new RuntimeException("Cannot find pipeline with id: " + id);
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -231,41 +286,40 @@ public class PipelineTimeline {
     }
 
     private TreeSet<PipelineTimelineEntry> initializedNaturalOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!naturalOrderPmm.containsKey(pipelineName)) {
-            naturalOrderPmm.put(pipelineName, new TreeSet<>());
-        }
-        return naturalOrderPmm.get(pipelineName);
+        return naturalOrderPmm.computeIfAbsent(pipelineName, name -> new TreeSet<>());
     }
 
     private ArrayList<PipelineTimelineEntry> initializedScheduleOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!scheduleOrderPmm.containsKey(pipelineName)) {
-            scheduleOrderPmm.put(pipelineName, new ArrayList<>());
-        }
-        return scheduleOrderPmm.get(pipelineName);
+        return scheduleOrderPmm.computeIfAbsent(pipelineName, name -> new ArrayList<>());
     }
 
     private PipelineTimelineEntry naturalOrderAfter(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
+        CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).higher(pipelineTimelineEntry);
+            return naturalOrderPmm.get(pipelineName).higher(pipelineTimelineEntry);
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
     PipelineTimelineEntry naturalOrderBefore(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
+        CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).lower(pipelineTimelineEntry);
+            return naturalOrderPmm.get(pipelineName).lower(pipelineTimelineEntry);
         } finally {
-            naturalOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
     public long pipelineBefore(long id) {
-        naturalOrderLock.readLock().lock();
-        try {
-            for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
+        for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
+            ReadWriteLock lock = lockFor(nameToEntry.getKey());
+            lock.readLock().lock();
+            try {
                 for (PipelineTimelineEntry entry : nameToEntry.getValue()) {
                     if (entry.getId() == id) {
                         PipelineTimelineEntry timelineEntry = naturalOrderBefore(entry);
@@ -275,17 +329,18 @@ public class PipelineTimeline {
                         return timelineEntry.getId();
                     }
                 }
+            } finally {
+                lock.readLock().unlock();
             }
-            return -1;
-        } finally {
-            naturalOrderLock.readLock().unlock();
         }
+        return -1;
     }
 
     public long pipelineAfter(long id) {
-        naturalOrderLock.readLock().lock();
-        try {
-            for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
+        for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
+            ReadWriteLock lock = lockFor(nameToEntry.getKey());
+            lock.readLock().lock();
+            try {
                 for (PipelineTimelineEntry entry : nameToEntry.getValue()) {
                     if (entry.getId() == id) {
                         PipelineTimelineEntry timelineEntry = naturalOrderAfter(entry);
@@ -295,11 +350,11 @@ public class PipelineTimeline {
                         return timelineEntry.getId();
                     }
                 }
+            } finally {
+                lock.readLock().unlock();
             }
-            return -1;
-        } finally {
-            naturalOrderLock.readLock().unlock();
         }
+        return -1;
     }
 
     /**
@@ -307,38 +362,41 @@ public class PipelineTimeline {
      */
     @Deprecated
     public void clearWhichIsEvilAndShouldNotBeUsedInRealWorld() {
-        acquireAllWriteLocks();
+        updateLock.lock();
         try {
             naturalOrderPmm.clear();
             scheduleOrderPmm.clear();
         } finally {
-            releaseAllWriteLocks();
+            updateLock.unlock();
         }
     }
 
     public int instanceCount(CaseInsensitiveString pipelineName) {
-        scheduleOrderLock.readLock().lock();
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
             ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
             return instances == null ? 0 : instances.size();
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
     public PipelineTimelineEntry instanceFor(CaseInsensitiveString pipelineName, int index) {
-        scheduleOrderLock.readLock().lock();
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
             ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
             return instances == null ? null : instances.get(index);
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
 
     public PipelineTimelineEntry getEntryFor(CaseInsensitiveString pipelineName, Integer pipelineCounter) {
-        scheduleOrderLock.readLock().lock();
+        ReadWriteLock lock = lockFor(pipelineName);
+        lock.readLock().lock();
         try {
             ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
             for (int i = instances.size() - 1; i >= 0; i--) {
@@ -349,7 +407,7 @@ public class PipelineTimeline {
             }
             return null;
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
@@ -26,7 +26,6 @@ import com.thoughtworks.go.domain.materials.mercurial.StringRevision;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.MaterialService;
-import com.thoughtworks.go.server.service.materials.MaterialPoller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -99,8 +98,7 @@ public class ConfigMaterialUpdateListener implements GoMessageListener<MaterialU
 
     private void updateConfigurationFromCheckout(File folder, Modification modification, Material material) {
         Revision revision = new StringRevision(modification.getRevision());
-        MaterialPoller poller = this.materialService.getPollerImplementation(material);
-        poller.checkout(material, folder, revision, this.subprocessExecutionContext);
+        this.materialService.checkout(material, folder, revision, this.subprocessExecutionContext);
         this.repoConfigDataSource.onCheckoutComplete(material.config(), folder, modification);
     }
 
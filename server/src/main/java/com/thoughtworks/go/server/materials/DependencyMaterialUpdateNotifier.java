@@ -45,7 +45,9 @@ import static com.thoughtworks.go.serverhealth.ServerHealthState.error;
 import static java.lang.String.format;
 
 /**
- * Listens to Stage/Config changes and notifies MaterialUpdateService to update DependencyMaterial
+ * Listens to Stage/Config changes and notifies MaterialUpdateService to update DependencyMaterial. A passed stage is
+ * recorded against its DependencyMaterial directly when the material is known to be up to date; a regular update
+ * through MaterialUpdateService is only used to catch up.
  */
 
 @Component
@@ -54,6 +56,7 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
     private final GoConfigService goConfigService;
     private final MaterialConfigConverter materialConfigConverter;
     private final MaterialUpdateService materialUpdateService;
+    private final MaterialDatabaseUpdater materialDatabaseUpdater;
     private ServerHealthService serverHealthService;
     private boolean skipUpdate = false;
 
@@ -62,10 +65,12 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
 
     @Autowired
     public DependencyMaterialUpdateNotifier(GoConfigService goConfigService, MaterialConfigConverter materialConfigConverter,
-                                            MaterialUpdateService materialUpdateService, ServerHealthService serverHealthService) {
+                                            MaterialUpdateService materialUpdateService, MaterialDatabaseUpdater materialDatabaseUpdater,
+                                            ServerHealthService serverHealthService) {
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateService = materialUpdateService;
+        this.materialDatabaseUpdater = materialDatabaseUpdater;
         this.serverHealthService = serverHealthService;
     }
 
@@ -98,7 +103,7 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
         if (StageResult.Passed == stage.getResult()) {
             Material material = dependencyMaterials.get(stageIdentifier(stage.getIdentifier().getPipelineName(), stage.getName()));
 
-            if (material != null) {
+            if (material != null && !insertRevisionForPassedStage(material, stage)) {
                 updateMaterial(material);
             }
         }
@@ -130,9 +135,21 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
         this.skipUpdate = false;
     }
 
+    private boolean insertRevisionForPassedStage(Material material, Stage stage) {
+        if (skipUpdate) return false;
+
+        try {
+            return materialDatabaseUpdater.insertRevisionForPassedStage((DependencyMaterial) material, stage);
+        } catch (Exception e) {
+            LOGGER.warn("[Material Update] Could not record stage {} against dependency material {}, falling back to a regular update", stage.getIdentifier(), material, e);
+            return false;
+        }
+    }
+
     private void updateMaterial(Material material) {
         if (skipUpdate) return;
 
+        materialDatabaseUpdater.requireCatchUpFor((DependencyMaterial) material);
         try {
             if (!materialUpdateService.updateMaterial(material)) {
                 retryQueue.add(material);
@@ -153,11 +170,15 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
     private void scheduleRecentlyAddedMaterialsForUpdate() {
         Collection<Material> materialsBeforeConfigChange = dependencyMaterials.values();
 
-        this.dependencyMaterials = dependencyMaterials();
+        HashMap<String, Material> materialsAfterConfigChange = dependencyMaterials();
 
-        Collection<Material> materialsAfterConfigChange = dependencyMaterials.values();
+        Collection newMaterials = CollectionUtils.subtract(materialsAfterConfigChange.values(), materialsBeforeConfigChange);
 
-        Collection newMaterials = CollectionUtils.subtract(materialsAfterConfigChange, materialsBeforeConfigChange);
+        // stages that passed while a material was not configured have not been recorded against it
+        for (Object material : newMaterials) {
+            materialDatabaseUpdater.requireCatchUpFor((DependencyMaterial) material);
+        }
+        this.dependencyMaterials = materialsAfterConfigChange;
 
         for (Object material : newMaterials) {
             updateMaterial((Material) material);
@@ -19,6 +19,8 @@ package com.thoughtworks.go.server.materials;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.StageIdentifier;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.domain.materials.Modifications;
@@ -29,12 +31,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class DependencyMaterialUpdater implements MaterialUpdater {
     private DependencyMaterialSourceDao dependencyMaterialSourceDao;
     private MaterialRepository materialRepository;
+    private final ConcurrentMap<String, AtomicLong> catchUpsRequested = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> catchUpsCompleted = new ConcurrentHashMap<>();
 
     @Autowired
     public DependencyMaterialUpdater(DependencyMaterialSourceDao dependencyMaterialSourceDao, MaterialRepository materialRepository) {
@@ -50,6 +58,55 @@ public class DependencyMaterialUpdater implements MaterialUpdater {
         insertRevisionsForAllParentStageInstances((DependencyMaterial) material);
     }
 
+    void requireCatchUp(DependencyMaterial dependencyMaterial) {
+        catchUpsRequested(dependencyMaterial).incrementAndGet();
+    }
+
+    long catchUpRequestFor(DependencyMaterial dependencyMaterial) {
+        return catchUpsRequested(dependencyMaterial).get();
+    }
+
+    void caughtUp(DependencyMaterial dependencyMaterial, long catchUpRequest) {
+        catchUpsCompleted.merge(dependencyMaterial.getFingerprint(), catchUpRequest, Math::max);
+    }
+
+    boolean isCaughtUp(DependencyMaterial dependencyMaterial) {
+        Long caughtUpTo = catchUpsCompleted.get(dependencyMaterial.getFingerprint());
+        return caughtUpTo != null && caughtUpTo == catchUpRequestFor(dependencyMaterial);
+    }
+
+    private AtomicLong catchUpsRequested(DependencyMaterial dependencyMaterial) {
+        return catchUpsRequested.computeIfAbsent(dependencyMaterial.getFingerprint(), fingerprint -> new AtomicLong());
+    }
+
+    /**
+     * Appends a just-passed stage as the newest revision of its dependency material, built from the stage itself rather
+     * than read back from the stages table. Returns false when the stage does not follow the latest recorded revision,
+     * leaving it to a regular update to work out what is missing.
+     */
+    boolean insertRevisionForPassedStage(DependencyMaterial dependencyMaterial, Stage stage) {
+        MaterialInstance materialInstance = materialRepository.findMaterialInstance(dependencyMaterial);
+        if (materialInstance == null) {
+            return false;
+        }
+        Modifications list = materialRepository.findLatestModification(dependencyMaterial).getModifications(dependencyMaterial);
+        StageIdentifier stageIdentifier = stage.getIdentifier();
+        if (list.isEmpty() || !isAfter(stageIdentifier, new StageIdentifier(list.last().getRevision()))) {
+            return false;
+        }
+        Modification modification = new Modification(stage.completedDate(), stageIdentifier.stageLocator(), stageIdentifier.getPipelineLabel(), stage.getPipelineId());
+        materialRepository.saveModifications(materialInstance, Collections.singletonList(modification));
+        return true;
+    }
+
+    private boolean isAfter(StageIdentifier stage, StageIdentifier latest) {
+        int byPipelineCounter = stage.getPipelineCounter().compareTo(latest.getPipelineCounter());
+        if (byPipelineCounter != 0) {
+            return byPipelineCounter > 0;
+        }
+        return Integer.parseInt(stage.getStageCounter()) > Integer.parseInt(latest.getStageCounter());
+    }
+
     private void insertDependencyMaterialRevisions(final DependencyMaterial dependencyMaterial, Modifications list) {
         if (list.isEmpty()) {
             insertRevisionsForAllParentStageInstances(dependencyMaterial);
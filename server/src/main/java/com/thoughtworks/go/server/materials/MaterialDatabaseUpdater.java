@@ -22,6 +22,7 @@ import com.thoughtworks.go.config.materials.PluggableSCMMaterial;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.Modifications;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
@@ -75,6 +76,7 @@ public class MaterialDatabaseUpdater {
     public void updateMaterial(final Material material) throws Exception {
         String materialMutex = mutexForMaterial(material);
         HealthStateScope scope = HealthStateScope.forMaterial(material);
+        long catchUpRequest = material instanceof DependencyMaterial ? dependencyMaterialUpdater.catchUpRequestFor((DependencyMaterial) material) : 0;
         try {
             MaterialInstance materialInstance = materialRepository.findMaterialInstance(material);
             if (materialInstance == null) {
@@ -104,6 +106,9 @@ public class MaterialDatabaseUpdater {
                     });
                 }
             }
+            if (material instanceof DependencyMaterial) {
+                dependencyMaterialUpdater.caughtUp((DependencyMaterial) material, catchUpRequest);
+            }
             healthService.removeByScope(scope);
         } catch (Exception e) {
             String message = "Modification check failed for material: " + material.getLongDescription();
@@ -114,6 +119,29 @@ public class MaterialDatabaseUpdater {
         }
     }
 
+    /**
+     * Marks a dependency material as possibly missing passed stages. Until a regular update started after this call
+     * completes, passed stages are not appended to it directly.
+     */
+    public void requireCatchUpFor(DependencyMaterial material) {
+        dependencyMaterialUpdater.requireCatchUp(material);
+    }
+
+    /**
+     * Records a passed stage against its dependency material straight from the stage-completion event, sparing the
+     * trip through the update queue and the stages table. Returns false if the material has not been caught up with
+     * the stages table, or the stage is not newer than its latest revision; callers should then fall back to
+     * {@link #updateMaterial(Material)}.
+     */
+    public boolean insertRevisionForPassedStage(final DependencyMaterial material, final Stage stage) {
+        synchronized (mutexForMaterial(material)) {
+            if (!dependencyMaterialUpdater.isCaughtUp(material)) {
+                return false;
+            }
+            return transactionTemplate.execute(status -> dependencyMaterialUpdater.insertRevisionForPassedStage(material, stage));
+        }
+    }
+
     private void initializeMaterialWithLatestRevision(Material material) {
         Materials materials = new Materials();
         materialExpansionService.expandForHistory(material, materials);
@@ -50,9 +50,6 @@ import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-
 import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 import static com.thoughtworks.go.serverhealth.ServerHealthState.warning;
 
@@ -73,6 +70,9 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     private ServerHealthService serverHealthService;
 
     private ConcurrentMap<Material, Date> inProgress = new ConcurrentHashMap<>();
+    private ConcurrentMap<Material, Long> postCommitUpdatesQueuedAt = new ConcurrentHashMap<>();
+    private final Object postCommitGitMaterialIndexLock = new Object();
+    private volatile Map<String, Set<Material>> postCommitGitMaterialIndex;
 
     private final PostCommitHookMaterialTypeResolver postCommitHookMaterialType;
     private final MDUPerformanceLogger mduPerformanceLogger;
@@ -146,7 +146,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             }
 
             for (Material material : prunedMaterialList) {
-                updateMaterial(material);
+                updateMaterialFromPostCommitHook(material);
             }
 
             result.accepted("The material is now scheduled for an update. Please check relevant pipeline(s) for status.");
@@ -156,17 +156,72 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     }
 
     public boolean updateGitMaterial(String branchName, Collection<String> possibleUrls) {
-        final CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
-        Set<Material> allUniquePostCommitSchedulableMaterials = materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials());
+        Map<String, Set<Material>> index = postCommitGitMaterialIndex();
 
-        Predicate<Material> predicate = new MaterialPredicate(branchName, possibleUrls);
-        Set<Material> allGitMaterials = allUniquePostCommitSchedulableMaterials.stream().filter(predicate).collect(Collectors.toSet());
+        Set<Material> allGitMaterials = new HashSet<>();
+        for (String possibleUrl : possibleUrls) {
+            allGitMaterials.addAll(index.getOrDefault(gitMaterialIndexKey(branchName, possibleUrl), Collections.emptySet()));
+        }
 
-        allGitMaterials.forEach(MaterialUpdateService.this::updateMaterial);
+        allGitMaterials.forEach(MaterialUpdateService.this::updateMaterialFromPostCommitHook);
 
         return !allGitMaterials.isEmpty();
     }
 
+    private Map<String, Set<Material>> postCommitGitMaterialIndex() {
+        Map<String, Set<Material>> index = postCommitGitMaterialIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (postCommitGitMaterialIndexLock) {
+            if (postCommitGitMaterialIndex == null) {
+                Map<String, Set<Material>> newIndex = new HashMap<>();
+                CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
+                for (Material material : materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials())) {
+                    if (material instanceof GitMaterial) {
+                        GitMaterial gitMaterial = (GitMaterial) material;
+                        String key = gitMaterialIndexKey(gitMaterial.getBranch(), gitMaterial.getUrlArgument().withoutCredentials());
+                        newIndex.computeIfAbsent(key, k -> new HashSet<>()).add(material);
+                    }
+                }
+                postCommitGitMaterialIndex = newIndex;
+            }
+            return postCommitGitMaterialIndex;
+        }
+    }
+
+    private void invalidatePostCommitGitMaterialIndex() {
+        synchronized (postCommitGitMaterialIndexLock) {
+            postCommitGitMaterialIndex = null;
+        }
+    }
+
+    private static String gitMaterialIndexKey(String branch, String url) {
+        return branch + "\n" + url;
+    }
+
+    /**
+     * Post-commit notifications for a material that already has an update waiting in the queue are dropped, since
+     * that update has not fetched yet and will see the new commits anyway.
+     */
+    private void updateMaterialFromPostCommitHook(Material material) {
+        long now = System.currentTimeMillis();
+        Long queuedAt = postCommitUpdatesQueuedAt.get(material);
+        if (queuedAt != null && inProgress.containsKey(material) && !hasUpdateStartedSince(material, queuedAt)
+                && now - queuedAt < getPostCommitCoalesceWindowInMillis()) {
+            LOGGER.debug("[Material Update] Skipping post-commit update of material {} which has an update waiting in the queue since {}", material, new Date(queuedAt));
+            return;
+        }
+        if (updateMaterial(material)) {
+            postCommitUpdatesQueuedAt.put(material, now);
+        }
+    }
+
+    private boolean hasUpdateStartedSince(Material material, long queuedAt) {
+        Long lastStartedAt = maintenanceModeService.lastMDUStartTimeFor(material);
+        return lastStartedAt != null && lastStartedAt >= queuedAt;
+    }
+
     public boolean updateMaterial(Material material) {
         Date inProgressSince = inProgress.putIfAbsent(material, new Date());
         if (inProgressSince == null || !material.isAutoUpdate()) {
@@ -208,6 +263,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             LOGGER.debug("[Material Update] Material update completed for material {}", message.getMaterial());
 
             Date addedOn = inProgress.remove(message.getMaterial());
+            postCommitUpdatesQueuedAt.remove(message.getMaterial());
             serverHealthService.removeByScope(HealthStateScope.forMaterialUpdate(message.getMaterial()));
             if (addedOn == null) {
                 LOGGER.warn("[Material Update] Material {} was not removed from those inProgress. This might result in it's pipelines not getting scheduled. in-progress: {}", message.getMaterial(), inProgress);
@@ -222,6 +278,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     }
 
     public void onConfigChange(CruiseConfig newCruiseConfig) {
+        invalidatePostCommitGitMaterialIndex();
         Set<HealthStateScope> materialScopes = toHealthStateScopes(newCruiseConfig.getAllUniqueMaterials());
         for (ServerHealthState state : serverHealthService.logs()) {
             HealthStateScope currentScope = state.getType().getScope();
@@ -253,6 +310,10 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         return watchList.hasConfigRepoWithFingerprint(material.getFingerprint());
     }
 
+    private long getPostCommitCoalesceWindowInMillis() {
+        return systemEnvironment.get(SystemEnvironment.POST_COMMIT_COALESCE_WINDOW_IN_SECONDS) * 1000L;
+    }
+
     private Long getMaterialUpdateInActiveTimeoutInMillis() {
         return systemEnvironment.get(SystemEnvironment.MATERIAL_UPDATE_INACTIVE_TIMEOUT) * 60 * 1000L;
     }
@@ -280,21 +341,4 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     public void registerMaterialUpdateCompleteListener(MaterialUpdateCompleteListener materialUpdateCompleteListener) {
         this.materialUpdateCompleteListeners.add(materialUpdateCompleteListener);
     }
-
-    private static class MaterialPredicate implements Predicate<Material> {
-        private final String branchName;
-        private final Set<String> possibleUrls;
-
-        public MaterialPredicate(String branchName, Collection<String> possibleUrls) {
-            this.branchName = branchName;
-            this.possibleUrls = new HashSet<>(possibleUrls);
-        }
-
-        @Override
-        public boolean test(Material material) {
-            return material instanceof GitMaterial &&
-                    ((GitMaterial) material).getBranch().equals(branchName) &&
-                    possibleUrls.contains(((GitMaterial) material).getUrlArgument().withoutCredentials());
-        }
-    }
 }
@@ -16,6 +16,7 @@
 
 package com.thoughtworks.go.server.materials;
 
+import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
@@ -23,9 +24,13 @@ import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.scheduling.TriggerMonitor;
 import com.thoughtworks.go.server.service.GoConfigService;
+import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.slf4j.Logger;
@@ -34,14 +39,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 /**
- * Provides a list of unique SCMMaterials to be updated which will be consumed by MaterialUpdateService
+ * Provides a list of unique SCMMaterials to be updated which will be consumed by MaterialUpdateService.
+ * Materials whose updates keep finding nothing new are polled less often (up to the configured backoff multiplier
+ * of the update interval). Materials of pipelines waiting on a manual trigger are never backed off and are handed
+ * out first, followed by the materials that changed most recently and, among those, the ones that are cheapest to poll.
  */
 
 @Component
@@ -49,19 +61,29 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     private static final Logger LOGGER = LoggerFactory.getLogger(SCMMaterialSource.class);
 
     private final GoConfigService goConfigService;
-    private ConcurrentMap<Material, Long> materialLastUpdateTimeMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<Material, PollState> materialPollStates = new ConcurrentHashMap<>();
     private final MaterialConfigConverter materialConfigConverter;
     private final MaterialUpdateService materialUpdateService;
+    private final MaterialRepository materialRepository;
+    private final TriggerMonitor triggerMonitor;
+    private final MaintenanceModeService maintenanceModeService;
     private final long materialUpdateInterval;
+    private final int maxBackoffMultiplier;
     private Set<Material> schedulableMaterials;
 
     @Autowired
     public SCMMaterialSource(GoConfigService goConfigService, SystemEnvironment systemEnvironment,
-                             MaterialConfigConverter materialConfigConverter, MaterialUpdateService materialUpdateService) {
+                             MaterialConfigConverter materialConfigConverter, MaterialUpdateService materialUpdateService,
+                             MaterialRepository materialRepository, TriggerMonitor triggerMonitor,
+                             MaintenanceModeService maintenanceModeService) {
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateService = materialUpdateService;
+        this.materialRepository = materialRepository;
+        this.triggerMonitor = triggerMonitor;
+        this.maintenanceModeService = maintenanceModeService;
         this.materialUpdateInterval = systemEnvironment.getMaterialUpdateIdleInterval();
+        this.maxBackoffMultiplier = Math.max(1, systemEnvironment.get(SystemEnvironment.MATERIAL_UPDATE_MAX_BACKOFF_MULTIPLIER));
     }
 
     public void initialize() {
@@ -104,30 +126,90 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     }
 
     private Set<Material> materialsWithUpdateIntervalElapsed() {
-        Set<Material> materialsForUpdate = new HashSet<>();
+        Set<String> waitingOnTrigger = fingerprintsOfMaterialsWithWaitingTriggers();
+        List<Material> materialsForUpdate = new ArrayList<>();
         for (Material material : schedulableMaterials) {
-            if (hasUpdateIntervalElapsedForScmMaterial(material)) {
+            if (hasUpdateIntervalElapsedForScmMaterial(material, waitingOnTrigger.contains(material.getFingerprint()))) {
                 materialsForUpdate.add(material);
             }
         }
+        materialsForUpdate.sort(Comparator.comparing((Material material) -> !waitingOnTrigger.contains(material.getFingerprint()))
+                .thenComparingInt(material -> pollStateOf(material).idleUpdates)
+                .thenComparingLong(material -> pollStateOf(material).pollDuration));
 
-        return materialsForUpdate;
+        return new LinkedHashSet<>(materialsForUpdate);
     }
 
-    boolean hasUpdateIntervalElapsedForScmMaterial(Material material) {
-        Long lastMaterialUpdateTime = materialLastUpdateTimeMap.get(material);
-        if (lastMaterialUpdateTime != null) {
-            boolean shouldUpdateMaterial = (DateTimeUtils.currentTimeMillis() - lastMaterialUpdateTime) >= materialUpdateInterval;
+    boolean hasUpdateIntervalElapsedForScmMaterial(Material material, boolean waitingOnTrigger) {
+        PollState pollState = materialPollStates.get(material);
+        if (pollState != null) {
+            long updateInterval = waitingOnTrigger ? materialUpdateInterval : updateIntervalFor(pollState);
+            boolean shouldUpdateMaterial = (DateTimeUtils.currentTimeMillis() - pollState.lastUpdatedAt) >= updateInterval;
             if (LOGGER.isDebugEnabled() && !shouldUpdateMaterial) {
-                LOGGER.debug("[Material Update] Skipping update of material {} which has been last updated at {}", material, new Date(lastMaterialUpdateTime));
+                LOGGER.debug("[Material Update] Skipping update of material {} which has been last updated at {} and found no changes in its last {} update(s)", material, new Date(pollState.lastUpdatedAt), pollState.idleUpdates);
             }
             return shouldUpdateMaterial;
         }
         return true;
     }
 
+    private Set<String> fingerprintsOfMaterialsWithWaitingTriggers() {
+        Set<String> fingerprints = new HashSet<>();
+        for (CaseInsensitiveString pipelineName : triggerMonitor.triggeredPipelines()) {
+            if (goConfigService.hasPipelineNamed(pipelineName)) {
+                for (MaterialConfig materialConfig : goConfigService.pipelineConfigNamed(pipelineName).materialConfigs()) {
+                    fingerprints.add(materialConfig.getFingerprint());
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    private long updateIntervalFor(PollState pollState) {
+        long multiplier = Math.min(1L << Math.min(pollState.idleUpdates, 30), maxBackoffMultiplier);
+        return materialUpdateInterval * multiplier;
+    }
+
+    private PollState pollStateOf(Material material) {
+        return materialPollStates.getOrDefault(material, PollState.NEVER_POLLED);
+    }
+
     private void updateLastUpdateTimeForScmMaterial(Material material) {
-        materialLastUpdateTimeMap.put(material, DateTimeUtils.currentTimeMillis());
+        Long latestModificationId = latestModificationIdOf(material);
+        long now = DateTimeUtils.currentTimeMillis();
+        Long startedAt = maintenanceModeService.lastMDUStartTimeFor(material);
+        materialPollStates.compute(material, (key, previous) -> {
+            boolean foundNothingNew = previous != null && latestModificationId != null && latestModificationId.equals(previous.latestModificationId);
+            int idleUpdates = foundNothingNew ? previous.idleUpdates + 1 : 0;
+            long pollDuration = startedAt != null ? Math.max(0, now - startedAt) : (previous == null ? 0 : previous.pollDuration);
+            return new PollState(now, latestModificationId, idleUpdates, pollDuration);
+        });
+    }
+
+    private Long latestModificationIdOf(Material material) {
+        try {
+            Modification latest = materialRepository.findCachedLatestModification(material);
+            return latest == null ? null : latest.getId();
+        } catch (Exception e) {
+            LOGGER.warn("[Material Update] Unable to look up latest revision of material {}", material, e);
+            return null;
+        }
+    }
+
+    static class PollState {
+        private static final PollState NEVER_POLLED = new PollState(0, null, 0, 0);
+
+        private final long lastUpdatedAt;
+        private final Long latestModificationId;
+        private final int idleUpdates;
+        private final long pollDuration;
+
+        PollState(long lastUpdatedAt, Long latestModificationId, int idleUpdates, long pollDuration) {
+            this.lastUpdatedAt = lastUpdatedAt;
+            this.latestModificationId = latestModificationId;
+            this.idleUpdates = idleUpdates;
+            this.pollDuration = pollDuration;
+        }
     }
 
     private void updateSchedulableMaterials(boolean forceLoad) {
@@ -25,6 +25,7 @@ import com.thoughtworks.go.database.QueryExtensions;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.materials.*;
 import com.thoughtworks.go.domain.materials.dependency.DependencyMaterialInstance;
+import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModel;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
@@ -48,6 +49,7 @@ import org.springframework.transaction.support.TransactionSynchronizationAdapter
 
 import java.io.File;
 import java.math.BigInteger;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -60,6 +62,7 @@ import static org.hibernate.criterion.Restrictions.isNull;
  */
 public class MaterialRepository extends HibernateDaoSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialRepository.class.getName());
+    private static final int MATCHED_REVISIONS_LIMIT = 5;
 
     private final GoCache goCache;
     private final TransactionSynchronizationManager transactionSynchronizationManager;
@@ -220,6 +223,45 @@ public class MaterialRepository extends HibernateDaoSupport {
         return materialRevisions;
     }
 
+    /**
+     * Loads material revisions of many pipeline instances with a fixed number of set based queries, instead of a
+     * couple of queries per instance. Only instances which are not already cached hit the database.
+     */
+    public Map<Long, MaterialRevisions> findMaterialRevisionsForPipelines(Collection<Long> pipelineIds) {
+        Set<Long> uncachedIds = new HashSet<>();
+        for (Long pipelineId : pipelineIds) {
+            if (goCache.get(pipelinePmrsKey(pipelineId)) == null) {
+                uncachedIds.add(pipelineId);
+            }
+        }
+        if (!uncachedIds.isEmpty()) {
+            cacheMaterialRevisionsForPipelines(uncachedIds);
+        }
+
+        Map<Long, MaterialRevisions> revisionsByPipelineId = new HashMap<>();
+        for (Long pipelineId : pipelineIds) {
+            revisionsByPipelineId.put(pipelineId, findMaterialRevisionsForPipeline(pipelineId));
+        }
+        return revisionsByPipelineId;
+    }
+
+    /**
+     * Sets the material revisions on the build causes of the given pipeline instances, loading them together.
+     */
+    public void populateMaterialRevisionsOnBuildCauses(List<PipelineInstanceModel> pipelines) {
+        if (pipelines.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (PipelineInstanceModel pipeline : pipelines) {
+            ids.add(pipeline.getId());
+        }
+        Map<Long, MaterialRevisions> revisionsByPipelineId = findMaterialRevisionsForPipelines(ids);
+        for (PipelineInstanceModel pipeline : pipelines) {
+            pipeline.setMaterialRevisionsOnBuildCause(revisionsByPipelineId.get(pipeline.getId()));
+        }
+    }
+
     public void cacheMaterialRevisionsForPipelines(Set<Long> pipelineIds) {
         List<Long> ids = new ArrayList<>(pipelineIds);
 
@@ -269,17 +311,17 @@ public class MaterialRepository extends HibernateDaoSupport {
         List<PipelineMaterialRevision> pmrs = (List<PipelineMaterialRevision>) getHibernateTemplate().findByCriteria(buildPMRDetachedQuery(pipelineIds));
         sortPersistentObjectsById(pmrs, true);
         final Set<PipelineMaterialRevision> uniquePmrs = new HashSet<>();
+        final Map<Long, List<PipelineMaterialRevision>> pmrsByPipelineId = new HashMap<>();
         for (PipelineMaterialRevision pmr : pmrs) {
-            String cacheKey = pipelinePmrsKey(pmr.getPipelineId());
-            List<PipelineMaterialRevision> pmrsForId = (List<PipelineMaterialRevision>) goCache.get(cacheKey);
-            if (pmrsForId == null) {
-                pmrsForId = new ArrayList<>();
-                goCache.put(cacheKey, pmrsForId);
-            }
-            pmrsForId.add(pmr);
+            pmrsByPipelineId.computeIfAbsent(pmr.getPipelineId(), id -> new ArrayList<>()).add(pmr);
             putMaterialInstanceIntoCache(pmr.getToModification().getMaterialInstance());
             uniquePmrs.add(pmr);
         }
+        // every PMR of a pipeline is part of the same batch, so the lists are complete and replace whatever was cached;
+        // pipelines without any are cached too, like findPipelineMaterialRevisions does, so they are not queried again
+        for (Long pipelineId : pipelineIds) {
+            goCache.put(pipelinePmrsKey(pipelineId), pmrsByPipelineId.getOrDefault(pipelineId, new ArrayList<>()));
+        }
         loadModificationsIntoCache(uniquePmrs);
     }
 
@@ -314,18 +356,23 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     private void loadModificationsForPMR(List<PipelineMaterialRevision> pmrs) {
         List<Criterion> criterions = new ArrayList<>();
+        List<PipelineMaterialRevision> uncachedPmrs = new ArrayList<>();
         for (PipelineMaterialRevision pmr : pmrs) {
             if (goCache.get(pmrModificationsKey(pmr)) != null) {
                 continue;
             }
+            uncachedPmrs.add(pmr);
             final Criterion modificationClause = Restrictions.between("id", pmr.getFromModification().getId(), pmr.getToModification().getId());
             final SimpleExpression idClause = Restrictions.eq("materialInstance", pmr.getMaterialInstance());
             criterions.add(Restrictions.and(idClause, modificationClause));
         }
+        if (criterions.isEmpty()) {
+            return;
+        }
         List<Modification> modifications = (List<Modification>) getHibernateTemplate().findByCriteria(buildModificationDetachedQuery(criterions));
         sortPersistentObjectsById(modifications, false);
         for (Modification modification : modifications) {
-            List<String> cacheKeys = pmrModificationsKey(modification, pmrs);
+            List<String> cacheKeys = pmrModificationsKey(modification, uncachedPmrs);
             for (String cacheKey : cacheKeys) {
                 List<Modification> modificationList = (List<Modification>) goCache.get(cacheKey);
                 if (modificationList == null) {
@@ -348,7 +395,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         return detachedCriteria;
     }
 
-    private String pipelinePmrsKey(long pipelineId) {
+    String pipelinePmrsKey(long pipelineId) {
         return (MaterialRepository.class.getName() + "_pipelinePMRs_" + pipelineId).intern();
     }
 
@@ -439,7 +486,11 @@ public class MaterialRepository extends HibernateDaoSupport {
     public void saveModification(MaterialInstance materialInstance, Modification modification) {
         modification.setMaterialInstance(materialInstance);
         try {
+            boolean isNew = !modification.hasId();
             getHibernateTemplate().saveOrUpdate(modification);
+            if (isNew) {
+                indexForSearch(materialInstance, Collections.singletonList(modification));
+            }
             removeLatestCachedModification(materialInstance, modification);
             removeCachedModificationCountFor(materialInstance);
             removeCachedModificationsFor(materialInstance);
@@ -774,6 +825,15 @@ public class MaterialRepository extends HibernateDaoSupport {
         return allModifications;
     }
 
+    /**
+     * Latest modification of the material itself, without expanding it. It comes from the latest modifications
+     * cache, so the database is only queried again after an update has saved new modifications.
+     */
+    public Modification findCachedLatestModification(Material material) {
+        MaterialInstance materialInstance = findMaterialInstance(material);
+        return materialInstance == null ? null : findLatestModification(materialInstance);
+    }
+
     Modification findLatestModification(final MaterialInstance expandedInstance) {
         Modifications modifications = cachedModifications(expandedInstance);
         if (modifications != null && !modifications.isEmpty()) {
@@ -804,9 +864,14 @@ public class MaterialRepository extends HibernateDaoSupport {
 
         try {
             checkAndRemoveDuplicates(materialInstance, newChanges, list);
+            List<Modification> unsaved = new ArrayList<>();
             for (Modification modification : list) {
+                if (!modification.hasId()) {
+                    unsaved.add(modification);
+                }
                 getHibernateTemplate().saveOrUpdate(modification);
             }
+            indexForSearch(materialInstance, unsaved);
         } catch (Exception e) {
             String message = "Cannot save modification: ";
             LOGGER.error(message, e);
@@ -933,29 +998,171 @@ public class MaterialRepository extends HibernateDaoSupport {
         return cacheKeyGenerator.generate("hasPipelineEverRunWithModification", pipelineName, materialId, modificationId);
     }
 
+    /**
+     * Every search term has to be a prefix of a token of the revision, user name, comment or pipeline label. Matches
+     * come from the modificationTokens index; modifications older than the point the index has been backfilled to
+     * are still searched with a scan until the backfill gets to them.
+     */
     @SuppressWarnings("unchecked")
     public List<MatchedRevision> findRevisionsMatching(final MaterialConfig materialConfig, final String searchString) {
         return (List<MatchedRevision>) getHibernateTemplate().execute((HibernateCallback) session -> {
-            String sql = "SELECT m.*"
-                    + " FROM modifications AS m"
-                    + " INNER JOIN materials mat ON mat.id = m.materialId"
-                    + " WHERE mat.fingerprint = :finger_print"
-                    + " AND (m.revision || ' ' || COALESCE(m.username, '') || ' ' || COALESCE(m.comment, '') LIKE :search_string OR m.pipelineLabel LIKE :search_string)"
-                    + " ORDER BY m.id DESC"
-                    + " LIMIT 5";
-            SQLQuery query = session.createSQLQuery(sql);
-            query.addEntity("m", Modification.class);
             Material material = materialConfigConverter.toMaterial(materialConfig);
-            query.setString("finger_print", material.getFingerprint());
-            query.setString("search_string", "%" + searchString + "%");
+            List<String> terms = ModificationSearchTokenizer.searchTermsOf(searchString);
+            MaterialInstance materialInstance = terms.isEmpty() ? null : findMaterialInstance(material);
+
+            List<Modification> modifications;
+            if (materialInstance == null) {
+                modifications = findModificationsMatchingByScan(session, material, terms, Long.MAX_VALUE, MATCHED_REVISIONS_LIMIT);
+            } else {
+                modifications = findModificationsMatchingTokens(session, materialInstance.getId(), terms);
+                Long notIndexedBefore = modificationsNotIndexedBefore(session);
+                if (modifications.size() < MATCHED_REVISIONS_LIMIT && notIndexedBefore != null && notIndexedBefore > 1) {
+                    modifications.addAll(findModificationsMatchingByScan(session, material, terms, notIndexedBefore, MATCHED_REVISIONS_LIMIT - modifications.size()));
+                }
+            }
+
             final List<MatchedRevision> list = new ArrayList<>();
-            for (Modification mod : (List<Modification>) query.list()) {
+            for (Modification mod : modifications) {
                 list.add(material.createMatchedRevision(mod, searchString));
             }
             return list;
         });
     }
 
+    private List<Modification> findModificationsMatchingTokens(Session session, long materialId, List<String> terms) {
+        StringBuilder sql = new StringBuilder("SELECT m.* FROM modifications AS m WHERE m.materialId = :material_id");
+        for (int i = 0; i < terms.size(); i++) {
+            sql.append(" AND m.id IN (SELECT t.modificationId FROM modificationTokens AS t WHERE t.materialId = :material_id AND t.token LIKE :term_").append(i).append(")");
+        }
+        sql.append(" ORDER BY m.id DESC");
+        SQLQuery query = session.createSQLQuery(sql.toString());
+        query.addEntity("m", Modification.class);
+        query.setLong("material_id", materialId);
+        for (int i = 0; i < terms.size(); i++) {
+            query.setString("term_" + i, terms.get(i) + "%");
+        }
+        query.setMaxResults(MATCHED_REVISIONS_LIMIT);
+        return new ArrayList<>((List<Modification>) query.list());
+    }
+
+    /**
+     * Applies the same rule as the index to modifications it does not cover yet. The database narrows them down to
+     * those containing every term anywhere, case-insensitively; the tokens are then checked here.
+     */
+    private List<Modification> findModificationsMatchingByScan(Session session, Material material, List<String> terms, long beforeId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT m.*"
+                + " FROM modifications AS m"
+                + " INNER JOIN materials mat ON mat.id = m.materialId"
+                + " WHERE mat.fingerprint = :finger_print"
+                + " AND m.id < :before_id");
+        for (int i = 0; i < terms.size(); i++) {
+            sql.append(" AND LOWER(m.revision || ' ' || COALESCE(m.username, '') || ' ' || COALESCE(m.comment, '') || ' ' || COALESCE(m.pipelineLabel, '')) LIKE :term_").append(i);
+        }
+        sql.append(" ORDER BY m.id DESC");
+
+        List<Modification> matches = new ArrayList<>();
+        long before = beforeId;
+        while (matches.size() < limit) {
+            SQLQuery query = session.createSQLQuery(sql.toString());
+            query.addEntity("m", Modification.class);
+            query.setString("finger_print", material.getFingerprint());
+            query.setLong("before_id", before);
+            for (int i = 0; i < terms.size(); i++) {
+                query.setString("term_" + i, "%" + terms.get(i) + "%");
+            }
+            query.setMaxResults(limit);
+            List<Modification> candidates = (List<Modification>) query.list();
+            for (Modification candidate : candidates) {
+                if (matches.size() < limit && ModificationSearchTokenizer.matchesAll(ModificationSearchTokenizer.tokensOf(candidate), terms)) {
+                    matches.add(candidate);
+                }
+            }
+            if (candidates.size() < limit) {
+                break;
+            }
+            before = candidates.get(candidates.size() - 1).getId();
+        }
+        return matches;
+    }
+
+    private Long modificationsNotIndexedBefore(Session session) {
+        Number backfilledDownTo = (Number) session.createSQLQuery("SELECT backfilledDownTo FROM modificationSearchIndex").setMaxResults(1).uniqueResult();
+        return backfilledDownTo == null ? null : backfilledDownTo.longValue();
+    }
+
+    /**
+     * Adds the next batch of modifications saved before the search index existed to the index, newest first.
+     * Returns the number of modifications indexed; 0 once the backfill is complete.
+     */
+    @SuppressWarnings("unchecked")
+    public int backfillSearchIndex(final int batchSize) {
+        return (Integer) getHibernateTemplate().execute((HibernateCallback) session -> {
+            Long notIndexedBefore = modificationsNotIndexedBefore(session);
+            if (notIndexedBefore == null || notIndexedBefore <= 1) {
+                return 0;
+            }
+            List<Object[]> rows = session.createSQLQuery("SELECT id, materialId, revision, username, comment, pipelineLabel FROM modifications WHERE id < :before_id ORDER BY id DESC")
+                    .setLong("before_id", notIndexedBefore)
+                    .setMaxResults(batchSize)
+                    .list();
+            long lowestIndexed = 1;
+            List<SearchTokens> tokens = new ArrayList<>();
+            for (Object[] row : rows) {
+                long modificationId = ((Number) row[0]).longValue();
+                tokens.add(new SearchTokens(((Number) row[1]).longValue(), modificationId,
+                        ModificationSearchTokenizer.tokensOf((String) row[2], (String) row[3], (String) row[4], (String) row[5])));
+                lowestIndexed = modificationId;
+            }
+            insertSearchTokens(session, tokens);
+            session.createSQLQuery("UPDATE modificationSearchIndex SET backfilledDownTo = :backfilled_down_to")
+                    .setLong("backfilled_down_to", rows.size() < batchSize ? 1 : lowestIndexed)
+                    .executeUpdate();
+            return rows.size();
+        });
+    }
+
+    private void indexForSearch(final MaterialInstance materialInstance, final List<Modification> modifications) {
+        if (modifications.isEmpty()) {
+            return;
+        }
+        final List<SearchTokens> tokens = new ArrayList<>();
+        for (Modification modification : modifications) {
+            tokens.add(new SearchTokens(materialInstance.getId(), modification.getId(), ModificationSearchTokenizer.tokensOf(modification)));
+        }
+        getHibernateTemplate().execute((HibernateCallback) session -> {
+            insertSearchTokens(session, tokens);
+            return null;
+        });
+    }
+
+    private void insertSearchTokens(Session session, final List<SearchTokens> tokens) {
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO modificationTokens (materialId, token, modificationId) VALUES (?, ?, ?)")) {
+                for (SearchTokens searchTokens : tokens) {
+                    for (String token : searchTokens.tokens) {
+                        statement.setLong(1, searchTokens.materialId);
+                        statement.setString(2, token);
+                        statement.setLong(3, searchTokens.modificationId);
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private static class SearchTokens {
+        private final long materialId;
+        private final long modificationId;
+        private final Set<String> tokens;
+
+        private SearchTokens(long materialId, long modificationId, Set<String> tokens) {
+            this.materialId = materialId;
+            this.modificationId = modificationId;
+            this.tokens = tokens;
+        }
+    }
+
     public List<Modification> modificationFor(final StageIdentifier stageIdentifier) {
         if (stageIdentifier == null) {
             return null;
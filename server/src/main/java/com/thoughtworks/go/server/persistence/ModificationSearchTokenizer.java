@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.domain.materials.Modification;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @understands splitting modifications and search strings into the tokens of the revision search index
+ */
+class ModificationSearchTokenizer {
+    static final int MAX_TOKEN_LENGTH = 255;
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private ModificationSearchTokenizer() {
+    }
+
+    static Set<String> tokensOf(Modification modification) {
+        return tokensOf(modification.getRevision(), modification.getUserName(), modification.getComment(), modification.getPipelineLabel());
+    }
+
+    static Set<String> tokensOf(String revision, String userName, String comment, String pipelineLabel) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addTokens(tokens, revision);
+        addTokens(tokens, userName);
+        addTokens(tokens, comment);
+        addTokens(tokens, pipelineLabel);
+        return tokens;
+    }
+
+    static List<String> searchTermsOf(String searchString) {
+        Set<String> terms = new LinkedHashSet<>();
+        addTokens(terms, searchString);
+        return new ArrayList<>(terms);
+    }
+
+    static boolean matchesAll(Set<String> tokens, List<String> terms) {
+        for (String term : terms) {
+            if (tokens.stream().noneMatch(token -> token.startsWith(term))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addTokens(Set<String> tokens, String text) {
+        if (StringUtils.isBlank(text)) {
+            return;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            tokens.add(StringUtils.left(matcher.group(), MAX_TOKEN_LENGTH));
+        }
+    }
+}
@@ -69,7 +69,7 @@ public class PipelineRepository extends HibernateDaoSupport {
     }
 
     @SuppressWarnings({"unchecked"})
-    public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, final List<PipelineTimelineEntry> tempEntriesForRollback) {
+    public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, final List<PipelineTimelineEntry> newEntries) {
         getHibernateTemplate().execute(new HibernateCallback() {
             private static final int PIPELINE_NAME = 0;
             private static final int ID = 1;
@@ -86,7 +86,7 @@ public class PipelineRepository extends HibernateDaoSupport {
                 LOGGER.info("Start updating pipeline timeline");
                 List<Object[]> matches = retrieveTimeline(session, pipelineTimeline);
                 List<PipelineTimelineEntry> newPipelines = populateFrom(matches);
-                addEntriesToPipelineTimeline(newPipelines, pipelineTimeline, tempEntriesForRollback);
+                addEntriesToPipelineTimeline(newPipelines, pipelineTimeline, newEntries);
 
                 updateNaturalOrdering(session, newPipelines);
                 LOGGER.info("Pipeline timeline updated");
@@ -221,10 +221,10 @@ public class PipelineRepository extends HibernateDaoSupport {
         });
     }
 
-    private void addEntriesToPipelineTimeline(List<PipelineTimelineEntry> newEntries, PipelineTimeline pipelineTimeline, List<PipelineTimelineEntry> tempEntriesForRollback) {
-        for (PipelineTimelineEntry newEntry : newEntries) {
-            tempEntriesForRollback.add(newEntry);
-            pipelineTimeline.add(newEntry);
+    private void addEntriesToPipelineTimeline(List<PipelineTimelineEntry> newPipelines, PipelineTimeline pipelineTimeline, List<PipelineTimelineEntry> newEntries) {
+        for (PipelineTimelineEntry newEntry : newPipelines) {
+            newEntries.add(newEntry);
+            pipelineTimeline.stage(newEntry);
         }
     }
 
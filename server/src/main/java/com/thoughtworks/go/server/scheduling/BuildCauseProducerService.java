@@ -17,6 +17,7 @@
 package com.thoughtworks.go.server.scheduling;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.materials.MaterialConfigs;
 import com.thoughtworks.go.config.materials.Materials;
@@ -24,10 +25,12 @@ import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.config.remote.ConfigOrigin;
 import com.thoughtworks.go.config.remote.RepoConfigOrigin;
 import com.thoughtworks.go.domain.EnvironmentVariables;
+import com.thoughtworks.go.domain.MaterialRevision;
 import com.thoughtworks.go.domain.MaterialRevisions;
 import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.materials.*;
 import com.thoughtworks.go.server.perf.SchedulingPerformanceLogger;
@@ -46,6 +49,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -70,6 +74,7 @@ public class BuildCauseProducerService {
     private final MaterialConfigConverter materialConfigConverter;
     private final MaterialExpansionService materialExpansionService;
     private SchedulingPerformanceLogger schedulingPerformanceLogger;
+    private final ConcurrentMap<CaseInsensitiveString, CheckedInputs> inputsOfLastUnscheduledAutoCheck = new ConcurrentHashMap<>();
 
     @Autowired
     public BuildCauseProducerService(
@@ -108,7 +113,8 @@ public class BuildCauseProducerService {
 
         try {
             PipelineConfig pipelineConfig = goConfigService.pipelineConfigNamed(new CaseInsensitiveString(pipelineName));
-            newProduceBuildCause(pipelineConfig, new AutoBuild(goConfigService, pipelineService, pipelineName, systemEnvironment, materialChecker), result, trackingId);
+            AutoBuild autoBuild = new AutoBuild(goConfigService, pipelineService, pipelineName, systemEnvironment, materialChecker);
+            newProduceBuildCause(pipelineConfig, autoBuild, new ScheduleOptions(new HashMap<>(), new HashMap<>(), new HashMap<>()), result, trackingId, true);
         } finally {
             schedulingPerformanceLogger.autoSchedulePipelineFinish(trackingId, pipelineName);
         }
@@ -150,6 +156,15 @@ public class BuildCauseProducerService {
     }
 
     ServerHealthState newProduceBuildCause(PipelineConfig pipelineConfig, BuildType buildType, ScheduleOptions scheduleOptions, OperationResult result, long trackingId) {
+        return newProduceBuildCause(pipelineConfig, buildType, scheduleOptions, result, trackingId, false);
+    }
+
+    /**
+     * With skipIfInputsUnchanged, a pipeline is not checked again while its configuration, its previous build and the
+     * latest modification of each of its materials are the same as at its last check that did not schedule it.
+     */
+    private ServerHealthState newProduceBuildCause(PipelineConfig pipelineConfig, BuildType buildType, ScheduleOptions scheduleOptions, OperationResult result, long trackingId,
+                                                   boolean skipIfInputsUnchanged) {
         buildType.canProduce(pipelineConfig, schedulingChecker, serverHealthService, result);
         if (!result.canContinue()) {
             return result.getServerHealthState();
@@ -161,16 +176,25 @@ public class BuildCauseProducerService {
             MaterialRevisions peggedRevisions = specificMaterialRevisionFactory.create(pipelineName, scheduleOptions.getSpecifiedRevisions());
             BuildCause previousBuild = pipelineScheduleQueue.mostRecentScheduled(pipelineConfig.name());
 
+            CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
             Materials materials = materialConfigConverter.toMaterials(pipelineConfig.materialConfigs());
+            MaterialRevisions latestRevisions = materialChecker.findLatestRevisions(peggedRevisions, materials);
+
+            CheckedInputs inputs = skipIfInputsUnchanged ? new CheckedInputs(cruiseConfig, pipelineConfig, previousBuild, latestRevisions) : null;
+            if (inputs != null && inputs.equals(inputsOfLastUnscheduledAutoCheck.get(pipelineConfig.name()))) {
+                LOGGER.debug("Skipping check of {} as its materials have not changed since it was last checked", pipelineName);
+                return ServerHealthState.success(HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
+            }
+            inputsOfLastUnscheduledAutoCheck.remove(pipelineConfig.name());
+
             MaterialConfigs expandedMaterialConfigs = materialExpansionService.expandMaterialConfigsForScheduling(pipelineConfig.materialConfigs());
             Materials expandedMaterials = materialConfigConverter.toMaterials(expandedMaterialConfigs);
             BuildCause buildCause = null;
             boolean materialConfigurationChanged = hasConfigChanged(previousBuild, expandedMaterials);
             if (previousBuild.hasNeverRun() || materialConfigurationChanged) {
                 LOGGER.debug("Using latest modifications from repository for {}", pipelineConfig.name());
-                MaterialRevisions revisions = materialChecker.findLatestRevisions(peggedRevisions, materials);
-                if (!revisions.isMissingModifications()) {
-                    buildCause = buildType.onModifications(revisions, materialConfigurationChanged, null);
+                if (!latestRevisions.isMissingModifications()) {
+                    buildCause = buildType.onModifications(latestRevisions, materialConfigurationChanged, null);
                     if (buildCause != null) {
                         if (!buildCause.materialsMatch(expandedMaterialConfigs)) {
                             LOGGER.warn("Error while scheduling pipeline: {}. Possible Reasons: (1) Upstream pipelines have not been built yet. (2) Materials do not match between configuration and build-cause.", pipelineName);
@@ -180,7 +204,6 @@ public class BuildCauseProducerService {
                 }
             } else {
                 LOGGER.debug("Checking if materials are different for {}", pipelineConfig.name());
-                MaterialRevisions latestRevisions = materialChecker.findLatestRevisions(peggedRevisions, materials);
                 if (!latestRevisions.isMissingModifications()) {
                     MaterialRevisions original = previousBuild.getMaterialRevisions();
                     MaterialRevisions revisions = materialChecker.findRevisionsSince(peggedRevisions, expandedMaterials, original, latestRevisions);
@@ -204,6 +227,9 @@ public class BuildCauseProducerService {
                 LOGGER.debug("scheduling pipeline {} with build-cause {}; config origin {}", pipelineName, buildCause, pipelineConfig.getOrigin());
             } else {
                 buildType.notifyPipelineNotScheduled(pipelineConfig);
+                if (inputs != null) {
+                    inputsOfLastUnscheduledAutoCheck.put(pipelineConfig.name(), inputs);
+                }
             }
 
             serverHealthService.removeByScope(HealthStateScope.forPipeline(pipelineName));
@@ -412,4 +438,42 @@ public class BuildCauseProducerService {
             return pendingMaterials.containsKey(material.getFingerprint());
         }
     }
-}
\ No newline at end of file
+
+    private static class CheckedInputs {
+        private final CruiseConfig cruiseConfig;
+        private final PipelineConfig pipelineConfig;
+        private final BuildCause previousBuild;
+        private final Map<String, Long> latestModificationIds = new HashMap<>();
+
+        private CheckedInputs(CruiseConfig cruiseConfig, PipelineConfig pipelineConfig, BuildCause previousBuild, MaterialRevisions latestRevisions) {
+            this.cruiseConfig = cruiseConfig;
+            this.pipelineConfig = pipelineConfig;
+            this.previousBuild = previousBuild;
+            for (MaterialRevision revision : latestRevisions) {
+                long latestId = 0;
+                for (Modification modification : revision.getModifications()) {
+                    latestId = Math.max(latestId, modification.getId());
+                }
+                latestModificationIds.merge(revision.getMaterial().getFingerprint(), latestId, Math::max);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CheckedInputs that = (CheckedInputs) o;
+            return cruiseConfig == that.cruiseConfig && pipelineConfig == that.pipelineConfig && previousBuild == that.previousBuild
+                    && latestModificationIds.equals(that.latestModificationIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return latestModificationIds.hashCode();
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.thoughtworks.go.server.scheduling;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
@@ -33,6 +35,10 @@ public class TriggerMonitor {
         return triggeredPipelines.contains(pipelineName);
     }
 
+    public Set<CaseInsensitiveString> triggeredPipelines() {
+        return Collections.unmodifiableSet(triggeredPipelines);
+    }
+
     public boolean markPipelineAsAlreadyTriggered(PipelineConfig pipelineConfig) {
         return markPipelineAsAlreadyTriggered(pipelineConfig.name());
     }
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @understands keeping a single copy of identical artifact files, hard linked into every job that uploaded them
+ * <p>
+ * Job artifact directories stay ordinary directories, so fetching, zipping and checksums work as before. Files are
+ * only ever replaced by renaming over them, never written in place, since a write through one link would change the
+ * artifact of every other job sharing it.
+ */
+@Component
+public class ArtifactContentStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactContentStore.class);
+    static final String CONTENT_STORE_DIR = "artifactContentStore";
+    private static final boolean LINK_COUNT_SUPPORTED = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    private static final Pattern TEMPORARY_NAME = Pattern.compile("\\..+\\.(staging|link|detach)-[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+
+    private final ArtifactsDirHolder artifactsDirHolder;
+    private final SystemEnvironment systemEnvironment;
+    private final Set<Path> directoriesWithTemporaries = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean artifactsSweptSinceStartup = new AtomicBoolean();
+
+    @Autowired
+    public ArtifactContentStore(ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment) {
+        this.artifactsDirHolder = artifactsDirHolder;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public boolean isEnabled() {
+        return LINK_COUNT_SUPPORTED && systemEnvironment.get(SystemEnvironment.ARTIFACT_DEDUPLICATION_ENABLED);
+    }
+
+    public File stagingFor(File dest) {
+        directoriesWithTemporaries.add(dest.getParentFile().toPath());
+        return new File(dest.getParentFile(), "." + dest.getName() + ".staging-" + UUID.randomUUID());
+    }
+
+    public void moveIntoPlace(File staged, File dest) throws IOException {
+        Path source = staged.toPath();
+        Path target = dest.toPath();
+        if (!Files.isDirectory(source)) {
+            Files.createDirectories(target.getParent());
+            place(source, target);
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    place(path, destination);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the file a copy of its own if it shares its content with other jobs, so that it can be appended to.
+     */
+    public void detach(File file) throws IOException {
+        Path path = file.toPath();
+        if (!Files.isRegularFile(path) || linkCount(path) < 2) {
+            return;
+        }
+        Path copy = temporarySibling(path, ".detach-");
+        try {
+            Files.copy(path, copy);
+            Files.move(copy, path, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    /**
+     * Content that nothing outside of the given artifacts links to; it can go once those artifacts have been deleted.
+     */
+    public List<File> contentReferencedOnlyFrom(List<File> artifacts) throws IOException {
+        Map<Object, List<Path>> linksByFile = new HashMap<>();
+        for (File artifact : artifacts) {
+            if (!artifact.exists()) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.walk(artifact.toPath())) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile() && attributes.fileKey() != null) {
+                        linksByFile.computeIfAbsent(attributes.fileKey(), key -> new ArrayList<>()).add(path);
+                    }
+                }
+            }
+        }
+
+        List<File> unreferenced = new ArrayList<>();
+        for (List<Path> links : linksByFile.values()) {
+            Path link = links.get(0);
+            if (linkCount(link) != links.size() + 1) {
+                continue;
+            }
+            Path content = contentPath(digestOf(link));
+            if (Files.exists(content) && Files.isSameFile(content, link)) {
+                unreferenced.add(content.toFile());
+            }
+        }
+        return unreferenced;
+    }
+
+    /**
+     * Reclaims what purging stages does not: staging left in job directories by uploads that never finished, and
+     * content that no job links to any more, e.g. because its stage was purged while deduplication was turned off.
+     * <p>
+     * Only the directories staging was created in are looked at, apart from a single walk of the artifacts after
+     * startup for what an earlier run of the server left behind. With deduplication turned off, the store is swept
+     * until it is empty and then removed, after which the timer does nothing.
+     */
+    public void onTimer() {
+        if (!LINK_COUNT_SUPPORTED || !(isEnabled() || contentStoreDir().exists())) {
+            return;
+        }
+        try {
+            sweep(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(systemEnvironment.get(SystemEnvironment.ARTIFACT_DEDUPLICATION_STALE_STAGING_IN_HOURS)));
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("[Artifact Deduplication] Could not sweep {}", artifactsDirHolder.getArtifactsDir(), e);
+        }
+    }
+
+    void sweep(long staleBefore) throws IOException {
+        boolean enabled = isEnabled();
+        int temporaries = enabled && artifactsSweptSinceStartup.compareAndSet(false, true)
+                ? removeTemporariesOlderThan(staleBefore)
+                : removeTrackedTemporariesOlderThan(staleBefore);
+        int contents = removeUnreferencedContent();
+        if (temporaries > 0 || contents > 0) {
+            LOGGER.info("[Artifact Deduplication] Removed {} stale staging file(s) and {} unreferenced content file(s)", temporaries, contents);
+        }
+        if (!enabled) {
+            removeContentStoreIfEmpty();
+        }
+    }
+
+    private int removeTrackedTemporariesOlderThan(long staleBefore) throws IOException {
+        int removed = 0;
+        for (Path dir : new ArrayList<>(directoriesWithTemporaries)) {
+            directoriesWithTemporaries.remove(dir);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            boolean temporariesLeft = false;
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                for (Path child : children) {
+                    if (!TEMPORARY_NAME.matcher(child.getFileName().toString()).matches()) {
+                        continue;
+                    }
+                    if (Files.getLastModifiedTime(child).toMillis() < staleBefore && FileUtils.deleteQuietly(child.toFile())) {
+                        removed++;
+                    } else {
+                        temporariesLeft = true;
+                    }
+                }
+            } catch (NoSuchFileException ignored) {
+            }
+            if (temporariesLeft) {
+                directoriesWithTemporaries.add(dir);
+            }
+        }
+        return removed;
+    }
+
+    private int removeTemporariesOlderThan(long staleBefore) throws IOException {
+        Path contentStore = contentStoreDir().toPath();
+        AtomicInteger removed = new AtomicInteger();
+        Files.walkFileTree(artifactsDirHolder.getArtifactsDir().toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                if (dir.equals(contentStore)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (isStaleTemporary(dir, attributes, staleBefore)) {
+                    FileUtils.deleteQuietly(dir.toFile());
+                    removed.incrementAndGet();
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (isStaleTemporary(file, attributes, staleBefore) && Files.deleteIfExists(file)) {
+                    removed.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                LOGGER.debug("[Artifact Deduplication] Skipping {} while sweeping", file, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return removed.get();
+    }
+
+    private int removeUnreferencedContent() throws IOException {
+        Path contentStore = contentStoreDir().toPath();
+        if (!Files.isDirectory(contentStore)) {
+            return 0;
+        }
+        int removed = 0;
+        try (Stream<Path> paths = Files.walk(contentStore)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                try {
+                    if (Files.isRegularFile(path) && linkCount(path) == 1 && Files.deleteIfExists(path)) {
+                        removed++;
+                    }
+                } catch (NoSuchFileException ignored) {
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void removeContentStoreIfEmpty() throws IOException {
+        Path contentStore = contentStoreDir().toPath();
+        if (!Files.isDirectory(contentStore)) {
+            return;
+        }
+        List<Path> directories;
+        try (Stream<Path> paths = Files.walk(contentStore)) {
+            directories = paths.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path directory : directories) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (DirectoryNotEmptyException ignored) {
+            }
+        }
+    }
+
+    private static boolean isStaleTemporary(Path path, BasicFileAttributes attributes, long staleBefore) {
+        return TEMPORARY_NAME.matcher(path.getFileName().toString()).matches() && attributes.lastModifiedTime().toMillis() < staleBefore;
+    }
+
+    private void place(Path staged, Path target) throws IOException {
+        if (Files.size(staged) < systemEnvironment.get(SystemEnvironment.ARTIFACT_DEDUPLICATION_MIN_FILE_SIZE_IN_BYTES)) {
+            Files.move(staged, target, REPLACE_EXISTING);
+            return;
+        }
+
+        Path content = contentPath(digestOf(staged));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Path link = temporarySibling(target, ".link-");
+            try {
+                Files.createDirectories(content.getParent());
+                if (!Files.exists(content)) {
+                    Files.createLink(content, staged);
+                }
+                Files.createLink(link, content);
+                Files.move(link, target, REPLACE_EXISTING, ATOMIC_MOVE);
+                return;
+            } catch (FileAlreadyExistsException | NoSuchFileException e) {
+                LOGGER.debug("[Artifact Deduplication] Content {} changed while linking {}, retrying", content.getFileName(), target, e);
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.warn("[Artifact Deduplication] Could not link {} to {}, keeping a copy of its own", target, content, e);
+                break;
+            } finally {
+                Files.deleteIfExists(link);
+            }
+        }
+        Files.move(staged, target, REPLACE_EXISTING);
+    }
+
+    private Path contentPath(String digest) {
+        return contentStoreDir().toPath().resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private File contentStoreDir() {
+        return new File(artifactsDirHolder.getArtifactsDir(), CONTENT_STORE_DIR);
+    }
+
+    private static String digestOf(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return DigestUtils.sha256Hex(stream);
+        }
+    }
+
+    private static int linkCount(Path path) throws IOException {
+        return (Integer) Files.getAttribute(path, "unix:nlink");
+    }
+
+    private static Path temporarySibling(Path path, String infix) {
+        return path.resolveSibling("." + path.getFileName() + infix + UUID.randomUUID());
+    }
+}
@@ -35,6 +35,9 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.zip.ZipInputStream;
 
 import static java.lang.String.format;
@@ -46,23 +49,25 @@ public class ArtifactsService implements ArtifactUrlReader {
     private final JobResolverService jobResolverService;
     private final StageDao stageDao;
     private SystemService systemService;
+    private final ArtifactContentStore contentStore;
     public static final Logger LOGGER = LoggerFactory.getLogger(ArtifactsService.class);
     public static final String LOG_XML_NAME = "log.xml";
     private ArtifactDirectoryChooser chooser;
 
     @Autowired
     public ArtifactsService(JobResolverService jobResolverService, StageDao stageDao,
-                            ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemService systemService) {
-        this(jobResolverService, stageDao, artifactsDirHolder, zipUtil, systemService, new ArtifactDirectoryChooser());
+                            ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemService systemService, ArtifactContentStore contentStore) {
+        this(jobResolverService, stageDao, artifactsDirHolder, zipUtil, systemService, contentStore, new ArtifactDirectoryChooser());
     }
 
     protected ArtifactsService(JobResolverService jobResolverService, StageDao stageDao,
-                               ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemService systemService, ArtifactDirectoryChooser chooser) {
+                               ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemService systemService, ArtifactContentStore contentStore, ArtifactDirectoryChooser chooser) {
         this.artifactsDirHolder = artifactsDirHolder;
         this.zipUtil = zipUtil;
         this.jobResolverService = jobResolverService;
         this.stageDao = stageDao;
         this.systemService = systemService;
+        this.contentStore = contentStore;
 
         //This is a Chain of Responsibility to decide which view should be shown for a particular artifact URL
         this.chooser = chooser;
@@ -76,13 +81,19 @@ public class ArtifactsService implements ArtifactUrlReader {
 
     public boolean saveFile(File dest, InputStream stream, boolean shouldUnzip, int attempt) {
         String destPath = dest.getAbsolutePath();
+        boolean deduplicate = shouldUnzip && contentStore.isEnabled();
+        File staging = deduplicate ? contentStore.stagingFor(dest) : dest;
         try {
             LOGGER.trace("Saving file [{}]", destPath);
             if (shouldUnzip) {
-                zipUtil.unzip(new ZipInputStream(stream), dest);
+                zipUtil.unzip(new ZipInputStream(stream), staging);
             } else {
+                detachFromSharedContent(dest);
                 systemService.streamToFile(stream, dest);
             }
+            if (deduplicate) {
+                contentStore.moveIntoPlace(staging, dest);
+            }
             LOGGER.trace("File [{}] saved.", destPath);
             return true;
         } catch (IOException e) {
@@ -97,6 +108,10 @@ public class ArtifactsService implements ArtifactUrlReader {
             final String message = format("Failed to save the file to: [%s]", destPath);
             LOGGER.error(message, e);
             return false;
+        } finally {
+            if (deduplicate) {
+                FileUtils.deleteQuietly(staging);
+            }
         }
     }
 
@@ -104,6 +119,7 @@ public class ArtifactsService implements ArtifactUrlReader {
         String destPath = dest.getAbsolutePath();
         try {
             LOGGER.trace("Appending file [{}]", destPath);
+            detachFromSharedContent(dest);
             systemService.streamToFile(stream, dest);
             LOGGER.trace("File [{}] appended.", destPath);
             return true;
@@ -177,8 +193,7 @@ public class ArtifactsService implements ArtifactUrlReader {
             throw new IOException("Failed to list contents of " + stageRoot);
         }
 
-        boolean didDelete = true;
-
+        List<File> toDelete = new ArrayList<>();
         for (File jobRoot : jobs) {
             File[] artifacts = jobRoot.listFiles();
             if (artifacts == null) {  // null if security restricted
@@ -188,12 +203,27 @@ public class ArtifactsService implements ArtifactUrlReader {
                 if (artifact.isDirectory() && (artifact.getName().equals(ArtifactLogUtil.CRUISE_OUTPUT_FOLDER) || artifact.getName().equals(ArtifactLogUtil.PLUGGABLE_ARTIFACT_METADATA_FOLDER))) {
                     continue;
                 }
-                didDelete &= deleteFile(artifact);
+                toDelete.add(artifact);
             }
         }
+
+        List<File> unreferencedContent = contentStore.isEnabled() ? contentStore.contentReferencedOnlyFrom(toDelete) : Collections.emptyList();
+        boolean didDelete = true;
+        for (File artifact : toDelete) {
+            didDelete &= deleteFile(artifact);
+        }
+        if (didDelete) {
+            unreferencedContent.forEach(this::deleteFile);
+        }
         return didDelete;
     }
 
+    private void detachFromSharedContent(File dest) throws IOException {
+        if (contentStore.isEnabled()) {
+            contentStore.detach(dest);
+        }
+    }
+
     private boolean deleteFile(File file) {
         return FileUtils.deleteQuietly(file);
     }
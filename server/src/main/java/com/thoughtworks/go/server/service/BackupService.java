@@ -22,6 +22,7 @@ import com.thoughtworks.go.config.GoMailSender;
 import com.thoughtworks.go.database.Database;
 import com.thoughtworks.go.security.AESCipherProvider;
 import com.thoughtworks.go.security.DESCipherProvider;
+import com.thoughtworks.go.server.database.H2Database;
 import com.thoughtworks.go.server.domain.PostBackupScript;
 import com.thoughtworks.go.server.domain.ServerBackup;
 import com.thoughtworks.go.server.domain.Username;
@@ -48,6 +49,8 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -128,14 +131,7 @@ public class BackupService implements BackupStatusProvider {
                 backupRunningSince = backupTime;
                 backupStartedBy = username.getUsername().toString();
                 backupVersion(destDir);
-                backupConfig(destDir);
-                configRepository.doLocked(new VoidThrowingFn<IOException>() {
-                    @Override
-                    public void run() throws IOException {
-                        backupConfigRepository(destDir);
-                    }
-                });
-                backupDb(destDir);
+                backupInParallel(destDir);
                 ServerBackup serverBackup = new ServerBackup(destDir.getAbsolutePath(), backupTime.toDate(), username.getUsername().toString());
                 serverBackupRepository.save(serverBackup);
                 if (emailOnSuccess()) {
@@ -202,6 +198,73 @@ public class BackupService implements BackupStatusProvider {
         return backupConfig != null && backupConfig.isEmailOnSuccess();
     }
 
+    /**
+     * The config directory, config repository and database are independent of each other, so they are backed up
+     * concurrently. The time spent in backup mode is that of the slowest of them rather than their sum.
+     */
+    private void backupInParallel(final File destDir) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "backup-" + destDir.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> steps = new ArrayList<>();
+            steps.add(executor.submit(timed("config directory", new File(destDir, CONFIG_BACKUP_ZIP), () -> {
+                backupConfig(destDir);
+                return null;
+            })));
+            steps.add(executor.submit(timed("config repository", new File(destDir, CONFIG_REPOSITORY_BACKUP_ZIP), () -> configRepository.doLocked(new VoidThrowingFn<IOException>() {
+                @Override
+                public void run() throws IOException {
+                    backupConfigRepository(destDir);
+                }
+            }))));
+            steps.add(executor.submit(timed("database", new File(destDir, H2Database.BACKUP_FILE_NAME), () -> {
+                backupDb(destDir);
+                return null;
+            })));
+            try {
+                for (Future<Void> step : steps) {
+                    try {
+                        step.get();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof Exception) {
+                            throw (Exception) e.getCause();
+                        }
+                        throw e;
+                    }
+                }
+            } catch (Exception e) {
+                steps.forEach(step -> step.cancel(true));
+                throw e;
+            }
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    // the backup directory is cleaned up on failure, so none of the steps may still be writing into it by then
+    private void awaitTermination(ExecutorService executor) throws InterruptedException {
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            LOGGER.warn("[Backup] Waiting for the remaining backup steps to stop.");
+        }
+    }
+
+    private Callable<Void> timed(String stepName, File output, Callable<?> step) {
+        return () -> {
+            long startedAt = System.currentTimeMillis();
+            LOGGER.info("[Backup] Backing up {}.", stepName);
+            step.call();
+            long duration = Math.max(System.currentTimeMillis() - startedAt, 1);
+            long size = output.length();
+            LOGGER.info("[Backup] Backed up {} in {} ms ({}, {}/s).", stepName, duration,
+                    FileUtils.byteCountToDisplaySize(size), FileUtils.byteCountToDisplaySize(size * 1000 / duration));
+            return null;
+        };
+    }
+
     private void backupVersion(File backupDir) throws IOException {
         File versionFile = new File(backupDir, VERSION_BACKUP_FILE);
         FileUtils.writeStringToFile(versionFile, CurrentGoCDVersion.getInstance().formatted(), UTF_8);
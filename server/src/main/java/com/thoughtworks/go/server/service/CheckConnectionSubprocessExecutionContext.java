@@ -47,4 +47,19 @@ public class CheckConnectionSubprocessExecutionContext implements SubprocessExec
     public boolean isServer() {
         throw new UnsupportedOperationException("This is an unexpected call.");
     }
+
+    @Override
+    public int maxModifiedFilesPerRevision() {
+        throw new UnsupportedOperationException("This is an unexpected call.");
+    }
+
+    @Override
+    public boolean isGitMirrorsEnabled() {
+        throw new UnsupportedOperationException("This is an unexpected call.");
+    }
+
+    @Override
+    public int gitMirrorRefreshIntervalInSeconds() {
+        throw new UnsupportedOperationException("This is an unexpected call.");
+    }
 }
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * @understands appending console output of building jobs to their console logs
+ * <p>
+ * Each console log is handled by one of a few writer threads, which keeps it open between appends and closes it once
+ * it has been idle for a while. Appends that arrive together are written in one go, and logs are synced to disk on an
+ * interval rather than after every append. An interval of 0 syncs after every batch, and a negative one leaves syncing
+ * to the operating system. Callers wait for their writes up to a timeout, after which writes not yet started are abandoned.
+ */
+@Component
+public class ConsoleLogWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleLogWriter.class);
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int MAX_JOBS_IN_STATISTICS = 20;
+
+    private final WriterThread[] writers;
+    private final long idleTimeoutInMillis;
+    private final long fsyncIntervalInMillis;
+    private final long writeTimeoutInMillis;
+    private final ConcurrentMap<Path, OpenLog> openLogs = new ConcurrentHashMap<>();
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong appendedBytes = new AtomicLong();
+    private final AtomicLong failedAppends = new AtomicLong();
+    private final AtomicLong timedOutWrites = new AtomicLong();
+    private final AtomicLong totalAppendTimeInMicros = new AtomicLong();
+    private final AtomicLong maxAppendTimeInMicros = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    @Autowired
+    public ConsoleLogWriter(SystemEnvironment systemEnvironment) {
+        this(systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_WRITER_THREADS),
+                TimeUnit.SECONDS.toMillis(systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_IDLE_TIMEOUT_IN_SECONDS)),
+                systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_FSYNC_INTERVAL_IN_MILLIS),
+                TimeUnit.SECONDS.toMillis(systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_WRITE_TIMEOUT_IN_SECONDS)));
+    }
+
+    ConsoleLogWriter(int threads, long idleTimeoutInMillis, long fsyncIntervalInMillis, long writeTimeoutInMillis) {
+        this.idleTimeoutInMillis = idleTimeoutInMillis;
+        this.fsyncIntervalInMillis = fsyncIntervalInMillis;
+        this.writeTimeoutInMillis = writeTimeoutInMillis;
+        this.writers = new WriterThread[Math.max(1, threads)];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new WriterThread("console-log-writer-thread-" + (i + 1));
+            writers[i].start();
+        }
+    }
+
+    /**
+     * Appends to the console log, returning once the bytes have been written.
+     */
+    public void append(File consoleLog, byte[] bytes) throws IOException {
+        await(submit(new Request(consoleLog.toPath().toAbsolutePath(), bytes)));
+    }
+
+    /**
+     * Syncs and closes the console log if it is open, so that it can be moved.
+     */
+    public void close(File consoleLog) throws IOException {
+        await(submit(new Request(consoleLog.toPath().toAbsolutePath(), null)));
+    }
+
+    public Map<String, Object> statistics() {
+        long appendCount = appends.get();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("WriterThreads", writers.length);
+        json.put("IdleTimeoutInMillis", idleTimeoutInMillis);
+        json.put("FsyncIntervalInMillis", fsyncIntervalInMillis);
+        json.put("WriteTimeoutInMillis", writeTimeoutInMillis);
+        json.put("OpenLogs", openLogs.size());
+        json.put("Opened", opened.get());
+        json.put("Appends", appendCount);
+        json.put("AppendedBytes", appendedBytes.get());
+        json.put("FailedAppends", failedAppends.get());
+        json.put("TimedOutWrites", timedOutWrites.get());
+        json.put("Batches", batches.get());
+        json.put("Syncs", syncs.get());
+        json.put("AverageAppendTimeInMicros", appendCount == 0 ? 0 : totalAppendTimeInMicros.get() / appendCount);
+        json.put("MaxAppendTimeInMicros", maxAppendTimeInMicros.get());
+        json.put("BusiestLogs", openLogs.values().stream()
+                .sorted(Comparator.comparingLong(OpenLog::bytesPerSecond).reversed())
+                .limit(MAX_JOBS_IN_STATISTICS)
+                .map(OpenLog::statistics)
+                .collect(Collectors.toList()));
+        return json;
+    }
+
+    private Request submit(Request request) {
+        writers[Math.floorMod(request.path.hashCode(), writers.length)].queue.add(request);
+        return request;
+    }
+
+    private void await(Request request) throws IOException {
+        try {
+            request.done.get(writeTimeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (request.done.completeExceptionally(e)) {
+                timedOutWrites.incrementAndGet();
+                throw new IOException("Timed out after " + writeTimeoutInMillis + "ms writing console log " + request.path, e);
+            }
+            await(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing console log " + request.path, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not write console log " + request.path, e.getCause());
+        }
+    }
+
+    private static class Request {
+        private final Path path;
+        private final byte[] bytes;
+        private final long submittedAt = System.nanoTime();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Request(Path path, byte[] bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+
+        private boolean isClose() {
+            return bytes == null;
+        }
+    }
+
+    private static class OpenLog {
+        private final Path path;
+        private final FileChannel channel;
+        private final long openedAt = System.currentTimeMillis();
+        private volatile long lastAppendAt = openedAt;
+        private volatile long lastSyncAt = openedAt;
+        private volatile boolean dirty;
+        private final AtomicLong appends = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong totalAppendTimeInMicros = new AtomicLong();
+        private final AtomicLong maxAppendTimeInMicros = new AtomicLong();
+
+        private OpenLog(Path path) throws IOException {
+            this.path = path;
+            Files.createDirectories(path.getParent());
+            this.channel = FileChannel.open(path, CREATE, WRITE, APPEND);
+        }
+
+        private long bytesPerSecond() {
+            long seconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(lastAppendAt - openedAt));
+            return bytes.get() / seconds;
+        }
+
+        private Map<String, Object> statistics() {
+            long appendCount = appends.get();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Path", path.toString());
+            json.put("Appends", appendCount);
+            json.put("Bytes", bytes.get());
+            json.put("BytesPerSecond", bytesPerSecond());
+            json.put("AverageAppendTimeInMicros", appendCount == 0 ? 0 : totalAppendTimeInMicros.get() / appendCount);
+            json.put("MaxAppendTimeInMicros", maxAppendTimeInMicros.get());
+            return json;
+        }
+    }
+
+    private class WriterThread extends Thread {
+        private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+        private final Map<Path, OpenLog> logs = new LinkedHashMap<>();
+
+        private WriterThread(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Request> batch = new ArrayList<>();
+            while (true) {
+                try {
+                    Request first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                        write(batch);
+                        batch.clear();
+                    }
+                    syncAndCloseIdleLogs(System.currentTimeMillis());
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable e) {
+                    LOGGER.error("Unexpected error while writing console logs", e);
+                    for (Request request : batch) {
+                        request.done.completeExceptionally(e);
+                    }
+                    batch.clear();
+                }
+            }
+        }
+
+        private void write(List<Request> batch) {
+            batches.incrementAndGet();
+            Map<Path, List<Request>> byLog = new LinkedHashMap<>();
+            for (Request request : batch) {
+                if (request.done.isDone()) {
+                    continue;
+                }
+                if (request.isClose()) {
+                    writeAll(byLog);
+                    byLog.clear();
+                    close(request);
+                } else {
+                    byLog.computeIfAbsent(request.path, path -> new ArrayList<>()).add(request);
+                }
+            }
+            writeAll(byLog);
+        }
+
+        private void writeAll(Map<Path, List<Request>> byLog) {
+            for (Map.Entry<Path, List<Request>> entry : byLog.entrySet()) {
+                writeTo(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private void writeTo(Path path, List<Request> requests) {
+            OpenLog log = null;
+            try {
+                log = open(path);
+                ByteBuffer[] buffers = new ByteBuffer[requests.size()];
+                long size = 0;
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = ByteBuffer.wrap(requests.get(i).bytes);
+                    size += buffers[i].remaining();
+                }
+                long written = 0;
+                while (written < size) {
+                    written += log.channel.write(buffers);
+                }
+                log.dirty = true;
+                log.lastAppendAt = System.currentTimeMillis();
+                log.bytes.addAndGet(size);
+                appendedBytes.addAndGet(size);
+                if (fsyncIntervalInMillis == 0) {
+                    sync(log);
+                }
+                for (Request request : requests) {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - request.submittedAt);
+                    log.appends.incrementAndGet();
+                    log.totalAppendTimeInMicros.addAndGet(micros);
+                    log.maxAppendTimeInMicros.accumulateAndGet(micros, Math::max);
+                    appends.incrementAndGet();
+                    totalAppendTimeInMicros.addAndGet(micros);
+                    maxAppendTimeInMicros.accumulateAndGet(micros, Math::max);
+                    request.done.complete(null);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Failed to update console log at : [{}]", path, e);
+                failedAppends.addAndGet(requests.size());
+                if (log != null) {
+                    closeQuietly(log);
+                }
+                for (Request request : requests) {
+                    request.done.completeExceptionally(e);
+                }
+            }
+        }
+
+        private OpenLog open(Path path) throws IOException {
+            OpenLog log = logs.get(path);
+            if (log == null) {
+                log = new OpenLog(path);
+                logs.put(path, log);
+                openLogs.put(path, log);
+                opened.incrementAndGet();
+                LOGGER.trace("Opened console log [{}]", path);
+            }
+            return log;
+        }
+
+        private void close(Request request) {
+            OpenLog log = logs.get(request.path);
+            if (log == null) {
+                request.done.complete(null);
+                return;
+            }
+            try {
+                if (fsyncIntervalInMillis >= 0 && log.dirty) {
+                    sync(log);
+                }
+                closeQuietly(log);
+                request.done.complete(null);
+            } catch (IOException e) {
+                closeQuietly(log);
+                request.done.completeExceptionally(e);
+            }
+        }
+
+        private void syncAndCloseIdleLogs(long now) {
+            for (OpenLog log : new ArrayList<>(logs.values())) {
+                try {
+                    if (fsyncIntervalInMillis > 0 && log.dirty && now - log.lastSyncAt >= fsyncIntervalInMillis) {
+                        sync(log);
+                    }
+                    if (now - log.lastAppendAt >= idleTimeoutInMillis) {
+                        if (fsyncIntervalInMillis >= 0 && log.dirty) {
+                            sync(log);
+                        }
+                        LOGGER.trace("Closing idle console log [{}]", log.path);
+                        closeQuietly(log);
+                    }
+                } catch (IOException e) {
+                    LOGGER.warn("Could not sync console log [{}]", log.path, e);
+                    closeQuietly(log);
+                }
+            }
+        }
+
+        private void sync(OpenLog log) throws IOException {
+            log.channel.force(false);
+            log.dirty = false;
+            log.lastSyncAt = System.currentTimeMillis();
+            syncs.incrementAndGet();
+        }
+
+        private void closeQuietly(OpenLog log) {
+            logs.remove(log.path);
+            openLogs.remove(log.path, log);
+            try {
+                log.channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close console log [{}]", log.path, e);
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.*;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 import static com.thoughtworks.go.util.ArtifactLogUtil.getConsoleOutputFolderAndFileName;
 
@@ -43,16 +44,19 @@ public class ConsoleService {
     public static final Logger LOGGER = LoggerFactory.getLogger(ConsoleService.class);
     private ArtifactDirectoryChooser chooser;
     public static final int DEFAULT_CONSOLE_LOG_LINE_BUFFER_SIZE = 1024;
+    private static final int CONSOLE_LOG_APPEND_CHUNK_SIZE = 64 * 1024;
     private ArtifactsDirHolder artifactsDirHolder;
+    private final ConsoleLogWriter consoleLogWriter;
 
 
-    public ConsoleService(ArtifactDirectoryChooser chooser) {
+    public ConsoleService(ArtifactDirectoryChooser chooser, ConsoleLogWriter consoleLogWriter) {
         this.chooser = chooser;
+        this.consoleLogWriter = consoleLogWriter;
     }
 
     @Autowired
-    public ConsoleService(ArtifactsDirHolder artifactsDirHolder, JobInstanceDao jobInstanceDao) {
-        this(new ArtifactDirectoryChooser());
+    public ConsoleService(ArtifactsDirHolder artifactsDirHolder, JobInstanceDao jobInstanceDao, ConsoleLogWriter consoleLogWriter) {
+        this(new ArtifactDirectoryChooser(), consoleLogWriter);
         this.artifactsDirHolder = artifactsDirHolder;
     }
 
@@ -88,12 +92,13 @@ public class ConsoleService {
     }
 
     public boolean updateConsoleLog(File dest, InputStream in) {
-        File parentFile = dest.getParentFile();
-        parentFile.mkdirs();
-
         LOGGER.trace("Updating console log [{}]", dest.getAbsolutePath());
-        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(dest, dest.exists()))) {
-            IOUtils.copy(in, out);
+        try {
+            byte[] chunk = new byte[CONSOLE_LOG_APPEND_CHUNK_SIZE];
+            int read;
+            while ((read = IOUtils.read(in, chunk)) > 0) {
+                consoleLogWriter.append(dest, Arrays.copyOf(chunk, read));
+            }
         } catch (IOException e) {
             LOGGER.error("Failed to update console log at : [{}]", dest.getAbsolutePath(), e);
             return false;
@@ -105,6 +110,7 @@ public class ConsoleService {
     public void moveConsoleArtifacts(LocatableEntity locatableEntity) {
         try {
             File from = chooser.temporaryConsoleFile(locatableEntity);
+            consoleLogWriter.close(from);
 
             // Job cancellation skips temporary file creation. Force create one if it does not exist.
             FileUtils.touch(from);
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * @understands removing server-side git mirrors that no configured material uses any more
+ * <p>
+ * A mirror whose repository is no longer configured goes away together with the working copies that still borrow
+ * from it, since those belong to removed materials. After mirrors have been turned off, a mirror of a configured
+ * repository is only removed once no working copy borrows from it.
+ */
+@Service
+public class GitMirrorCleanupService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitMirrorCleanupService.class);
+
+    private final GoConfigService goConfigService;
+    private final SystemEnvironment systemEnvironment;
+    private final File materialsRoot;
+
+    @Autowired
+    public GitMirrorCleanupService(GoConfigService goConfigService, SystemEnvironment systemEnvironment) {
+        this(goConfigService, systemEnvironment, new File("pipelines"));
+    }
+
+    GitMirrorCleanupService(GoConfigService goConfigService, SystemEnvironment systemEnvironment, File materialsRoot) {
+        this.goConfigService = goConfigService;
+        this.systemEnvironment = systemEnvironment;
+        this.materialsRoot = materialsRoot;
+    }
+
+    public void onTimer() {
+        File[] mirrors = GitMaterial.mirrorsFolder(materialsRoot).listFiles(File::isDirectory);
+        if (mirrors == null || mirrors.length == 0) {
+            return;
+        }
+        try {
+            Set<String> configuredMirrors = configuredMirrors();
+            Map<String, List<File>> borrowers = workingCopiesByMirror();
+            boolean mirrorsEnabled = systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_MIRRORS_ENABLED);
+            for (File mirror : mirrors) {
+                List<File> workingCopies = borrowers.getOrDefault(mirror.getName(), Collections.emptyList());
+                if (configuredMirrors.contains(mirror.getName())) {
+                    if (mirrorsEnabled || !workingCopies.isEmpty()) {
+                        continue;
+                    }
+                } else {
+                    for (File workingCopy : workingCopies) {
+                        LOGGER.info("[Git Mirrors] Removing working copy {} of a material that is no longer configured", workingCopy);
+                        FileUtils.deleteQuietly(workingCopy);
+                    }
+                }
+                synchronized (mirror.getAbsolutePath().intern()) {
+                    LOGGER.info("[Git Mirrors] Removing git mirror {} which is no longer used", mirror);
+                    FileUtils.deleteQuietly(mirror);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("[Git Mirrors] Could not remove unused git mirrors from {}", GitMaterial.mirrorsFolder(materialsRoot), e);
+        }
+    }
+
+    private Set<String> configuredMirrors() {
+        Set<String> mirrors = new HashSet<>();
+        for (MaterialConfig materialConfig : goConfigService.getCurrentConfig().getAllUniqueMaterialsOfPipelinesAndConfigRepos()) {
+            if (materialConfig instanceof GitMaterialConfig) {
+                mirrors.add(GitMaterial.mirrorFolderName(((GitMaterialConfig) materialConfig).getUrl()));
+            }
+        }
+        return mirrors;
+    }
+
+    private Map<String, List<File>> workingCopiesByMirror() throws IOException {
+        Map<String, List<File>> workingCopies = new HashMap<>();
+        File[] flyweights = new File(materialsRoot, "flyweight").listFiles(File::isDirectory);
+        if (flyweights == null) {
+            return workingCopies;
+        }
+        File mirrorsFolder = GitMaterial.mirrorsFolder(materialsRoot).getAbsoluteFile();
+        for (File flyweight : flyweights) {
+            File alternates = new File(flyweight, ".git/objects/info/alternates");
+            if (!alternates.isFile()) {
+                continue;
+            }
+            for (String line : FileUtils.readLines(alternates, UTF_8)) {
+                File mirror = new File(line.trim()).getParentFile();
+                if (mirror != null && mirrorsFolder.equals(mirror.getAbsoluteFile().getParentFile())) {
+                    workingCopies.computeIfAbsent(mirror.getName(), name -> new ArrayList<>()).add(flyweight);
+                }
+            }
+        }
+        return workingCopies;
+    }
+}
@@ -109,6 +109,32 @@ public class JobInstanceService implements JobPlanLoader, ConfigChangedListener
         return jobInstanceDao.findJobHistoryPage(pipelineName, stageName, jobConfigName, pagination.getPageSize(), pagination.getOffset());
     }
 
+    public JobInstances findJobHistoryPageBefore(String pipelineName, String stageName, String jobConfigName, long beforeJobId, int pageSize, String username, OperationResult result) {
+        if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
+            result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope.GLOBAL));
+            return null;
+        }
+        if (!securityService.hasViewPermissionForPipeline(Username.valueOf(username), pipelineName)) {
+            result.forbidden("Unauthorized", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
+            return null;
+        }
+
+        return jobInstanceDao.findJobHistoryPageBefore(pipelineName, stageName, jobConfigName, pageSize, beforeJobId);
+    }
+
+    public JobInstances findJobHistoryPageAfter(String pipelineName, String stageName, String jobConfigName, long afterJobId, int pageSize, String username, OperationResult result) {
+        if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
+            result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope.GLOBAL));
+            return null;
+        }
+        if (!securityService.hasViewPermissionForPipeline(Username.valueOf(username), pipelineName)) {
+            result.forbidden("Unauthorized", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
+            return null;
+        }
+
+        return jobInstanceDao.findJobHistoryPageAfter(pipelineName, stageName, jobConfigName, pageSize, afterJobId);
+    }
+
     public JobInstance buildByIdWithTransitions(long buildId) {
         return jobInstanceDao.buildByIdWithTransitions(buildId);
     }
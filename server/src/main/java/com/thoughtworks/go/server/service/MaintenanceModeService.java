@@ -32,6 +32,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MaintenanceModeService {
     private static final Logger LOGGER = LoggerFactory.getLogger(MaintenanceModeService.class);
     private static ConcurrentHashMap<String, MaterialPerformingMDU> runningMDUs = new ConcurrentHashMap<>();
+    private static ConcurrentHashMap<String, Long> lastMDUStartTimes = new ConcurrentHashMap<>();
     private ServerMaintenanceMode serverMaintenanceMode;
     private TimeProvider timeProvider;
 
@@ -59,7 +60,13 @@ public class MaintenanceModeService {
     }
 
     public void mduStartedForMaterial(Material material) {
-        runningMDUs.put(material.getFingerprint(), new MaterialPerformingMDU(material, new Timestamp(timeProvider.currentTimeMillis())));
+        long now = timeProvider.currentTimeMillis();
+        runningMDUs.put(material.getFingerprint(), new MaterialPerformingMDU(material, new Timestamp(now)));
+        lastMDUStartTimes.put(material.getFingerprint(), now);
+    }
+
+    public Long lastMDUStartTimeFor(Material material) {
+        return lastMDUStartTimes.get(material.getFingerprint());
     }
 
     public void mduFinishedForMaterial(Material material) {
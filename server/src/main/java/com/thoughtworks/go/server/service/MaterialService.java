@@ -58,6 +58,7 @@ public class MaterialService {
     private PackageRepositoryExtension packageRepositoryExtension;
     private SCMExtension scmExtension;
     private TransactionTemplate transactionTemplate;
+    private final ScmSubprocessGovernor scmSubprocessGovernor;
     private Map<Class, MaterialPoller> materialPollerMap = new HashMap<>();
 
     @Autowired
@@ -66,13 +67,15 @@ public class MaterialService {
                            SecurityService securityService,
                            PackageRepositoryExtension packageRepositoryExtension,
                            SCMExtension scmExtension,
-                           TransactionTemplate transactionTemplate) {
+                           TransactionTemplate transactionTemplate,
+                           ScmSubprocessGovernor scmSubprocessGovernor) {
         this.materialRepository = materialRepository;
         this.goConfigService = goConfigService;
         this.securityService = securityService;
         this.packageRepositoryExtension = packageRepositoryExtension;
         this.scmExtension = scmExtension;
         this.transactionTemplate = transactionTemplate;
+        this.scmSubprocessGovernor = scmSubprocessGovernor;
         populatePollerImplementations();
     }
 
@@ -112,14 +115,24 @@ public class MaterialService {
     public List<Modification> latestModification(Material material,
                                                  File baseDir,
                                                  final SubprocessExecutionContext execCtx) {
-        return getPollerImplementation(material).latestModification(material, baseDir, execCtx);
+        return scmSubprocessGovernor.call(material, "check for latest modification of",
+                () -> getPollerImplementation(material).latestModification(material, baseDir, execCtx));
     }
 
     public List<Modification> modificationsSince(Material material,
                                                  File baseDir,
                                                  Revision revision,
                                                  final SubprocessExecutionContext execCtx) {
-        return getPollerImplementation(material).modificationsSince(material, baseDir, revision, execCtx);
+        return scmSubprocessGovernor.call(material, "check for modifications of",
+                () -> getPollerImplementation(material).modificationsSince(material, baseDir, revision, execCtx));
+    }
+
+    public void checkout(Material material,
+                         File baseDir,
+                         Revision revision,
+                         final SubprocessExecutionContext execCtx) {
+        scmSubprocessGovernor.run(material, "checkout",
+                () -> getPollerImplementation(material).checkout(material, baseDir, revision, execCtx));
     }
 
     public MaterialPoller getPollerImplementation(Material material) {
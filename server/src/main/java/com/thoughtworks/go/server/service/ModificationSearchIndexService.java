@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * @understands adding modifications saved before the revision search index existed to that index, a batch at a time
+ */
+@Service
+public class ModificationSearchIndexService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModificationSearchIndexService.class);
+
+    private final MaterialRepository materialRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SystemEnvironment systemEnvironment;
+    private volatile boolean backfillComplete = false;
+
+    @Autowired
+    public ModificationSearchIndexService(MaterialRepository materialRepository, TransactionTemplate transactionTemplate, SystemEnvironment systemEnvironment) {
+        this.materialRepository = materialRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public void onTimer() {
+        if (backfillComplete) {
+            return;
+        }
+        int batchSize = systemEnvironment.get(SystemEnvironment.MODIFICATION_SEARCH_INDEX_BACKFILL_BATCH_SIZE);
+        try {
+            Integer indexed = transactionTemplate.execute(status -> materialRepository.backfillSearchIndex(batchSize));
+            if (indexed == 0) {
+                LOGGER.info("[Revision Search] All modifications have been added to the search index");
+                backfillComplete = true;
+            } else {
+                LOGGER.debug("[Revision Search] Added {} modifications to the search index", indexed);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("[Revision Search] Could not add modifications to the search index", e);
+        }
+    }
+}
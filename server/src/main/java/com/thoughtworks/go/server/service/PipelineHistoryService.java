@@ -49,6 +49,7 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 public class PipelineHistoryService {
@@ -126,6 +127,24 @@ public class PipelineHistoryService {
      * Populates future stages as empty, Populates can run for pipeline & each stage, Populate stage run permission
      */
     public PipelineInstanceModels loadMinimalData(String pipelineName, Pagination pagination, Username username, OperationResult result) {
+        return loadMinimalData(pipelineName, username, result, () -> pipelineDao.loadHistory(pipelineName, pagination.getPageSize(), pagination.getOffset()));
+    }
+
+    /*
+     * Same as loadMinimalData, but pages by pipeline id instead of by offset, so deep pages are as cheap as the first.
+     */
+    public PipelineInstanceModels loadMinimalDataBefore(String pipelineName, long beforePipelineId, int pageSize, Username username, OperationResult result) {
+        return loadMinimalData(pipelineName, username, result, () -> pipelineDao.loadHistoryBefore(pipelineName, beforePipelineId, pageSize));
+    }
+
+    /*
+     * Loads the page of instances newer than the given pipeline id, to page back towards the latest run.
+     */
+    public PipelineInstanceModels loadMinimalDataAfter(String pipelineName, long afterPipelineId, int pageSize, Username username, OperationResult result) {
+        return loadMinimalData(pipelineName, username, result, () -> pipelineDao.loadHistoryAfter(pipelineName, afterPipelineId, pageSize));
+    }
+
+    private PipelineInstanceModels loadMinimalData(String pipelineName, Username username, OperationResult result, Supplier<PipelineInstanceModels> historyLoader) {
         if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
             result.notFound("Not Found", "Pipeline " + pipelineName + " not found", HealthStateType.general(HealthStateScope.GLOBAL));
             return null;
@@ -135,11 +154,10 @@ public class PipelineHistoryService {
             return null;
         }
 
-        PipelineInstanceModels history = pipelineDao.loadHistory(pipelineName, pagination.getPageSize(), pagination.getOffset());
+        PipelineInstanceModels history = historyLoader.get();
+        materialRepository.populateMaterialRevisionsOnBuildCauses(history);
 
         for (PipelineInstanceModel pipelineInstanceModel : history) {
-            populateMaterialRevisionsOnBuildCause(pipelineInstanceModel);
-
             populatePlaceHolderStages(pipelineInstanceModel);
             populateCanRunStatus(username, pipelineInstanceModel);
             populateStageOperatePermission(pipelineInstanceModel, username);
@@ -520,9 +538,9 @@ public class PipelineHistoryService {
             return PipelineInstanceModels.createPipelineInstanceModels();
         }
         PipelineInstanceModels models = pipelineDao.findMatchingPipelineInstances(pipelineName, pattern, limitForPipeline(pipelineName, limit));
+        materialRepository.populateMaterialRevisionsOnBuildCauses(models);
         for (PipelineInstanceModel model : models) {
             populatePlaceHolderStages(model);
-            populateMaterialRevisionsOnBuildCause(model);
         }
         return models;
     }
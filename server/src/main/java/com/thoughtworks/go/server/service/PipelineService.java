@@ -33,6 +33,7 @@ import com.thoughtworks.go.server.domain.PipelineConfigDependencyGraph;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.dd.FanInGraph;
+import com.thoughtworks.go.server.service.dd.FanInResolutionStatistics;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang.StringUtils;
@@ -44,8 +45,14 @@ import org.springframework.transaction.support.TransactionCallback;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class PipelineService implements UpstreamPipelineResolver {
@@ -60,6 +67,9 @@ public class PipelineService implements UpstreamPipelineResolver {
     private final SystemEnvironment systemEnvironment;
     private final GoConfigService goConfigService;
     private MaterialConfigConverter materialConfigConverter;
+    private final ConcurrentMap<CaseInsensitiveString, FanInGraph> fanInGraphs = new ConcurrentHashMap<>();
+    private final FanInResolutionStatistics fanInResolutionStatistics = new FanInResolutionStatistics();
+    private final ExecutorService fanInResolvers;
 
     @Autowired
     public PipelineService(PipelineSqlMapDao pipelineDao, StageService stageService, PipelineLockService pipelineLockService, PipelineTimeline pipelineTimeline, MaterialRepository materialRepository,
@@ -73,6 +83,12 @@ public class PipelineService implements UpstreamPipelineResolver {
         this.systemEnvironment = systemEnvironment;
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanInResolvers = Executors.newFixedThreadPool(Math.max(1, systemEnvironment.get(SystemEnvironment.RESOLVE_FANIN_THREADS)), runnable -> {
+            Thread thread = new Thread(runnable, "fan-in-resolver-thread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public Pipeline fullPipelineById(long pipelineId) {
@@ -217,12 +233,28 @@ public class PipelineService implements UpstreamPipelineResolver {
     /* DIAMOND BEGIN */
 
     public MaterialRevisions getRevisionsBasedOnDependencies(MaterialRevisions actualRevisions, CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
-        FanInGraph fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        FanInGraph fanInGraph = fanInGraphFor(cruiseConfig, pipelineName);
         final MaterialRevisions computedRevisions = fanInGraph.computeRevisions(actualRevisions, pipelineTimeline);
         fillUpNonOverridableRevisions(actualRevisions, computedRevisions);
         return restoreOriginalMaterialConfigAndMaterialOrderUsingFingerprint(actualRevisions, computedRevisions);
     }
 
+    private FanInGraph fanInGraphFor(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
+        FanInGraph cached = fanInGraphs.get(pipelineName);
+        if (cached != null && cached.isBuiltFrom(cruiseConfig)) {
+            return cached;
+        }
+        fanInGraphs.values().removeIf(fanInGraph -> !fanInGraph.isBuiltFrom(cruiseConfig));
+        FanInGraph fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter, fanInResolvers);
+        fanInGraph.setFanInEventListener(fanInResolutionStatistics);
+        fanInGraphs.put(pipelineName, fanInGraph);
+        return fanInGraph;
+    }
+
+    public Map<String, Object> fanInResolutionStatistics() {
+        return fanInResolutionStatistics.statistics();
+    }
+
     // This is for debugging purposes
     public String getRevisionsBasedOnDependenciesForDebug(CaseInsensitiveString pipelineName, final Integer targetIterationCount) {
         CruiseConfig cruiseConfig = goConfigService.getCurrentConfig();
@@ -53,4 +53,19 @@ public class ServerSubprocessExecutionContext implements SubprocessExecutionCont
     public boolean isServer() {
         return true;
     }
+
+    @Override
+    public int maxModifiedFilesPerRevision() {
+        return systemEnvironment.get(SystemEnvironment.MATERIAL_MAX_MODIFIED_FILES_PER_REVISION);
+    }
+
+    @Override
+    public boolean isGitMirrorsEnabled() {
+        return systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_MIRRORS_ENABLED);
+    }
+
+    @Override
+    public int gitMirrorRefreshIntervalInSeconds() {
+        return systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_MIRROR_REFRESH_INTERVAL_IN_SECONDS);
+    }
 }
@@ -439,6 +439,42 @@ public class StageService implements StageFinder {
         return stageDao.findDetailedStageHistoryByOffset(pipelineName, stageName, pagination);
     }
 
+    public StageInstanceModels findDetailedStageHistoryBefore(String pipelineName,
+                                                              String stageName,
+                                                              long beforeStageId,
+                                                              int pageSize,
+                                                              String username,
+                                                              OperationResult result) {
+        if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
+            result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope.GLOBAL));
+            return null;
+        }
+        if (!securityService.hasViewPermissionForPipeline(Username.valueOf(username), pipelineName)) {
+            result.forbidden("Unauthorized", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
+            return null;
+        }
+
+        return stageDao.findDetailedStageHistoryBefore(pipelineName, stageName, beforeStageId, pageSize);
+    }
+
+    public StageInstanceModels findDetailedStageHistoryAfter(String pipelineName,
+                                                             String stageName,
+                                                             long afterStageId,
+                                                             int pageSize,
+                                                             String username,
+                                                             OperationResult result) {
+        if (!goConfigService.currentCruiseConfig().hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
+            result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope.GLOBAL));
+            return null;
+        }
+        if (!securityService.hasViewPermissionForPipeline(Username.valueOf(username), pipelineName)) {
+            result.forbidden("Unauthorized", NOT_AUTHORIZED_TO_VIEW_PIPELINE, HealthStateType.general(HealthStateScope.forPipeline(pipelineName)));
+            return null;
+        }
+
+        return stageDao.findDetailedStageHistoryAfter(pipelineName, stageName, afterStageId, pageSize);
+    }
+
     /**
      * @return Listeners
      * @deprecated Used only in tests
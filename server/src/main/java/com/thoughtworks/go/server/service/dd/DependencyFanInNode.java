@@ -56,6 +56,15 @@ public class DependencyFanInNode extends FanInNode {
         super(material);
     }
 
+    @Override
+    void reset() {
+        totalInstanceCount = Integer.MAX_VALUE;
+        maxBackTrackLimit = Integer.MAX_VALUE;
+        currentCount = 0;
+        currentRevision = null;
+        stageIdentifierScmMaterial = new LinkedHashMap<>();
+    }
+
     public void populateRevisions(CaseInsensitiveString pipelineName, FanInGraphContext context) {
         initialize(context);
         fillNextRevisions(context);
@@ -20,4 +20,10 @@ import java.util.List;
 
 public interface FanInEventListener {
     void iterationComplete(int iterationCount, List<DependencyFanInNode> dependencyFanInNodes);
+
+    default void resolutionComplete(int iterationCount, long timeTakenInMillis) {
+    }
+
+    default void resolutionReused() {
+    }
 }
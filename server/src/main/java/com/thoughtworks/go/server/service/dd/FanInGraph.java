@@ -38,12 +38,19 @@ import com.thoughtworks.go.server.service.NoModificationsPresentForDependentMate
 import com.thoughtworks.go.util.Pair;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static com.thoughtworks.go.server.service.dd.DependencyFanInNode.RevisionAlteration.ALL_OPTIONS_EXHAUSTED;
 
 public class FanInGraph {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FanInGraph.class);
     private static final int REVISION_BUFFER_SIZE = 5;
 
     private final PipelineDao pipelineDao;
@@ -59,11 +66,20 @@ public class FanInGraph {
     private final DependencyFanInNode root;
     private final CaseInsensitiveString pipelineName;
     private final SystemEnvironment systemEnvironment;
+    private final Executor upstreamResolver;
     private FanInEventListener fanInEventListener;
+    private String lastResolvedKey;
+    private MaterialRevisions lastResolvedRevisions;
 
     public FanInGraph(CruiseConfig cruiseConfig, CaseInsensitiveString root, MaterialRepository materialRepository, PipelineDao pipelineDao, SystemEnvironment systemEnvironment,
                       MaterialConfigConverter materialConfigConverter) {
+        this(cruiseConfig, root, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter, null);
+    }
+
+    public FanInGraph(CruiseConfig cruiseConfig, CaseInsensitiveString root, MaterialRepository materialRepository, PipelineDao pipelineDao, SystemEnvironment systemEnvironment,
+                      MaterialConfigConverter materialConfigConverter, Executor upstreamResolver) {
         this.cruiseConfig = cruiseConfig;
+        this.upstreamResolver = upstreamResolver;
         this.materialRepository = materialRepository;
         this.pipelineDao = pipelineDao;
         this.pipelineName = root;
@@ -126,6 +142,10 @@ public class FanInGraph {
         return node;
     }
 
+    public boolean isBuiltFrom(CruiseConfig cruiseConfig) {
+        return this.cruiseConfig == cruiseConfig;
+    }
+
     @Deprecated
     public void setFanInEventListener(FanInEventListener fanInEventListener) {
         this.fanInEventListener = fanInEventListener;
@@ -156,7 +176,12 @@ public class FanInGraph {
         return dependencyMaterialListMap;
     }
 
-    public MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
+    /**
+     * The graph keeps its resolution state on its nodes, so a graph can be reused for a pipeline as long as the config
+     * does not change, but only one resolution runs on it at a time. The result of the last resolution is kept and
+     * handed out again while neither the material revisions nor the pipeline timeline have moved on.
+     */
+    public synchronized MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
         assertAllDirectDependenciesArePresentInInput(actualRevisions, pipelineName);
 
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
@@ -168,6 +193,16 @@ public class FanInGraph {
             return actualRevisions;
         }
 
+        String resolvedKey = resolvedKey(actualRevisions, pipelineTimeline);
+        if (resolvedKey.equals(lastResolvedKey)) {
+            if (fanInEventListener != null) {
+                fanInEventListener.resolutionReused();
+            }
+            return copyOf(lastResolvedRevisions);
+        }
+
+        long startedAt = System.currentTimeMillis();
+        resetNodes();
         FanInGraphContext context = buildContext(pipelineTimeline);
         root.initialize(context);
 
@@ -177,13 +212,48 @@ public class FanInGraph {
             fanInEventListener.iterationComplete(0, depChildren);
         }
 
-        iterateAndMakeAllUniqueScmRevisionsForChildrenSame(depChildren, pipelineName, context);
+        int iterations = iterateAndMakeAllUniqueScmRevisionsForChildrenSame(depChildren, pipelineName, context);
 
         List<MaterialRevision> finalRevisionsForScmChildren = createFinalRevisionsForScmChildren(root.latestPipelineTimelineEntry(context), scmChildren, depChildren);
 
         List<MaterialRevision> finalRevisionsForDepChildren = createFinalRevisionsForDepChildren(depChildren);
 
-        return new MaterialRevisions(CollectionUtils.union(getMaterialsFromCurrentPipeline(finalRevisionsForScmChildren, actualRevisions), finalRevisionsForDepChildren));
+        MaterialRevisions computedRevisions = new MaterialRevisions(CollectionUtils.union(getMaterialsFromCurrentPipeline(finalRevisionsForScmChildren, actualRevisions), finalRevisionsForDepChildren));
+
+        long timeTaken = System.currentTimeMillis() - startedAt;
+        LOGGER.debug("[Fan-in] Resolved revisions for {} in {} iteration(s), took {}ms", pipelineName, iterations, timeTaken);
+        if (fanInEventListener != null) {
+            fanInEventListener.resolutionComplete(iterations, timeTaken);
+        }
+
+        lastResolvedKey = resolvedKey;
+        lastResolvedRevisions = computedRevisions;
+        return copyOf(computedRevisions);
+    }
+
+    private String resolvedKey(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
+        StringBuilder key = new StringBuilder().append(pipelineTimeline.maximumId());
+        for (MaterialRevision revision : actualRevisions) {
+            key.append('|').append(revision.getMaterial().getFingerprint());
+            for (Modification modification : revision.getModifications()) {
+                key.append(':').append(modification.getId()).append('/').append(modification.getRevision());
+            }
+        }
+        return key.toString();
+    }
+
+    private MaterialRevisions copyOf(MaterialRevisions revisions) {
+        MaterialRevisions copy = new MaterialRevisions();
+        for (MaterialRevision revision : revisions) {
+            copy.addRevision(new MaterialRevision(revision.getMaterial(), revision.isChanged(), new ArrayList<>(revision.getModifications())));
+        }
+        return copy;
+    }
+
+    private void resetNodes() {
+        for (FanInNode node : nodes.values()) {
+            node.reset();
+        }
     }
 
     //This whole method is repeated for reporting and it does not use actual revisions for determining final revisions
@@ -192,7 +262,7 @@ public class FanInGraph {
     //Ramraj ge salute
     //Srikant & Sachin
     @Deprecated
-    public Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
+    public synchronized Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
         List<RootFanInNode> scmChildren = scmAndDepMaterialsChildren.first();
         List<DependencyFanInNode> depChildren = scmAndDepMaterialsChildren.last();
@@ -202,6 +272,7 @@ public class FanInGraph {
             return null;
         }
 
+        resetNodes();
         FanInGraphContext context = buildContext(pipelineTimeline);
         root.initialize(context);
 
@@ -286,7 +357,7 @@ public class FanInGraph {
         return new Pair<>(scmMaterials, depMaterials);
     }
 
-    private void iterateAndMakeAllUniqueScmRevisionsForChildrenSame(List<DependencyFanInNode> depChildren, CaseInsensitiveString pipelineName, FanInGraphContext context) {
+    private int iterateAndMakeAllUniqueScmRevisionsForChildrenSame(List<DependencyFanInNode> depChildren, CaseInsensitiveString pipelineName, FanInGraphContext context) {
         StageIdFaninScmMaterialPair revisionToSet = getRevisionToSet();
         int i = 1;
         while (revisionToSet != null) {
@@ -304,14 +375,39 @@ public class FanInGraph {
             i++;
             revisionToSet = getRevisionToSet();
         }
+        return i - 1;
     }
 
+    //Each upstream subtree only walks the timeline and its own node, so they are populated independently
     private void initChildren(List<DependencyFanInNode> depChildren, CaseInsensitiveString pipelineName, FanInGraphContext context) {
+        if (depChildren.size() == 1 || !canResolveUpstreamsConcurrently()) {
+            for (DependencyFanInNode child : depChildren) {
+                child.populateRevisions(pipelineName, context);
+            }
+            return;
+        }
+        List<CompletableFuture<Void>> populated = new ArrayList<>();
         for (DependencyFanInNode child : depChildren) {
-            child.populateRevisions(pipelineName, context);
+            populated.add(CompletableFuture.runAsync(() -> child.populateRevisions(pipelineName, context), upstreamResolver));
+        }
+        CompletionException failure = null;
+        for (CompletableFuture<Void> future : populated) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure.getCause() instanceof RuntimeException ? (RuntimeException) failure.getCause() : failure;
         }
     }
 
+    //Lookups made inside the caller's transaction have to stay on its thread to see what it sees
+    private boolean canResolveUpstreamsConcurrently() {
+        return upstreamResolver != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
     private void assertAllDirectDependenciesArePresentInInput(MaterialRevisions actualRevisions, CaseInsensitiveString pipelineName) {
         Collection<String> actualRevFingerprints = CollectionUtils.collect(actualRevisions.iterator(), actualRevision -> actualRevision.getMaterial().getFingerprint());
 
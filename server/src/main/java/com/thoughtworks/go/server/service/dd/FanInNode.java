@@ -29,6 +29,8 @@ public abstract class FanInNode {
         this.materialConfig = materialConfig;
     }
 
+    abstract void reset();
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
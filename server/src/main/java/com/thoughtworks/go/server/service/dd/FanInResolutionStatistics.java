@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.dd;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @understands Keeping count of how fan-in resolutions went across all pipelines
+ */
+public class FanInResolutionStatistics implements FanInEventListener {
+    private final AtomicLong resolutions = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong totalIterations = new AtomicLong();
+    private final AtomicLong totalTimeInMillis = new AtomicLong();
+    private final AtomicLong maxTimeInMillis = new AtomicLong();
+
+    @Override
+    public void iterationComplete(int iterationCount, List<DependencyFanInNode> dependencyFanInNodes) {
+    }
+
+    @Override
+    public void resolutionComplete(int iterationCount, long timeTakenInMillis) {
+        resolutions.incrementAndGet();
+        totalIterations.addAndGet(iterationCount);
+        totalTimeInMillis.addAndGet(timeTakenInMillis);
+        maxTimeInMillis.accumulateAndGet(timeTakenInMillis, Math::max);
+    }
+
+    @Override
+    public void resolutionReused() {
+        reused.incrementAndGet();
+    }
+
+    public Map<String, Object> statistics() {
+        long resolved = resolutions.get();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Resolutions", resolved);
+        json.put("Reused", reused.get());
+        json.put("TotalIterations", totalIterations.get());
+        json.put("AverageTimeInMillis", resolved == 0 ? 0 : totalTimeInMillis.get() / resolved);
+        json.put("MaxTimeInMillis", maxTimeInMillis.get());
+        return json;
+    }
+}
@@ -37,17 +37,20 @@ import org.springframework.stereotype.Service;
 public class MaterialConnectivityService {
     private static final Map<Class, MaterialConnectivityChecker> connectivityCheckerMap = new HashMap<>();
     private MaterialConfigConverter materialConfigConverter;
+    private ScmSubprocessGovernor scmSubprocessGovernor;
 
     @Autowired
-    public MaterialConnectivityService(MaterialConfigConverter materialConfigConverter) {
+    public MaterialConnectivityService(MaterialConfigConverter materialConfigConverter, ScmSubprocessGovernor scmSubprocessGovernor) {
         this.materialConfigConverter = materialConfigConverter;
+        this.scmSubprocessGovernor = scmSubprocessGovernor;
         populateCheckers();
     }
 
 
     public ValidationBean checkConnection(MaterialConfig materialConfig, final SubprocessExecutionContext execCtx) {
         Material material = materialConfigConverter.toMaterial(materialConfig);
-        return getCheckerImplementation(material).checkConnection(material, execCtx);
+        return scmSubprocessGovernor.call(material, "check connection to",
+                () -> getCheckerImplementation(material).checkConnection(material, execCtx));
     }
 
     private void populateCheckers() {
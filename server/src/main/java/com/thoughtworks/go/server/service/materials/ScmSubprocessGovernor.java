@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.materials;
+
+import com.thoughtworks.go.config.materials.ScmMaterial;
+import com.thoughtworks.go.domain.materials.Material;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @understands how many SCM subprocesses the server may run at once, in total and against any one host
+ */
+@Component
+public class ScmSubprocessGovernor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScmSubprocessGovernor.class);
+    static final String LOCAL_HOST = "local";
+
+    private final int maxConcurrent;
+    private final int maxConcurrentPerHost;
+    private final long queueTimeoutInMillis;
+    private final Semaphore globalPermits;
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public ScmSubprocessGovernor(SystemEnvironment systemEnvironment) {
+        this(systemEnvironment.get(SystemEnvironment.SCM_SUBPROCESS_MAX_CONCURRENT),
+                systemEnvironment.get(SystemEnvironment.SCM_SUBPROCESS_MAX_CONCURRENT_PER_HOST),
+                TimeUnit.SECONDS.toMillis(systemEnvironment.get(SystemEnvironment.SCM_SUBPROCESS_QUEUE_TIMEOUT_IN_SECONDS)));
+    }
+
+    ScmSubprocessGovernor(int maxConcurrent, int maxConcurrentPerHost, long queueTimeoutInMillis) {
+        this.maxConcurrent = limit(maxConcurrent);
+        this.maxConcurrentPerHost = limit(maxConcurrentPerHost);
+        this.queueTimeoutInMillis = queueTimeoutInMillis;
+        this.globalPermits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    public void run(Material material, String operation, Runnable action) {
+        call(material, operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T call(Material material, String operation, Supplier<T> action) {
+        if (!(material instanceof ScmMaterial)) {
+            return action.get();
+        }
+
+        String host = hostOf(((ScmMaterial) material).getUrl());
+        Statistics stats = statistics.computeIfAbsent(StringUtils.defaultString(material.getType(), material.getClass().getSimpleName()), type -> new Statistics());
+        Semaphore hostPermit = hostPermits.computeIfAbsent(host, h -> new Semaphore(maxConcurrentPerHost, true));
+
+        long queuedAt = System.nanoTime();
+        stats.queued.incrementAndGet();
+        try {
+            acquire(hostPermit, globalPermits, queuedAt, material, operation, stats);
+        } finally {
+            stats.queued.decrementAndGet();
+        }
+
+        long startedAt = System.nanoTime();
+        stats.running.incrementAndGet();
+        boolean succeeded = false;
+        try {
+            T result = action.get();
+            succeeded = true;
+            return result;
+        } finally {
+            stats.running.decrementAndGet();
+            globalPermits.release();
+            hostPermit.release();
+            stats.record(TimeUnit.NANOSECONDS.toMillis(startedAt - queuedAt), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), succeeded);
+        }
+    }
+
+    private void acquire(Semaphore hostPermit, Semaphore globalPermit, long queuedAt, Material material, String operation, Statistics stats) {
+        long deadline = queuedAt + TimeUnit.MILLISECONDS.toNanos(queueTimeoutInMillis);
+        try {
+            if (!hostPermit.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw timedOut(material, operation, stats);
+            }
+            if (!globalPermit.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                hostPermit.release();
+                throw timedOut(material, operation, stats);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(String.format("Interrupted while waiting to %s material %s", operation, material.getDisplayName()), e);
+        }
+    }
+
+    private RuntimeException timedOut(Material material, String operation, Statistics stats) {
+        stats.timedOut.incrementAndGet();
+        String message = String.format("Timed out after %s seconds waiting to %s material %s. Too many SCM operations are already running on this server.",
+                TimeUnit.MILLISECONDS.toSeconds(queueTimeoutInMillis), operation, material.getDisplayName());
+        LOGGER.warn("[SCM Subprocess] {}", message);
+        return new RuntimeException(message);
+    }
+
+    public Map<String, Object> statistics() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("MaxConcurrent", maxConcurrent);
+        json.put("MaxConcurrentPerHost", maxConcurrentPerHost);
+        json.put("QueueTimeoutInMillis", queueTimeoutInMillis);
+        json.put("Running", maxConcurrent - globalPermits.availablePermits());
+        json.put("Waiting", globalPermits.getQueueLength());
+
+        Map<String, Object> materialTypes = new LinkedHashMap<>();
+        statistics.forEach((type, stats) -> materialTypes.put(type, stats.asJson()));
+        json.put("MaterialTypes", materialTypes);
+        return json;
+    }
+
+    static String hostOf(String url) {
+        if (StringUtils.isBlank(url)) {
+            return LOCAL_HOST;
+        }
+        String address = url.trim();
+        if (address.contains("://")) {
+            try {
+                String host = new URI(address).getHost();
+                return host == null ? LOCAL_HOST : host.toLowerCase(Locale.ROOT);
+            } catch (Exception e) {
+                address = StringUtils.substringBefore(StringUtils.substringAfter(address, "://"), "/");
+            }
+        }
+        if (address.contains("@")) {
+            address = StringUtils.substringAfterLast(address, "@");
+        }
+        address = StringUtils.removeStartIgnoreCase(StringUtils.removeStartIgnoreCase(address, "ssl:"), "tcp:");
+        String host = StringUtils.substringBefore(address, ":");
+        if (host.isEmpty() || host.contains("/") || host.contains("\\") || host.length() == 1) {
+            return LOCAL_HOST;
+        }
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    private static int limit(int configured) {
+        return configured > 0 ? configured : Integer.MAX_VALUE;
+    }
+
+    private static class Statistics {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+        private final AtomicLong totalQueueWaitInMillis = new AtomicLong();
+        private final AtomicLong maxQueueWaitInMillis = new AtomicLong();
+        private final AtomicLong totalRunTimeInMillis = new AtomicLong();
+        private final AtomicLong maxRunTimeInMillis = new AtomicLong();
+
+        void record(long queueWaitInMillis, long runTimeInMillis, boolean success) {
+            totalQueueWaitInMillis.addAndGet(queueWaitInMillis);
+            maxQueueWaitInMillis.accumulateAndGet(queueWaitInMillis, Math::max);
+            totalRunTimeInMillis.addAndGet(runTimeInMillis);
+            maxRunTimeInMillis.accumulateAndGet(runTimeInMillis, Math::max);
+            (success ? succeeded : failed).incrementAndGet();
+        }
+
+        Map<String, Object> asJson() {
+            long completed = succeeded.get() + failed.get();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Waiting", queued.get());
+            json.put("Running", running.get());
+            json.put("Succeeded", succeeded.get());
+            json.put("Failed", failed.get());
+            json.put("TimedOutWaiting", timedOut.get());
+            json.put("AverageQueueWaitInMillis", completed == 0 ? 0 : totalQueueWaitInMillis.get() / completed);
+            json.put("MaxQueueWaitInMillis", maxQueueWaitInMillis.get());
+            json.put("AverageRunTimeInMillis", completed == 0 ? 0 : totalRunTimeInMillis.get() / completed);
+            json.put("MaxRunTimeInMillis", maxRunTimeInMillis.get());
+            return json;
+        }
+    }
+}
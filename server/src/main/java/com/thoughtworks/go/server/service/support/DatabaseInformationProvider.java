@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service.support;
+
+import com.thoughtworks.go.server.database.InstrumentedDataSource;
+import com.thoughtworks.go.server.database.QueryStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class DatabaseInformationProvider implements ServerInfoProvider {
+    private final DataSource dataSource;
+    private final QueryStatistics queryStatistics;
+
+    @Autowired
+    public DatabaseInformationProvider(DataSource dataSource, QueryStatistics queryStatistics) {
+        this.dataSource = dataSource;
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Override
+    public double priority() {
+        return 12.2;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        if (dataSource instanceof InstrumentedDataSource) {
+            json.put("Connection Pool", ((InstrumentedDataSource) dataSource).poolStatistics());
+        }
+        json.put("Query Statistics", queryStatistics.asJson());
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Database Statistics";
+    }
+}
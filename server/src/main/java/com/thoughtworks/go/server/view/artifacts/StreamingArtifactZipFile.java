@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.view.artifacts;
+
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
+import com.thoughtworks.go.server.web.ArtifactFolder;
+import org.springframework.web.servlet.view.AbstractView;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * @understands sending an artifact folder as a zip while it is being cached
+ */
+public class StreamingArtifactZipFile extends AbstractView {
+    private final ZipArtifactCache zipArtifactCache;
+    private final ArtifactFolder artifactFolder;
+
+    public StreamingArtifactZipFile(ZipArtifactCache zipArtifactCache, ArtifactFolder artifactFolder) {
+        this.zipArtifactCache = zipArtifactCache;
+        this.artifactFolder = artifactFolder;
+        setContentType("application/zip");
+    }
+
+    //Claimed only now that the view is rendered, so a view that never is cannot keep everyone else from creating the cache
+    protected void renderMergedOutputModel(Map model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        ServletOutputStream out = response.getOutputStream();
+        if (!zipArtifactCache.claimCacheCreation(artifactFolder)) {
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            out.close();
+            return;
+        }
+        response.setContentType(getContentType());
+        zipArtifactCache.streamAndCreateCachedFile(artifactFolder, out);
+        out.flush();
+    }
+}
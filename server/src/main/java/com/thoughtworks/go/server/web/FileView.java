@@ -17,7 +17,6 @@
 package com.thoughtworks.go.server.web;
 
 import com.thoughtworks.go.util.ZipUtil;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,9 +28,14 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.Deflater;
 
 public class FileView implements View, ServletContextAware {
@@ -40,6 +44,7 @@ public class FileView implements View, ServletContextAware {
 
     private ServletContext servletContext;
     public static final String NEED_TO_ZIP = "need_to_zip";
+    private static final Pattern SINGLE_BYTE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
 
     private ServletContext getServletContext() {
         return this.servletContext;
@@ -53,24 +58,105 @@ public class FileView implements View, ServletContextAware {
         return "application/octet-stream";
     }
 
-    private void handleFile(File file, boolean needToZip, HttpServletResponse response) throws Exception {
+    private void handleFile(File file, boolean needToZip, HttpServletRequest request, HttpServletResponse response) throws Exception {
         String filename = file.getName();
         seContentType(needToZip, response, filename);
         setHeaders(response, filename);
-        setContentLength(needToZip, file, response);
-        setOutput(needToZip, file, response);
+        if (needToZip) {
+            setZippedOutput(file, response);
+        } else {
+            sendFile(file, request, response);
+        }
     }
 
-    private void setOutput(boolean needToZip, File file, HttpServletResponse response) throws IOException {
+    private void setZippedOutput(File file, HttpServletResponse response) throws IOException {
         ServletOutputStream out = response.getOutputStream();
-        if (needToZip) {
-            new ZipUtil().zip(file, out, Deflater.NO_COMPRESSION);
+        new ZipUtil().zip(file, out, Deflater.NO_COMPRESSION);
+        out.flush();
+    }
+
+    private void sendFile(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long fileLength = file.length();
+        String entityTag = entityTag(file);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", entityTag);
+        response.setDateHeader("Last-Modified", file.lastModified());
+
+        long start = 0;
+        long length = fileLength;
+        String range = request.getHeader("Range");
+        if (range != null && rangeStillApplies(request, entityTag, file)) {
+            Matcher matcher = SINGLE_BYTE_RANGE.matcher(range.trim());
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                long end = fileLength - 1;
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, fileLength - bytePosition(matcher.group(2)));
+                } else {
+                    start = bytePosition(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, bytePosition(matcher.group(2)));
+                    }
+                }
+                if (start >= fileLength || start > end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader("Content-Range", "bytes */" + fileLength);
+                    return;
+                }
+                length = end - start + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", String.format("bytes %d-%d/%d", start, end, fileLength));
+            }
+        }
+
+        if (length == fileLength) {
+            setContentLength(false, file, response);
         } else {
-            IOUtils.copy(new FileInputStream(file), out);
+            response.addHeader("Content-Length", Long.toString(length));
+        }
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of file " + file.getAbsolutePath());
+                }
+                position += transferred;
+            }
         }
         out.flush();
     }
 
+    // the range is only digits, so a number too large for a long is simply past the end of any file
+    private long bytePosition(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private boolean rangeStillApplies(HttpServletRequest request, String entityTag, File file) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(entityTag);
+        }
+        try {
+            return request.getDateHeader("If-Range") / 1000 == file.lastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String entityTag(File file) {
+        return String.format("\"%x-%x\"", file.length(), file.lastModified());
+    }
+
     void setContentLength(boolean needToZip, File file, HttpServletResponse response) {
         if (!needToZip) {
             response.addHeader("Content-Length", Long.toString(file.length()));
@@ -102,14 +188,14 @@ public class FileView implements View, ServletContextAware {
     public void render(Map map, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) throws Exception {
         File file = (File) map.get("targetFile");
         boolean needToZip = map.containsKey(NEED_TO_ZIP);
-        handleFileWithLogging(httpServletResponse, file, needToZip);
+        handleFileWithLogging(httpServletRequest, httpServletResponse, file, needToZip);
     }
 
-    private void handleFileWithLogging(HttpServletResponse httpServletResponse, File file, boolean needToZip) throws Exception {
+    private void handleFileWithLogging(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, File file, boolean needToZip) throws Exception {
         LOGGER.info("[Artifact Download] About to download: {}. ShouldZip? = {}", file.getAbsolutePath(), needToZip);
         long before = System.currentTimeMillis();
 
-        handleFile(file, needToZip, httpServletResponse);
+        handleFile(file, needToZip, httpServletRequest, httpServletResponse);
 
         long timeTaken = System.currentTimeMillis() - before;
         LOGGER.info("[Artifact Download] Finished downloading: {}. ShouldZip? = {}. The time taken is: {}ms", file.getAbsolutePath(), needToZip, timeTaken);
@@ -31,9 +31,19 @@ public class AgentRemoteSocket implements Agent {
     private static final Logger LOGGER = LoggerFactory.getLogger(AgentRemoteSocket.class);
     private AgentRemoteHandler handler;
     private Session session;
+    private final boolean binaryMessages;
+    private final int deflateThreshold;
 
     public AgentRemoteSocket(AgentRemoteHandler handler) {
         this.handler = handler;
+        this.binaryMessages = false;
+        this.deflateThreshold = 0;
+    }
+
+    public AgentRemoteSocket(AgentRemoteHandler handler, int deflateThreshold) {
+        this.handler = handler;
+        this.binaryMessages = true;
+        this.deflateThreshold = deflateThreshold;
     }
 
     @OnWebSocketConnect
@@ -68,7 +78,8 @@ public class AgentRemoteSocket implements Agent {
     @Override
     public void send(final Message msg) {
         LOGGER.debug("{} send message: {}", sessionName(), msg);
-        session.getRemote().sendBytesByFuture(ByteBuffer.wrap(MessageEncoding.encodeMessage(msg)));
+        byte[] encoded = binaryMessages ? MessageEncoding.encodeBinaryMessage(msg, deflateThreshold) : MessageEncoding.encodeMessage(msg);
+        session.getRemote().sendBytesByFuture(ByteBuffer.wrap(encoded));
     }
 
     private String sessionName() {
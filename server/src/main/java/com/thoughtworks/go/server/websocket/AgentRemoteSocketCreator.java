@@ -16,6 +16,8 @@
 
 package com.thoughtworks.go.server.websocket;
 
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.websocket.MessageEncoding;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
 import org.eclipse.jetty.websocket.servlet.WebSocketCreator;
@@ -26,14 +28,20 @@ import org.springframework.stereotype.Component;
 public class AgentRemoteSocketCreator implements WebSocketCreator {
 
     private AgentRemoteHandler handler;
+    private SystemEnvironment systemEnvironment;
 
     @Autowired
-    public AgentRemoteSocketCreator(AgentRemoteHandler handler) {
+    public AgentRemoteSocketCreator(AgentRemoteHandler handler, SystemEnvironment systemEnvironment) {
         this.handler = handler;
+        this.systemEnvironment = systemEnvironment;
     }
 
     @Override
     public Object createWebSocket(ServletUpgradeRequest req, ServletUpgradeResponse resp) {
+        if (systemEnvironment.isWebsocketBinaryMessagesEnabled() && MessageEncoding.BINARY_ENCODING.equals(req.getHeader(MessageEncoding.ENCODING_HEADER))) {
+            resp.setHeader(MessageEncoding.ENCODING_HEADER, MessageEncoding.BINARY_ENCODING);
+            return new AgentRemoteSocket(handler, systemEnvironment.getWebsocketMessageDeflateThreshold());
+        }
         return new AgentRemoteSocket(handler);
     }
 }
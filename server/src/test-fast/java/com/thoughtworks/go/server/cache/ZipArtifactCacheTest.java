@@ -19,6 +19,7 @@ package com.thoughtworks.go.server.cache;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TestFileUtil;
 import com.thoughtworks.go.util.ZipUtil;
 import org.apache.commons.io.FileUtils;
@@ -28,7 +29,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 import static com.thoughtworks.go.matchers.FileExistsMatcher.exists;
@@ -46,6 +50,7 @@ public class ZipArtifactCacheTest {
     private File folder;
     private ArtifactFolder artifactFolder;
     private ArtifactsDirHolder artifactsDirHolder;
+    private SystemEnvironment systemEnvironment;
 
     @Before public void setUp() throws Exception {
         folder = TestFileUtil.createTempFolder("ZipArtifactCacheTest-" + System.currentTimeMillis());
@@ -54,13 +59,15 @@ public class ZipArtifactCacheTest {
         TestFileUtil.createTestFolder(artifact, "dir");
         TestFileUtil.createTestFile(artifact, "dir/file1");
 
+        systemEnvironment = new SystemEnvironment();
         artifactsDirHolder = mock(ArtifactsDirHolder.class);
         when(artifactsDirHolder.getArtifactsDir()).thenReturn(folder);
-        zipArtifactCache = new ZipArtifactCache(this.artifactsDirHolder, new ZipUtil());
+        zipArtifactCache = new ZipArtifactCache(this.artifactsDirHolder, new ZipUtil(), systemEnvironment);
         artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(artifact, "dir"), "dir");
     }
 
     @After public void tearDown() throws Exception {
+        systemEnvironment.reset(SystemEnvironment.ARTIFACT_CACHE_MAX_SIZE_IN_MB);
         FileUtils.deleteQuietly(folder);
     }
 
@@ -106,6 +113,52 @@ public class ZipArtifactCacheTest {
         assertThat(new File(cacheDir, "dir/file1"), exists());
     }
 
+    @Test public void shouldStreamZipToTheFirstRequesterWhileCreatingTheCache() throws Exception {
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(true));
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(false));
+        assertThat(zipArtifactCache.cacheCreated(artifactFolder), is(false));
+
+        ByteArrayOutputStream requester = new ByteArrayOutputStream();
+        zipArtifactCache.streamAndCreateCachedFile(artifactFolder, requester);
+
+        assertThat(zipArtifactCache, cacheCreated(artifactFolder));
+        assertThat(requester.toByteArray(), is(FileUtils.readFileToByteArray(zipArtifactCache.cachedFile(artifactFolder))));
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(false));
+    }
+
+    @Test public void shouldFinishCreatingTheCacheWhenTheRequesterGoesAway() throws Exception {
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(true));
+
+        zipArtifactCache.streamAndCreateCachedFile(artifactFolder, new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        assertThat(zipArtifactCache, cacheCreated(artifactFolder));
+        File cacheDir = zipArtifactCache.cachedFile(artifactFolder).getParentFile();
+        new ZipUtil().unzip(zipArtifactCache.cachedFile(artifactFolder), cacheDir);
+        assertThat(new File(cacheDir, "dir/file1"), exists());
+    }
+
+    @Test public void shouldEvictLeastRecentlyUsedCachedZipsWhenTheCacheGrowsBeyondItsLimit() throws Exception {
+        systemEnvironment.set(SystemEnvironment.ARTIFACT_CACHE_MAX_SIZE_IN_MB, 1L);
+        File cacheDir = new File(folder, "cache/artifacts/pipelines/other");
+        cacheDir.mkdirs();
+        File leastRecentlyUsed = new File(cacheDir, "old.zip");
+        File recentlyUsed = new File(cacheDir, "new.zip");
+        FileUtils.writeByteArrayToFile(leastRecentlyUsed, new byte[700 * 1024]);
+        FileUtils.writeByteArrayToFile(recentlyUsed, new byte[700 * 1024]);
+        leastRecentlyUsed.setLastModified(System.currentTimeMillis() - 60 * 60 * 1000);
+
+        zipArtifactCache.evictLeastRecentlyUsed();
+
+        assertThat(leastRecentlyUsed, not(exists()));
+        assertThat(recentlyUsed, exists());
+        assertThat(zipArtifactCache.statistics().get("Evicted"), is(1L));
+    }
+
     private void waitForCacheCreated() throws Exception {
         int timesTried = 10;
         while (timesTried > 0 && !zipArtifactCache.cacheCreated(artifactFolder)) {
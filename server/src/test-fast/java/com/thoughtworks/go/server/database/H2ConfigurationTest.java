@@ -70,4 +70,17 @@ public class H2ConfigurationTest {
         verify(systemEnvironment).get(SystemEnvironment.GO_DATABASE_MAX_ACTIVE);
         verify(systemEnvironment).get(SystemEnvironment.GO_DATABASE_MAX_IDLE);
     }
+
+    @Test
+    public void shouldReturnConnectionPoolTuningFromSystemEnvironment() throws Exception {
+        when(systemEnvironment.get(SystemEnvironment.GO_DATABASE_MAX_WAIT_MILLIS)).thenReturn(5000);
+        when(systemEnvironment.get(SystemEnvironment.GO_DATABASE_POOL_PREPARED_STATEMENTS)).thenReturn(true);
+        when(systemEnvironment.get(SystemEnvironment.GO_DATABASE_MAX_OPEN_PREPARED_STATEMENTS)).thenReturn(100);
+        when(systemEnvironment.get(SystemEnvironment.GO_DATABASE_ABANDONED_CONNECTION_TIMEOUT_SECONDS)).thenReturn(600);
+
+        assertThat(configuration.getMaxWaitMillis(), is(5000));
+        assertThat(configuration.isPoolPreparedStatements(), is(true));
+        assertThat(configuration.getMaxOpenPreparedStatements(), is(100));
+        assertThat(configuration.getAbandonedConnectionTimeoutSeconds(), is(600));
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.database;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class QueryStatisticsTest {
+
+    @Test
+    public void shouldAggregateTimingsPerStatement() {
+        QueryStatistics statistics = new QueryStatistics(1000);
+
+        statistics.record("getStageById", 5);
+        statistics.record("getStageById", 15);
+        statistics.record("getJobHistory", 200);
+
+        Map<String, Object> statements = (Map<String, Object>) statistics.asJson().get("Statements");
+        Map<String, Object> stageTimings = (Map<String, Object>) statements.get("getStageById");
+        assertThat(stageTimings.get("Count"), is(2L));
+        assertThat(stageTimings.get("Total (ms)"), is(20L));
+        assertThat(stageTimings.get("Mean (ms)"), is(10L));
+        assertThat(stageTimings.get("Max (ms)"), is(15L));
+
+        Map<String, Object> histogram = (Map<String, Object>) stageTimings.get("Histogram");
+        assertThat(histogram.get("< 10 ms"), is(1L));
+        assertThat(histogram.get("< 100 ms"), is(1L));
+        assertThat(histogram.get(">= 10000 ms"), is(0L));
+    }
+
+    @Test
+    public void shouldCaptureOnlyQueriesSlowerThanThresholdMostRecentFirst() {
+        QueryStatistics statistics = new QueryStatistics(100);
+
+        statistics.record("fast", 99);
+        statistics.record("slow", 100);
+        statistics.record("slower", 5000);
+
+        List<Map<String, Object>> slowQueries = (List<Map<String, Object>>) statistics.asJson().get("Slow queries");
+        assertThat(slowQueries.size(), is(2));
+        assertThat(slowQueries.get(0).get("Statement"), is("slower"));
+        assertThat(slowQueries.get(1).get("Statement"), is("slow"));
+    }
+
+    @Test
+    public void shouldRetainABoundedNumberOfSlowQueries() {
+        QueryStatistics statistics = new QueryStatistics(0);
+
+        for (int i = 0; i < QueryStatistics.MAX_SLOW_QUERIES + 10; i++) {
+            statistics.record("query-" + i, 1);
+        }
+
+        List<Map<String, Object>> slowQueries = (List<Map<String, Object>>) statistics.asJson().get("Slow queries");
+        assertThat(slowQueries.size(), is(QueryStatistics.MAX_SLOW_QUERIES));
+        assertThat(slowQueries.get(0).get("Statement"), is("query-" + (QueryStatistics.MAX_SLOW_QUERIES + 9)));
+    }
+}
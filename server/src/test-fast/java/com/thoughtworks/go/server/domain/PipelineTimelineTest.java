@@ -295,13 +295,72 @@ public class PipelineTimelineTest {
         assertThat(timeline.instanceFor(new CaseInsensitiveString("pipeline"), 1), is(second));
     }
 
+    @Test
+    public void shouldAllowReadsOfOtherPipelinesWhileTimelineIsBeingUpdated() throws Exception {
+        PipelineTimelineEntry anotherPipeline = PipelineMaterialModificationMother.modification("another", 5, materials, Arrays.asList(now, now.plusMinutes(1), now.plusMinutes(2), now.plusMinutes(3)), 1, "123");
+        stubTransactionSynchronization();
+        setupTransactionTemplateStub(TransactionSynchronization.STATUS_COMMITTED, true);
+        final PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        timeline.add(anotherPipeline);
+
+        final PipelineTimelineEntry[] readDuringUpdate = new PipelineTimelineEntry[1];
+        doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                timeline.stage(first);
+                Thread reader = new Thread(() -> readDuringUpdate[0] = timeline.instanceFor(new CaseInsensitiveString("another"), 0));
+                reader.start();
+                reader.join(5000);
+                return null;
+            }
+        }).when(pipelineRepository).updatePipelineTimeline(eq(timeline), anyListOf(PipelineTimelineEntry.class));
+
+        timeline.update();
+
+        assertThat(readDuringUpdate[0], is(anotherPipeline));
+        assertThat(timeline.instanceFor(new CaseInsensitiveString("pipeline"), 0), is(first));
+    }
+
+    @Test
+    public void shouldNotExposeNewEntriesOrMaximumIdBeforeTheUpdateCommits() throws Exception {
+        stubTransactionSynchronization();
+        setupTransactionTemplateStub(TransactionSynchronization.STATUS_COMMITTED, true);
+        final PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        timeline.add(first);
+
+        final Object[] readDuringUpdate = new Object[3];
+        doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                timeline.stage(second);
+                ((List<PipelineTimelineEntry>) invocationOnMock.getArguments()[1]).add(second);
+                Thread reader = new Thread(() -> {
+                    readDuringUpdate[0] = timeline.maximumId();
+                    readDuringUpdate[1] = timeline.instanceCount(new CaseInsensitiveString("pipeline"));
+                    readDuringUpdate[2] = timeline.pipelineAfter(1L);
+                });
+                reader.start();
+                reader.join(5000);
+                return null;
+            }
+        }).when(pipelineRepository).updatePipelineTimeline(eq(timeline), anyListOf(PipelineTimelineEntry.class));
+
+        timeline.update();
+
+        assertThat(readDuringUpdate[0], is(1L));
+        assertThat(readDuringUpdate[1], is(1));
+        assertThat(readDuringUpdate[2], is(-1L));
+        assertThat(second.insertedAfter(), is(first));
+        assertThat(timeline.maximumId(), is(2L));
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("pipeline")), is(2));
+        assertThat(timeline.pipelineAfter(1L), is(2L));
+    }
+
     private void stubPipelineRepository(final PipelineTimeline timeline, boolean restub, final PipelineTimelineEntry... entries) {
         repositoryEntries = entries;
         if (restub) {
             doAnswer(new Answer<Object>() {
                 public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
                     for (PipelineTimelineEntry entry : repositoryEntries) {
-                        timeline.add(entry);
+                        timeline.stage(entry);
                     }
                     ((List<PipelineTimelineEntry>) invocationOnMock.getArguments()[1]).addAll(Arrays.asList(repositoryEntries));
                     return Arrays.asList(repositoryEntries);
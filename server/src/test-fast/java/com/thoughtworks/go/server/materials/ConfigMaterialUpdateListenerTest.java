@@ -27,7 +27,6 @@ import com.thoughtworks.go.domain.materials.TestSubprocessExecutionContext;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaterialService;
-import com.thoughtworks.go.server.service.materials.MaterialPoller;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -48,7 +47,6 @@ public class ConfigMaterialUpdateListenerTest {
     private Material material;
     private File folder = new File("checkoutDir");
     private MaterialRevisions mods;
-    private MaterialPoller poller;
     private Modification svnModification;
 
     @Before
@@ -63,8 +61,6 @@ public class ConfigMaterialUpdateListenerTest {
         material = new SvnMaterial("url", "tom", "pass", false);
 
         when(materialRepository.folderFor(material)).thenReturn(folder);
-        poller = mock(MaterialPoller.class);
-        when(materialService.getPollerImplementation(any(Material.class))).thenReturn(poller);
 
         svnModification = new Modification("user", "commend", "em@il", new Date(), "1");
         mods = revisions(material, svnModification);
@@ -88,11 +84,11 @@ public class ConfigMaterialUpdateListenerTest {
     }
 
     @Test
-    public void shouldPerformCheckoutUsingMaterialPoller() {
+    public void shouldPerformCheckoutUsingMaterialService() {
         MaterialUpdateSuccessfulMessage message = new MaterialUpdateSuccessfulMessage(material, 123);
         this.configUpdater.onMessage(message);
 
-        verify(poller, times(1)).checkout(any(Material.class), any(File.class), any(Revision.class), any(SubprocessExecutionContext.class));
+        verify(materialService, times(1)).checkout(any(Material.class), any(File.class), any(Revision.class), any(SubprocessExecutionContext.class));
     }
 
     @Test
@@ -42,6 +42,7 @@ public class DependencyMaterialUpdateNotifierTest {
     private GoConfigService goConfigService;
     private MaterialConfigConverter materialConfigConverter;
     private MaterialUpdateService materialUpdateService;
+    private MaterialDatabaseUpdater materialDatabaseUpdater;
     private ServerHealthService serverHealthService;
     private Material dependencyMaterial = MaterialsMother.dependencyMaterial();
 
@@ -50,13 +51,14 @@ public class DependencyMaterialUpdateNotifierTest {
         goConfigService = mock(GoConfigService.class);
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialUpdateService = mock(MaterialUpdateService.class);
+        materialDatabaseUpdater = mock(MaterialDatabaseUpdater.class);
         serverHealthService = mock(ServerHealthService.class);
     }
 
     @Test
     public void shouldListenToConfigChange() {
         EntityConfigChangedListener entityConfigChangedListener = mock(EntityConfigChangedListener.class);
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier = spy(notifier);
 
         when(notifier.pipelineConfigChangedListener()).thenReturn(entityConfigChangedListener);
@@ -69,7 +71,7 @@ public class DependencyMaterialUpdateNotifierTest {
 
     @Test
     public void shouldListenToMaterialUpdateMessage() {
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
 
         notifier.initialize();
 
@@ -78,7 +80,7 @@ public class DependencyMaterialUpdateNotifierTest {
 
     @Test
     public void configLoadShouldScheduleAllDependencyMaterialsForUpdateThrough_onConfigChangeCallback() {
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         Set<DependencyMaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList((DependencyMaterialConfig) dependencyMaterial.config()));
@@ -97,7 +99,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterialForP1S1.config())).thenReturn(dependencyMaterialForP1S1);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         DependencyMaterial dependencyMaterialForP2S2 = MaterialsMother.dependencyMaterial("p2", "s2");
@@ -116,7 +118,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         notifier.onConfigChange(mock(CruiseConfig.class));
@@ -134,7 +136,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         notifier.stageStatusChanged(stage);
@@ -142,9 +144,48 @@ public class DependencyMaterialUpdateNotifierTest {
         verify(materialUpdateService, times(2)).updateMaterial(dependencyMaterial);
     }
 
+    @Test
+    public void shouldRecordPassedStageDirectlyWithoutQueueingAnUpdate() {
+        Stage stage = StageMother.passedStageInstance("Stage1", "plan", "Pipeline1");
+        DependencyMaterial dependencyMaterial = MaterialsMother.dependencyMaterial(stage.getIdentifier().getPipelineName(), stage.getName());
+        Set<DependencyMaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList((DependencyMaterialConfig) dependencyMaterial.config()));
+
+        when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
+        when(materialDatabaseUpdater.insertRevisionForPassedStage(dependencyMaterial, stage)).thenReturn(true);
+
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
+        notifier.initialize();
+
+        notifier.stageStatusChanged(stage);
+
+        //updated only during initialization
+        verify(materialUpdateService, times(1)).updateMaterial(dependencyMaterial);
+        verify(materialDatabaseUpdater, times(1)).requireCatchUpFor(dependencyMaterial);
+    }
+
+    @Test
+    public void shouldFallBackToAnUpdateWhenPassedStageCouldNotBeRecordedDirectly() {
+        Stage stage = StageMother.passedStageInstance("Stage1", "plan", "Pipeline1");
+        DependencyMaterial dependencyMaterial = MaterialsMother.dependencyMaterial(stage.getIdentifier().getPipelineName(), stage.getName());
+        Set<DependencyMaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList((DependencyMaterialConfig) dependencyMaterial.config()));
+
+        when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
+        when(materialDatabaseUpdater.insertRevisionForPassedStage(dependencyMaterial, stage)).thenThrow(new RuntimeException("db down"));
+
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
+        notifier.initialize();
+
+        notifier.stageStatusChanged(stage);
+
+        verify(materialUpdateService, times(2)).updateMaterial(dependencyMaterial);
+        verify(materialDatabaseUpdater, times(2)).requireCatchUpFor(dependencyMaterial);
+    }
+
     @Test
     public void shouldDoNothingOnStageChangeIfStageDoesNotRepresentADependencyMaterial() {
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         Stage pipeline2Stage2 = StageMother.passedStageInstance("Stage2", "plan", "Pipeline2");
@@ -162,7 +203,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         notifier.stageStatusChanged(stage);
@@ -181,7 +222,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
         when(materialUpdateService.updateMaterial(dependencyMaterial)).thenReturn(true, false);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         notifier.stageStatusChanged(stage);
@@ -201,7 +242,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
         when(materialUpdateService.updateMaterial(dependencyMaterial)).thenThrow(new RuntimeException("some error")).thenReturn(true);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.initialize();
 
         notifier.onMaterialUpdate(dependencyMaterial);
@@ -218,7 +259,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, materialDatabaseUpdater, serverHealthService);
         notifier.disableUpdates();
         notifier.initialize();
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
+import com.thoughtworks.go.domain.MaterialInstance;
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.helper.MaterialsMother;
+import com.thoughtworks.go.helper.StageMother;
+import com.thoughtworks.go.server.dao.DependencyMaterialSourceDao;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class DependencyMaterialUpdaterTest {
+    @Mock private DependencyMaterialSourceDao dependencyMaterialSourceDao;
+    @Mock private MaterialRepository materialRepository;
+    private DependencyMaterialUpdater updater;
+    private DependencyMaterial material;
+    private MaterialInstance materialInstance;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        updater = new DependencyMaterialUpdater(dependencyMaterialSourceDao, materialRepository);
+        material = MaterialsMother.dependencyMaterial("up", "build");
+        materialInstance = mock(MaterialInstance.class);
+        when(materialRepository.findMaterialInstance(material)).thenReturn(materialInstance);
+    }
+
+    @Test
+    public void shouldSaveModificationBuiltFromPassedStageWhenItFollowsLatestRevision() {
+        latestRevisionIs("up/3/build/1");
+        Stage stage = StageMother.createPassedStage("up", 4, "build", 1, "job", new Date());
+        stage.setPipelineId(42L);
+
+        assertThat(updater.insertRevisionForPassedStage(material, stage), is(true));
+
+        Modification expected = new Modification(stage.completedDate(), "up/4/build/1", "LABEL-4", 42L);
+        verify(materialRepository).saveModifications(materialInstance, Collections.singletonList(expected));
+    }
+
+    @Test
+    public void shouldNotSaveStagesThatDoNotFollowLatestRevision() {
+        latestRevisionIs("up/4/build/2");
+
+        assertThat(updater.insertRevisionForPassedStage(material, StageMother.createPassedStage("up", 4, "build", 2, "job", new Date())), is(false));
+        assertThat(updater.insertRevisionForPassedStage(material, StageMother.createPassedStage("up", 3, "build", 3, "job", new Date())), is(false));
+        verify(materialRepository, never()).saveModifications(any(MaterialInstance.class), anyList());
+    }
+
+    @Test
+    public void shouldNotSaveStageForMaterialWithoutRevisions() {
+        when(materialRepository.findLatestModification(material)).thenReturn(new MaterialRevisions());
+
+        assertThat(updater.insertRevisionForPassedStage(material, StageMother.createPassedStage("up", 1, "build", 1, "job", new Date())), is(false));
+        verify(materialRepository, never()).saveModifications(any(MaterialInstance.class), anyList());
+    }
+
+    @Test
+    public void shouldBeCaughtUpOnlyOnceAnUpdateStartedAfterTheLatestCatchUpRequestCompletes() {
+        assertThat(updater.isCaughtUp(material), is(false));
+
+        updater.caughtUp(material, updater.catchUpRequestFor(material));
+        assertThat(updater.isCaughtUp(material), is(true));
+
+        long staleRequest = updater.catchUpRequestFor(material);
+        updater.requireCatchUp(material);
+        assertThat(updater.isCaughtUp(material), is(false));
+
+        updater.caughtUp(material, staleRequest);
+        assertThat(updater.isCaughtUp(material), is(false));
+
+        updater.caughtUp(material, updater.catchUpRequestFor(material));
+        assertThat(updater.isCaughtUp(material), is(true));
+    }
+
+    private void latestRevisionIs(String revision) {
+        Modification latest = new Modification(new Date(), revision, "label", 1L);
+        when(materialRepository.findLatestModification(material)).thenReturn(new MaterialRevisions(new MaterialRevision(material, latest)));
+    }
+}
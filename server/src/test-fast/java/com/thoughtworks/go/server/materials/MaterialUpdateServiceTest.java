@@ -22,6 +22,7 @@ import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.GoConfigWatchList;
 import com.thoughtworks.go.config.materials.ScmMaterial;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
+import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.config.materials.svn.SvnMaterial;
 import com.thoughtworks.go.config.materials.svn.SvnMaterialConfig;
 import com.thoughtworks.go.domain.PipelineGroups;
@@ -340,6 +341,44 @@ public class MaterialUpdateServiceTest {
         assertThat(result, is(acceptedResult));
     }
 
+    @Test
+    public void shouldUpdateGitMaterialsMatchingBranchAndUrlAndCoalesceRepeatedNotifications_updateGitMaterial() {
+        GitMaterial gitMaterial = MaterialsMother.gitMaterial("https://example.com/repo.git", null, "master");
+        gitMaterial.setAutoUpdate(false);
+        GitMaterial otherBranch = MaterialsMother.gitMaterial("https://example.com/repo.git", null, "release");
+        otherBranch.setAutoUpdate(false);
+        CruiseConfig cruiseConfig = mock(CruiseConfig.class);
+        Set<MaterialConfig> postCommitMaterialConfigs = new HashSet<>(Arrays.asList(gitMaterial.config(), otherBranch.config()));
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(cruiseConfig.getAllUniquePostCommitSchedulableMaterials()).thenReturn(postCommitMaterialConfigs);
+        when(materialConfigConverter.toMaterials(postCommitMaterialConfigs)).thenReturn(new HashSet<>(Arrays.asList(gitMaterial, otherBranch)));
+
+        assertTrue(service.updateGitMaterial("master", Arrays.asList("https://example.com/repo", "https://example.com/repo.git")));
+        assertTrue(service.updateGitMaterial("master", Collections.singletonList("https://example.com/repo.git")));
+        assertFalse(service.updateGitMaterial("develop", Collections.singletonList("https://example.com/repo.git")));
+
+        verify(queue, times(1)).post(matchMaterialUpdateMessage(gitMaterial));
+        verify(queue, never()).post(matchMaterialUpdateMessage(otherBranch));
+        verify(materialConfigConverter, times(1)).toMaterials(postCommitMaterialConfigs);
+    }
+
+    @Test
+    public void shouldQueueAnotherUpdateForPostCommitNotificationOnceThePendingUpdateHasStarted_updateGitMaterial() {
+        GitMaterial gitMaterial = MaterialsMother.gitMaterial("https://example.com/repo.git", null, "master");
+        gitMaterial.setAutoUpdate(false);
+        CruiseConfig cruiseConfig = mock(CruiseConfig.class);
+        Set<MaterialConfig> postCommitMaterialConfigs = new HashSet<>(Collections.singletonList(gitMaterial.config()));
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(cruiseConfig.getAllUniquePostCommitSchedulableMaterials()).thenReturn(postCommitMaterialConfigs);
+        when(materialConfigConverter.toMaterials(postCommitMaterialConfigs)).thenReturn(new HashSet<>(Collections.singletonList(gitMaterial)));
+
+        service.updateGitMaterial("master", Collections.singletonList("https://example.com/repo.git"));
+        when(maintenanceModeService.lastMDUStartTimeFor(gitMaterial)).thenReturn(System.currentTimeMillis() + 1);
+        service.updateGitMaterial("master", Collections.singletonList("https://example.com/repo.git"));
+
+        verify(queue, times(2)).post(matchMaterialUpdateMessage(gitMaterial));
+    }
+
     @Test
     public void shouldUpdateServerHealthMessageWhenHung() {
         //given
@@ -16,14 +16,22 @@
 
 package com.thoughtworks.go.server.materials;
 
+import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.config.materials.MaterialConfigs;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.helper.MaterialsMother;
+import com.thoughtworks.go.helper.ModificationsMother;
+import com.thoughtworks.go.helper.PipelineConfigMother;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.scheduling.TriggerMonitor;
 import com.thoughtworks.go.server.service.GoConfigService;
+import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthStates;
@@ -39,6 +47,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -50,6 +59,9 @@ public class SCMMaterialSourceTest {
     private SystemEnvironment systemEnvironment;
     private MaterialConfigConverter materialConfigConverter;
     private MaterialUpdateService materialUpdateService;
+    private MaterialRepository materialRepository;
+    private TriggerMonitor triggerMonitor;
+    private MaintenanceModeService maintenanceModeService;
     private Material svnMaterial = MaterialsMother.svnMaterial();
     private Material gitMaterial = MaterialsMother.gitMaterial("http://my.repo");
 
@@ -60,8 +72,11 @@ public class SCMMaterialSourceTest {
         serverHealthService = mock(ServerHealthService.class);
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialUpdateService = mock(MaterialUpdateService.class);
+        materialRepository = mock(MaterialRepository.class);
+        triggerMonitor = new TriggerMonitor();
+        maintenanceModeService = mock(MaintenanceModeService.class);
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, materialRepository, triggerMonitor, maintenanceModeService);
     }
 
     @After
@@ -103,6 +118,77 @@ public class SCMMaterialSourceTest {
         assertTrue(materials.contains(gitMaterial));
     }
 
+    @Test
+    public void shouldBackOffMaterialsWhoseUpdatesFindNoNewRevisions_schedulableMaterials() {
+        long twoMinutesBack = DateTimeUtils.currentTimeMillis() - 120000;
+        Set<MaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList(svnMaterial.config(), gitMaterial.config()));
+        Modification unchanged = ModificationsMother.oneModifiedFile("unchanged");
+        unchanged.setId(42);
+
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(new HashSet<>(Arrays.asList(svnMaterial, gitMaterial)));
+        when(materialRepository.findCachedLatestModification(gitMaterial)).thenReturn(unchanged);
+        when(materialRepository.findCachedLatestModification(svnMaterial)).thenReturn(unchanged);
+
+        freezeTime(twoMinutesBack);
+        source.onMaterialUpdate(gitMaterial);
+        source.onMaterialUpdate(gitMaterial);
+        source.onMaterialUpdate(gitMaterial);
+        source.onMaterialUpdate(svnMaterial);
+
+        resetTime();
+        Set<Material> materials = source.materialsForUpdate();
+
+        assertThat(materials.size(), is(1));
+        assertTrue(materials.contains(svnMaterial));
+    }
+
+    @Test
+    public void shouldNotBackOffAndHandOutFirstMaterialsOfPipelinesWaitingOnATrigger_schedulableMaterials() {
+        long twoMinutesBack = DateTimeUtils.currentTimeMillis() - 120000;
+        Set<MaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList(svnMaterial.config(), gitMaterial.config()));
+        Modification unchanged = ModificationsMother.oneModifiedFile("unchanged");
+        unchanged.setId(42);
+        PipelineConfig up42 = PipelineConfigMother.pipelineConfig("up42", new MaterialConfigs(gitMaterial.config()));
+
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(new HashSet<>(Arrays.asList(svnMaterial, gitMaterial)));
+        when(materialRepository.findCachedLatestModification(gitMaterial)).thenReturn(unchanged);
+        when(goConfigService.hasPipelineNamed(new CaseInsensitiveString("up42"))).thenReturn(true);
+        when(goConfigService.pipelineConfigNamed(new CaseInsensitiveString("up42"))).thenReturn(up42);
+
+        freezeTime(twoMinutesBack);
+        source.onMaterialUpdate(gitMaterial);
+        source.onMaterialUpdate(gitMaterial);
+        source.onMaterialUpdate(gitMaterial);
+        resetTime();
+        triggerMonitor.markPipelineAsAlreadyTriggered(up42);
+
+        Set<Material> materials = source.materialsForUpdate();
+
+        assertThat(materials, contains(gitMaterial, svnMaterial));
+    }
+
+    @Test
+    public void shouldHandOutMaterialsThatAreCheaperToPollFirst_schedulableMaterials() {
+        long twoMinutesBack = DateTimeUtils.currentTimeMillis() - 120000;
+        Set<MaterialConfig> schedulableMaterialConfigs = new HashSet<>(Arrays.asList(svnMaterial.config(), gitMaterial.config()));
+
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(new HashSet<>(Arrays.asList(svnMaterial, gitMaterial)));
+        when(maintenanceModeService.lastMDUStartTimeFor(gitMaterial)).thenReturn(twoMinutesBack - 1000);
+        when(maintenanceModeService.lastMDUStartTimeFor(svnMaterial)).thenReturn(twoMinutesBack - 30000);
+
+        freezeTime(twoMinutesBack);
+        source.onMaterialUpdate(svnMaterial);
+        source.onMaterialUpdate(gitMaterial);
+        resetTime();
+
+        Set<Material> materials = source.materialsForUpdate();
+
+        assertThat(materials, contains(gitMaterial, svnMaterial));
+    }
+
     @Test
     public void shouldListenToConfigChange() {
         EntityConfigChangedListener entityConfigChangedListener = mock(EntityConfigChangedListener.class);
@@ -514,6 +514,35 @@ public class BuildCauseProducerServiceTest {
         assertThat(serverHealthState.isSuccess(), is(true));
     }
 
+    @Test
+    public void shouldSkipAutoScheduleCheckWhileMaterialsOfPipelineHaveNotChanged() {
+        SvnMaterial svnMaterial = new SvnMaterial("url", null, null, false);
+        pipelineConfig.addMaterialConfig(svnMaterial.config());
+        MaterialConfigs knownMaterialConfigs = new MaterialConfigs(pipelineConfig.materialConfigs());
+
+        when(pipelineScheduleQueue.mostRecentScheduled(pipelineConfig.name())).thenReturn(BuildCause.createNeverRun());
+        when(specificMaterialRevisionFactory.create(any(String.class), anyMap())).thenReturn(MaterialRevisions.EMPTY);
+        when(materialConfigConverter.toMaterials(pipelineConfig.materialConfigs())).thenReturn(new Materials(svnMaterial));
+        when(materialExpansionService.expandMaterialConfigsForScheduling(pipelineConfig.materialConfigs())).thenReturn(knownMaterialConfigs);
+        when(materialConfigConverter.toMaterials(knownMaterialConfigs)).thenReturn(new Materials(svnMaterial));
+        when(materialRepository.findLatestModification(svnMaterial)).thenReturn(new MaterialRevisions());
+
+        buildCauseProducerService.autoSchedulePipeline("pipeline", new ServerHealthStateOperationResult(), 1);
+        buildCauseProducerService.autoSchedulePipeline("pipeline", new ServerHealthStateOperationResult(), 2);
+
+        verify(materialExpansionService, times(1)).expandMaterialConfigsForScheduling(pipelineConfig.materialConfigs());
+        verify(pipelineScheduleQueue, never()).schedule(any(CaseInsensitiveString.class), any(BuildCause.class));
+
+        Modification modification = ModificationsMother.checkinWithComment("r1", "comment", new Date(), "file");
+        modification.setId(5);
+        when(materialRepository.findLatestModification(svnMaterial)).thenReturn(new MaterialRevisions(new MaterialRevision(svnMaterial, modification)));
+
+        buildCauseProducerService.autoSchedulePipeline("pipeline", new ServerHealthStateOperationResult(), 3);
+
+        verify(materialExpansionService, times(2)).expandMaterialConfigsForScheduling(pipelineConfig.materialConfigs());
+        verify(pipelineScheduleQueue).schedule(eq(pipelineConfig.name()), any(BuildCause.class));
+    }
+
     private ArgumentMatcher<ServerHealthState> hasErrorHealthState(final String message, final String description) {
         return new ArgumentMatcher<ServerHealthState>() {
             @Override
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ArtifactContentStoreTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SystemEnvironment systemEnvironment;
+    private ArtifactContentStore contentStore;
+    private File artifactsDir;
+    private String largeContent;
+
+    @Before
+    public void setUp() throws IOException {
+        systemEnvironment = new SystemEnvironment();
+        systemEnvironment.set(SystemEnvironment.ARTIFACT_DEDUPLICATION_ENABLED, true);
+        systemEnvironment.set(SystemEnvironment.ARTIFACT_DEDUPLICATION_MIN_FILE_SIZE_IN_BYTES, 1024L);
+        artifactsDir = temporaryFolder.newFolder("artifacts");
+        ArtifactsDirHolder artifactsDirHolder = mock(ArtifactsDirHolder.class);
+        when(artifactsDirHolder.getArtifactsDir()).thenReturn(artifactsDir);
+        contentStore = new ArtifactContentStore(artifactsDirHolder, systemEnvironment);
+        largeContent = StringUtils.repeat("node_modules", 1000);
+
+        assumeTrue(contentStore.isEnabled());
+    }
+
+    @After
+    public void tearDown() {
+        systemEnvironment.reset(SystemEnvironment.ARTIFACT_DEDUPLICATION_ENABLED);
+        systemEnvironment.reset(SystemEnvironment.ARTIFACT_DEDUPLICATION_MIN_FILE_SIZE_IN_BYTES);
+    }
+
+    @Test
+    public void shouldStoreIdenticalFilesUploadedByDifferentJobsOnce() throws IOException {
+        File first = upload("job1/dist", "bundle.tgz", largeContent);
+        File second = upload("job2/dist", "bundle.tgz", largeContent);
+
+        assertThat(Files.isSameFile(first.toPath(), second.toPath()), is(true));
+        assertThat(FileUtils.readFileToString(second, UTF_8), is(largeContent));
+        assertThat(FileUtils.listFiles(new File(artifactsDir, ArtifactContentStore.CONTENT_STORE_DIR), null, true).size(), is(1));
+    }
+
+    @Test
+    public void shouldKeepFilesSmallerThanTheMinimumSizeAsCopiesOfTheirOwn() throws IOException {
+        File first = upload("job1/dist", "version.txt", "1.0");
+        File second = upload("job2/dist", "version.txt", "1.0");
+
+        assertThat(Files.isSameFile(first.toPath(), second.toPath()), is(false));
+        assertThat(new File(artifactsDir, ArtifactContentStore.CONTENT_STORE_DIR).exists(), is(false));
+    }
+
+    @Test
+    public void shouldReplaceExistingFilesInsteadOfWritingIntoThem() throws IOException {
+        File shared = upload("job1/dist", "bundle.tgz", largeContent);
+        upload("job2/dist", "bundle.tgz", largeContent);
+
+        File replaced = upload("job2/dist", "bundle.tgz", largeContent + "changed");
+
+        assertThat(FileUtils.readFileToString(shared, UTF_8), is(largeContent));
+        assertThat(FileUtils.readFileToString(replaced, UTF_8), is(largeContent + "changed"));
+    }
+
+    @Test
+    public void shouldFindContentReferencedOnlyFromArtifactsBeingDeleted() throws IOException {
+        upload("job1/dist", "bundle.tgz", largeContent);
+        upload("job2/dist", "bundle.tgz", largeContent);
+        upload("job2/dist", "other.tgz", largeContent + "other");
+        List<File> job1 = Collections.singletonList(new File(artifactsDir, "job1"));
+        List<File> bothJobs = Arrays.asList(new File(artifactsDir, "job1"), new File(artifactsDir, "job2"));
+
+        assertThat(contentStore.contentReferencedOnlyFrom(job1).isEmpty(), is(true));
+        assertThat(contentStore.contentReferencedOnlyFrom(bothJobs).size(), is(2));
+    }
+
+    @Test
+    public void shouldGiveASharedFileACopyOfItsOwnBeforeItIsAppendedTo() throws IOException {
+        File first = upload("job1/dist", "bundle.tgz", largeContent);
+        File second = upload("job2/dist", "bundle.tgz", largeContent);
+
+        contentStore.detach(second);
+        FileUtils.writeStringToFile(second, "appended", UTF_8, true);
+
+        assertThat(Files.isSameFile(first.toPath(), second.toPath()), is(false));
+        assertThat(FileUtils.readFileToString(first, UTF_8), is(largeContent));
+    }
+
+    @Test
+    public void shouldSweepContentThatNoJobLinksToAnyMore() throws IOException {
+        upload("job1/dist", "bundle.tgz", largeContent);
+        upload("job2/dist", "other.tgz", largeContent + "other");
+        FileUtils.deleteDirectory(new File(artifactsDir, "job1"));
+
+        contentStore.sweep(System.currentTimeMillis());
+
+        assertThat(FileUtils.listFiles(contentStoreDir(), null, true).size(), is(1));
+        assertThat(FileUtils.readFileToString(new File(artifactsDir, "job2/dist/other.tgz"), UTF_8), is(largeContent + "other"));
+    }
+
+    @Test
+    public void shouldKeepContentThatIsStillLinkedFromAnotherJob() throws IOException {
+        upload("job1/dist", "bundle.tgz", largeContent);
+        File stillLinked = upload("job2/dist", "bundle.tgz", largeContent);
+        FileUtils.deleteDirectory(new File(artifactsDir, "job1"));
+
+        contentStore.sweep(System.currentTimeMillis());
+
+        assertThat(FileUtils.listFiles(contentStoreDir(), null, true).size(), is(1));
+        assertThat(FileUtils.readFileToString(stillLinked, UTF_8), is(largeContent));
+    }
+
+    @Test
+    public void shouldSweepStagingLeftBehindByAnUploadThatNeverFinishedAlongWithTheContentOnlyItLinksTo() throws IOException {
+        File destDir = new File(artifactsDir, "job1/dist");
+        File staging = contentStore.stagingFor(destDir);
+        FileUtils.writeStringToFile(new File(staging, "bundle.tgz"), largeContent, UTF_8);
+        contentStore.moveIntoPlace(staging, destDir);
+        FileUtils.deleteDirectory(destDir);
+        staging.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+
+        contentStore.sweep(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+
+        assertThat(staging.exists(), is(false));
+        assertThat(FileUtils.listFiles(contentStoreDir(), null, true).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldLeaveStagingOfUploadsStillInProgressAlone() throws IOException {
+        File staging = contentStore.stagingFor(new File(artifactsDir, "job1/dist"));
+        FileUtils.writeStringToFile(new File(staging, "bundle.tgz"), largeContent, UTF_8);
+        File unrelated = new File(artifactsDir, "job1/.hidden");
+        FileUtils.writeStringToFile(unrelated, "keep me", UTF_8);
+        unrelated.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+
+        contentStore.sweep(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+
+        assertThat(new File(staging, "bundle.tgz").exists(), is(true));
+        assertThat(unrelated.exists(), is(true));
+    }
+
+    @Test
+    public void shouldSweepTheContentStoreEvenWhenDeduplicationHasSinceBeenTurnedOff() throws IOException {
+        upload("job1/dist", "bundle.tgz", largeContent);
+        FileUtils.deleteDirectory(new File(artifactsDir, "job1"));
+        systemEnvironment.set(SystemEnvironment.ARTIFACT_DEDUPLICATION_ENABLED, false);
+
+        contentStore.onTimer();
+
+        assertThat(contentStoreDir().exists(), is(false));
+    }
+
+    @Test
+    public void shouldOnlyLookForStagingWhereItWasCreatedOnceTheArtifactsHaveBeenSweptSinceStartup() throws IOException {
+        File leftOverByEarlierRun = new File(artifactsDir, "job1/.dist.staging-" + UUID.randomUUID());
+        FileUtils.writeStringToFile(new File(leftOverByEarlierRun, "bundle.tgz"), "content", UTF_8);
+        leftOverByEarlierRun.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+
+        contentStore.sweep(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        assertThat(leftOverByEarlierRun.exists(), is(false));
+
+        File notCreatedHere = new File(artifactsDir, "job2/.dist.staging-" + UUID.randomUUID());
+        FileUtils.writeStringToFile(new File(notCreatedHere, "bundle.tgz"), "content", UTF_8);
+        notCreatedHere.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        File createdHere = contentStore.stagingFor(new File(artifactsDir, "job3/dist"));
+        FileUtils.writeStringToFile(new File(createdHere, "bundle.tgz"), "content", UTF_8);
+        createdHere.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+
+        contentStore.sweep(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+
+        assertThat(notCreatedHere.exists(), is(true));
+        assertThat(createdHere.exists(), is(false));
+    }
+
+    private File contentStoreDir() {
+        return new File(artifactsDir, ArtifactContentStore.CONTENT_STORE_DIR);
+    }
+
+    private File upload(String dest, String fileName, String content) throws IOException {
+        File destDir = new File(artifactsDir, dest);
+        File staging = contentStore.stagingFor(destDir);
+        FileUtils.writeStringToFile(new File(staging, fileName), content, UTF_8);
+        contentStore.moveIntoPlace(staging, destDir);
+        FileUtils.deleteQuietly(staging);
+        return new File(destDir, fileName);
+    }
+}
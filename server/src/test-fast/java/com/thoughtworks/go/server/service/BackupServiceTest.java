@@ -16,12 +16,17 @@
 
 package com.thoughtworks.go.server.service;
 
+import com.thoughtworks.go.config.ServerConfig;
 import com.thoughtworks.go.database.Database;
 import com.thoughtworks.go.server.domain.ServerBackup;
+import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.persistence.ServerBackupRepository;
+import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
 import com.thoughtworks.go.service.ConfigRepository;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ThrowingFn;
+import com.thoughtworks.go.util.TimeProvider;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,13 +34,15 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class BackupServiceTest {
 
@@ -114,4 +121,107 @@ public class BackupServiceTest {
         assertThat(backupService.availableDiskSpace(), is("40 MB"));
 
     }
+
+    @Test
+    public void shouldBackupConfigDirectoryConfigRepositoryAndDatabaseConcurrently() throws Exception {
+        File backupsDir = temporaryFolder.newFolder("backups");
+        CountDownLatch databaseBackupStarted = new CountDownLatch(1);
+        GoConfigService goConfigService = configServiceForBackups();
+        when(goConfigService.xml()).thenAnswer(invocation -> {
+            assertTrue("config directory was backed up before the database", databaseBackupStarted.await(10, TimeUnit.SECONDS));
+            return "<cruise/>";
+        });
+        doAnswer(invocation -> {
+            databaseBackupStarted.countDown();
+            new File((File) invocation.getArgument(0), "db.zip").createNewFile();
+            return null;
+        }).when(databaseStrategy).backup(any(File.class));
+        ServerBackupRepository repo = mock(ServerBackupRepository.class);
+        BackupService backupService = new BackupService(backupsDirHolder(backupsDir), goConfigService, timeProvider(), repo, backupEnvironment(), configRepo, databaseStrategy);
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+
+        ServerBackup backup = backupService.startBackup(new Username("admin"), result);
+
+        assertThat(result.isSuccessful(), is(true));
+        assertThat(new File(backup.getPath()).list(), arrayContainingInAnyOrder("version.txt", "config-dir.zip", "config-repo.zip", "db.zip"));
+        verify(repo).save(backup);
+        assertThat(backupService.isBackingUp(), is(false));
+    }
+
+    @Test
+    public void shouldWaitForRunningBackupStepsToStopBeforeCleaningUpAFailedBackup() throws Exception {
+        File backupsDir = temporaryFolder.newFolder("backups");
+        CountDownLatch databaseBackupFailed = new CountDownLatch(1);
+        AtomicBoolean configDirectoryBackupStopped = new AtomicBoolean(false);
+        GoConfigService goConfigService = configServiceForBackups();
+        when(goConfigService.xml()).thenAnswer(invocation -> {
+            try {
+                databaseBackupFailed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            sleepUninterruptibly(200);
+            configDirectoryBackupStopped.set(true);
+            return "<cruise/>";
+        });
+        doAnswer(invocation -> {
+            databaseBackupFailed.countDown();
+            throw new RuntimeException("disk full");
+        }).when(databaseStrategy).backup(any(File.class));
+        ServerBackupRepository repo = mock(ServerBackupRepository.class);
+        BackupService backupService = new BackupService(backupsDirHolder(backupsDir), goConfigService, timeProvider(), repo, backupEnvironment(), configRepo, databaseStrategy);
+        HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
+
+        ServerBackup backup = backupService.startBackup(new Username("admin"), result);
+
+        assertThat(backup, is(nullValue()));
+        assertThat(result.isSuccessful(), is(false));
+        assertThat(result.message(), containsString("disk full"));
+        assertThat(configDirectoryBackupStopped.get(), is(true));
+        assertThat(backupsDir.list(), is(emptyArray()));
+        assertThat(backupService.isBackingUp(), is(false));
+        verify(repo, never()).save(any(ServerBackup.class));
+    }
+
+    private GoConfigService configServiceForBackups() {
+        GoConfigService goConfigService = mock(GoConfigService.class);
+        when(goConfigService.isUserAdmin(any(Username.class))).thenReturn(true);
+        when(goConfigService.serverConfig()).thenReturn(new ServerConfig());
+        return goConfigService;
+    }
+
+    private ArtifactsDirHolder backupsDirHolder(File backupsDir) {
+        ArtifactsDirHolder artifactsDirHolder = mock(ArtifactsDirHolder.class);
+        when(artifactsDirHolder.getBackupsDir()).thenReturn(backupsDir);
+        return artifactsDirHolder;
+    }
+
+    private TimeProvider timeProvider() {
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.currentDateTime()).thenReturn(new DateTime(2019, 1, 1, 10, 0));
+        return timeProvider;
+    }
+
+    private SystemEnvironment backupEnvironment() throws Exception {
+        File configDir = new File(systemEnvironment.getConfigDir());
+        when(systemEnvironment.getConfigRepoDir()).thenReturn(temporaryFolder.newFolder("config_repo"));
+        when(systemEnvironment.getCruiseConfigFile()).thenReturn(new File(configDir, "cruise-config.xml").getAbsolutePath());
+        when(systemEnvironment.getDESCipherFile()).thenReturn(new File(configDir, "cipher"));
+        when(systemEnvironment.getAESCipherFile()).thenReturn(new File(configDir, "cipher.aes"));
+        return systemEnvironment;
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long until = System.currentTimeMillis() + millis;
+        boolean interrupted = false;
+        while (System.currentTimeMillis() < until) {
+            try {
+                Thread.sleep(Math.max(until - System.currentTimeMillis(), 1));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
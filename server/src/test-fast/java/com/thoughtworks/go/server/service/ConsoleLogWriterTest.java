@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.googlecode.junit.ext.JunitExtRunner;
+import com.googlecode.junit.ext.RunIf;
+import com.thoughtworks.go.junitext.EnhancedOSChecker;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.thoughtworks.go.junitext.EnhancedOSChecker.DO_NOT_RUN_ON;
+import static com.thoughtworks.go.junitext.EnhancedOSChecker.WINDOWS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JunitExtRunner.class)
+public class ConsoleLogWriterTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldAppendToConsoleLogsInTheOrderTheyWereReceived() throws Exception {
+        ConsoleLogWriter writer = new ConsoleLogWriter(2, 60000, 5000, 60000);
+        File consoleLog = new File(temporaryFolder.getRoot(), "pipeline/1/stage/1/job/cruise-output/console.log");
+
+        for (int i = 0; i < 100; i++) {
+            writer.append(consoleLog, ("line " + i + "\n").getBytes(UTF_8));
+        }
+
+        List<String> lines = FileUtils.readLines(consoleLog, UTF_8);
+        assertThat(lines.size(), is(100));
+        assertThat(lines.get(99), is("line 99"));
+        assertThat(writer.statistics().get("Opened"), is(1L));
+    }
+
+    @Test
+    public void shouldKeepAppendsFromManyAgentsToSeparateConsoleLogs() throws Exception {
+        ConsoleLogWriter writer = new ConsoleLogWriter(2, 60000, 0, 60000);
+        ExecutorService agents = Executors.newFixedThreadPool(8);
+        List<Future<?>> appends = new ArrayList<>();
+        try {
+            for (int job = 0; job < 8; job++) {
+                File consoleLog = new File(temporaryFolder.getRoot(), "job-" + job + ".log");
+                appends.add(agents.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        writer.append(consoleLog, "0123456789\n".getBytes(UTF_8));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> append : appends) {
+                append.get();
+            }
+        } finally {
+            agents.shutdown();
+        }
+
+        for (int job = 0; job < 8; job++) {
+            assertThat(new File(temporaryFolder.getRoot(), "job-" + job + ".log").length(), is(550L));
+        }
+        Map<String, Object> statistics = writer.statistics();
+        assertThat(statistics.get("Appends"), is(400L));
+        assertThat(statistics.get("AppendedBytes"), is(4400L));
+        assertThat(((List) statistics.get("BusiestLogs")).size(), is(8));
+    }
+
+    @Test
+    public void shouldCloseConsoleLogsThatHaveBeenIdle() throws Exception {
+        ConsoleLogWriter writer = new ConsoleLogWriter(1, 0, 5000, 60000);
+        File consoleLog = temporaryFolder.newFile("console.log");
+
+        writer.append(consoleLog, "line\n".getBytes(UTF_8));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Integer) writer.statistics().get("OpenLogs") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(writer.statistics().get("OpenLogs"), is(0));
+        assertThat(FileUtils.readFileToString(consoleLog, UTF_8), is("line\n"));
+    }
+
+    @Test
+    @RunIf(value = EnhancedOSChecker.class, arguments = {DO_NOT_RUN_ON, WINDOWS})
+    public void shouldGiveUpOnAWriteThatDoesNotFinishInTime() throws Exception {
+        ConsoleLogWriter writer = new ConsoleLogWriter(1, 60000, 5000, 100);
+        File blockingLog = new File(temporaryFolder.getRoot(), "console.fifo");
+        assertThat(new ProcessBuilder("mkfifo", blockingLog.getAbsolutePath()).start().waitFor(), is(0));
+
+        try {
+            writer.append(blockingLog, "line\n".getBytes(UTF_8));
+            fail("should have timed out");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("Timed out after 100ms writing console log " + blockingLog.toPath().toAbsolutePath()));
+        } finally {
+            new FileInputStream(blockingLog).close();
+        }
+        assertThat(writer.statistics().get("TimedOutWrites"), is(1L));
+    }
+}
@@ -19,15 +19,19 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.helper.JobIdentifierMother;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 
 import static com.thoughtworks.go.util.ArtifactLogUtil.getConsoleOutputFolderAndFileName;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -37,13 +41,15 @@ public class ConsoleServiceTest {
 
     private ArtifactDirectoryChooser chooser;
     private ConsoleService service;
+    private ConsoleLogWriter consoleLogWriter;
     @Rule
     public final TemporaryFolder testFolder = new TemporaryFolder();
 
     @Before
     public void setUp() throws Exception {
         chooser = mock(ArtifactDirectoryChooser.class);
-        service = new ConsoleService(chooser);
+        consoleLogWriter = new ConsoleLogWriter(1, 60000, 0, 60000);
+        service = new ConsoleService(chooser, consoleLogWriter);
     }
 
     @After
@@ -123,6 +129,35 @@ public class ConsoleServiceTest {
         assertThat(finalConsoleLog.exists(), is(true));
     }
 
+    @Test
+    public void shouldMoveConsoleArtifactsThatAreStillOpenForAppending() throws Exception {
+        JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
+
+        File temporaryConsoleLog = new File(testFolder.getRoot(), "temporary_console.log");
+        File finalConsoleLog = new File(testFolder.getRoot(), "final_console.log");
+
+        when(chooser.temporaryConsoleFile(jobIdentifier)).thenReturn(temporaryConsoleLog);
+        when(chooser.findArtifact(jobIdentifier, getConsoleOutputFolderAndFileName())).thenReturn(finalConsoleLog);
+
+        assertThat(service.updateConsoleLog(temporaryConsoleLog, new ByteArrayInputStream("first line\n".getBytes(UTF_8))), is(true));
+        service.moveConsoleArtifacts(jobIdentifier);
+        assertThat(service.updateConsoleLog(finalConsoleLog, new ByteArrayInputStream("second line\n".getBytes(UTF_8))), is(true));
+
+        assertThat(temporaryConsoleLog.exists(), is(false));
+        assertThat(FileUtils.readFileToString(finalConsoleLog, UTF_8), is("first line\nsecond line\n"));
+    }
+
+    @Test
+    public void shouldAppendLargeUploadsToTheConsoleLogInBoundedChunks() throws Exception {
+        File consoleLog = new File(testFolder.getRoot(), "console.log");
+        String upload = StringUtils.repeat("0123456789abcdef", 200 * 64);
+
+        assertThat(service.updateConsoleLog(consoleLog, new ByteArrayInputStream(upload.getBytes(UTF_8))), is(true));
+
+        assertThat(FileUtils.readFileToString(consoleLog, UTF_8), is(upload));
+        assertThat(consoleLogWriter.statistics().get("Appends"), is(4L));
+    }
+
     @Test
     public void shouldCreateTemporaryConsoleFileAndMoveIfItDoesNotExist() throws Exception {
         JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GitMirrorCleanupServiceTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SystemEnvironment systemEnvironment;
+    private CruiseConfig cruiseConfig;
+    private File materialsRoot;
+    private GitMirrorCleanupService service;
+
+    @Before
+    public void setUp() throws IOException {
+        systemEnvironment = mock(SystemEnvironment.class);
+        cruiseConfig = mock(CruiseConfig.class);
+        GoConfigService goConfigService = mock(GoConfigService.class);
+        when(goConfigService.getCurrentConfig()).thenReturn(cruiseConfig);
+        materialsRoot = temporaryFolder.newFolder("pipelines");
+        service = new GitMirrorCleanupService(goConfigService, systemEnvironment, materialsRoot);
+    }
+
+    @Test
+    public void shouldRemoveMirrorsOfRepositoriesThatAreNoLongerConfiguredAlongWithTheirWorkingCopies() throws IOException {
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_MIRRORS_ENABLED)).thenReturn(true);
+        configure(new GitMaterialConfig("https://example.com/kept.git"));
+        File kept = mirror("https://example.com/kept.git");
+        File removed = mirror("https://example.com/removed.git");
+        File keptWorkingCopy = workingCopyBorrowingFrom("kept", kept);
+        File removedWorkingCopy = workingCopyBorrowingFrom("removed", removed);
+
+        service.onTimer();
+
+        assertThat(kept.exists(), is(true));
+        assertThat(keptWorkingCopy.exists(), is(true));
+        assertThat(removed.exists(), is(false));
+        assertThat(removedWorkingCopy.exists(), is(false));
+    }
+
+    @Test
+    public void shouldRemoveMirrorsOfConfiguredRepositoriesOnceMirrorsAreTurnedOffAndNothingBorrowsFromThem() throws IOException {
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_MIRRORS_ENABLED)).thenReturn(false);
+        configure(new GitMaterialConfig("https://example.com/borrowed.git"), new GitMaterialConfig("https://example.com/unused.git"));
+        File borrowed = mirror("https://example.com/borrowed.git");
+        File unused = mirror("https://example.com/unused.git");
+        File workingCopy = workingCopyBorrowingFrom("borrowing", borrowed);
+
+        service.onTimer();
+
+        assertThat(borrowed.exists(), is(true));
+        assertThat(workingCopy.exists(), is(true));
+        assertThat(unused.exists(), is(false));
+    }
+
+    private void configure(MaterialConfig... materialConfigs) {
+        Set<MaterialConfig> materials = new HashSet<>();
+        Collections.addAll(materials, materialConfigs);
+        when(cruiseConfig.getAllUniqueMaterialsOfPipelinesAndConfigRepos()).thenReturn(materials);
+    }
+
+    private File mirror(String url) throws IOException {
+        File mirror = new File(GitMaterial.mirrorsFolder(materialsRoot), GitMaterial.mirrorFolderName(url));
+        FileUtils.forceMkdir(new File(mirror, "objects"));
+        FileUtils.touch(new File(mirror, "HEAD"));
+        return mirror;
+    }
+
+    private File workingCopyBorrowingFrom(String flyweightName, File mirror) throws IOException {
+        File workingCopy = new File(new File(materialsRoot, "flyweight"), flyweightName);
+        FileUtils.writeStringToFile(new File(workingCopy, ".git/objects/info/alternates"), new File(mirror, "objects").getAbsolutePath() + "\n", UTF_8);
+        return workingCopy;
+    }
+}
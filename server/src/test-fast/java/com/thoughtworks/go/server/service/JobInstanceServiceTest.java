@@ -352,6 +352,68 @@ public class JobInstanceServiceTest {
         assertThat(result.canContinue(), is(false));
     }
 
+    @Test
+    public void shouldDelegateToDAO_findJobHistoryPageBefore() {
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(true);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(true);
+
+        final JobInstanceService jobService = new JobInstanceService(jobInstanceDao, buildPropertiesService, topic, jobStatusCache,
+                transactionTemplate, transactionSynchronizationManager, null, null, goConfigService, securityService, pluginManager, serverHealthService);
+
+        jobService.findJobHistoryPageBefore("pipeline", "stage", "job", 42L, 10, "looser", new HttpOperationResult());
+
+        verify(jobInstanceDao).findJobHistoryPageBefore("pipeline", "stage", "job", 10, 42L);
+    }
+
+    @Test
+    public void shouldDelegateToDAO_findJobHistoryPageAfter() {
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(true);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(true);
+
+        final JobInstanceService jobService = new JobInstanceService(jobInstanceDao, buildPropertiesService, topic, jobStatusCache,
+                transactionTemplate, transactionSynchronizationManager, null, null, goConfigService, securityService, pluginManager, serverHealthService);
+
+        jobService.findJobHistoryPageAfter("pipeline", "stage", "job", 42L, 10, "looser", new HttpOperationResult());
+
+        verify(jobInstanceDao).findJobHistoryPageAfter("pipeline", "stage", "job", 10, 42L);
+    }
+
+    @Test
+    public void shouldPopulateErrorWhenPipelineNotFound_findJobHistoryPageBefore() {
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(false);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(true);
+
+        final JobInstanceService jobService = new JobInstanceService(jobInstanceDao, buildPropertiesService, topic, jobStatusCache,
+                transactionTemplate, transactionSynchronizationManager, null, null, goConfigService, securityService, pluginManager, serverHealthService);
+
+        HttpOperationResult result = new HttpOperationResult();
+        JobInstances jobHistoryPage = jobService.findJobHistoryPageBefore("pipeline", "stage", "job", 42L, 10, "looser", result);
+
+        assertThat(jobHistoryPage, is(nullValue()));
+        assertThat(result.httpCode(), is(404));
+        verify(jobInstanceDao, never()).findJobHistoryPageBefore(anyString(), anyString(), anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    public void shouldPopulateErrorWhenUnauthorized_findJobHistoryPageBefore() {
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(true);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(false);
+
+        final JobInstanceService jobService = new JobInstanceService(jobInstanceDao, buildPropertiesService, topic, jobStatusCache,
+                transactionTemplate, transactionSynchronizationManager, null, null, goConfigService, securityService, pluginManager, serverHealthService);
+
+        HttpOperationResult result = new HttpOperationResult();
+        JobInstances jobHistoryPage = jobService.findJobHistoryPageBefore("pipeline", "stage", "job", 42L, 10, "looser", result);
+
+        assertThat(jobHistoryPage, is(nullValue()));
+        assertThat(result.httpCode(), is(403));
+        verify(jobInstanceDao, never()).findJobHistoryPageBefore(anyString(), anyString(), anyString(), anyInt(), anyLong());
+    }
+
     @Test
     public void shouldLoadOriginalJobPlan() {
         JobResolverService resolver = mock(JobResolverService.class);
@@ -729,6 +729,76 @@ public class PipelineHistoryServiceTest {
         assertThat(result.canContinue(), is(true));
     }
 
+    @Test
+    public void shouldLoadPipelineHistoryOlderThanGivenPipelineId_loadMinimalDataBefore() {
+        Username username = new Username(new CaseInsensitiveString("admin"));
+        String pipelineName = "pipeline";
+        CruiseConfig cruiseConfig = mock(BasicCruiseConfig.class);
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString(pipelineName))).thenReturn(true);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(username, pipelineName)).thenReturn(true);
+        when(pipelineDao.loadHistoryBefore(pipelineName, 42L, 10)).thenReturn(PipelineInstanceModels.createPipelineInstanceModels());
+
+        HttpOperationResult result = new HttpOperationResult();
+        PipelineInstanceModels pipelineInstanceModels = pipelineHistoryService.loadMinimalDataBefore(pipelineName, 42L, 10, username, result);
+
+        assertThat(pipelineInstanceModels, is(not(nullValue())));
+        assertThat(result.canContinue(), is(true));
+        verify(pipelineDao).loadHistoryBefore(pipelineName, 42L, 10);
+        verify(pipelineDao, never()).loadHistory(eq(pipelineName), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldLoadPipelineHistoryNewerThanGivenPipelineId_loadMinimalDataAfter() {
+        Username username = new Username(new CaseInsensitiveString("admin"));
+        String pipelineName = "pipeline";
+        CruiseConfig cruiseConfig = mock(BasicCruiseConfig.class);
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString(pipelineName))).thenReturn(true);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(username, pipelineName)).thenReturn(true);
+        when(pipelineDao.loadHistoryAfter(pipelineName, 42L, 10)).thenReturn(PipelineInstanceModels.createPipelineInstanceModels());
+
+        HttpOperationResult result = new HttpOperationResult();
+        PipelineInstanceModels pipelineInstanceModels = pipelineHistoryService.loadMinimalDataAfter(pipelineName, 42L, 10, username, result);
+
+        assertThat(pipelineInstanceModels, is(not(nullValue())));
+        assertThat(result.canContinue(), is(true));
+        verify(pipelineDao).loadHistoryAfter(pipelineName, 42L, 10);
+        verify(pipelineDao, never()).loadHistoryBefore(eq(pipelineName), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldPopulateResultAsNotFoundWhenPipelineNotFound_loadMinimalDataBefore() {
+        String pipelineName = "unknown-pipeline";
+        CruiseConfig cruiseConfig = mock(BasicCruiseConfig.class);
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString(pipelineName))).thenReturn(false);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+
+        HttpOperationResult result = new HttpOperationResult();
+        PipelineInstanceModels pipelineInstanceModels = pipelineHistoryService.loadMinimalDataBefore(pipelineName, 42L, 10, new Username(new CaseInsensitiveString("looser")), result);
+
+        assertThat(pipelineInstanceModels, is(nullValue()));
+        assertThat(result.httpCode(), is(404));
+        verify(pipelineDao, never()).loadHistoryBefore(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldPopulateResultAsUnauthorizedWhenUserNotAllowedToViewPipeline_loadMinimalDataBefore() {
+        Username noAccessUserName = new Username(new CaseInsensitiveString("foo"));
+        String pipelineName = "no-access-pipeline";
+        CruiseConfig cruiseConfig = mock(BasicCruiseConfig.class);
+        when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString(pipelineName))).thenReturn(true);
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(securityService.hasViewPermissionForPipeline(noAccessUserName, pipelineName)).thenReturn(false);
+
+        HttpOperationResult result = new HttpOperationResult();
+        PipelineInstanceModels pipelineInstanceModels = pipelineHistoryService.loadMinimalDataBefore(pipelineName, 42L, 10, noAccessUserName, result);
+
+        assertThat(pipelineInstanceModels, is(nullValue()));
+        assertThat(result.httpCode(), is(403));
+        verify(pipelineDao, never()).loadHistoryBefore(anyString(), anyLong(), anyInt());
+    }
+
     @Test
     public void shouldUpdateCommentUsingPipelineDao() {
         CaseInsensitiveString authorizedUser = new CaseInsensitiveString("can-access");
@@ -541,6 +541,68 @@ public class StageServiceTest {
         assertThat(result.httpCode(), is(403));
 	}
 
+	@Test
+	public void shouldDelegateToDAO_findDetailedStageHistoryBefore() {
+		when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(true);
+		when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+		when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(true);
+
+		final StageService stageService = new StageService(stageDao, jobInstanceService, mock(StageStatusTopic.class), mock(StageStatusCache.class), securityService, pipelineDao,
+		                changesetService, goConfigService, transactionTemplate, transactionSynchronizationManager, goCache);
+
+		stageService.findDetailedStageHistoryBefore("pipeline", "stage", 42L, 10, "looser", new HttpOperationResult());
+
+		verify(stageDao).findDetailedStageHistoryBefore("pipeline", "stage", 42L, 10);
+	}
+
+	@Test
+	public void shouldDelegateToDAO_findDetailedStageHistoryAfter() {
+		when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(true);
+		when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+		when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(true);
+
+		final StageService stageService = new StageService(stageDao, jobInstanceService, mock(StageStatusTopic.class), mock(StageStatusCache.class), securityService, pipelineDao,
+		                changesetService, goConfigService, transactionTemplate, transactionSynchronizationManager, goCache);
+
+		stageService.findDetailedStageHistoryAfter("pipeline", "stage", 42L, 10, "looser", new HttpOperationResult());
+
+		verify(stageDao).findDetailedStageHistoryAfter("pipeline", "stage", 42L, 10);
+	}
+
+	@Test
+	public void shouldPopulateErrorWhenPipelineNotFound_findDetailedStageHistoryBefore() {
+		when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(false);
+		when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+		when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(true);
+
+		final StageService stageService = new StageService(stageDao, jobInstanceService, mock(StageStatusTopic.class), mock(StageStatusCache.class), securityService, pipelineDao,
+		                changesetService, goConfigService, transactionTemplate, transactionSynchronizationManager, goCache);
+
+		HttpOperationResult result = new HttpOperationResult();
+		StageInstanceModels stageInstanceModels = stageService.findDetailedStageHistoryBefore("pipeline", "stage", 42L, 10, "looser", result);
+
+		assertThat(stageInstanceModels, is(Matchers.nullValue()));
+		assertThat(result.httpCode(), is(404));
+		verify(stageDao, never()).findDetailedStageHistoryBefore(anyString(), anyString(), anyLong(), anyInt());
+	}
+
+	@Test
+	public void shouldPopulateErrorWhenUnauthorized_findDetailedStageHistoryBefore() {
+		when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(true);
+		when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+		when(securityService.hasViewPermissionForPipeline(Username.valueOf("looser"), "pipeline")).thenReturn(false);
+
+		final StageService stageService = new StageService(stageDao, jobInstanceService, mock(StageStatusTopic.class), mock(StageStatusCache.class), securityService, pipelineDao,
+		                changesetService, goConfigService, transactionTemplate, transactionSynchronizationManager, goCache);
+
+		HttpOperationResult result = new HttpOperationResult();
+		StageInstanceModels stageInstanceModels = stageService.findDetailedStageHistoryBefore("pipeline", "stage", 42L, 10, "looser", result);
+
+		assertThat(stageInstanceModels, is(Matchers.nullValue()));
+		assertThat(result.httpCode(), is(403));
+		verify(stageDao, never()).findDetailedStageHistoryBefore(anyString(), anyString(), anyLong(), anyInt());
+	}
+
     @Test
     public void shouldPopulateErrorWhenPipelineNotFound_findStageWithIdentifier() {
         when(cruiseConfig.hasPipelineNamed(new CaseInsensitiveString("pipeline"))).thenReturn(false);
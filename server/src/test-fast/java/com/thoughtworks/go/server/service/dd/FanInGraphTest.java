@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.service.dd;
 
 import com.thoughtworks.go.config.BasicCruiseConfig;
 import com.thoughtworks.go.config.BasicPipelineConfigs;
+import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.materials.MaterialConfigs;
@@ -25,16 +26,62 @@ import com.thoughtworks.go.config.materials.ScmMaterialConfig;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
 import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
 import com.thoughtworks.go.config.materials.mercurial.HgMaterialConfig;
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.helper.PipelineConfigMother;
+import com.thoughtworks.go.server.dao.PipelineDao;
+import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.service.MaterialConfigConverter;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.Before;
 import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 
-import static org.hamcrest.Matchers.is;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
 
 public class FanInGraphTest {
+    private GitMaterialConfig git;
+    private PipelineConfig p1;
+    private PipelineConfig p2;
+    private PipelineConfig p3;
+    private CruiseConfig cruiseConfig;
+    private PipelineTimeline pipelineTimeline;
+    private PipelineDao pipelineDao;
+    private MaterialRepository materialRepository;
+    private SystemEnvironment systemEnvironment;
+    private MaterialConfigConverter materialConfigConverter;
+
+    @Before
+    public void setUp() throws Exception {
+        git = new GitMaterialConfig("giturl", "dest");
+        p1 = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git));
+        p2 = PipelineConfigMother.pipelineConfig("p2", new MaterialConfigs(git));
+        p3 = PipelineConfigMother.pipelineConfig("p3", new MaterialConfigs(dependencyOn(p1), dependencyOn(p2)));
+        cruiseConfig = new BasicCruiseConfig(new BasicPipelineConfigs(p1, p2, p3));
+
+        pipelineTimeline = mock(PipelineTimeline.class);
+        pipelineDao = mock(PipelineDao.class);
+        materialRepository = mock(MaterialRepository.class);
+        systemEnvironment = mock(SystemEnvironment.class);
+        materialConfigConverter = new MaterialConfigConverter();
+        when(systemEnvironment.get(SystemEnvironment.RESOLVE_FANIN_MAX_BACK_TRACK_LIMIT)).thenReturn(100);
+        when(pipelineTimeline.maximumId()).thenReturn(2L);
+        when(pipelineTimeline.instanceCount(p3.name())).thenReturn(0);
+
+        PipelineTimelineEntry.Revision gitRevision = new PipelineTimelineEntry.Revision(new Date(), "abc", "dest", 1L);
+        givenUpstreamRuns(p1, upstreamRun(p1, 1L, 1, gitRevision));
+        givenUpstreamRuns(p2, upstreamRun(p2, 2L, 1, gitRevision));
+    }
     @Test
     public void shouldConstructAFaninGraph() throws Exception {
         GitMaterialConfig git = new GitMaterialConfig("giturl", "dest");
@@ -57,4 +104,139 @@ public class FanInGraphTest {
         assertThat(scmMaterialUrls.contains("giturl"), is(true));
         assertThat(scmMaterialUrls.contains("hgurl"), is(true));
     }
+
+    @Test
+    public void shouldReuseTheLastResolutionWhenNeitherTheTimelineNorTheActualRevisionsHaveChanged() {
+        FanInResolutionStatistics statistics = new FanInResolutionStatistics();
+        FanInGraph faninGraph = new FanInGraph(cruiseConfig, p3.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        faninGraph.setFanInEventListener(statistics);
+
+        MaterialRevisions resolved = faninGraph.computeRevisions(actualRevisions("p1/1/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+        MaterialRevisions reused = faninGraph.computeRevisions(actualRevisions("p1/1/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+
+        assertThat(reused, is(resolved));
+        assertThat(stageLocators(reused), containsInAnyOrder("p1/1/mingle/1", "p2/1/mingle/1"));
+        verify(pipelineDao, times(1)).latestPassedStageIdentifier(1L, "mingle");
+        verify(pipelineDao, times(1)).latestPassedStageIdentifier(2L, "mingle");
+        assertThat(statistics.statistics().get("Resolutions"), is(1L));
+        assertThat(statistics.statistics().get("Reused"), is(1L));
+    }
+
+    @Test
+    public void shouldResolveAgainOnceAnUpstreamPipelineHasRunSinceTheLastResolution() {
+        FanInResolutionStatistics statistics = new FanInResolutionStatistics();
+        FanInGraph faninGraph = new FanInGraph(cruiseConfig, p3.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        faninGraph.setFanInEventListener(statistics);
+        faninGraph.computeRevisions(actualRevisions("p1/1/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+
+        PipelineTimelineEntry.Revision gitRevision = new PipelineTimelineEntry.Revision(new Date(), "abc", "dest", 1L);
+        givenUpstreamRuns(p1, upstreamRun(p1, 1L, 1, gitRevision), upstreamRun(p1, 3L, 2, gitRevision));
+        when(pipelineTimeline.maximumId()).thenReturn(3L);
+        MaterialRevisions resolved = faninGraph.computeRevisions(actualRevisions("p1/2/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+
+        assertThat(stageLocators(resolved), containsInAnyOrder("p1/2/mingle/1", "p2/1/mingle/1"));
+        verify(pipelineDao).latestPassedStageIdentifier(3L, "mingle");
+        assertThat(statistics.statistics().get("Resolutions"), is(2L));
+        assertThat(statistics.statistics().get("Reused"), is(0L));
+    }
+
+    @Test
+    public void shouldResolveAgainWhenTheActualRevisionsHaveChangedEvenIfTheTimelineHasNot() {
+        FanInResolutionStatistics statistics = new FanInResolutionStatistics();
+        FanInGraph faninGraph = new FanInGraph(cruiseConfig, p3.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        faninGraph.setFanInEventListener(statistics);
+
+        faninGraph.computeRevisions(actualRevisions("p1/1/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+        faninGraph.computeRevisions(actualRevisions("p1/1/mingle/2", "p2/1/mingle/1"), pipelineTimeline);
+
+        verify(pipelineDao, times(2)).latestPassedStageIdentifier(1L, "mingle");
+        assertThat(statistics.statistics().get("Resolutions"), is(2L));
+        assertThat(statistics.statistics().get("Reused"), is(0L));
+    }
+
+    @Test
+    public void shouldPopulateUpstreamNodesConcurrentlyOnTheGivenExecutor() throws Exception {
+        CyclicBarrier bothUpstreamsLookedUp = new CyclicBarrier(2);
+        Set<String> lookupThreads = ConcurrentHashMap.newKeySet();
+        recordStageLookups(lookupThreads, bothUpstreamsLookedUp);
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "fan-in-test-thread"));
+        try {
+            FanInGraph faninGraph = new FanInGraph(cruiseConfig, p3.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter, executor);
+
+            MaterialRevisions resolved = faninGraph.computeRevisions(actualRevisions("p1/1/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+
+            assertThat(stageLocators(resolved), containsInAnyOrder("p1/1/mingle/1", "p2/1/mingle/1"));
+            assertThat(lookupThreads, contains("fan-in-test-thread"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldPopulateUpstreamNodesOnTheCallingThreadWhileATransactionIsActive() throws Exception {
+        Set<String> lookupThreads = ConcurrentHashMap.newKeySet();
+        recordStageLookups(lookupThreads, null);
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "fan-in-test-thread"));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            FanInGraph faninGraph = new FanInGraph(cruiseConfig, p3.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter, executor);
+
+            faninGraph.computeRevisions(actualRevisions("p1/1/mingle/1", "p2/1/mingle/1"), pipelineTimeline);
+
+            assertThat(lookupThreads, contains(Thread.currentThread().getName()));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            executor.shutdownNow();
+        }
+    }
+
+    private void recordStageLookups(Set<String> lookupThreads, CyclicBarrier barrier) {
+        recordStageLookup(1L, new StageIdentifier("p1", 1, "mingle", "1"), lookupThreads, barrier);
+        recordStageLookup(2L, new StageIdentifier("p2", 1, "mingle", "1"), lookupThreads, barrier);
+    }
+
+    private void recordStageLookup(long pipelineId, StageIdentifier stageIdentifier, Set<String> lookupThreads, CyclicBarrier barrier) {
+        when(pipelineDao.latestPassedStageIdentifier(pipelineId, "mingle")).thenAnswer(invocation -> {
+            lookupThreads.add(Thread.currentThread().getName());
+            if (barrier != null) {
+                barrier.await(10, TimeUnit.SECONDS);
+            }
+            return stageIdentifier;
+        });
+    }
+
+    private void givenUpstreamRuns(PipelineConfig upstream, PipelineTimelineEntry... runs) {
+        when(pipelineTimeline.instanceCount(upstream.name())).thenReturn(runs.length);
+        for (int i = 0; i < runs.length; i++) {
+            PipelineTimelineEntry run = runs[i];
+            StageIdentifier stageIdentifier = new StageIdentifier(run.getPipelineName(), run.getCounter(), "mingle", "1");
+            when(pipelineTimeline.instanceFor(upstream.name(), i)).thenReturn(run);
+            when(pipelineDao.latestPassedStageIdentifier(run.getId(), "mingle")).thenReturn(stageIdentifier);
+            when(materialRepository.modificationFor(stageIdentifier)).thenReturn(singletonList(new Modification(new Date(), stageIdentifier.getStageLocator(), "label", run.getId())));
+        }
+    }
+
+    private PipelineTimelineEntry upstreamRun(PipelineConfig upstream, long id, int counter, PipelineTimelineEntry.Revision gitRevision) {
+        Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+        revisions.put(git.getFingerprint(), singletonList(gitRevision));
+        return new PipelineTimelineEntry(CaseInsensitiveString.str(upstream.name()), id, counter, revisions);
+    }
+
+    private MaterialRevisions actualRevisions(String p1StageLocator, String p2StageLocator) {
+        return new MaterialRevisions(
+                new MaterialRevision(materialConfigConverter.toMaterial(dependencyOn(p1)), new Modification(new Date(), p1StageLocator, "label", 1L)),
+                new MaterialRevision(materialConfigConverter.toMaterial(dependencyOn(p2)), new Modification(new Date(), p2StageLocator, "label", 2L)));
+    }
+
+    private List<String> stageLocators(MaterialRevisions revisions) {
+        List<String> stageLocators = new ArrayList<>();
+        for (MaterialRevision revision : revisions) {
+            stageLocators.add(revision.getLatestRevisionString());
+        }
+        return stageLocators;
+    }
+
+    private static DependencyMaterialConfig dependencyOn(PipelineConfig upstream) {
+        return new DependencyMaterialConfig(upstream.name(), upstream.get(0).name());
+    }
 }
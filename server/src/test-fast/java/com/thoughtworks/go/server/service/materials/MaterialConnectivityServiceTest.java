@@ -28,6 +28,7 @@ import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.domain.materials.ValidationBean;
 import com.thoughtworks.go.security.GoCipher;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.Before;
 import org.junit.experimental.theories.DataPoint;
 import org.junit.experimental.theories.Theories;
@@ -53,7 +54,7 @@ public class MaterialConnectivityServiceTest {
     public void setUp() throws Exception {
         materialConfigConverter = mock(MaterialConfigConverter.class);
         executionContext = mock(SubprocessExecutionContext.class);
-        service = new MaterialConnectivityService(materialConfigConverter);
+        service = new MaterialConnectivityService(materialConfigConverter, new ScmSubprocessGovernor(new SystemEnvironment()));
     }
 
     @DataPoint public static RequestDataPoints GIT_VALID = new RequestDataPoints(new GitMaterial("url") {
@@ -140,6 +140,97 @@ public class FileViewTest {
         assertEquals("UTF-8", mockResponse.getCharacterEncoding());
     }
 
+    @Test
+    public void shouldSendOnlyTheRequestedRangeOfTheFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=2-");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, mockResponse.getStatus());
+        assertEquals("bytes 2-4/5", mockResponse.getHeader("Content-Range"));
+        assertEquals(3, getContentLength(mockResponse));
+        assertEquals("llo", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldRejectARangeBeyondTheEndOfTheFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=5-");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, mockResponse.getStatus());
+        assertEquals("bytes */5", mockResponse.getHeader("Content-Range"));
+        assertEquals("", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldRejectARangeThatStartsTooFarToBeANumber() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=99999999999999999999-");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, mockResponse.getStatus());
+        assertEquals("bytes */5", mockResponse.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void shouldTreatRangeEndsAndSuffixesTooLargeToBeANumberAsTheEndOfTheFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=1-99999999999999999999");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, mockResponse.getStatus());
+        assertEquals("ello", mockResponse.getContentAsString());
+
+        MockHttpServletRequest suffixRequest = new MockHttpServletRequest();
+        suffixRequest.addHeader("Range", "bytes=-99999999999999999999");
+        MockHttpServletResponse suffixResponse = new MockHttpServletResponse();
+        view.render(model, suffixRequest, suffixResponse);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, suffixResponse.getStatus());
+        assertEquals("bytes 0-4/5", suffixResponse.getHeader("Content-Range"));
+        assertEquals("hello", suffixResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldSendTheWholeFileWhenItChangedSinceTheRangeWasAskedFor() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=2-");
+        mockRequest.addHeader("If-Range", "\"stale\"");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_OK, mockResponse.getStatus());
+        assertEquals("bytes", mockResponse.getHeader("Accept-Ranges"));
+        assertEquals("hello", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldHonourARangeForTheSameVersionOfTheFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        view.render(model, mockRequest, mockResponse);
+        String entityTag = mockResponse.getHeader("ETag");
+
+        MockHttpServletRequest rangeRequest = new MockHttpServletRequest();
+        rangeRequest.addHeader("Range", "bytes=-2");
+        rangeRequest.addHeader("If-Range", entityTag);
+        MockHttpServletResponse rangeResponse = new MockHttpServletResponse();
+        view.render(model, rangeRequest, rangeResponse);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, rangeResponse.getStatus());
+        assertEquals("lo", rangeResponse.getContentAsString());
+    }
+
     private long getContentLength(MockHttpServletResponse mockResponse) {
         return Long.parseLong(mockResponse.getHeader("Content-Length"));
     }
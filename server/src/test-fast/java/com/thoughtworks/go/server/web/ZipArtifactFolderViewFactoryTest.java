@@ -18,24 +18,38 @@ package com.thoughtworks.go.server.web;
 
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.cache.ZipArtifactCache;
+import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.view.artifacts.PreparingArtifactFile;
+import com.thoughtworks.go.server.view.artifacts.StreamingArtifactZipFile;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TestFileUtil;
+import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.servlet.ModelAndView;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.util.HashMap;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ZipArtifactFolderViewFactoryTest {
     private static final JobIdentifier JOB_IDENTIFIER = new JobIdentifier("pipeline-name", "label-111", "stage-name", 1, "job-name", 666L);
     private File folder;
     private ZipArtifactFolderViewFactory folderViewFactory;
     private File cacheZipFile;
+    private SystemEnvironment systemEnvironment;
 
     @Rule
     public final TemporaryFolder temporaryFolder = new TemporaryFolder();
@@ -45,6 +59,11 @@ public class ZipArtifactFolderViewFactoryTest {
         new File(folder, "dir").mkdirs();
         temporaryFolder.newFolder("cache");
         cacheZipFile = temporaryFolder.newFile("cache/dir.zip");
+        systemEnvironment = new SystemEnvironment();
+    }
+
+    @After public void tearDown() {
+        systemEnvironment.reset(SystemEnvironment.ARTIFACT_CACHE_STREAMING_ENABLED);
     }
 
     @Test public void shouldCreateArtifactCacheIfDoesNotExist() throws Exception {
@@ -63,8 +82,70 @@ public class ZipArtifactFolderViewFactoryTest {
         assertThat(targetFile, is(cacheZipFile));
     }
 
+    @Test public void shouldStreamZipToTheRequesterThatClaimedCreationOfTheCache() throws Exception {
+        folderViewFactory = new ZipArtifactFolderViewFactory(new ZipArtifactCache(null, null, new SystemEnvironment()) {
+            public boolean isStreamingToFirstRequesterEnabled() {
+                return true;
+            }
+
+            public boolean canClaimCacheCreation(ArtifactFolder artifactFolder) {
+                return true;
+            }
+        });
+
+        ModelAndView modelAndView = folderViewFactory.createView(JOB_IDENTIFIER, new ArtifactFolder(JOB_IDENTIFIER, folder, "dir"));
+        assertThat(modelAndView.getView(), is(instanceOf(StreamingArtifactZipFile.class)));
+    }
+
+    @Test public void shouldNotHoldOnToCreationOfTheCacheWhenTheStreamingViewIsNeverRendered() throws Exception {
+        ZipArtifactCache zipArtifactCache = streamingCache();
+        ArtifactFolder artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(folder, "dir"), "dir");
+        folderViewFactory = new ZipArtifactFolderViewFactory(zipArtifactCache);
+
+        ModelAndView modelAndView = folderViewFactory.createView(JOB_IDENTIFIER, artifactFolder);
+
+        assertThat(modelAndView.getView(), is(instanceOf(StreamingArtifactZipFile.class)));
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(true));
+    }
+
+    @Test public void shouldClaimCreationOfTheCacheWhenTheStreamingViewIsRendered() throws Exception {
+        ZipArtifactCache zipArtifactCache = streamingCache();
+        ArtifactFolder artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(folder, "dir"), "dir");
+        folderViewFactory = new ZipArtifactFolderViewFactory(zipArtifactCache);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        folderViewFactory.createView(JOB_IDENTIFIER, artifactFolder).getView().render(new HashMap<>(), new MockHttpServletRequest(), response);
+
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_OK));
+        assertThat(response.getContentType(), is("application/zip"));
+        assertThat(response.getContentAsByteArray(), is(FileUtils.readFileToByteArray(zipArtifactCache.cachedFile(artifactFolder))));
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(false));
+    }
+
+    @Test public void shouldAskToComeBackLaterWhenSomebodyElseClaimedCreationOfTheCacheBeforeTheStreamingViewWasRendered() throws Exception {
+        ZipArtifactCache zipArtifactCache = streamingCache();
+        ArtifactFolder artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(folder, "dir"), "dir");
+        folderViewFactory = new ZipArtifactFolderViewFactory(zipArtifactCache);
+        ModelAndView modelAndView = folderViewFactory.createView(JOB_IDENTIFIER, artifactFolder);
+        assertThat(zipArtifactCache.claimCacheCreation(artifactFolder), is(true));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        modelAndView.getView().render(new HashMap<>(), new MockHttpServletRequest(), response);
+
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_ACCEPTED));
+        assertThat(response.getContentAsByteArray().length, is(0));
+    }
+
+    private ZipArtifactCache streamingCache() throws Exception {
+        TestFileUtil.createTestFile(new File(folder, "dir"), "file1");
+        ArtifactsDirHolder artifactsDirHolder = mock(ArtifactsDirHolder.class);
+        when(artifactsDirHolder.getArtifactsDir()).thenReturn(temporaryFolder.newFolder("artifacts"));
+        systemEnvironment.set(SystemEnvironment.ARTIFACT_CACHE_STREAMING_ENABLED, true);
+        return new ZipArtifactCache(artifactsDirHolder, new ZipUtil(), systemEnvironment);
+    }
+
     private ZipArtifactCache cacheAlreadyCreated() {
-        return new ZipArtifactCache(null, null) {
+        return new ZipArtifactCache(null, null, new SystemEnvironment()) {
             public boolean cacheCreated(ArtifactFolder artifactFolder) {
                 return true;
             }
@@ -76,7 +157,7 @@ public class ZipArtifactFolderViewFactoryTest {
     }
 
     private ZipArtifactCache cacheNotCreated() {
-        return new ZipArtifactCache(null, null) {
+        return new ZipArtifactCache(null, null, new SystemEnvironment()) {
             public boolean cacheCreated(ArtifactFolder artifactFolder) {
                 return false;
             }
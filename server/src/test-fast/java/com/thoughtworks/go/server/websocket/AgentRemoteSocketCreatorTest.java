@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.websocket.MessageEncoding;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AgentRemoteSocketCreatorTest {
+    private ServletUpgradeRequest request;
+    private ServletUpgradeResponse response;
+    private SystemEnvironment systemEnvironment;
+    private AgentRemoteSocketCreator creator;
+
+    @Before
+    public void setUp() {
+        request = mock(ServletUpgradeRequest.class);
+        response = mock(ServletUpgradeResponse.class);
+        systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.isWebsocketBinaryMessagesEnabled()).thenReturn(true);
+        creator = new AgentRemoteSocketCreator(mock(AgentRemoteHandler.class), systemEnvironment);
+    }
+
+    @Test
+    public void shouldAgreeOnBinaryMessagesWithAgentsThatAskForThem() {
+        when(request.getHeader(MessageEncoding.ENCODING_HEADER)).thenReturn(MessageEncoding.BINARY_ENCODING);
+
+        creator.createWebSocket(request, response);
+
+        verify(response).setHeader(MessageEncoding.ENCODING_HEADER, MessageEncoding.BINARY_ENCODING);
+    }
+
+    @Test
+    public void shouldKeepUsingJsonMessagesWithOlderAgents() {
+        creator.createWebSocket(request, response);
+
+        verify(response, never()).setHeader(eq(MessageEncoding.ENCODING_HEADER), anyString());
+    }
+
+    @Test
+    public void shouldKeepUsingJsonMessagesWhenBinaryMessagesAreTurnedOff() {
+        when(systemEnvironment.isWebsocketBinaryMessagesEnabled()).thenReturn(false);
+        when(request.getHeader(MessageEncoding.ENCODING_HEADER)).thenReturn(MessageEncoding.BINARY_ENCODING);
+
+        creator.createWebSocket(request, response);
+
+        verify(response, never()).setHeader(eq(MessageEncoding.ENCODING_HEADER), anyString());
+    }
+}
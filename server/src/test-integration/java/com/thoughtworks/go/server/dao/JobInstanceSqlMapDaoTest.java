@@ -642,6 +642,55 @@ public class JobInstanceSqlMapDaoTest {
         assertJobHistoryCorrectness(instances, JOB_NAME);
     }
 
+    @Test
+    public void shouldFindJobHistoryPageOlderThanGivenJobId() throws Exception {
+        long stageId = createSomeJobs(JOB_NAME, 2);
+        createCopiedJobs(stageId, JOB_NAME, 2);
+        jobInstanceDao.save(stageId, JobInstanceMother.completed("shouldnotload", JobResult.Passed));
+        jobInstanceDao.save(stageId, JobInstanceMother.building(JOB_NAME));
+
+        JobInstances firstPage = jobInstanceDao.findJobHistoryPage(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, 0);
+        JobInstances secondPage = jobInstanceDao.findJobHistoryPage(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, 4);
+
+        JobInstances instances = jobInstanceDao.findJobHistoryPageBefore(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, Long.MAX_VALUE);
+        assertThat(instances.size(), is(4));
+        for (int i = 0; i < 4; i++) {
+            assertThat(instances.get(i).getId(), is(firstPage.get(i).getId()));
+        }
+        assertJobHistoryCorrectness(instances, JOB_NAME);
+
+        instances = jobInstanceDao.findJobHistoryPageBefore(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, instances.get(3).getId());
+        assertThat(instances.size(), is(2));
+        assertThat(instances.get(0).getId(), is(secondPage.get(0).getId()));
+        assertThat(instances.get(1).getId(), is(secondPage.get(1).getId()));
+        assertJobHistoryCorrectness(instances, JOB_NAME);
+
+        assertThat(jobInstanceDao.findJobHistoryPageBefore(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, instances.get(1).getId()).size(), is(0));
+    }
+
+    @Test
+    public void shouldFindJobHistoryPageNewerThanGivenJobIdNewestFirst() throws Exception {
+        long stageId = createSomeJobs(JOB_NAME, 2);
+        createCopiedJobs(stageId, JOB_NAME, 2);
+        jobInstanceDao.save(stageId, JobInstanceMother.completed("shouldnotload", JobResult.Passed));
+        jobInstanceDao.save(stageId, JobInstanceMother.building(JOB_NAME));
+
+        JobInstances history = jobInstanceDao.findJobHistoryPage(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 6, 0);
+
+        JobInstances instances = jobInstanceDao.findJobHistoryPageAfter(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, history.get(5).getId());
+        assertThat(instances.size(), is(4));
+        for (int i = 0; i < 4; i++) {
+            assertThat(instances.get(i).getId(), is(history.get(i + 1).getId()));
+        }
+        assertJobHistoryCorrectness(instances, JOB_NAME);
+
+        instances = jobInstanceDao.findJobHistoryPageAfter(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, instances.get(0).getId());
+        assertThat(instances.size(), is(1));
+        assertThat(instances.get(0).getId(), is(history.get(0).getId()));
+
+        assertThat(jobInstanceDao.findJobHistoryPageAfter(PIPELINE_NAME, STAGE_NAME, JOB_NAME, 4, history.get(0).getId()).size(), is(0));
+    }
+
     private void assertJobHistoryCorrectness(JobInstances instances, String jobName) {
         for (JobInstance instance : instances) {
             assertThat(instance.getIdentifier().getBuildName(), is(jobName));
@@ -611,6 +611,53 @@ public class PipelineSqlMapDaoIntegrationTest {
         assertThat(pipelineHistories.size(), is(3));
     }
 
+    @Test
+    public void shouldLoadPipelineHistoryOlderThanGivenPipelineId() throws Exception {
+        PipelineConfig mingleConfig = PipelineMother.twoBuildPlansWithResourcesAndMaterials("mingle", "dev");
+        PipelineConfig otherConfig = PipelineMother.twoBuildPlansWithResourcesAndMaterials("other", "dev");
+
+        Pipeline first = schedulePipelineWithStages(mingleConfig);
+        schedulePipelineWithStages(otherConfig);
+        Pipeline second = schedulePipelineWithStages(mingleConfig);
+        Pipeline third = schedulePipelineWithStages(mingleConfig);
+
+        PipelineInstanceModels page = pipelineDao.loadHistoryBefore("mingle", third.getId(), 10);
+
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).getId(), is(second.getId()));
+        assertThat(page.get(1).getId(), is(first.getId()));
+
+        PipelineInstanceModels lastPage = pipelineDao.loadHistoryBefore("mingle", second.getId(), 10);
+        assertThat(lastPage.size(), is(1));
+        assertThat(lastPage.get(0).getId(), is(first.getId()));
+
+        assertThat(pipelineDao.loadHistoryBefore("mingle", first.getId(), 10).size(), is(0));
+    }
+
+    @Test
+    public void shouldLoadPipelineHistoryNewerThanGivenPipelineIdNewestFirst() throws Exception {
+        PipelineConfig mingleConfig = PipelineMother.twoBuildPlansWithResourcesAndMaterials("mingle", "dev");
+        PipelineConfig otherConfig = PipelineMother.twoBuildPlansWithResourcesAndMaterials("other", "dev");
+
+        Pipeline first = schedulePipelineWithStages(mingleConfig);
+        Pipeline second = schedulePipelineWithStages(mingleConfig);
+        schedulePipelineWithStages(otherConfig);
+        Pipeline third = schedulePipelineWithStages(mingleConfig);
+        Pipeline fourth = schedulePipelineWithStages(mingleConfig);
+
+        PipelineInstanceModels page = pipelineDao.loadHistoryAfter("mingle", first.getId(), 2);
+
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).getId(), is(third.getId()));
+        assertThat(page.get(1).getId(), is(second.getId()));
+
+        PipelineInstanceModels firstPage = pipelineDao.loadHistoryAfter("mingle", third.getId(), 2);
+        assertThat(firstPage.size(), is(1));
+        assertThat(firstPage.get(0).getId(), is(fourth.getId()));
+
+        assertThat(pipelineDao.loadHistoryAfter("mingle", fourth.getId(), 2).size(), is(0));
+    }
+
     @Test
     public void shouldSupportPipelinesWithoutCounterWhenLoadHistory() {
         PipelineConfig mingleConfig = PipelineMother.twoBuildPlansWithResourcesAndMaterials("mingle", "dev");
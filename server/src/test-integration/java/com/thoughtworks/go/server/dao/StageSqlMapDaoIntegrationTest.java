@@ -1673,6 +1673,72 @@ public class StageSqlMapDaoIntegrationTest {
 		assertJobDetails(stageInstanceModels.get(0).getBuildHistory());
 	}
 
+	@Test
+	public void shouldGetDetailedStageHistoryOlderThanGivenStageId() throws Exception {
+		HgMaterial hg = new HgMaterial("url", null);
+		String[] hg_revs = {"h1", "h2", "h3"};
+		scheduleUtil.checkinInOrder(hg, hg_revs);
+
+		String pipelineName = "p1";
+		String stageName = "stage_name";
+
+		ScheduleTestUtil.AddedPipeline p1 = scheduleUtil.saveConfigWith(pipelineName, stageName, scheduleUtil.m(hg), new String[]{"job1", "job2"});
+		scheduleUtil.runAndPass(p1, "h1");
+		scheduleUtil.runAndPass(p1, "h2");
+		scheduleUtil.runAndPass(p1, "h3");
+
+		StageInstanceModels stageInstanceModels = stageDao.findDetailedStageHistoryBefore(pipelineName, stageName, Long.MAX_VALUE, 2);
+
+		assertThat(stageInstanceModels.size(), is(2));
+		assertThat(stageInstanceModels.get(0).getIdentifier().getPipelineCounter(), is(3));
+		assertThat(stageInstanceModels.get(1).getIdentifier().getPipelineCounter(), is(2));
+		assertJobDetails(stageInstanceModels.get(0).getBuildHistory());
+		assertJobDetails(stageInstanceModels.get(1).getBuildHistory());
+
+		stageInstanceModels = stageDao.findDetailedStageHistoryBefore(pipelineName, stageName, stageInstanceModels.get(1).getId(), 2);
+
+		assertThat(stageInstanceModels.size(), is(1));
+		assertThat(stageInstanceModels.get(0).getResult(), is(StageResult.Passed));
+		assertThat(stageInstanceModels.get(0).getIdentifier().getPipelineName(), is(pipelineName));
+		assertThat(stageInstanceModels.get(0).getIdentifier().getPipelineCounter(), is(1));
+		assertThat(stageInstanceModels.get(0).getIdentifier().getStageName(), is(stageName));
+		assertJobDetails(stageInstanceModels.get(0).getBuildHistory());
+
+		assertThat(stageDao.findDetailedStageHistoryBefore(pipelineName, stageName, stageInstanceModels.get(0).getId(), 2).size(), is(0));
+	}
+
+	@Test
+	public void shouldGetDetailedStageHistoryNewerThanGivenStageIdNewestFirst() throws Exception {
+		HgMaterial hg = new HgMaterial("url", null);
+		String[] hg_revs = {"h1", "h2", "h3", "h4"};
+		scheduleUtil.checkinInOrder(hg, hg_revs);
+
+		String pipelineName = "p1";
+		String stageName = "stage_name";
+
+		ScheduleTestUtil.AddedPipeline p1 = scheduleUtil.saveConfigWith(pipelineName, stageName, scheduleUtil.m(hg), new String[]{"job1", "job2"});
+		scheduleUtil.runAndPass(p1, "h1");
+		scheduleUtil.runAndPass(p1, "h2");
+		scheduleUtil.runAndPass(p1, "h3");
+		scheduleUtil.runAndPass(p1, "h4");
+
+		StageInstanceModels oldest = stageDao.findDetailedStageHistoryBefore(pipelineName, stageName, Long.MAX_VALUE, 4);
+		StageInstanceModels stageInstanceModels = stageDao.findDetailedStageHistoryAfter(pipelineName, stageName, oldest.get(3).getId(), 2);
+
+		assertThat(stageInstanceModels.size(), is(2));
+		assertThat(stageInstanceModels.get(0).getIdentifier().getPipelineCounter(), is(3));
+		assertThat(stageInstanceModels.get(1).getIdentifier().getPipelineCounter(), is(2));
+		assertJobDetails(stageInstanceModels.get(0).getBuildHistory());
+		assertJobDetails(stageInstanceModels.get(1).getBuildHistory());
+
+		stageInstanceModels = stageDao.findDetailedStageHistoryAfter(pipelineName, stageName, stageInstanceModels.get(0).getId(), 2);
+
+		assertThat(stageInstanceModels.size(), is(1));
+		assertThat(stageInstanceModels.get(0).getIdentifier().getPipelineCounter(), is(4));
+
+		assertThat(stageDao.findDetailedStageHistoryAfter(pipelineName, stageName, stageInstanceModels.get(0).getId(), 2).size(), is(0));
+	}
+
 	private void assertJobDetails(JobHistory buildHistory) {
 		assertThat(buildHistory.size(), is(2));
 		Set<String> jobNames = new HashSet<>(Arrays.asList(buildHistory.get(0).getName(), buildHistory.get(1).getName()));
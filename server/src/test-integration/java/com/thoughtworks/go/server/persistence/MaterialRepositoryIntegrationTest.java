@@ -733,6 +733,40 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(revisionsFor13.getModifications(material).get(0).getRevision(), is("12"));
     }
 
+    @Test
+    public void shouldLoadMaterialRevisionsForMultiplePipelinesTogether() throws Exception {
+        HgMaterial material = new HgMaterial("sdg", null);
+        MaterialRevision firstRevision = new MaterialRevision(material, new Modifications(modification("10"), modification("9")));
+        saveMaterialRev(firstRevision);
+        Pipeline firstPipeline = createPipeline();
+        savePMR(firstRevision, firstPipeline);
+
+        MaterialRevision secondRevision = new MaterialRevision(material, new Modifications(modification("11")));
+        saveMaterialRev(secondRevision);
+        Pipeline secondPipeline = createPipeline();
+        savePMR(secondRevision, secondPipeline);
+
+        repo.findMaterialRevisionsForPipeline(firstPipeline.getId());
+        Map<Long, MaterialRevisions> revisions = repo.findMaterialRevisionsForPipelines(asList(firstPipeline.getId(), secondPipeline.getId()));
+
+        assertThat(revisions.size(), is(2));
+        assertThat(revisions.get(firstPipeline.getId()).getModifications(material).size(), is(2));
+        assertThat(revisions.get(firstPipeline.getId()).getModifications(material).get(0).getRevision(), is("10"));
+        assertThat(revisions.get(secondPipeline.getId()).getModifications(material).size(), is(1));
+        assertThat(revisions.get(secondPipeline.getId()).getModifications(material).get(0).getRevision(), is("11"));
+        assertThat(repo.findMaterialRevisionsForPipelines(asList(firstPipeline.getId(), secondPipeline.getId())), is(revisions));
+    }
+
+    @Test
+    public void shouldCacheThatAPipelineHasNoMaterialRevisionsWhenLoadingThemTogether() throws Exception {
+        Pipeline pipeline = createPipeline();
+
+        Map<Long, MaterialRevisions> revisions = repo.findMaterialRevisionsForPipelines(asList(pipeline.getId()));
+
+        assertThat(revisions.get(pipeline.getId()).isEmpty(), is(true));
+        assertThat(goCache.get(repo.pipelinePmrsKey(pipeline.getId())), is(Collections.emptyList()));
+    }
+
     @Test
     public void shouldFixToAsFromForDependencyMaterialRevisionWhileSavingAndUpdating() throws Exception {
         Material material = new DependencyMaterial(new CaseInsensitiveString("pipeline_name"), new CaseInsensitiveString("stage_name"));
@@ -914,6 +948,63 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(revisions.size(), is(0));
     }
 
+    @Test
+    public void shouldMatchSearchTermsAsPrefixesOfTokens() throws Exception {
+        ScmMaterial material = material();
+        repo.saveOrUpdate(material.createMaterialInstance());
+        MaterialRevision first = saveOneScmModification("40c95a3c41f54b5fb3107982cf2acd08783f102a", material, "pavan", "meet_you_in_hell.txt", "Fixed the Build");
+        saveOneScmModification("c30c471137f31a4bf735f653f888e799f6deec04", material, "turn_her", "of_course_he_will_be_there_first.txt", "comment");
+
+        List<MatchedRevision> revisions = repo.findRevisionsMatching(material.config(), "build 40c9");
+        assertThat(revisions.size(), is(1));
+        assertMatchedRevision(revisions.get(0), first.getLatestShortRevision(), first.getLatestRevisionString(), "pavan", first.getDateOfLatestModification(), "Fixed the Build");
+
+        assertThat(repo.findRevisionsMatching(material.config(), "uild").size(), is(0));
+    }
+
+    @Test
+    public void shouldSearchModificationsSavedBeforeTheSearchIndexExistedUntilTheyAreBackfilled() throws Exception {
+        ScmMaterial material = material();
+        repo.saveOrUpdate(material.createMaterialInstance());
+        MaterialRevision old = saveOneScmModification("40c95a3c41f54b5fb3107982cf2acd08783f102a", material, "pavan", "meet_you_in_hell.txt", "comment");
+        long oldId = old.getLatestModification().getId();
+        dbHelper.execute("DELETE FROM modificationTokens");
+        dbHelper.execute("UPDATE modificationSearchIndex SET backfilledDownTo = " + (oldId + 1));
+
+        try {
+            List<MatchedRevision> revisions = repo.findRevisionsMatching(material.config(), "pavan");
+            assertThat(revisions.size(), is(1));
+
+            assertThat(transactionTemplate.execute(status -> repo.backfillSearchIndex(10)), is(1));
+            assertThat(transactionTemplate.execute(status -> repo.backfillSearchIndex(10)), is(0));
+
+            revisions = repo.findRevisionsMatching(material.config(), "pavan");
+            assertThat(revisions.size(), is(1));
+            assertMatchedRevision(revisions.get(0), old.getLatestShortRevision(), old.getLatestRevisionString(), "pavan", old.getDateOfLatestModification(), "comment");
+        } finally {
+            dbHelper.execute("UPDATE modificationSearchIndex SET backfilledDownTo = 1");
+        }
+    }
+
+    @Test
+    public void shouldMatchModificationsThatAreNotIndexedYetByTokenPrefixesToo() throws Exception {
+        ScmMaterial material = material();
+        repo.saveOrUpdate(material.createMaterialInstance());
+        MaterialRevision old = saveOneScmModification("40c95a3c41f54b5fb3107982cf2acd08783f102a", material, "pavan", "meet_you_in_hell.txt", "Fixed the Build");
+        dbHelper.execute("DELETE FROM modificationTokens");
+        dbHelper.execute("UPDATE modificationSearchIndex SET backfilledDownTo = " + (old.getLatestModification().getId() + 1));
+
+        try {
+            List<MatchedRevision> revisions = repo.findRevisionsMatching(material.config(), "BUILD 40c9");
+            assertThat(revisions.size(), is(1));
+            assertMatchedRevision(revisions.get(0), old.getLatestShortRevision(), old.getLatestRevisionString(), "pavan", old.getDateOfLatestModification(), "Fixed the Build");
+
+            assertThat(repo.findRevisionsMatching(material.config(), "uild").size(), is(0));
+        } finally {
+            dbHelper.execute("UPDATE modificationSearchIndex SET backfilledDownTo = 1");
+        }
+    }
+
     @Test
     public void shouldMatchSearchStringInDecreasingOrder() throws Exception {
         ScmMaterial material = material();
@@ -938,7 +1029,7 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(revisions.size(), is(1));
         assertMatchedRevision(revisions.get(0), userIsNullRevision.getLatestShortRevision(), userIsNullRevision.getLatestRevisionString(), null, userIsNullRevision.getDateOfLatestModification(), "bring it on!");
 
-        revisions = repo.findRevisionsMatching(material.config(), "c04 turn");
+        revisions = repo.findRevisionsMatching(material.config(), "c30c turn");
         assertThat(revisions.size(), is(1));
         assertMatchedRevision(revisions.get(0), commentIsNullRevision.getLatestShortRevision(), commentIsNullRevision.getLatestRevisionString(), "turn_her",
                 commentIsNullRevision.getDateOfLatestModification(), null);
@@ -169,6 +169,7 @@ public class DatabaseAccessHelper extends HibernateDaoSupport {
         dataSet.addTable(new DefaultTable("pipelinestates"));
         dataSet.addTable(new DefaultTable("materials"));
         dataSet.addTable(new DefaultTable("modifications"));
+        dataSet.addTable(new DefaultTable("modificationTokens"));
         dataSet.addTable(new DefaultTable("pipelineMaterialRevisions"));
         dataSet.addTable(new DefaultTable("modifiedFiles"));
 
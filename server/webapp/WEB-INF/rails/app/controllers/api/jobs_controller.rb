@@ -44,14 +44,23 @@ class Api::JobsController < Api::ApiController
     stage_name = params[:stage_name]
     job_name = params[:job_name]
     offset = params[:offset].to_i
+    before = params[:before].present? ? params[:before].to_i : nil
+    after = params[:after].present? ? params[:after].to_i : nil
     page_size = 10
-    job_instance_count = job_instance_service.getJobHistoryCount(pipeline_name, stage_name, job_name)
     result = HttpOperationResult.new
 
-    pagination = Pagination.pageStartingAt(offset, job_instance_count, page_size)
-    job_history = job_instance_service.findJobHistoryPage(pipeline_name, stage_name, job_name, pagination, CaseInsensitiveString.str(current_user.getUsername()), result)
+    if before
+      job_history = job_instance_service.findJobHistoryPageBefore(pipeline_name, stage_name, job_name, before, page_size, CaseInsensitiveString.str(current_user.getUsername()), result)
+    elsif after
+      job_history = job_instance_service.findJobHistoryPageAfter(pipeline_name, stage_name, job_name, after, page_size, CaseInsensitiveString.str(current_user.getUsername()), result)
+    else
+      job_instance_count = job_instance_service.getJobHistoryCount(pipeline_name, stage_name, job_name)
+      pagination = Pagination.pageStartingAt(offset, job_instance_count, page_size)
+      job_history = job_instance_service.findJobHistoryPage(pipeline_name, stage_name, job_name, pagination, CaseInsensitiveString.str(current_user.getUsername()), result)
+    end
 
     if result.canContinue()
+      pagination = CursorPaginationAPIModel.new(page_size, before, job_history, after) if before || after
       job_history_api_model = JobHistoryAPIModel.new(pagination, job_history)
       render json: job_history_api_model
     else
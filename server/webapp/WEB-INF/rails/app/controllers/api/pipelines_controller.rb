@@ -23,14 +23,23 @@ class Api::PipelinesController < Api::ApiController
   def history
     pipeline_name = params[:pipeline_name]
     offset = params[:offset].to_i
+    before = params[:before].present? ? params[:before].to_i : nil
+    after = params[:after].present? ? params[:after].to_i : nil
     page_size = 10
-    pipeline_instance_count = pipeline_history_service.totalCount(pipeline_name)
     result = HttpOperationResult.new
 
-    pagination = Pagination.pageStartingAt(offset, pipeline_instance_count, page_size)
-    pipeline_history = pipeline_history_service.loadMinimalData(pipeline_name, pagination, current_user, result)
+    if before
+      pipeline_history = pipeline_history_service.loadMinimalDataBefore(pipeline_name, before, page_size, current_user, result)
+    elsif after
+      pipeline_history = pipeline_history_service.loadMinimalDataAfter(pipeline_name, after, page_size, current_user, result)
+    else
+      pipeline_instance_count = pipeline_history_service.totalCount(pipeline_name)
+      pagination = Pagination.pageStartingAt(offset, pipeline_instance_count, page_size)
+      pipeline_history = pipeline_history_service.loadMinimalData(pipeline_name, pagination, current_user, result)
+    end
 
     if result.canContinue()
+      pagination = CursorPaginationAPIModel.new(page_size, before, pipeline_history, after) if before || after
       pipeline_history_api_model = PipelineHistoryAPIModel.new(pagination, pipeline_history)
       render json: pipeline_history_api_model
     else
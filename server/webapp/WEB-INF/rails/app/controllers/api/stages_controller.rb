@@ -54,14 +54,23 @@ class Api::StagesController < Api::ApiController
     pipeline_name = params[:pipeline_name]
     stage_name = params[:stage_name]
     offset = params[:offset].to_i
+    before = params[:before].present? ? params[:before].to_i : nil
+    after = params[:after].present? ? params[:after].to_i : nil
     page_size = 10
-    stage_instance_count = stage_service.getCount(pipeline_name, stage_name)
     result = HttpOperationResult.new
 
-    pagination = Pagination.pageStartingAt(offset, stage_instance_count, page_size)
-    stage_history = stage_service.findDetailedStageHistoryByOffset(pipeline_name, stage_name, pagination, CaseInsensitiveString.str(current_user.getUsername()), result)
+    if before
+      stage_history = stage_service.findDetailedStageHistoryBefore(pipeline_name, stage_name, before, page_size, CaseInsensitiveString.str(current_user.getUsername()), result)
+    elsif after
+      stage_history = stage_service.findDetailedStageHistoryAfter(pipeline_name, stage_name, after, page_size, CaseInsensitiveString.str(current_user.getUsername()), result)
+    else
+      stage_instance_count = stage_service.getCount(pipeline_name, stage_name)
+      pagination = Pagination.pageStartingAt(offset, stage_instance_count, page_size)
+      stage_history = stage_service.findDetailedStageHistoryByOffset(pipeline_name, stage_name, pagination, CaseInsensitiveString.str(current_user.getUsername()), result)
+    end
 
     if result.canContinue()
+      pagination = CursorPaginationAPIModel.new(page_size, before, stage_history, after) if before || after
       stage_history_api_model = StageHistoryAPIModel.new(pagination, stage_history)
       render json: stage_history_api_model
     else
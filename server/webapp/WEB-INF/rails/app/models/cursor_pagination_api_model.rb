@@ -0,0 +1,32 @@
+##########################GO-LICENSE-START################################
+# Copyright 2019 ThoughtWorks, Inc.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+##########################GO-LICENSE-END##################################
+
+
+class CursorPaginationAPIModel
+  attr_reader :page_size, :before, :after, :next_before, :previous_after
+
+  # A page is fetched either with a 'before' cursor (older instances) or with an 'after' cursor (newer instances).
+  # next_before is the cursor for the older page and previous_after the cursor for the newer one. Either is nil when
+  # there is nothing more to page through in that direction.
+  def initialize(page_size, before, instances, after = nil)
+    instances = instances.to_a
+    @page_size = page_size
+    @before = before
+    @after = after
+    @next_before = (after ? instances.any? : instances.size == page_size) ? instances.last.getId() : nil
+    @previous_after = (after ? instances.size == page_size : instances.any?) ? instances.first.getId() : nil
+  end
+end
@@ -18,7 +18,7 @@ class StageHistoryAPIModel
   attr_reader :pagination, :stages
 
   def initialize(pagination, stage_instances)
-    @pagination = PaginationAPIModel.new(pagination)
+    @pagination = pagination.is_a?(CursorPaginationAPIModel) ? pagination : PaginationAPIModel.new(pagination)
 
     @stages = stage_instances.collect do |stage_instance|
       StageInstanceAPIModel.new(stage_instance)
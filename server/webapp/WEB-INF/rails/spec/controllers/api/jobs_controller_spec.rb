@@ -98,6 +98,54 @@ describe Api::JobsController do
       expect(response.body).to eq(JobHistoryAPIModel.new(Pagination.pageStartingAt(5, 10, 10), [create_job_model]).to_json)
     end
 
+    it "should page history by job id when a before cursor is given" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@job_instance_service).not_to receive(:getJobHistoryCount)
+      expect(@job_instance_service).not_to receive(:findJobHistoryPage)
+      expect(@job_instance_service).to receive(:findJobHistoryPageBefore).with('pipeline', 'stage', 'job', 42, 10, "loser", anything).and_return([create_job_model])
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :job_name => 'job', :before => '42', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => 42, 'after' => nil, 'next_before' => nil, 'previous_after' => 543})
+      expect(response.body).to eq(JobHistoryAPIModel.new(CursorPaginationAPIModel.new(10, 42, [create_job_model]), [create_job_model]).to_json)
+    end
+
+    it "should point to the next page of jobs with the id of the last job on a full page" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@job_instance_service).to receive(:findJobHistoryPageBefore).with('pipeline', 'stage', 'job', 900, 10, "loser", anything).and_return(Array.new(10) { create_job_model })
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :job_name => 'job', :before => '900', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => 900, 'after' => nil, 'next_before' => 543, 'previous_after' => 543})
+    end
+
+    it "should page history towards newer jobs when an after cursor is given" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@job_instance_service).not_to receive(:getJobHistoryCount)
+      expect(@job_instance_service).not_to receive(:findJobHistoryPageBefore)
+      expect(@job_instance_service).to receive(:findJobHistoryPageAfter).with('pipeline', 'stage', 'job', 42, 10, "loser", anything).and_return([create_job_model])
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :job_name => 'job', :after => '42', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => nil, 'after' => 42, 'next_before' => 543, 'previous_after' => nil})
+    end
+
+    it "should render error correctly when paging by a before cursor" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@job_instance_service).to receive(:findJobHistoryPageBefore).with('pipeline', 'stage', 'job', 42, 10, "loser", anything) do |pipeline_name, stage_name, job_name, before, page_size, username, result|
+        result.forbidden("Unauthorized", "Not authorized", HealthStateType.general(HealthStateScope::GLOBAL))
+        nil
+      end
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :job_name => 'job', :before => '42', :no_layout => true}
+
+      expect(response.status).to eq(403)
+    end
+
     it "should render error correctly" do
       loser = Username.new(CaseInsensitiveString.new("loser"))
       expect(controller).to receive(:current_user).and_return(loser)
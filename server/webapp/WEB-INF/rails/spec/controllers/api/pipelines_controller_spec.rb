@@ -61,6 +61,42 @@ describe Api::PipelinesController do
       expect(response.body).to eq(PipelineHistoryAPIModel.new(Pagination.pageStartingAt(5, 10, 10), create_pipeline_history_model).to_json)
     end
 
+    it "should page history by pipeline id when a before cursor is given" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@pipeline_history_service).not_to receive(:totalCount)
+      expect(@pipeline_history_service).not_to receive(:loadMinimalData)
+      expect(@pipeline_history_service).to receive(:loadMinimalDataBefore).with('up42', 42, 10, loser, anything).and_return(create_pipeline_history_model)
+
+      get :history, params:{:pipeline_name => 'up42', :before => '42', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => 42, 'after' => nil, 'next_before' => nil, 'previous_after' => 321})
+      expect(response.body).to eq(PipelineHistoryAPIModel.new(CursorPaginationAPIModel.new(10, 42, create_pipeline_history_model), create_pipeline_history_model).to_json)
+    end
+
+    it "should point to the next page with the id of the last pipeline on a full page" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      pipeline_history = Array.new(10) { create_pipeline_model }
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@pipeline_history_service).to receive(:loadMinimalDataBefore).with('up42', 400, 10, loser, anything).and_return(pipeline_history)
+
+      get :history, params:{:pipeline_name => 'up42', :before => '400', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => 400, 'after' => nil, 'next_before' => 321, 'previous_after' => 321})
+    end
+
+    it "should page history towards newer pipelines when an after cursor is given" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@pipeline_history_service).not_to receive(:totalCount)
+      expect(@pipeline_history_service).not_to receive(:loadMinimalDataBefore)
+      expect(@pipeline_history_service).to receive(:loadMinimalDataAfter).with('up42', 42, 10, loser, anything).and_return(create_pipeline_history_model)
+
+      get :history, params:{:pipeline_name => 'up42', :after => '42', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => nil, 'after' => 42, 'next_before' => 321, 'previous_after' => nil})
+    end
+
     it "should render error correctly" do
       expect(@status).to receive(:canContinue).and_return(false)
       expect(@status).to receive(:detailedMessage).and_return("Not Acceptable")
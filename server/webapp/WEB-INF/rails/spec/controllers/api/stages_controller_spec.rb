@@ -180,6 +180,54 @@ describe Api::StagesController do
       expect(response.body).to eq(StageHistoryAPIModel.new(Pagination.pageStartingAt(5, 10, 10), [create_stage_model]).to_json)
     end
 
+    it "should page history by stage id when a before cursor is given" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@stage_service).not_to receive(:getCount)
+      expect(@stage_service).not_to receive(:findDetailedStageHistoryByOffset)
+      expect(@stage_service).to receive(:findDetailedStageHistoryBefore).with('pipeline', 'stage', 42, 10, "loser", anything).and_return([create_stage_model])
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :before => '42', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => 42, 'after' => nil, 'next_before' => nil, 'previous_after' => 456})
+      expect(response.body).to eq(StageHistoryAPIModel.new(CursorPaginationAPIModel.new(10, 42, [create_stage_model]), [create_stage_model]).to_json)
+    end
+
+    it "should point to the next page of stages with the id of the last stage on a full page" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@stage_service).to receive(:findDetailedStageHistoryBefore).with('pipeline', 'stage', 900, 10, "loser", anything).and_return(Array.new(10) { create_stage_model })
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :before => '900', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => 900, 'after' => nil, 'next_before' => 456, 'previous_after' => 456})
+    end
+
+    it "should page history towards newer stages when an after cursor is given" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@stage_service).not_to receive(:getCount)
+      expect(@stage_service).not_to receive(:findDetailedStageHistoryBefore)
+      expect(@stage_service).to receive(:findDetailedStageHistoryAfter).with('pipeline', 'stage', 42, 10, "loser", anything).and_return(Array.new(10) { create_stage_model })
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :after => '42', :no_layout => true}
+
+      expect(JSON.parse(response.body)['pagination']).to eq({'page_size' => 10, 'before' => nil, 'after' => 42, 'next_before' => 456, 'previous_after' => 456})
+    end
+
+    it "should render error correctly when paging by a before cursor" do
+      loser = Username.new(CaseInsensitiveString.new("loser"))
+      expect(controller).to receive(:current_user).and_return(loser)
+      expect(@stage_service).to receive(:findDetailedStageHistoryBefore).with('pipeline', 'stage', 42, 10, "loser", anything) do |pipeline_name, stage_name, before, page_size, username, result|
+        result.notFound("Not Found", "Pipeline not found", HealthStateType.general(HealthStateScope::GLOBAL))
+        nil
+      end
+
+      get :history, params:{:pipeline_name => 'pipeline', :stage_name => 'stage', :before => '42', :no_layout => true}
+
+      expect(response.status).to eq(404)
+    end
+
     it "should render error correctly" do
       loser = Username.new(CaseInsensitiveString.new("loser"))
       expect(controller).to receive(:current_user).and_return(loser)